@@ -0,0 +1,11 @@
+#!/bin/sh
+#
+# Builds the benchmark module and runs the whole suite. Any argument is
+# passed on to JMH, e.g. "./run.sh -p rows=1000 DataBenchmark" for a quick
+# run. The results are written to target/results.json.
+#
+cd "`dirname "$0"`" || exit 1
+
+mvn -B -q package || exit 1
+
+java -jar target/benchmarks.jar -rf json -rff target/results.json "$@"
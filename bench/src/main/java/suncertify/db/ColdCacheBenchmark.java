@@ -0,0 +1,137 @@
+/*
+ * ColdCacheBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The ColdCacheBenchmark class measures the Data class after the
+ * SoftReferences of the cached records have been cleared, as they are under
+ * memory pressure. Every record touched is recached from the database file.
+ *
+ * @see Data#clearCachedRecords()
+ * @see SyntheticDatabase
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 20 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx4g" } )
+public class ColdCacheBenchmark {
+
+    /**
+     * The number of records in the database.
+     */
+    @Param( { "1000", "100000", "1000000" } )
+    int rows;
+
+    /**
+     * The database file.
+     */
+    File file;
+
+    /**
+     * The database under test.
+     */
+    Data data;
+
+    /**
+     * This method generates the database, opens it and waits for its
+     * records to be loaded.
+     *
+     * @throws IOException If the database could not be generated.
+     */
+    @Setup( Level.Trial )
+    public void setUp() throws IOException {
+
+	SyntheticDatabase.quietLogging();
+	file = SyntheticDatabase.create( rows );
+	data = new Data( file.getPath() );
+	data.awaitLoaded();
+    }
+
+    /**
+     * This method clears the cached records before each measurement.
+     */
+    @Setup( Level.Invocation )
+    public void clearCache() {
+
+	data.clearCachedRecords();
+    }
+
+    /**
+     * This method closes and deletes the database.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+	data.close();
+	file.delete();
+    }
+
+    /**
+     * Searches for the contractors of the most popular location, recaching
+     * every record.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    public int [] findByLocation() throws RecordNotFoundException {
+
+	String [] criteria = new String[6];
+	criteria[LOCATION_IDX] = SyntheticDatabase.LOCATIONS[0];
+	return data.find( criteria );
+    }
+
+    /**
+     * Reads the first records, recaching each of them.
+     *
+     * @return The attributes of the last record read.
+     */
+    @Benchmark
+    public String [] readFirstRecords() {
+
+	String [] values = null;
+
+	for ( int recNo = 0; recNo < Math.min( rows, 1000 ); ++recNo ) {
+	    try {
+		values = data.read( recNo );
+	    } catch( RecordNotFoundException ex ) {
+		/* Deleted record */
+	    }
+	}
+
+	return values;
+    }
+}
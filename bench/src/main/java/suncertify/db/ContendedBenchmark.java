@@ -0,0 +1,196 @@
+/*
+ * ContendedBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The ContendedBenchmark class measures the Data class under concurrent
+ * access: searches running alongside bookings of a few hot contractors, and
+ * many threads locking the same records.
+ *
+ * @see SyntheticDatabase
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Group )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx4g" } )
+public class ContendedBenchmark {
+
+    /**
+     * The number of records in the database.
+     */
+    @Param( { "1000", "100000" } )
+    int rows;
+
+    /**
+     * The number of hot records the bookings and the lockers compete for.
+     */
+    @Param( { "4" } )
+    int hotRecords;
+
+    /**
+     * The database file.
+     */
+    File file;
+
+    /**
+     * The database under test.
+     */
+    Data data;
+
+    /**
+     * The numbers of the hot records.
+     */
+    int [] hot;
+
+    /**
+     * This method generates the database and opens it.
+     *
+     * @throws IOException If the database could not be generated.
+     *
+     * @throws RecordNotFoundException If the generated database has no
+     *         valid records.
+     */
+    @Setup( Level.Trial )
+    public void setUp() throws IOException, RecordNotFoundException {
+
+	SyntheticDatabase.quietLogging();
+	file = SyntheticDatabase.create( rows );
+	data = new Data( file.getPath() );
+
+	int [] valid = data.find( new String[6] );
+	hot = new int[ hotRecords ];
+	for ( int i = 0; i < hot.length; ++i ) {
+	    hot[i] = valid[i];
+	}
+    }
+
+    /**
+     * This method closes and deletes the database.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+	data.close();
+	file.delete();
+    }
+
+    /**
+     * The per thread position in the hot records.
+     */
+    @State( Scope.Thread )
+    public static class Cursor {
+
+	/**
+	 * The position.
+	 */
+	int next;
+
+	/**
+	 * This method returns the next hot record.
+	 *
+	 * @param hot The numbers of the hot records.
+	 *
+	 * @return A record number.
+	 */
+	int next( int [] hot ) {
+	    next = ( next + 1 ) % hot.length;
+	    return hot[ next ];
+	}
+    }
+
+    /**
+     * Searches running alongside the bookings.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    @Group( "searchWhileBooking" )
+    @GroupThreads( 6 )
+    public int [] search() throws RecordNotFoundException {
+
+	String [] criteria = new String[6];
+	criteria[LOCATION_IDX] = SyntheticDatabase.LOCATIONS[0];
+	criteria[OWNER_IDX] = "+";
+	return data.find( criteria );
+    }
+
+    /**
+     * Bookings and releases of the hot records, the way the server does them:
+     * lock, read, update and unlock.
+     *
+     * @param cursor The per thread position in the hot records.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    @Group( "searchWhileBooking" )
+    @GroupThreads( 2 )
+    public void book( Cursor cursor ) throws RecordNotFoundException {
+
+	int recNo = cursor.next( hot );
+
+	data.lock( recNo );
+	try {
+	    String [] values = data.read( recNo );
+	    values[OWNER_IDX] = values[OWNER_IDX].isEmpty() ? "12345678" : "";
+	    data.update( recNo, values );
+	} finally {
+	    data.unlock( recNo );
+	}
+    }
+
+    /**
+     * Many threads locking and unlocking the hot records.
+     *
+     * @param cursor The per thread position in the hot records.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    @Group( "lockHotRecords" )
+    @GroupThreads( 8 )
+    public void lockUnlock( Cursor cursor ) throws RecordNotFoundException {
+
+	int recNo = cursor.next( hot );
+
+	data.lock( recNo );
+	data.unlock( recNo );
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * DataBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The DataBenchmark class measures the single-threaded cost of the DBMain
+ * operations of the Data class on a warm cache.
+ *
+ * @see SyntheticDatabase
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx4g" } )
+public class DataBenchmark {
+
+    /**
+     * The number of records in the database.
+     */
+    @Param( { "1000", "100000", "1000000" } )
+    int rows;
+
+    /**
+     * The database file.
+     */
+    File file;
+
+    /**
+     * The database under test.
+     */
+    Data data;
+
+    /**
+     * A sample of the numbers of the valid records.
+     */
+    int [] sample;
+
+    /**
+     * The name/location keys of the sampled records.
+     */
+    String [][] keys;
+
+    /**
+     * The position in the sample.
+     */
+    int next;
+
+    /**
+     * The counter making the names of the created records unique.
+     */
+    int created;
+
+    /**
+     * This method generates the database and opens it.
+     *
+     * @throws IOException If the database could not be generated.
+     *
+     * @throws RecordNotFoundException If the generated database has no
+     *         valid records.
+     */
+    @Setup( Level.Trial )
+    public void setUp() throws IOException, RecordNotFoundException {
+
+	SyntheticDatabase.quietLogging();
+	file = SyntheticDatabase.create( rows );
+	data = new Data( file.getPath() );
+
+	int [] valid = data.find( new String[6] );
+	Random random = new Random( SyntheticDatabase.DEFAULT_SEED );
+
+	sample = new int[1024];
+	keys = new String[ sample.length ][];
+
+	for ( int i = 0; i < sample.length; ++i ) {
+	    sample[i] = valid[ random.nextInt( valid.length ) ];
+	    String [] values = data.read( sample[i] );
+	    keys[i] = new String[6];
+	    keys[i][NAME_IDX] = values[NAME_IDX];
+	    keys[i][LOCATION_IDX] = values[LOCATION_IDX];
+	}
+    }
+
+    /**
+     * This method closes and deletes the database.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+	data.close();
+	file.delete();
+    }
+
+    /**
+     * This method returns the position of the next sampled record.
+     *
+     * @return An index into the sample.
+     */
+    private int nextIndex() {
+
+	next = ( next + 1 ) & ( sample.length - 1 );
+	return next;
+    }
+
+    /**
+     * Searches with wildcard criteria, matching every valid record.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    public int [] findAll() throws RecordNotFoundException {
+
+	return data.find( new String[6] );
+    }
+
+    /**
+     * Searches for the contractors of the most popular location.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    public int [] findByLocation() throws RecordNotFoundException {
+
+	String [] criteria = new String[6];
+	criteria[LOCATION_IDX] = SyntheticDatabase.LOCATIONS[0];
+	return data.find( criteria );
+    }
+
+    /**
+     * Searches for the unbooked contractors with a speciality.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    public int [] findUnbookedBySpeciality()
+	                                throws RecordNotFoundException {
+
+	String [] criteria = new String[6];
+	criteria[SPECIALITIES_IDX] = SyntheticDatabase.SPECIALITIES[2];
+	criteria[OWNER_IDX] = "+";
+	return data.find( criteria );
+    }
+
+    /**
+     * Searches for a single contractor by name and location.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    public int [] findByKey() throws RecordNotFoundException {
+
+	return data.find( keys[ nextIndex() ] );
+    }
+
+    /**
+     * Searches with criteria matching no record.
+     *
+     * @return The matching record numbers, null when there are none.
+     */
+    @Benchmark
+    public int [] findNoHit() {
+
+	String [] criteria = new String[6];
+	criteria[NAME_IDX] = "No Such Contractor";
+
+	try {
+	    return data.find( criteria );
+	} catch( RecordNotFoundException ex ) {
+	    return null;
+	}
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @return The attributes of the record.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    public String [] read() throws RecordNotFoundException {
+
+	return data.read( sample[ nextIndex() ] );
+    }
+
+    /**
+     * Locks and unlocks a record.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    public void lockUnlock() throws RecordNotFoundException {
+
+	int recNo = sample[ nextIndex() ];
+	data.lock( recNo );
+	data.unlock( recNo );
+    }
+
+    /**
+     * Creates a record and deletes it again, so the size of the database
+     * stays the same.
+     *
+     * @throws DuplicateKeyException If the record already exists.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    public void createDelete() throws DuplicateKeyException,
+	                                  RecordNotFoundException {
+
+	String [] values = { "Bench Contractor " + ( created++ ), "Benchville",
+			     "Roofing", "5", "$50.00", "" };
+	int recNo = data.create( values );
+	data.lock( recNo );
+	data.delete( recNo );
+	data.unlock( recNo );
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * RecordCodecBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The RecordCodecBenchmark class measures the conversion of DBRecord objects
+ * from and to the fixed width form stored in the database file.
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RecordCodecBenchmark {
+
+    /**
+     * The layout of the application database records.
+     */
+    RecordLayout layout;
+
+    /**
+     * The attributes of a record.
+     */
+    String [] values;
+
+    /**
+     * The attributes of the same record in their stored form.
+     */
+    byte [] bytes;
+
+    /**
+     * A record.
+     */
+    DBRecord record;
+
+    /**
+     * This method builds the record.
+     */
+    @Setup
+    public void setUp() {
+
+	layout = SyntheticDatabase.header().getLayout();
+	values = new String[] { "Buonarotti & Company", "Xanadu",
+				"Air Conditioning, Painting, Painting", "10",
+				"$40.00", "12345678" };
+	record = new DBRecord( values.clone(), layout, 0 );
+	bytes = record.getRecordBytes().clone();
+    }
+
+    /**
+     * Parses a record read from the database file.
+     *
+     * @return The record.
+     */
+    @Benchmark
+    public DBRecord parse() {
+
+	return new DBRecord( bytes, layout, 0, DBRecord.VALID_REC_FLAG_VALUE );
+    }
+
+    /**
+     * Formats a record for writing to the database file.
+     *
+     * @return The stored form of the record.
+     */
+    @Benchmark
+    public byte [] format() {
+
+	return new DBRecord( values, layout, 0 ).getRecordBytes();
+    }
+
+    /**
+     * Returns the attributes of a record, as read() does.
+     *
+     * @return The attributes.
+     */
+    @Benchmark
+    public String [] fieldsValues() {
+
+	return record.getFieldsValues();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * ShardedBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The ShardedBenchmark class measures the ShardedData class under concurrent
+ * access: bookings spread over all the records running alongside searches,
+ * with the records in a single file or partitioned by location.
+ *
+ * @see SyntheticDatabase#createShards(int,int,int)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Group )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx4g" } )
+public class ShardedBenchmark {
+
+    /**
+     * The number of records in the database.
+     */
+    @Param( { "100000" } )
+    int rows;
+
+    /**
+     * The number of shards.
+     */
+    @Param( { "1", "4" } )
+    int shards;
+
+    /**
+     * The shard files.
+     */
+    File [] files;
+
+    /**
+     * The database under test.
+     */
+    ShardedData data;
+
+    /**
+     * The numbers of the valid records.
+     */
+    int [] valid;
+
+    /**
+     * This method generates the shard files and opens them.
+     *
+     * @throws IOException If the database could not be generated.
+     *
+     * @throws RecordNotFoundException If the generated database has no
+     *         valid records.
+     */
+    @Setup( Level.Trial )
+    public void setUp() throws IOException, RecordNotFoundException {
+
+	SyntheticDatabase.quietLogging();
+	files = SyntheticDatabase.createShards( rows, shards, LOCATION_IDX );
+
+	String [] locations = new String[ files.length ];
+	for ( int i = 0; i < files.length; ++i ) {
+	    locations[i] = files[i].getPath();
+	}
+
+	data = new ShardedData( locations, LOCATION_IDX );
+	valid = data.find( new String[6] );
+    }
+
+    /**
+     * This method closes and deletes the database.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+	data.close();
+	for ( File file : files ) {
+	    file.delete();
+	}
+    }
+
+    /**
+     * The per thread position in the valid records.
+     */
+    @State( Scope.Thread )
+    public static class Cursor {
+
+	/**
+	 * The position, advanced by a large prime so that the threads
+	 * spread over the records.
+	 */
+	int next = (int)Thread.currentThread().getId() * 7919;
+
+	/**
+	 * This method returns the next record.
+	 *
+	 * @param valid The numbers of the valid records.
+	 *
+	 * @return A record number.
+	 */
+	int next( int [] valid ) {
+	    next = ( next + 7919 ) % valid.length;
+	    return valid[ next ];
+	}
+    }
+
+    /**
+     * Searches of a popular location running alongside the bookings.
+     *
+     * @return The matching record numbers.
+     *
+     * @throws RecordNotFoundException If no record matches the criteria.
+     */
+    @Benchmark
+    @Group( "searchWhileBooking" )
+    @GroupThreads( 2 )
+    public int [] search() throws RecordNotFoundException {
+
+	String [] criteria = new String[6];
+	criteria[LOCATION_IDX] = SyntheticDatabase.LOCATIONS[0];
+	criteria[OWNER_IDX] = "+";
+	return data.find( criteria );
+    }
+
+    /**
+     * Bookings and releases spread over all the records, the way the server
+     * does them: lock, read, update and unlock.
+     *
+     * @param cursor The per thread position in the valid records.
+     *
+     * @throws RecordNotFoundException If the record does not exist.
+     */
+    @Benchmark
+    @Group( "searchWhileBooking" )
+    @GroupThreads( 6 )
+    public void book( Cursor cursor ) throws RecordNotFoundException {
+
+	int recNo = cursor.next( valid );
+
+	data.lock( recNo );
+	try {
+	    String [] values = data.read( recNo );
+	    values[OWNER_IDX] = values[OWNER_IDX].isEmpty() ? "12345678" : "";
+	    data.update( recNo, values );
+	} finally {
+	    data.unlock( recNo );
+	}
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * StartupBenchmark.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The StartupBenchmark class measures the opening of the database, both the
+ * time until the first record can be read and the time until all the records
+ * have been loaded.
+ *
+ * <p> Every opened database stays reachable from its shutdown hook, so the
+ * sizes and the number of iterations are kept small.
+ *
+ * @see Data#awaitLoaded()
+ * @see SyntheticDatabase
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 10 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx4g" } )
+public class StartupBenchmark {
+
+    /**
+     * The number of records in the database.
+     */
+    @Param( { "10000", "100000" } )
+    int rows;
+
+    /**
+     * The database file.
+     */
+    File file;
+
+    /**
+     * The database opened by the last invocation.
+     */
+    Data data;
+
+    /**
+     * This method generates the database.
+     *
+     * @throws IOException If the database could not be generated.
+     */
+    @Setup( Level.Trial )
+    public void setUp() throws IOException {
+
+	SyntheticDatabase.quietLogging();
+	file = SyntheticDatabase.create( rows );
+    }
+
+    /**
+     * This method closes the database opened by an invocation, once its
+     * records have been loaded.
+     */
+    @TearDown( Level.Invocation )
+    public void closeDatabase() {
+
+	data.awaitLoaded();
+	data.close();
+    }
+
+    /**
+     * This method deletes the database.
+     */
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+	file.delete();
+    }
+
+    /**
+     * Opens the database and reads a record from its middle.
+     *
+     * @return The attributes of the record.
+     *
+     * @throws RecordNotFoundException If the record is deleted.
+     */
+    @Benchmark
+    public String [] openAndRead() throws RecordNotFoundException {
+
+	data = new Data( file.getPath() );
+
+	try {
+	    return data.read( rows / 2 );
+	} catch( RecordNotFoundException ex ) {
+	    return data.read( rows / 2 + 1 );
+	}
+    }
+
+    /**
+     * Opens the database and waits for all its records to be loaded.
+     *
+     * @return The database.
+     */
+    @Benchmark
+    public Data openAndLoad() {
+
+	data = new Data( file.getPath() );
+	data.awaitLoaded();
+	return data;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * SyntheticDatabase.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The SyntheticDatabase class generates database files of a given number of
+ * records for the benchmarks. The files have the schema of the application
+ * database and realistic distributions of the attributes:
+ *
+ * <ul>
+ * <li> Locations are skewed, a few cities hold most of the contractors.
+ * <li> Each contractor has one to three specialities.
+ * <li> About a quarter of the contractors are booked by a customer.
+ * <li> One record in fifty is deleted.
+ * </ul>
+ *
+ * The generation is driven by a seeded random generator, so the same size and
+ * seed always produce the same file.
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class SyntheticDatabase {
+
+    /**
+     * The seed used by the benchmarks.
+     */
+    static final long DEFAULT_SEED = 20150728L;
+
+    /**
+     * The cookie of the application database file.
+     */
+    private static final int FILE_COOKIE = 0x0202;
+
+    /**
+     * The offset to the first record in the application database file.
+     */
+    private static final int OFFSET_TO_REC_ZERO = 70;
+
+    /**
+     * The locations, most popular first.
+     */
+    static final String[] LOCATIONS = {
+	"Smallville", "Whoville", "Lendmarch", "Bitsville", "Xanadu",
+	"EmeraldCity", "Pleasantville", "Digitopolis", "Atlantis", "Springfield",
+	"Gotham", "Metropolis", "Riverdale", "Hill Valley", "Sunnydale",
+	"Twin Peaks", "Castle Rock", "Stars Hollow", "Mayberry", "Bedrock"
+    };
+
+    /**
+     * The specialities.
+     */
+    static final String[] SPECIALITIES = {
+	"Roofing", "Drywall", "Painting", "Air Conditioning", "Plumbing",
+	"Electrical", "Carpets", "Glass", "Heating", "Masonry"
+    };
+
+    /**
+     * The words the contractor names are made of.
+     */
+    private static final String[] NAME_WORDS = {
+	"Hamner", "Tong", "Buonarotti", "Swanders", "Fred", "Nobby", "Moore",
+	"Philharmonic", "Dogs", "Tools", "Bitter", "Remodeling", "Grandpa"
+    };
+
+    /**
+     * The logger of the application packages. It is held here so that the
+     * level set by quietLogging() is not lost.
+     */
+    private static final Logger appLogger = Logger.getLogger( "suncertify" );
+
+    /**
+     * The generator only has class methods.
+     */
+    private SyntheticDatabase() {
+
+    }
+
+    /**
+     * This method raises the level of the application loggers to WARNING, so
+     * that the console output of the benchmarks is not flooded by the
+     * per-operation INFO messages.
+     */
+    static void quietLogging() {
+
+	appLogger.setLevel( Level.WARNING );
+    }
+
+    /**
+     * This method returns the header of the application database file.
+     *
+     * @return A reference to a DatabaseHeader object.
+     */
+    static DatabaseHeader header() {
+
+	Map<String, Short> schema = new LinkedHashMap<>();
+	schema.put( "name", (short)32 );
+	schema.put( "location", (short)64 );
+	schema.put( "specialties", (short)64 );
+	schema.put( "size", (short)6 );
+	schema.put( "rate", (short)8 );
+	schema.put( "owner", (short)8 );
+
+	return new DatabaseHeader( FILE_COOKIE, OFFSET_TO_REC_ZERO, schema );
+    }
+
+    /**
+     * This method creates a temporary database file, deleted when the JVM
+     * exits.
+     *
+     * @param rows The number of records.
+     *
+     * @return A reference to a File object denoting the database file.
+     *
+     * @throws IOException If an error is encountered while writing the file.
+     */
+    static File create( int rows ) throws IOException {
+
+	File file = File.createTempFile( "suncertify-bench-" + rows + "-", ".db" );
+	file.deleteOnExit();
+	write( file, rows, DEFAULT_SEED );
+	return file;
+    }
+
+    /**
+     * This method creates temporary database files holding the records of a
+     * database partitioned the way ShardedData partitions new records. The
+     * files are deleted when the JVM exits.
+     *
+     * @param rows The number of records of all the files.
+     *
+     * @param shards The number of files.
+     *
+     * @param keyField The index of the attribute selecting the file of a
+     *        record.
+     *
+     * @return An array of File objects denoting the database files.
+     *
+     * @throws IOException If an error is encountered while writing the files.
+     *
+     * @see ShardedData#shardOf(String,int)
+     */
+    static File [] createShards( int rows, int shards, int keyField )
+				 throws IOException {
+
+	File [] files = new File[ shards ];
+
+	for ( int i = 0; i < shards; ++i ) {
+	    files[i] = File.createTempFile( "suncertify-bench-" + rows + "-"
+					    + i + "-", ".db" );
+	    files[i].deleteOnExit();
+	}
+
+	write( files, rows, DEFAULT_SEED, keyField );
+	return files;
+    }
+
+    /**
+     * This method writes a database file.
+     *
+     * @param file A reference to a File object denoting the database file.
+     *
+     * @param rows The number of records.
+     *
+     * @param seed The seed of the random generator.
+     *
+     * @throws IOException If an error is encountered while writing the file.
+     */
+    static void write( File file, int rows, long seed ) throws IOException {
+
+	write( new File[] { file }, rows, seed, LOCATION_IDX );
+    }
+
+    /**
+     * This method writes the records of a database to one or more database
+     * files, each record going to the file selected by an attribute.
+     *
+     * @param files An array of File objects denoting the database files.
+     *
+     * @param rows The number of records of all the files.
+     *
+     * @param seed The seed of the random generator.
+     *
+     * @param keyField The index of the attribute selecting the file of a
+     *        record.
+     *
+     * @throws IOException If an error is encountered while writing the files.
+     */
+    private static void write( File [] files, int rows, long seed,
+			       int keyField ) throws IOException {
+
+	DatabaseHeader header = header();
+	RecordLayout layout = header.getLayout();
+	byte [] buf = new byte[ layout.getRecordLength() ];
+	String [] values = new String[ layout.getFieldCount() ];
+	Random random = new Random( seed );
+	DataOutputStream [] outs = new DataOutputStream[ files.length ];
+
+	try {
+	    for ( int i = 0; i < files.length; ++i ) {
+		outs[i] = new DataOutputStream(
+			      new BufferedOutputStream(
+				  new FileOutputStream( files[i] ), 1 << 20 ) );
+		header.write( outs[i] );
+	    }
+
+	    for ( int i = 0; i < rows; ++i ) {
+
+		record( i, random, values );
+
+		for ( int j = 0; j < values.length; ++j ) {
+		    layout.encodeField( j, values[j], buf );
+		}
+
+		DataOutputStream out =
+		    outs[ ShardedData.shardOf( values[keyField], files.length ) ];
+
+		out.writeShort( ( i % 50 == 49 ) ? DBRecord.DELETED_REC_FLAG_VALUE
+						 : DBRecord.VALID_REC_FLAG_VALUE );
+		out.write( buf );
+	    }
+	} finally {
+	    for ( DataOutputStream out : outs ) {
+		if ( out != null ) {
+		    out.close();
+		}
+	    }
+	}
+    }
+
+    /**
+     * This method generates the attributes of a record.
+     *
+     * @param i The index of the record. It makes the name unique.
+     *
+     * @param random A reference to the Random object driving the generation.
+     *
+     * @param values An array of String objects receiving the attributes.
+     */
+    private static void record( int i, Random random, String [] values ) {
+
+	values[NAME_IDX] = NAME_WORDS[ random.nextInt( NAME_WORDS.length ) ]
+	    + " " + NAME_WORDS[ random.nextInt( NAME_WORDS.length ) ]
+	    + " " + Integer.toString( i, 36 ).toUpperCase();
+
+	values[LOCATION_IDX] = LOCATIONS[ skewed( random, LOCATIONS.length ) ];
+
+	int first = random.nextInt( SPECIALITIES.length );
+	int count = 1 + random.nextInt( 3 );
+	StringBuilder sb = new StringBuilder( SPECIALITIES[first] );
+	for ( int j = 1; j < count; ++j ) {
+	    sb.append( ", " ).append(
+		   SPECIALITIES[ ( first + j * 3 ) % SPECIALITIES.length ] );
+	}
+	values[SPECIALITIES_IDX] = sb.toString();
+
+	values[SIZE_IDX] = Integer.toString( 1 + skewed( random, 30 ) );
+	values[RATE_IDX] = "$" + ( 20 + random.nextInt( 130 ) ) + ".00";
+	values[OWNER_IDX] = ( random.nextInt( 4 ) == 0 )
+	    ? Integer.toString( 10000000 + random.nextInt( 90000000 ) ) : "";
+    }
+
+    /**
+     * This method returns a random index skewed towards zero, index k being
+     * roughly twice as likely as index 2k.
+     *
+     * @param random A reference to the Random object driving the generation.
+     *
+     * @param n The number of indexes.
+     *
+     * @return An index between 0 and n - 1.
+     */
+    private static int skewed( Random random, int n ) {
+
+	double u = random.nextDouble();
+	return (int)( n * u * u );
+    }
+}
@@ -5,7 +5,7 @@
  * Copyright @Augustine Ogundimu, 2015
  */
 import java.util.logging.FileHandler;
-import java.util.logging.SimpleFormatter;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import java.io.IOException;
@@ -17,6 +17,8 @@ import suncertify.client.BrokerClient;
 import suncertify.common.AppConfigManager;
 import suncertify.common.AppConfigParam;
 import suncertify.common.AppRunMode;
+import suncertify.common.AsyncLogHandler;
+import suncertify.common.StructuredLogFormatter;
 
 /**
  * The <code>ContractorBrokerApp</code> implements the main method for 
@@ -29,11 +31,30 @@ import suncertify.common.AppRunMode;
  */
 public class ContractorBrokerApp {
 
+    /**
+     * The default size limit in bytes of a log file, used when the
+     * LOG_FILE_LIMIT parameter is not configured.
+     */
+    private static final int DEFAULT_LOG_FILE_LIMIT = 10 * 1024 * 1024;
+
+    /**
+     * The default number of log files kept, used when the LOG_FILE_COUNT
+     * parameter is not configured.
+     */
+    private static final int DEFAULT_LOG_FILE_COUNT = 5;
+
     /**
      * This method is called by the main method for the configuration and 
      * initialization of all base loggers used in the Contractor Brokerage
      * application.  
      *
+     * <p> The log records are written by an AsyncLogHandler to a rotating set
+     * of log files, so that logging does not delay the threads serving the
+     * clients.
+     *
+     * @see suncertify.common.AsyncLogHandler
+     * @see suncertify.common.StructuredLogFormatter
+     *
      * @param acm A reference to the AppConfigManager object 
      *
      * @see suncertify.common.AppConfigManager
@@ -46,8 +67,20 @@ public class ContractorBrokerApp {
 
 	String logFileName = acm.get( AppConfigParam.LOG_FILE_NAME );
 	
-	FileHandler logHandler = new FileHandler(logFileName, 50_000, 1, true);
-	logHandler.setFormatter( new SimpleFormatter() );
+	int limit = getIntParam( acm, AppConfigParam.LOG_FILE_LIMIT,
+				 DEFAULT_LOG_FILE_LIMIT );
+	int count = getIntParam( acm, AppConfigParam.LOG_FILE_COUNT,
+				 DEFAULT_LOG_FILE_COUNT );
+	int capacity = getIntParam( acm, AppConfigParam.LOG_BUFFER_CAPACITY,
+				    AsyncLogHandler.DEFAULT_CAPACITY );
+
+	FileHandler fileHandler = new FileHandler(logFileName, limit, count,
+						  true);
+	fileHandler.setFormatter( new StructuredLogFormatter() );
+	fileHandler.setLevel( Level.ALL );
+
+	AsyncLogHandler logHandler = new AsyncLogHandler( fileHandler,
+							  capacity );
 		
 	String dbLogger = acm.get( AppConfigParam.DB_LOGGER_NAME );
 	String serverLogger = acm.get( AppConfigParam.SERVER_LOGGER_NAME );
@@ -63,6 +96,38 @@ public class ContractorBrokerApp {
 	Logger.getLogger(commonLogger);
     }
 
+    /**
+     * This method returns the value of a positive integer configuration
+     * parameter.
+     *
+     * @param acm A reference to the AppConfigManager object
+     *
+     * @param key The key of the configuration parameter.
+     *
+     * @param defaultValue The value returned if the parameter is not
+     *        configured or is not a positive integer.
+     *
+     * @return The value of the parameter.
+     */
+    private static int getIntParam( AppConfigManager acm, String key,
+				    int defaultValue ) {
+
+	String value = acm.get( key );
+
+	try {
+	    if ( value != null ) {
+		int intValue = Integer.parseInt( value.trim() );
+		if ( intValue > 0 ) {
+		    return intValue;
+		}
+	    }
+	} catch( NumberFormatException ex ) {
+	    System.out.println( "Invalid value for " + key + " - " + value );
+	}
+
+	return defaultValue;
+    }
+
     
     /**
      * This is the starting point for the Contractor Brokerage application - the
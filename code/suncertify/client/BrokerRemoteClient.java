@@ -8,8 +8,6 @@
 package suncertify.client;
 
 import java.rmi.server.UnicastRemoteObject;
-import java.rmi.registry.Registry;
-import java.rmi.registry.LocateRegistry;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -56,6 +54,14 @@ public class BrokerRemoteClient extends BrokerClient implements
      * @see suncertify.server.BrokerRMIServer
      */
     private  BrokerRMIServerIF databaseServer;
+
+    /**
+     * The lease of the registration of this client for DB updates, which is
+     * renewed while the client runs.
+     *
+     * @see suncertify.client.ListenerLease
+     */
+    private ListenerLease listenerLease;
     
     
     /**
@@ -77,7 +83,8 @@ public class BrokerRemoteClient extends BrokerClient implements
      * <ul>
      * <li> Request client and server configuration parameters by displaying 
      *      the client configuration dialog to the user.
-     * <li> Lookup of the remote server from the RMI registry.
+     * <li> Lookup of the remote server from the RMI registry, a read-only
+     *      replica if one is configured.
      * <li> Exporting itself as a remote object to enable it to receive incoming
      *      calls.
      * <li> Registering itself with the remote server as DB update listener 
@@ -101,20 +108,15 @@ public class BrokerRemoteClient extends BrokerClient implements
 	try {
 
 	    AppConfigManager acm = AppConfigManager.getInstance();
-	    
-	    String serverHostName = acm.get( AppConfigParam.SERVER_HOST_NAME );
-	    
-	    String serverName = acm.get( AppConfigParam.SERVER_NAME );
-	    
-	    Registry registry = LocateRegistry.getRegistry( serverHostName );
 
-	    databaseServer = (BrokerRMIServerIF)registry.lookup(serverName);
+	    databaseServer = RemoteClientController.lookupServer( null );
 	    
 	    DBUpdateListener listener =
 		(DBUpdateListener)UnicastRemoteObject.exportObject(this, 0);
 	    
-	    clientId = databaseServer.registerUpdateListener(
-						(DBUpdateListener)this  );
+	    listenerLease = ListenerLease.register( databaseServer,
+						    (DBUpdateListener)this );
+	    clientId = listenerLease.getListenerId();
 
 	    controller =
 		ClientController.getController(AppRunMode.NETWORK_CLIENT);
@@ -162,7 +164,7 @@ public class BrokerRemoteClient extends BrokerClient implements
     public void stopClient() throws BrokerClientException {
 	if ( clientStarted ) {
 	    try {
-		databaseServer.unregisterUpdateListener( clientId );
+		listenerLease.cancel();
 		UnicastRemoteObject.unexportObject( this, true );
 		controller.stopController();
 	    } catch( Exception ex ) {
@@ -19,8 +19,11 @@ import suncertify.db.DuplicateKeyException;
 
 import suncertify.server.BrokerServerIF;
 import suncertify.server.BrokerServerException;
+import suncertify.server.ServerBusyException;
 import suncertify.server.InvalidRecordStateException;
 import suncertify.server.ContractorRecord;
+import suncertify.server.OperationResult;
+import suncertify.server.BookingTransaction;
 
 /**
  * The ClientController is the abstract base class for all the controllers in the 
@@ -51,6 +54,13 @@ public abstract class ClientController {
      */
     private static String REMOTE_SERVER_ERROR_MSG =
 	           "There was an error in the remote server; reason - ";
+
+    /**
+     * A String object denoting the text displayed when the server rejected a
+     * call because it was busy, followed by the suggested delay.
+     */
+    private static String SERVER_BUSY_MSG =
+	           "The server is busy, please retry in ";
     
     /**
      * This is a reference to a BrokerServerIF object. 
@@ -121,6 +131,8 @@ public abstract class ClientController {
 	    return databaseServer.addRecord( record );
 	    
 	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "addRecord(String)" );
 	    
 	    BrokerServerException e =
 		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
@@ -162,6 +174,8 @@ public abstract class ClientController {
 	    return databaseServer.getRecord(recNo);
 	    
 	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "getRecord(int)" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException during getRecord call - " +
@@ -206,6 +220,8 @@ public abstract class ClientController {
 	    databaseServer.deleteRecord( record );
 	    
 	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "deleteRecord(ContractorRecord)" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException in call to deleteRecord - " +
@@ -252,6 +268,8 @@ public abstract class ClientController {
 	    databaseServer.updateRecord(oldVal, newVal );
 	    
 	} catch(RemoteException ex ) {
+
+	    checkServerBusy( ex, "updateRecord(int,String[],String[]" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException in call to deleteRecord - " +
@@ -296,6 +314,8 @@ public abstract class ClientController {
 	    databaseServer.bookRecord( record );
 	    
 	} catch(RemoteException ex) {
+
+	    checkServerBusy( ex, "bookRecord(int,String[])" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException in call to deleteRecord - " +
@@ -339,6 +359,8 @@ public abstract class ClientController {
 	    databaseServer.releaseRecord( record );
 	    
 	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "releaseRecord(int,String[]" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException in call to releaseRecord - " +
@@ -382,6 +404,8 @@ public abstract class ClientController {
 	    return databaseServer.findRecords( criteria );
 	    
 	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "findRecords(String)" );
 	    
 	    logger.log( Level.SEVERE,
 			"Caught RemoteException in call to findRecords - " +
@@ -397,6 +421,496 @@ public abstract class ClientController {
 	}
     }
 
+    /**
+     * This method forwards a record deletion request to the database server.
+     * A record that has changed, is locked or booked, or no longer exists is
+     * reported in the result.
+     *
+     * @param record - A reference to the ContractorRecord object to be
+     *        deleted.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#tryDeleteRecord(ContractorRecord)
+     */
+    public OperationResult tryDeleteRecord( ContractorRecord record ) throws
+						   BrokerServerException {
+
+	try {
+
+	    return databaseServer.tryDeleteRecord( record );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "tryDeleteRecord(ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to tryDeleteRecord - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "tryDeleteRecord(ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a record update request to the database server.
+     * A record that has changed, is locked or booked, or no longer exists is
+     * reported in the result.
+     *
+     * @param oldVal A reference to a ContractorRecord object denoting the
+     * state of the record before the update.
+     *
+     * @param newVal A reference to a ContractorRecord object denoting the
+     * state of the record after the update.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#tryUpdateRecord(ContractorRecord,ContractorRecord)
+     */
+    public OperationResult tryUpdateRecord( ContractorRecord oldVal,
+					    ContractorRecord newVal ) throws
+						   BrokerServerException {
+
+	try {
+
+	    return databaseServer.tryUpdateRecord( oldVal, newVal );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "tryUpdateRecord(ContractorRecord,ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to tryUpdateRecord - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "tryUpdateRecord(ContractorRecord,ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a record booking request to the database server.
+     * A record that has changed, is locked or booked, or no longer exists is
+     * reported in the result.
+     *
+     * @param record A reference to a ContractorRecord object denoting the record
+     * to be booked.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws BrokerServerException If there were problems communicating
+     *         with the DB server.
+     *
+     * @see suncertify.server.BrokerServer#tryBookRecord(ContractorRecord)
+     */
+    public OperationResult tryBookRecord( ContractorRecord record ) throws
+						   BrokerServerException {
+
+	try {
+
+	    return databaseServer.tryBookRecord( record );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "tryBookRecord(ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to tryBookRecord - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "tryBookRecord(ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a record release request to the database server.
+     * A record that has changed, is locked or not booked, or no longer exists
+     * is reported in the result.
+     *
+     * @param record A reference to a ContractorRecord object denoting the record
+     * to be released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws BrokerServerException If there were problems communicating
+     *         with the DB server.
+     *
+     * @see suncertify.server.BrokerServer#tryReleaseRecord(ContractorRecord)
+     */
+    public OperationResult tryReleaseRecord( ContractorRecord record ) throws
+						   BrokerServerException {
+
+	try {
+
+	    return databaseServer.tryReleaseRecord( record );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "tryReleaseRecord(ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to tryReleaseRecord - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "tryReleaseRecord(ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a booking transaction to the database server.
+     * Either all the bookings and releases of the transaction are done or
+     * none, the record preventing the transaction is reported in the result.
+     *
+     * @param transaction A reference to a BookingTransaction object.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#executeTransaction(BookingTransaction)
+     */
+    public OperationResult executeTransaction( BookingTransaction transaction )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.executeTransaction( transaction );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "executeTransaction(BookingTransaction)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to executeTransaction - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController",
+			     "executeTransaction(BookingTransaction)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards several new records to the database server, which
+     * adds them in one call.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be added.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#addRecords(ContractorRecord[])
+     */
+    public OperationResult[] addRecords( ContractorRecord[] records )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.addRecords( records );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "addRecords(ContractorRecord[])" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to addRecords - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "addRecords(ContractorRecord[])", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a batch of updates to the database server. Each
+     * record is updated or not on its own.
+     *
+     * @param oldRecs An array of ContractorRecord objects denoting the
+     *        states of the records before the update.
+     *
+     * @param newRecs An array of ContractorRecord objects denoting the
+     *        states of the records after the update.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#updateRecords(ContractorRecord[], ContractorRecord[])
+     */
+    public OperationResult[] updateRecords( ContractorRecord[] oldRecs,
+					    ContractorRecord[] newRecs )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.updateRecords( oldRecs, newRecs );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "updateRecords(ContractorRecord[], ContractorRecord[])" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to updateRecords - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "updateRecords(ContractorRecord[], ContractorRecord[])", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a batch of bookings to the database server. Each
+     * record is booked or not on its own.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be booked.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#bookRecords(ContractorRecord[])
+     */
+    public OperationResult[] bookRecords( ContractorRecord[] records )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.bookRecords( records );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "bookRecords(ContractorRecord[])" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to bookRecords - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "bookRecords(ContractorRecord[])", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards a batch of releases to the database server. Each
+     * record is released or not on its own.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be released.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#releaseRecords(ContractorRecord[])
+     */
+    public OperationResult[] releaseRecords( ContractorRecord[] records )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.releaseRecords( records );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "releaseRecords(ContractorRecord[])" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to releaseRecords - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "releaseRecords(ContractorRecord[])", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method asks the database server to delete the records matching
+     * the criteria, except the booked ones.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @return The number of records deleted.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#deleteWhere(ContractorRecord)
+     */
+    public int deleteWhere( ContractorRecord criteria )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.deleteWhere( criteria );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "deleteWhere(ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to deleteWhere - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "deleteWhere(ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method asks the database server to change attributes of the
+     * records matching the criteria, except the booked ones.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @param fieldChanges An array of String objects denoting the new values
+     *        of the attributes, null for the attributes left unchanged.
+     *
+     * @return The number of records updated.
+     *
+     * @throws BrokerServerException If there was a problem communicating with
+     *         the server.
+     *
+     * @see suncertify.server.BrokerServer#updateWhere(ContractorRecord, String[])
+     */
+    public int updateWhere( ContractorRecord criteria, String [] fieldChanges )
+						throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.updateWhere( criteria, fieldChanges );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "updateWhere(ContractorRecord, String[])" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to updateWhere - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "updateWhere(ContractorRecord, String[])", e );
+
+	    throw e;
+	}
+    }
+
+    /**
+     * This method forwards record search request to the database server.
+     *
+     * @param criteria A reference to a ContractorRecord object. The attributes
+     * of the object denote the search criterion for the corresponding attribute
+     * for each record in the database.
+     *
+     * @return An array of ContractorRecord objects denoting the records that
+     *         match the specified criteria, a zero length array if there are
+     *         none.
+     *
+     * @throws BrokerServerException If there were problems communicating with
+     *         the database server.
+     *
+     * @see suncertify.server.BrokerServer#findMatchingRecords(ContractorRecord)
+     */
+    public ContractorRecord[] findMatchingRecords(ContractorRecord criteria)
+						  throws BrokerServerException {
+
+	try {
+
+	    return databaseServer.findMatchingRecords( criteria );
+
+	} catch( RemoteException ex ) {
+
+	    checkServerBusy( ex, "findMatchingRecords(ContractorRecord)" );
+
+	    logger.log( Level.SEVERE,
+			"Caught RemoteException in call to findMatchingRecords - " +
+			ex.getMessage() );
+
+	    BrokerServerException e =
+		new BrokerServerException( REMOTE_SERVER_ERROR_MSG +
+					   ex.getMessage(), ex );
+
+	    logger.throwing( "ClientController", "findMatchingRecords(ContractorRecord)", e );
+
+	    throw e;
+	}
+    }
+
     
     /**
      * This is the callback for nofification of DB updates.  
@@ -409,6 +923,40 @@ public abstract class ClientController {
     }
 
     
+    /**
+     * This method reports a call rejected by the server because it was busy.
+     * The rejection is a routine outcome under load, it is logged at INFO
+     * and the client is shown when to retry instead of a server error.
+     *
+     * @param ex A reference to the RemoteException object caught.
+     *
+     * @param method A String object naming the method of the call.
+     *
+     * @throws BrokerServerException If the server was busy.
+     *
+     * @see suncertify.server.ServerBusyException#retryAfter(Throwable)
+     */
+    private void checkServerBusy( RemoteException ex, String method )
+						throws BrokerServerException {
+
+	long retryAfter = ServerBusyException.retryAfter( ex );
+
+	if ( retryAfter < 0 ) {
+	    return;
+	}
+
+	logger.log( Level.INFO, "The server is busy, " + method
+		    + " rejected - retry in " + retryAfter + " ms" );
+
+	BrokerServerException e =
+	    new BrokerServerException( SERVER_BUSY_MSG + retryAfter + " ms.",
+				       ex );
+
+	logger.throwing( "ClientController", method, e );
+
+	throw e;
+    }
+
     /**
      * The call to this method will result in the controller unregistering
      * itself for DB updates from the DB server.
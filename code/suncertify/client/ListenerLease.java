@@ -0,0 +1,195 @@
+/*
+ * ListenerLease.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.client;
+
+import java.rmi.RemoteException;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import suncertify.server.BrokerServerIF;
+
+/**
+ * The ListenerLease class holds the registration of a DBUpdateListener with
+ * a server whose registrations are leases. It renews the lease periodically
+ * from a daemon thread, and registers the listener again if the server
+ * removed it, for example after the client could not be reached for a
+ * while. Nothing is renewed when the leases of the server never expire.
+ *
+ * @see suncertify.server.BrokerServer#renewListenerLease(int)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class ListenerLease extends Thread {
+
+    /**
+     * This is a reference to a Logger object. The logger's name is the fully
+     * qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The server the listener is registered with.
+     */
+    private final BrokerServerIF server;
+
+    /**
+     * The registered listener.
+     */
+    private final DBUpdateListener listener;
+
+    /**
+     * The interval in milliseconds between two renewals of the lease.
+     */
+    private final long interval;
+
+    /**
+     * The unique identifier issued to the listener by the server. It changes
+     * when the listener is registered again.
+     */
+    private volatile int listenerId;
+
+    /**
+     * A boolean value indicating whether the lease was cancelled, after which
+     * the listener is not registered again.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * The constructor.
+     *
+     * @param server A reference to the server.
+     *
+     * @param listener A reference to the registered listener.
+     *
+     * @param listenerId The unique identifier issued to the listener.
+     *
+     * @param interval The interval in milliseconds between two renewals.
+     */
+    private ListenerLease( BrokerServerIF server, DBUpdateListener listener,
+			   int listenerId, long interval ) {
+
+	super( "ListenerLease" );
+	setDaemon( true );
+	this.server = server;
+	this.listener = listener;
+	this.listenerId = listenerId;
+	this.interval = interval;
+    }
+
+    /**
+     * This method registers a listener with a server and starts renewing its
+     * lease. The lease is renewed three times per lease duration, so a
+     * single lost heartbeat does not let it expire.
+     *
+     * @param server A reference to the server.
+     *
+     * @param listener A reference to the listener, an exported remote object
+     *        for a remote server.
+     *
+     * @return A reference to the ListenerLease object of the registration.
+     *
+     * @throws RemoteException If there was a problem communicating with the
+     *         server.
+     */
+    static ListenerLease register( BrokerServerIF server,
+				   DBUpdateListener listener )
+				   throws RemoteException {
+
+	int listenerId = server.registerUpdateListener( listener );
+	long duration = server.getListenerLeaseDuration();
+
+	ListenerLease lease = new ListenerLease( server, listener, listenerId,
+						 Math.max( 1, duration / 3 ) );
+
+	if ( duration > 0 ) {
+	    lease.start();
+	}
+
+	return lease;
+    }
+
+    /**
+     * This method returns the unique identifier currently issued to the
+     * listener.
+     *
+     * @return The listener ID.
+     */
+    int getListenerId() {
+
+	return listenerId;
+    }
+
+    /**
+     * This method stops renewing the lease and unregisters the listener. It
+     * waits up to one interval for a renewal in progress to complete first.
+     * A renewal still blocked on the server after that is left behind, the
+     * listener is then unregistered on a best effort basis, and the renewal
+     * unregisters any listener it registers again once it returns.
+     *
+     * @throws RemoteException If there was a problem communicating with the
+     *         server, when no renewal was left behind.
+     */
+    void cancel() throws RemoteException {
+
+	cancelled = true;
+	interrupt();
+
+	try {
+	    join( interval );
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	}
+
+	if ( ! isAlive() ) {
+	    server.unregisterUpdateListener( listenerId );
+	    return;
+	}
+
+	try {
+	    server.unregisterUpdateListener( listenerId );
+	} catch( RemoteException ex ) {
+	    logger.log( Level.FINE, "Could not unregister the update "
+			+ "listener - " + ex.getMessage() );
+	}
+    }
+
+    /**
+     * The run method renews the lease at every interval until the lease is
+     * cancelled. A renewal that fails is retried at the next interval.
+     */
+    @Override
+    public void run() {
+
+	while ( ! cancelled && ! isInterrupted() ) {
+	    try {
+		Thread.sleep( interval );
+
+		if ( ! server.renewListenerLease( listenerId )
+		     && ! cancelled ) {
+		    listenerId = server.registerUpdateListener( listener );
+		    logger.log( Level.INFO, "The lease of the update listener "
+				+ "had expired, registered again with ID - "
+				+ "{0,number,#}", listenerId );
+
+		    /* The lease was cancelled while registering */
+		    if ( cancelled ) {
+			server.unregisterUpdateListener( listenerId );
+		    }
+		}
+	    } catch( InterruptedException ex ) {
+		return;
+	    } catch( RemoteException ex ) {
+		logger.log( Level.FINE, "Could not renew the lease of the "
+			    + "update listener - " + ex.getMessage() );
+	    }
+	}
+    }
+}
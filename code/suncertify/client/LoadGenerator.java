@@ -0,0 +1,784 @@
+/*
+ * LoadGenerator.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.client;
+
+import java.rmi.RemoteException;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import suncertify.common.AppRunMode;
+
+import suncertify.db.RecordNotFoundException;
+
+import suncertify.server.BrokerServer;
+import suncertify.server.BrokerServerException;
+import suncertify.server.ContractorRecord;
+import suncertify.server.OperationResult;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The LoadGenerator class is a headless tool for putting the RMI server under
+ * the load of many clients. It starts the BrokerRMIServer, connects simulated
+ * clients to it on the loopback interface and has them search, book, release
+ * and update records until the run time is over. Part of the bookings,
+ * releases and updates go to a few hot contractors, so clients compete for
+ * the same records.
+ *
+ * <p> Like real clients, the simulated clients work from the results of their
+ * last search, which may be stale. When the server reports a conflict for an
+ * operation, the client counts it and reads the record again.
+ *
+ * <p> At the end of the run the tool reports the throughput and the p50, p99
+ * and p999 latencies of each operation, the conflict rates and the delay of
+ * the update notifications. The notification delay is measured from the start
+ * of the latest booking, release or update call to the arrival of the
+ * notification at each client.
+ *
+ * <p> The server uses the database file and the RMI settings of the APP
+ * configuration. The run changes the owners and the rates of records, so the
+ * database file should be a scratch copy. Usage:
+ *
+ * <pre>
+ *   java suncertify.client.LoadGenerator [name=value ...]
+ * </pre>
+ *
+ * The parameters are:
+ * <ul>
+ * <li> clients - the number of simulated clients, default 8.
+ * <li> seconds - the run time, default 30.
+ * <li> mix - the search:book:release:update weights, default 50:20:20:10.
+ * <li> hot - the number of hot contractors, default 4.
+ * <li> hotShare - the percentage of the bookings, releases and updates going
+ *      to the hot contractors, default 50.
+ * <li> seed - the seed of the random generators, default 2015.
+ * </ul>
+ *
+ * @see RemoteClientController
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class LoadGenerator {
+
+    /**
+     * The logger of the application packages. Its level is raised to WARNING
+     * for the run, so the per-operation INFO messages do not skew the results.
+     */
+    private static final Logger appLogger = Logger.getLogger( "suncertify" );
+
+    /**
+     * The operations, in the order of the mix weights.
+     */
+    private static final String[] OPERATIONS = {
+	"search", "book", "release", "update"
+    };
+
+    /**
+     * The index of the search operation.
+     */
+    private static final int SEARCH = 0;
+
+    /**
+     * The index of the book operation.
+     */
+    private static final int BOOK = 1;
+
+    /**
+     * The index of the release operation.
+     */
+    private static final int RELEASE = 2;
+
+    /**
+     * The index of the update operation.
+     */
+    private static final int UPDATE = 3;
+
+    /**
+     * The start time, in nanoseconds, of the latest booking, release or
+     * update call of any client.
+     */
+    private static final AtomicLong lastMutationStart = new AtomicLong();
+
+    /**
+     * The LatencyRecorder class collects latencies in nanoseconds. Each
+     * recorder is used by a single thread; the recorders are merged at the end
+     * of the run.
+     */
+    static class LatencyRecorder {
+
+	/**
+	 * The recorded latencies.
+	 */
+	private long [] samples = new long[1024];
+
+	/**
+	 * The number of recorded latencies.
+	 */
+	private int count = 0;
+
+	/**
+	 * This method records a latency.
+	 *
+	 * @param nanos The latency in nanoseconds.
+	 */
+	void record( long nanos ) {
+
+	    if ( count == samples.length ) {
+		samples = Arrays.copyOf( samples, count * 2 );
+	    }
+	    samples[ count++ ] = nanos;
+	}
+
+	/**
+	 * This method adds the latencies of another recorder to this one.
+	 *
+	 * @param other A reference to a LatencyRecorder object.
+	 */
+	void add( LatencyRecorder other ) {
+
+	    for ( int i = 0; i < other.count; ++i ) {
+		record( other.samples[i] );
+	    }
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return The number of recorded latencies.
+	 */
+	int getCount() {
+	    return count;
+	}
+
+	/**
+	 * This method sorts the latencies so the percentiles can be read.
+	 */
+	void sort() {
+	    Arrays.sort( samples, 0, count );
+	}
+
+	/**
+	 * This method returns a percentile of the sorted latencies.
+	 *
+	 * @param percent The percentile, e.g. 99.9.
+	 *
+	 * @return The latency in milliseconds.
+	 */
+	double percentile( double percent ) {
+
+	    if ( count == 0 ) {
+		return 0;
+	    }
+
+	    int idx = (int)Math.ceil( percent / 100 * count ) - 1;
+	    return samples[ Math.max( 0, Math.min( idx, count - 1 ) ) ] / 1e6;
+	}
+    }
+
+    /**
+     * The SimulatedClient class is a remote client driven by a thread of the
+     * load generator. It records the arrival of the update notifications.
+     */
+    private class SimulatedClient extends RemoteClientController
+				  implements Runnable {
+
+	/**
+	 * The random generator choosing the operations and the records.
+	 */
+	private final Random random;
+
+	/**
+	 * The records as the client last saw them, by record number.
+	 */
+	private final Map<Integer, ContractorRecord> view = new HashMap<>();
+
+	/**
+	 * The latencies of each operation.
+	 */
+	final LatencyRecorder[] latencies = new LatencyRecorder[ OPERATIONS.length ];
+
+	/**
+	 * The number of rejected operations of each kind.
+	 */
+	final long[] conflicts = new long[ OPERATIONS.length ];
+
+	/**
+	 * The number of failed operations of each kind, other than conflicts.
+	 */
+	final long[] failures = new long[ OPERATIONS.length ];
+
+	/**
+	 * The notification delays. It is written by the RMI threads
+	 * delivering the notifications, hence the synchronization.
+	 */
+	final LatencyRecorder notifications = new LatencyRecorder();
+
+	/**
+	 * The constructor. It connects the client to the server on the
+	 * loopback interface and registers it for update notifications.
+	 *
+	 * @param seed The seed of the random generator of the client.
+	 *
+	 * @throws BrokerClientException If the client could not connect.
+	 */
+	SimulatedClient( long seed ) throws BrokerClientException {
+
+	    super( "localhost" );
+
+	    random = new Random( seed );
+
+	    for ( int i = 0; i < latencies.length; ++i ) {
+		latencies[i] = new LatencyRecorder();
+	    }
+	}
+
+	/**
+	 * This method records the delay of an update notification.
+	 */
+	@Override
+	public void notifyUpdate() {
+
+	    long delay = System.nanoTime() - lastMutationStart.get();
+
+	    synchronized( notifications ) {
+		notifications.record( delay );
+	    }
+	}
+
+	/**
+	 * This method runs operations until the end of the run.
+	 */
+	public void run() {
+
+	    try {
+		start.await();
+	    } catch( InterruptedException ex ) {
+		return;
+	    }
+
+	    while ( System.nanoTime() < deadline ) {
+
+		int op = chooseOperation();
+		long begin = System.nanoTime();
+
+		try {
+		    OperationResult result;
+
+		    switch( op ) {
+		    case SEARCH:
+			search();
+			result = OperationResult.success();
+			break;
+		    case BOOK:
+			result = book();
+			break;
+		    case RELEASE:
+			result = release();
+			break;
+		    default:
+			result = update();
+		    }
+
+		    if ( result.getStatus() ==
+			 OperationResult.Status.CONFLICT ) {
+			++conflicts[op];
+		    } else if ( ! result.isSuccess() ) {
+			++failures[op];
+		    }
+		} catch( RecordNotFoundException | BrokerServerException ex ) {
+		    ++failures[op];
+		}
+
+		latencies[op].record( System.nanoTime() - begin );
+	    }
+	}
+
+	/**
+	 * This method chooses an operation using the mix weights.
+	 *
+	 * @return The index of the operation.
+	 */
+	private int chooseOperation() {
+
+	    int n = random.nextInt( totalWeight );
+
+	    for ( int i = 0; i < mix.length; ++i ) {
+		if ( n < mix[i] ) {
+		    return i;
+		}
+		n -= mix[i];
+	    }
+
+	    return SEARCH;
+	}
+
+	/**
+	 * This method chooses the record of a booking, release or update, a
+	 * hot contractor for the hot share of the operations.
+	 *
+	 * @return A reference to the record as the client last saw it.
+	 *
+	 * @throws RecordNotFoundException If the record no longer exists.
+	 *
+	 * @throws BrokerServerException If the record could not be read.
+	 */
+	private ContractorRecord chooseRecord() throws RecordNotFoundException,
+						       BrokerServerException {
+
+	    int recNo = ( random.nextInt( 100 ) < hotShare )
+		? hotRecords[ random.nextInt( hotRecords.length ) ]
+		: allRecords[ random.nextInt( allRecords.length ) ];
+
+	    ContractorRecord record = view.get( recNo );
+
+	    if ( record == null ) {
+		record = getRecord( recNo );
+		view.put( recNo, record );
+	    }
+
+	    return new ContractorRecord( record );
+	}
+
+	/**
+	 * This method searches for the contractors of a random location,
+	 * half of the time only for the unbooked ones.
+	 *
+	 * @throws BrokerServerException If the search failed.
+	 */
+	private void search() throws BrokerServerException {
+
+	    String [] criteria = new String[6];
+	    Arrays.fill( criteria, "" );
+	    criteria[LOCATION_IDX] = locations[ random.nextInt(locations.length) ];
+	    if ( random.nextBoolean() ) {
+		criteria[OWNER_IDX] = "+";
+	    }
+
+	    for ( ContractorRecord record :
+		      findMatchingRecords( new ContractorRecord(criteria) ) ) {
+		view.put( record.getRecordNumber(), record );
+	    }
+	}
+
+	/**
+	 * This method books a record for a random customer.
+	 *
+	 * @return A reference to an OperationResult object denoting the
+	 *         outcome of the booking.
+	 *
+	 * @throws RecordNotFoundException If the record no longer exists.
+	 *
+	 * @throws BrokerServerException If the booking failed.
+	 */
+	private OperationResult book() throws RecordNotFoundException,
+					      BrokerServerException {
+
+	    ContractorRecord record = chooseRecord();
+	    record.setOwner( Integer.toString( 10000000
+					       + random.nextInt( 90000000 ) ) );
+
+	    lastMutationStart.set( System.nanoTime() );
+	    OperationResult result = tryBookRecord( record );
+	    applied( record, result );
+
+	    return result;
+	}
+
+	/**
+	 * This method releases a record.
+	 *
+	 * @return A reference to an OperationResult object denoting the
+	 *         outcome of the release.
+	 *
+	 * @throws RecordNotFoundException If the record no longer exists.
+	 *
+	 * @throws BrokerServerException If the release failed.
+	 */
+	private OperationResult release() throws RecordNotFoundException,
+						 BrokerServerException {
+
+	    ContractorRecord record = chooseRecord();
+	    record.setOwner( "" );
+
+	    lastMutationStart.set( System.nanoTime() );
+	    OperationResult result = tryReleaseRecord( record );
+	    applied( record, result );
+
+	    return result;
+	}
+
+	/**
+	 * This method changes the rate of a record.
+	 *
+	 * @return A reference to an OperationResult object denoting the
+	 *         outcome of the update.
+	 *
+	 * @throws RecordNotFoundException If the record no longer exists.
+	 *
+	 * @throws BrokerServerException If the update failed.
+	 */
+	private OperationResult update() throws RecordNotFoundException,
+						BrokerServerException {
+
+	    ContractorRecord oldRec = chooseRecord();
+	    ContractorRecord newRec = new ContractorRecord( oldRec );
+	    newRec.setRate( "$" + ( 20 + random.nextInt( 130 ) ) + ".00" );
+
+	    lastMutationStart.set( System.nanoTime() );
+	    OperationResult result = tryUpdateRecord( oldRec, newRec );
+	    applied( newRec, result );
+
+	    return result;
+	}
+
+	/**
+	 * This method brings the view of a record up to date after a
+	 * booking, release or update. The record is read again when the
+	 * server did not apply the operation.
+	 *
+	 * @param record A reference to the record as sent to the server.
+	 *
+	 * @param result A reference to the outcome of the operation.
+	 */
+	private void applied( ContractorRecord record,
+			      OperationResult result ) {
+
+	    if ( result.isSuccess() ) {
+		view.put( record.getRecordNumber(), record );
+	    } else {
+		refresh( record.getRecordNumber() );
+	    }
+	}
+
+	/**
+	 * This method reads a record again after a conflict.
+	 *
+	 * @param recNo The number of the record.
+	 */
+	private void refresh( int recNo ) {
+
+	    try {
+		view.put( recNo, getRecord( recNo ) );
+	    } catch( RecordNotFoundException | BrokerServerException ex ) {
+		view.remove( recNo );
+	    }
+	}
+    }
+
+    /**
+     * The number of simulated clients.
+     */
+    private int clients = 8;
+
+    /**
+     * The run time in seconds.
+     */
+    private int seconds = 30;
+
+    /**
+     * The weights of the search, book, release and update operations.
+     */
+    private int [] mix = { 50, 20, 20, 10 };
+
+    /**
+     * The sum of the mix weights.
+     */
+    private int totalWeight;
+
+    /**
+     * The number of hot contractors.
+     */
+    private int hot = 4;
+
+    /**
+     * The percentage of the bookings, releases and updates going to the hot
+     * contractors.
+     */
+    private int hotShare = 50;
+
+    /**
+     * The seed of the random generators.
+     */
+    private long seed = 2015;
+
+    /**
+     * The numbers of all the valid records.
+     */
+    private int [] allRecords;
+
+    /**
+     * The numbers of the hot contractors.
+     */
+    private int [] hotRecords;
+
+    /**
+     * The locations of the records, used as search criteria.
+     */
+    private String [] locations;
+
+    /**
+     * The latch releasing all the clients at once.
+     */
+    private final CountDownLatch start = new CountDownLatch( 1 );
+
+    /**
+     * The end of the run, in nanoseconds.
+     */
+    private volatile long deadline;
+
+    /**
+     * The constructor. It parses the parameters.
+     *
+     * @param args Array of String objects denoting the name=value parameters.
+     *
+     * @throws IllegalArgumentException If a parameter is invalid.
+     */
+    LoadGenerator( String ... args ) {
+
+	for ( String arg : args ) {
+
+	    int eq = arg.indexOf( '=' );
+	    if ( eq < 0 ) {
+		throw new IllegalArgumentException( "Invalid parameter - " + arg );
+	    }
+
+	    String name = arg.substring( 0, eq );
+	    String value = arg.substring( eq + 1 );
+
+	    switch( name ) {
+	    case "clients":
+		clients = Integer.parseInt( value );
+		break;
+	    case "seconds":
+		seconds = Integer.parseInt( value );
+		break;
+	    case "mix":
+		String [] weights = value.split( ":" );
+		if ( weights.length != OPERATIONS.length ) {
+		    throw new IllegalArgumentException( "Invalid mix - " + value );
+		}
+		for ( int i = 0; i < mix.length; ++i ) {
+		    mix[i] = Integer.parseInt( weights[i] );
+		}
+		break;
+	    case "hot":
+		hot = Integer.parseInt( value );
+		break;
+	    case "hotShare":
+		hotShare = Integer.parseInt( value );
+		break;
+	    case "seed":
+		seed = Long.parseLong( value );
+		break;
+	    default:
+		throw new IllegalArgumentException( "Unknown parameter - " + name );
+	    }
+	}
+
+	for ( int weight : mix ) {
+	    totalWeight += weight;
+	}
+
+	if ( ( clients <= 0 ) || ( seconds <= 0 ) || ( totalWeight <= 0 )
+	     || ( hot <= 0 ) ) {
+	    throw new IllegalArgumentException( "Invalid parameters" );
+	}
+    }
+
+    /**
+     * This method starts the server, runs the clients and reports the
+     * results.
+     *
+     * @throws Exception If the server or the clients could not be started.
+     */
+    void run() throws Exception {
+
+	appLogger.setLevel( Level.WARNING );
+
+	BrokerServer server = BrokerServer.getServer( AppRunMode.SERVER );
+	server.startServer();
+
+	List<SimulatedClient> simulated = new ArrayList<>();
+	List<Thread> threads = new ArrayList<>();
+
+	try {
+	    for ( int i = 0; i < clients; ++i ) {
+		SimulatedClient client = new SimulatedClient( seed + i );
+		simulated.add( client );
+		Thread thread = new Thread( client, "load-client-" + i );
+		threads.add( thread );
+		thread.start();
+	    }
+
+	    loadRecords( simulated.get(0) );
+
+	    System.out.println( "Running " + clients + " clients for " + seconds
+				+ " seconds on " + allRecords.length
+				+ " records, " + hotRecords.length
+				+ " hot contractors" );
+
+	    deadline = System.nanoTime() + seconds * 1000000000L;
+	    start.countDown();
+
+	    for ( Thread thread : threads ) {
+		thread.join();
+	    }
+
+	    report( simulated );
+
+	} finally {
+	    start.countDown();
+
+	    for ( SimulatedClient client : simulated ) {
+		try {
+		    client.stopController();
+		} catch( BrokerClientException ex ) {
+		    System.out.println( "Could not stop a client - "
+					+ ex.getMessage() );
+		}
+	    }
+
+	    server.stopServer();
+	}
+    }
+
+    /**
+     * This method reads the numbers and the locations of all the valid
+     * records, and chooses the hot contractors.
+     *
+     * @param client A reference to a connected client.
+     *
+     * @throws RecordNotFoundException If the database has no valid records.
+     *
+     * @throws BrokerServerException If the records could not be read.
+     */
+    private void loadRecords( SimulatedClient client ) throws
+						      RecordNotFoundException,
+						      BrokerServerException {
+
+	String [] criteria = new String[6];
+	Arrays.fill( criteria, "" );
+
+	ContractorRecord [] records =
+	    client.findRecords( new ContractorRecord( criteria ) );
+
+	allRecords = new int[ records.length ];
+	List<String> names = new ArrayList<>();
+
+	for ( int i = 0; i < records.length; ++i ) {
+	    allRecords[i] = records[i].getRecordNumber();
+	    String location = records[i].getLocation().trim();
+	    if ( ! names.contains( location ) ) {
+		names.add( location );
+	    }
+	}
+
+	locations = names.toArray( new String[ names.size() ] );
+
+	Random random = new Random( seed );
+	hotRecords = new int[ Math.min( hot, allRecords.length ) ];
+	for ( int i = 0; i < hotRecords.length; ++i ) {
+	    hotRecords[i] = allRecords[ random.nextInt( allRecords.length ) ];
+	}
+    }
+
+    /**
+     * This method prints the results of the run.
+     *
+     * @param simulated A reference to the List of the simulated clients.
+     */
+    private void report( List<SimulatedClient> simulated ) {
+
+	System.out.println();
+	System.out.println( String.format( "%-10s %10s %10s %10s %10s %10s %10s %9s",
+					   "operation", "count", "ops/s",
+					   "p50 ms", "p99 ms", "p999 ms",
+					   "conflicts", "failures" ) );
+
+	long total = 0;
+
+	for ( int op = 0; op < OPERATIONS.length; ++op ) {
+
+	    LatencyRecorder latency = new LatencyRecorder();
+	    long conflicts = 0;
+	    long failures = 0;
+
+	    for ( SimulatedClient client : simulated ) {
+		latency.add( client.latencies[op] );
+		conflicts += client.conflicts[op];
+		failures += client.failures[op];
+	    }
+
+	    latency.sort();
+	    total += latency.getCount();
+
+	    double rate = ( latency.getCount() == 0 ) ? 0
+		: 100.0 * conflicts / latency.getCount();
+
+	    System.out.println( String.format(
+			  "%-10s %10d %10.1f %10.3f %10.3f %10.3f %9.2f%% %9d",
+			  OPERATIONS[op], latency.getCount(),
+			  (double)latency.getCount() / seconds,
+			  latency.percentile( 50 ), latency.percentile( 99 ),
+			  latency.percentile( 99.9 ), rate, failures ) );
+	}
+
+	System.out.println( String.format( "%-10s %10d %10.1f", "total", total,
+					   (double)total / seconds ) );
+
+	LatencyRecorder delays = new LatencyRecorder();
+	for ( SimulatedClient client : simulated ) {
+	    synchronized( client.notifications ) {
+		delays.add( client.notifications );
+	    }
+	}
+	delays.sort();
+
+	System.out.println();
+	System.out.println( String.format(
+		      "notifications %d, fan-out delay p50 %.3f ms, "
+		      + "p99 %.3f ms, p999 %.3f ms", delays.getCount(),
+		      delays.percentile( 50 ), delays.percentile( 99 ),
+		      delays.percentile( 99.9 ) ) );
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args Array of String objects denoting the name=value parameters.
+     */
+    public static void main( String ... args ) {
+
+	try {
+	    new LoadGenerator( args ).run();
+	    System.exit( 0 );
+	} catch( IllegalArgumentException ex ) {
+	    System.out.println( ex.getMessage() );
+	    System.out.println( "Usage: java suncertify.client.LoadGenerator "
+				+ "[clients=8] [seconds=30] [mix=50:20:20:10] "
+				+ "[hot=4] [hotShare=50] [seed=2015]" );
+	    System.exit( 1 );
+	} catch( Exception ex ) {
+	    System.out.println( "The load run failed - " + ex );
+	    System.exit( 1 );
+	}
+    }
+}
@@ -7,6 +7,8 @@
 
 package suncertify.client;
 
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.registry.Registry;
 import java.rmi.registry.LocateRegistry;
@@ -39,16 +41,23 @@ public class RemoteClientController extends ClientController implements
      */
     private final Logger logger = Logger.getLogger(this.getClass().getName());
     
+    /**
+     * The lease of the registration of this controller for DB updates, which
+     * is renewed while the controller runs.
+     */
+    private ListenerLease listenerLease;
+
     /**
      * The constructor. The following steps are executed.
      * 
      * <ul>
      * <li> Using the server hostname and the server name information obtained 
      *      from the APP configuration, it obtains a reference to a BrokerServer
-     *      object.
+     *      object, a read-only replica if one is configured.
      * <li> It exports itself to the RMI runtime to facilitate the receipt of
      *      the notification of updates from the remote BrokerServer object.
-     * <li> It registers for DB updates with the remote BrokerServer object. 
+     * <li> It registers for DB updates with the remote BrokerServer object,
+     *      and renews the lease of the registration while it runs.
      * </ul>
      *
      * @throws BrokerClientException if an error is encountered in the 
@@ -57,22 +66,34 @@ public class RemoteClientController extends ClientController implements
      */
     RemoteClientController() throws BrokerClientException {
 
-	try {
+	this( null );
+    }
 
-	    AppConfigManager acm = AppConfigManager.getInstance();
-	    
-	    String serverHostName = acm.get( AppConfigParam.SERVER_HOST_NAME );
-	    
-	    String serverName = acm.get( AppConfigParam.SERVER_NAME );
-	    
-	    Registry registry = LocateRegistry.getRegistry( serverHostName );
+    /**
+     * This constructor connects to the server on the specified host instead of
+     * the one in the APP configuration. It is used by the load generator,
+     * which runs its clients against a server on the loopback interface.
+     *
+     * @param serverHostName A String object denoting the host of the server,
+     *        or null for the host in the APP configuration.
+     *
+     * @throws BrokerClientException if an error is encountered in the
+     *         process.
+     *
+     * @see LoadGenerator
+     */
+    RemoteClientController( String serverHostName ) throws
+						BrokerClientException {
 
-	    databaseServer =  (BrokerRMIServerIF)registry.lookup(serverName);
+	try {
+
+	    databaseServer = lookupServer( serverHostName );
 
 	    UnicastRemoteObject.exportObject(this, 0);	    
 	  	    
-	    controllerId =
-		databaseServer.registerUpdateListener( (DBUpdateListener)this );
+	    listenerLease =
+		ListenerLease.register( databaseServer, (DBUpdateListener)this );
+	    controllerId = listenerLease.getListenerId();
 	    
 	} catch( Exception ex ) {
 	    
@@ -91,6 +112,54 @@ public class RemoteClientController extends ClientController implements
 	}
     }
 
+    /**
+     * This method looks up the server the network clients connect to. This
+     * is the read-only replica server named in the APP configuration if
+     * there is one, which serves the searches itself and sends the
+     * modifications to the primary server, otherwise the primary server.
+     *
+     * @param serverHostName A String object denoting the host of the server,
+     *        or null for the host in the APP configuration.
+     *
+     * @return A reference to the remote server.
+     *
+     * @throws RemoteException If the RMI registry could not be reached.
+     *
+     * @throws NotBoundException If the server is not bound in the registry.
+     *
+     * @see AppConfigParam#REPLICA_SERVER_NAME
+     * @see suncertify.server.BrokerReplicaServer
+     */
+    static BrokerRMIServerIF lookupServer( String serverHostName ) throws
+							 RemoteException,
+							 NotBoundException {
+
+	AppConfigManager acm = AppConfigManager.getInstance();
+
+	if ( serverHostName == null ) {
+	    serverHostName = acm.get( AppConfigParam.SERVER_HOST_NAME );
+	}
+
+	String serverName = acm.get( AppConfigParam.SERVER_NAME );
+	String replicaName = acm.get( AppConfigParam.REPLICA_SERVER_NAME );
+
+	if ( ( replicaName != null ) && ( replicaName.trim().length() != 0 ) ) {
+
+	    String replicaHost = acm.get( AppConfigParam.REPLICA_HOST_NAME );
+
+	    if ( ( replicaHost != null ) &&
+		 ( replicaHost.trim().length() != 0 ) ) {
+		serverHostName = replicaHost.trim();
+	    }
+
+	    serverName = replicaName.trim();
+	}
+
+	Registry registry = LocateRegistry.getRegistry( serverHostName );
+
+	return (BrokerRMIServerIF)registry.lookup( serverName );
+    }
+
     /**
      * This method performs performs the shutdown process for the controller. 
      * This includes unregistering for updates from the remote DB BrokerServer. 
@@ -104,7 +173,7 @@ public class RemoteClientController extends ClientController implements
     public void stopController() throws BrokerClientException {
 	try {
 
-	    databaseServer.unregisterUpdateListener( controllerId );
+	    listenerLease.cancel();
 
 	    UnicastRemoteObject.unexportObject( this, true );
 	    
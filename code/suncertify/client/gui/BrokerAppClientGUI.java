@@ -59,8 +59,7 @@ import suncertify.client.BrokerClient;
 
 import suncertify.server.BrokerServerException;
 import suncertify.server.ContractorRecord;
-
-import suncertify.db.RecordNotFoundException;
+import suncertify.server.OperationResult;
 
 import static suncertify.db.DatabaseMetaData.*;
 
@@ -688,9 +687,7 @@ public class BrokerAppClientGUI {
 		boolean success = false;
 		    
 		try {
-		    recsFound = controller.findRecords(lastSearchCriteria);
-		    success = true;
-		} catch( RecordNotFoundException ex ) {
+		    recsFound = controller.findMatchingRecords(lastSearchCriteria);
 		    success = true;
 		} catch( BrokerServerException ex ) {
 		    JOptionPane.showMessageDialog( mainFrame,
@@ -746,11 +743,19 @@ public class BrokerAppClientGUI {
 		if ( dialog.canProceedWithAction() ) {
 
 		    try {
-			controller.deleteRecord( record );			
-			JOptionPane.showMessageDialog( mainFrame,
+			OperationResult result =
+			    controller.tryDeleteRecord( record );
+
+			if ( result.isSuccess() ) {
+			    JOptionPane.showMessageDialog( mainFrame,
 						       record.getName() + "/" +
 						       record.getLocation() +
 						       DELETE_SUCCESS_MSG );
+			} else {
+			    JOptionPane.showMessageDialog( mainFrame,
+						       DELETE_FAILURE_MSG
+						       + result.getReason() );
+			}
 		    } catch( Exception ex ) {
 			JOptionPane.showMessageDialog( mainFrame,
 						       DELETE_FAILURE_MSG
@@ -798,11 +803,19 @@ public class BrokerAppClientGUI {
 		if ( dialog.canProceedWithAction() ) {
 
 		    try {
-			controller.bookRecord( record );			
-			JOptionPane.showMessageDialog( mainFrame,
+			OperationResult result =
+			    controller.tryBookRecord( record );
+
+			if ( result.isSuccess() ) {
+			    JOptionPane.showMessageDialog( mainFrame,
 						       record.getName() + "/" +
 						       record.getLocation() +
-							   BOOK_SUCCESS_MSG );
+						       BOOK_SUCCESS_MSG );
+			} else {
+			    JOptionPane.showMessageDialog( mainFrame,
+						       BOOK_FAILURE_MSG
+						       + result.getReason() );
+			}
 			} catch( Exception ex ) {
 			    JOptionPane.showMessageDialog( mainFrame,
 							   BOOK_FAILURE_MSG
@@ -853,12 +866,19 @@ public class BrokerAppClientGUI {
 		if ( dialog.canProceedWithAction() ) {
 
 		    try {
-			controller.releaseRecord( record );
-			
-			JOptionPane.showMessageDialog( mainFrame,
+			OperationResult result =
+			    controller.tryReleaseRecord( record );
+
+			if ( result.isSuccess() ) {
+			    JOptionPane.showMessageDialog( mainFrame,
 						       record.getName() + "/" +
 						       record.getLocation() +
 						       RELEASE_SUCCESS_MSG );
+			} else {
+			    JOptionPane.showMessageDialog( mainFrame,
+						       RELEASE_FAILURE_MSG
+						       + result.getReason() );
+			}
 		    } catch( Exception ex ) {
 			JOptionPane.showMessageDialog( mainFrame,
 						       RELEASE_FAILURE_MSG
@@ -912,11 +932,19 @@ public class BrokerAppClientGUI {
 		if ( dialog.canProceedWithAction() ) {
 		    
 		    try {
-			controller.updateRecord(oldRecord, record);		    
-			JOptionPane.showMessageDialog( mainFrame,
+			OperationResult result =
+			    controller.tryUpdateRecord( oldRecord, record );
+
+			if ( result.isSuccess() ) {
+			    JOptionPane.showMessageDialog( mainFrame,
 						       record.getName() + "/" +
 						       record.getLocation() + 
 						       UPDATE_SUCCESS_MSG );
+			} else {
+			    JOptionPane.showMessageDialog( mainFrame,
+						       UPDATE_FAILURE_MSG
+						       + result.getReason() );
+			}
 		    } catch( Exception ex ) {
 			JOptionPane.showMessageDialog( mainFrame,
 						       UPDATE_FAILURE_MSG
@@ -1113,14 +1141,9 @@ public class BrokerAppClientGUI {
 	mainFrame.getContentPane().add(
 			new JScrollPane(mainTable), BorderLayout.CENTER );
 
-	ContractorRecord [] records = new ContractorRecord[0];
-	
-	try {
-	    records = controller.findRecords( lastSearchCriteria );	
-	    setTableModel( records );
-	} catch( RecordNotFoundException ex ) {
-
-	}
+	ContractorRecord [] records =
+	    controller.findMatchingRecords( lastSearchCriteria );
+	setTableModel( records );
 		
 	mainTable.setRowSelectionAllowed( true );	
 	mainTable.getSelectionModel().addListSelectionListener(
@@ -1225,18 +1248,13 @@ public class BrokerAppClientGUI {
 		public void run() {
 		    try {
 		       ContractorRecord [] records =
-			     controller.findRecords(lastSearchCriteria);
+			     controller.findMatchingRecords(lastSearchCriteria);
 		       setTableModel( records );
 		    } catch ( BrokerServerException ex ) {			
 			logger.log( Level.SEVERE,
 				    "Caught exception in " +
 				    "BrokerAppClientGUI.update - " +
 				    ex.getMessage() );
-		    } catch ( RecordNotFoundException ex ) {
-			logger.info("Database query in BrokerAppClientGUI.update"
-				    + " returned zero records!" );
-
-			setTableModel( new ContractorRecord[0] );
 		    }
 		}
 	    } );	
@@ -59,6 +59,19 @@ public interface AppConfigParam {
      */
     String DB_FILE_NAME = "DB_FILE_NAME";
 
+    /**
+     * The key for the comma separated paths of the database files holding
+     * the records in addition to the database file, none if the records are
+     * not partitioned.
+     */
+    String DB_SHARD_FILES = "DB_SHARD_FILES";
+
+    /**
+     * The key for the attribute selecting the database file of a new record
+     * when the records are partitioned, location or name.
+     */
+    String DB_SHARD_KEY = "DB_SHARD_KEY";
+
     /** 
      * The key for the database component logger name.
      */
@@ -83,6 +96,23 @@ public interface AppConfigParam {
      * The key for the application log file name.
      */  
     String LOG_FILE_NAME = "LOG_FILE_NAME";
+
+    /**
+     * The key for the size limit in bytes of a log file, the log rotates
+     * to a new file when the limit is reached.
+     */
+    String LOG_FILE_LIMIT = "LOG_FILE_LIMIT";
+
+    /**
+     * The key for the number of log files kept by the log rotation.
+     */
+    String LOG_FILE_COUNT = "LOG_FILE_COUNT";
+
+    /**
+     * The key for the number of log records buffered for the background 
+     * log writer.
+     */
+    String LOG_BUFFER_CAPACITY = "LOG_BUFFER_CAPACITY";
     
     /**
      * The key for the "stand alone" command line paramter value.
@@ -108,4 +138,132 @@ public interface AppConfigParam {
      *
      */
     String RMI_RESPONSE_TIME_OUT = "RMI_RESPONSE_TIME_OUT";
+
+    /**
+     * The key for the record lock contention profiler switch, "true" to 
+     * enable the profiler when the database is opened.
+     */
+    String LOCK_PROFILER_ENABLED = "LOCK_PROFILER_ENABLED";
+
+    /**
+     * The key for the interval in seconds at which the hottest records are
+     * written to the log, 0 for no periodic report.
+     */
+    String LOCK_PROFILER_REPORT_INTERVAL = "LOCK_PROFILER_REPORT_INTERVAL";
+
+    /**
+     * The key for the interval in seconds at which the snapshot of the record
+     * index is saved, 0 for saving it only when the application exits.
+     */
+    String INDEX_SNAPSHOT_INTERVAL = "INDEX_SNAPSHOT_INTERVAL";
+
+    /**
+     * The key for the interval in seconds at which the database file is
+     * compacted if enough of its records are deleted, 0 for no compaction.
+     */
+    String COMPACTION_INTERVAL = "COMPACTION_INTERVAL";
+
+    /**
+     * The key for the percentage of the slots of the database file held by
+     * deleted records from which the file is compacted.
+     */
+    String COMPACTION_THRESHOLD = "COMPACTION_THRESHOLD";
+
+    /**
+     * The key for the host of the read-only replica server the network
+     * clients connect to, none for the server host.
+     */
+    String REPLICA_HOST_NAME = "REPLICA_HOST_NAME";
+
+    /**
+     * The key for the name of the read-only replica server the network
+     * clients connect to, none to connect to the primary server. It is also
+     * the default name of a replica server.
+     */
+    String REPLICA_SERVER_NAME = "REPLICA_SERVER_NAME";
+
+    /**
+     * The key for the number of mutations the primary server keeps for the
+     * replica servers to follow.
+     */
+    String REPLICATION_LOG_SIZE = "REPLICATION_LOG_SIZE";
+
+    /**
+     * The key for the maximum number of mutations a replica server requests
+     * at a time.
+     */
+    String REPLICATION_BATCH_SIZE = "REPLICATION_BATCH_SIZE";
+
+    /**
+     * The key for the interval in milliseconds at which an up to date
+     * replica server requests new mutations.
+     */
+    String REPLICATION_INTERVAL = "REPLICATION_INTERVAL";
+
+    /**
+     * The key for the flag enabling the compression of the connections of
+     * the clients to the network server.
+     */
+    String RMI_COMPRESSION_ENABLED = "RMI_COMPRESSION_ENABLED";
+
+    /**
+     * The key for the size in bytes of the data sent on a connection from
+     * which it is compressed.
+     */
+    String RMI_COMPRESSION_THRESHOLD = "RMI_COMPRESSION_THRESHOLD";
+
+    /**
+     * The key for the flag disabling Nagle's algorithm on the connections
+     * to the network server.
+     */
+    String RMI_TCP_NO_DELAY = "RMI_TCP_NO_DELAY";
+
+    /**
+     * The key for the size in bytes of the send and receive buffers of the
+     * connections to the network server.
+     */
+    String RMI_SOCKET_BUFFER_SIZE = "RMI_SOCKET_BUFFER_SIZE";
+
+    /**
+     * The key for the duration in milliseconds of the lease of a database
+     * update listener registered with the network server, zero for leases
+     * that never expire.
+     */
+    String LISTENER_LEASE_DURATION = "LISTENER_LEASE_DURATION";
+
+    /**
+     * The key for the bound on the number of requests the network server
+     * runs concurrently, zero to admit the requests without limit.
+     */
+    String SCHEDULER_MAX_CONCURRENT = "SCHEDULER_MAX_CONCURRENT";
+
+    /**
+     * The key for the bound on the number of requests modifying records the
+     * network server runs concurrently.
+     */
+    String SCHEDULER_MUTATION_LIMIT = "SCHEDULER_MUTATION_LIMIT";
+
+    /**
+     * The key for the bound on the number of requests reading a single record
+     * the network server runs concurrently.
+     */
+    String SCHEDULER_READ_LIMIT = "SCHEDULER_READ_LIMIT";
+
+    /**
+     * The key for the bound on the number of searches the network server runs
+     * concurrently.
+     */
+    String SCHEDULER_SCAN_LIMIT = "SCHEDULER_SCAN_LIMIT";
+
+    /**
+     * The key for the bound on the number of requests waiting to be admitted
+     * by the network server.
+     */
+    String SCHEDULER_QUEUE_LIMIT = "SCHEDULER_QUEUE_LIMIT";
+
+    /**
+     * The key for the time in milliseconds a request waits to be admitted by
+     * the network server before it is rejected.
+     */
+    String SCHEDULER_QUEUE_TIMEOUT = "SCHEDULER_QUEUE_TIMEOUT";
 }
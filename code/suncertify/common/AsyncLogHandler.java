@@ -0,0 +1,226 @@
+/*
+ * AsyncLogHandler.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The AsyncLogHandler class decouples the application threads from the
+ * log file. Published records are put in a bounded ring buffer and written
+ * to the target handler by a background writer thread, so a thread that logs
+ * never waits for the disk.
+ *
+ * <p> Messages with parameters are formatted by the writer thread, which is
+ * where the cost of building the log text is paid. The parameters must
+ * therefore not be modified after they are logged.
+ *
+ * <p> When the buffer is full, records below WARNING are dropped and counted,
+ * the number of dropped records is logged once space is available again.
+ * Records at WARNING and above wait for space so that they are never lost.
+ *
+ * <p> Closing the handler writes the buffered records and closes the target
+ * handler. The LogManager closes the handler when the virtual machine shuts
+ * down.
+ *
+ * @see StructuredLogFormatter
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The default capacity of the buffer, in log records.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The maximum number of records written by the writer thread before it
+     * flushes the target handler.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * The handler the records are written to.
+     */
+    private final Handler target;
+
+    /**
+     * The buffer of published records waiting to be written.
+     */
+    private final BlockingQueue<LogRecord> buffer;
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The thread writing the buffered records to the target handler.
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the handler has been closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The constructor. It starts the writer thread.
+     *
+     * @param target A reference to the Handler object the records are
+     *        written to. Its level should be ALL, filtering is done by this
+     *        handler.
+     *
+     * @param capacity The capacity of the buffer, in log records.
+     */
+    public AsyncLogHandler( Handler target, int capacity ) {
+
+	this.target = target;
+	this.buffer = new ArrayBlockingQueue<LogRecord>( capacity );
+
+	writer = new Thread( "AsyncLogWriter" ) {
+		public void run() {
+		    writeRecords();
+		}
+	    };
+	writer.setDaemon( true );
+	writer.start();
+    }
+
+    /**
+     * This method puts a log record in the buffer. The record is written to
+     * the target handler by the writer thread.
+     *
+     * @param record A reference to a LogRecord object.
+     */
+    @Override
+    public void publish( LogRecord record ) {
+
+	if ( closed || ( ! isLoggable( record ) ) ) {
+	    return;
+	}
+
+	if ( buffer.offer( record ) ) {
+	    return;
+	}
+
+	if ( record.getLevel().intValue() < Level.WARNING.intValue() ) {
+	    dropped.getAndIncrement();
+	    return;
+	}
+
+	try {
+	    buffer.put( record );
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	    dropped.getAndIncrement();
+	}
+    }
+
+    /**
+     * This method does nothing, the writer thread flushes the target handler
+     * after each batch of records.
+     */
+    @Override
+    public void flush() {
+
+    }
+
+    /**
+     * This method stops accepting records, waits for the buffered records to
+     * be written and closes the target handler.
+     */
+    @Override
+    public void close() {
+
+	if ( closed ) {
+	    return;
+	}
+
+	closed = true;
+	writer.interrupt();
+
+	try {
+	    writer.join( TimeUnit.SECONDS.toMillis( 5 ) );
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	}
+
+	target.close();
+    }
+
+    /**
+     * This method returns the number of records dropped because the buffer
+     * was full.
+     *
+     * @return The number of dropped records.
+     */
+    public long getDroppedCount() {
+
+	return dropped.get();
+    }
+
+    /**
+     * This method is run by the writer thread. It takes the buffered records
+     * in batches and writes them to the target handler until the handler is
+     * closed and the buffer is empty.
+     */
+    private void writeRecords() {
+
+	List<LogRecord> batch = new ArrayList<LogRecord>( BATCH_SIZE );
+	long reportedDrops = 0;
+
+	while ( ( ! closed ) || ( ! buffer.isEmpty() ) ) {
+
+	    try {
+		if ( ! closed ) {
+		    batch.add( buffer.take() );
+		}
+	    } catch( InterruptedException ex ) {
+		/* Interrupted by close(), write what is left */
+	    }
+
+	    buffer.drainTo( batch, BATCH_SIZE - batch.size() );
+
+	    long drops = dropped.get();
+	    if ( drops != reportedDrops ) {
+		LogRecord notice = new LogRecord( Level.WARNING,
+		    "Log buffer full, dropped {0,number,#} records" );
+		notice.setLoggerName( getClass().getName() );
+		notice.setParameters( new Object[] { drops - reportedDrops } );
+		batch.add( notice );
+		reportedDrops = drops;
+	    }
+
+	    try {
+		for ( LogRecord record : batch ) {
+		    target.publish( record );
+		}
+		target.flush();
+	    } catch( RuntimeException ex ) {
+		reportError( "Failed to write log records", ex,
+			     ErrorManager.WRITE_FAILURE );
+	    }
+
+	    batch.clear();
+	}
+    }
+}
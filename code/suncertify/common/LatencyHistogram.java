@@ -0,0 +1,170 @@
+/*
+ * LatencyHistogram.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class records the latencies of an operation in
+ * buckets whose bounds are powers of two microseconds. Recording is lock free
+ * and costs a few atomic additions, so it can be used on the hot paths of the
+ * database and the server.
+ *
+ * <p> Bucket 0 counts the latencies under 1 microsecond, bucket i the
+ * latencies from 2^(i-1) up to 2^i microseconds. The last bucket also counts
+ * all the longer latencies.
+ *
+ * @see LatencySnapshot
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets. The last bucket starts at about 18 minutes.
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    /**
+     * The number of latencies in each bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+
+    /**
+     * The number of recorded latencies.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the recorded latencies in nanoseconds.
+     */
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * The longest recorded latency in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * The time this histogram was created, in nanoseconds.
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * This method records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record( long nanos ) {
+
+	long micros = nanos / 1000;
+	int idx = Math.min( 64 - Long.numberOfLeadingZeros( micros ),
+			    BUCKET_COUNT - 1 );
+
+	buckets.getAndIncrement( idx );
+	count.getAndIncrement();
+	totalNanos.getAndAdd( nanos );
+
+	long max;
+	while ( nanos > ( max = maxNanos.get() ) ) {
+	    if ( maxNanos.compareAndSet( max, nanos ) ) {
+		break;
+	    }
+	}
+    }
+
+    /**
+     * This method records the latency of an operation that started at the
+     * specified time.
+     *
+     * @param startNanos The start of the operation, as returned by
+     *        System.nanoTime().
+     */
+    public void recordSince( long startNanos ) {
+
+	record( System.nanoTime() - startNanos );
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return The number of recorded latencies.
+     */
+    public long getCount() {
+	return count.get();
+    }
+
+    /**
+     * This method returns a consistent enough view of the histogram for
+     * reporting. The recording threads are not stopped, so the figures may
+     * be off by the few operations recorded while the snapshot is taken.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    public LatencySnapshot snapshot() {
+
+	long [] counts = new long[ BUCKET_COUNT ];
+	long total = 0;
+
+	for ( int i = 0; i < counts.length; ++i ) {
+	    counts[i] = buckets.get( i );
+	    total += counts[i];
+	}
+
+	double seconds = ( System.nanoTime() - startNanos ) / 1e9;
+	double mean = ( total == 0 ) ? 0 : totalNanos.get() / 1000.0 / total;
+	long max = maxNanos.get() / 1000;
+
+	return new LatencySnapshot( total,
+				    ( seconds <= 0 ) ? 0 : total / seconds,
+				    mean,
+				    percentile( counts, total, 50, max ),
+				    percentile( counts, total, 99, max ),
+				    percentile( counts, total, 99.9, max ),
+				    max,
+				    counts );
+    }
+
+    /**
+     * This method returns the upper bound of the bucket holding a
+     * percentile, or the maximum latency if that is lower.
+     *
+     * @param counts The number of latencies in each bucket.
+     *
+     * @param total The number of latencies.
+     *
+     * @param percent The percentile, e.g. 99.9.
+     *
+     * @param max The maximum latency in microseconds.
+     *
+     * @return The upper bound of the bucket in microseconds, 0 if there are
+     *         no latencies.
+     */
+    private static long percentile( long [] counts, long total,
+				    double percent, long max ) {
+
+	if ( total == 0 ) {
+	    return 0;
+	}
+
+	long rank = (long)Math.ceil( percent / 100 * total );
+	long seen = 0;
+
+	for ( int i = 0; i < counts.length; ++i ) {
+	    seen += counts[i];
+	    if ( seen >= rank ) {
+		return Math.min( 1L << i, max );
+	    }
+	}
+
+	return max;
+    }
+}
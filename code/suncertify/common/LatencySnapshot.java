@@ -0,0 +1,182 @@
+/*
+ * LatencySnapshot.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.common;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The LatencySnapshot class is an immutable view of a LatencyHistogram. It is
+ * the type of the latency attributes of the application MXBeans, which JMX
+ * clients see as composite data.
+ *
+ * <p> The percentiles are the upper bounds of the histogram buckets holding
+ * them, so they are accurate to a factor of two.
+ *
+ * @see LatencyHistogram
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class LatencySnapshot {
+
+    /**
+     * The number of recorded latencies.
+     */
+    private final long count;
+
+    /**
+     * The average number of operations per second since the histogram was
+     * created.
+     */
+    private final double ratePerSecond;
+
+    /**
+     * The mean latency in microseconds.
+     */
+    private final double meanMicros;
+
+    /**
+     * The median latency in microseconds.
+     */
+    private final long p50Micros;
+
+    /**
+     * The 99th percentile latency in microseconds.
+     */
+    private final long p99Micros;
+
+    /**
+     * The 99.9th percentile latency in microseconds.
+     */
+    private final long p999Micros;
+
+    /**
+     * The longest latency in microseconds.
+     */
+    private final long maxMicros;
+
+    /**
+     * The number of latencies in each bucket of the histogram.
+     */
+    private final long [] buckets;
+
+    /**
+     * The constructor.
+     *
+     * @param count The number of recorded latencies.
+     * @param ratePerSecond The average number of operations per second.
+     * @param meanMicros The mean latency in microseconds.
+     * @param p50Micros The median latency in microseconds.
+     * @param p99Micros The 99th percentile latency in microseconds.
+     * @param p999Micros The 99.9th percentile latency in microseconds.
+     * @param maxMicros The longest latency in microseconds.
+     * @param buckets The number of latencies in each bucket.
+     */
+    @ConstructorProperties( { "count", "ratePerSecond", "meanMicros",
+			      "p50Micros", "p99Micros", "p999Micros",
+			      "maxMicros", "buckets" } )
+    public LatencySnapshot( long count, double ratePerSecond, double meanMicros,
+			    long p50Micros, long p99Micros, long p999Micros,
+			    long maxMicros, long [] buckets ) {
+
+	this.count = count;
+	this.ratePerSecond = ratePerSecond;
+	this.meanMicros = meanMicros;
+	this.p50Micros = p50Micros;
+	this.p99Micros = p99Micros;
+	this.p999Micros = p999Micros;
+	this.maxMicros = maxMicros;
+	this.buckets = buckets.clone();
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return The number of recorded latencies.
+     */
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * Returns the average number of operations per second since the
+     * histogram was created.
+     *
+     * @return The operations per second.
+     */
+    public double getRatePerSecond() {
+	return ratePerSecond;
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return The mean latency in microseconds.
+     */
+    public double getMeanMicros() {
+	return meanMicros;
+    }
+
+    /**
+     * Returns the median latency.
+     *
+     * @return The median latency in microseconds.
+     */
+    public long getP50Micros() {
+	return p50Micros;
+    }
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return The 99th percentile latency in microseconds.
+     */
+    public long getP99Micros() {
+	return p99Micros;
+    }
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return The 99.9th percentile latency in microseconds.
+     */
+    public long getP999Micros() {
+	return p999Micros;
+    }
+
+    /**
+     * Returns the longest latency.
+     *
+     * @return The longest latency in microseconds.
+     */
+    public long getMaxMicros() {
+	return maxMicros;
+    }
+
+    /**
+     * Returns the number of latencies in each bucket of the histogram.
+     *
+     * @return An array of long values, bucket i holding the latencies from
+     *         2^(i-1) up to 2^i microseconds.
+     */
+    public long [] getBuckets() {
+	return buckets.clone();
+    }
+
+    /**
+     * Returns a one line summary of this snapshot.
+     *
+     * @return A String object denoting the count and the main percentiles.
+     */
+    @Override
+    public String toString() {
+	return count + " ops, p50 " + p50Micros + " us, p99 " + p99Micros
+	    + " us, p999 " + p999Micros + " us, max " + maxMicros + " us";
+    }
+}
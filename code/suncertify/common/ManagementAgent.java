@@ -0,0 +1,126 @@
+/*
+ * ManagementAgent.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.common;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.JMException;
+
+/**
+ * The ManagementAgent class registers the application MXBeans with the
+ * platform MBean server, where JMX consoles such as jconsole find them, and
+ * provides proxies for reading them back in process.
+ *
+ * <p> Management is never allowed to break the application: registration
+ * errors are logged and otherwise ignored.
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class ManagementAgent {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualitified name for this class.
+     */
+    private static final Logger logger =
+	Logger.getLogger( ManagementAgent.class.getName() );
+
+    /**
+     * The object name of the database MXBean.
+     */
+    public static final String DATA_MBEAN_NAME = "suncertify.db:type=Data";
+
+    /**
+     * The object name of the server MXBean.
+     */
+    public static final String SERVER_MBEAN_NAME =
+	"suncertify.server:type=BrokerServer";
+
+    /**
+     * The object name of the record lock contention profiler MXBean.
+     */
+    public static final String LOCK_PROFILER_MBEAN_NAME =
+	"suncertify.db:type=LockProfiler";
+
+    /**
+     * The object name of the replication statistics MXBean of a read-only
+     * replica server.
+     */
+    public static final String REPLICATION_MBEAN_NAME =
+	"suncertify.server:type=Replication";
+
+    /**
+     * The class only has class methods.
+     */
+    private ManagementAgent() {
+
+    }
+
+    /**
+     * This method registers an MXBean, replacing an MXBean previously
+     * registered with the same name.
+     *
+     * @param name A String object denoting the object name of the MXBean.
+     *
+     * @param mbean A reference to the MXBean.
+     */
+    public static void register( String name, Object mbean ) {
+
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName objectName = new ObjectName( name );
+
+	    if ( server.isRegistered( objectName ) ) {
+		server.unregisterMBean( objectName );
+	    }
+
+	    server.registerMBean( mbean, objectName );
+
+	} catch( JMException ex ) {
+	    logger.log( Level.WARNING, "Could not register MBean - " + name, ex );
+	}
+    }
+
+    /**
+     * This method returns a proxy for a registered MXBean.
+     *
+     * @param name A String object denoting the object name of the MXBean.
+     *
+     * @param type The MXBean interface.
+     *
+     * @param <T> The MXBean interface type.
+     *
+     * @return A proxy implementing the MXBean interface, or null if no MXBean
+     *         is registered with the name.
+     */
+    public static <T> T getProxy( String name, Class<T> type ) {
+
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName objectName = new ObjectName( name );
+
+	    if ( ! server.isRegistered( objectName ) ) {
+		return null;
+	    }
+
+	    return JMX.newMXBeanProxy( server, objectName, type );
+
+	} catch( JMException ex ) {
+	    logger.log( Level.WARNING, "Could not get MBean - " + name, ex );
+	    return null;
+	}
+    }
+}
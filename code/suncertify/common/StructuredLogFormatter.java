@@ -0,0 +1,95 @@
+/*
+ * StructuredLogFormatter.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.common;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import java.text.SimpleDateFormat;
+
+import java.util.Date;
+
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * The StructuredLogFormatter class formats log records as single lines of
+ * key=value fields, which can be searched and parsed without knowing the
+ * message texts:
+ *
+ * <pre>
+ * time=2015-07-28T14:45:39.123 level=INFO thread=12 logger=suncertify.db.Data msg="..."
+ * </pre>
+ *
+ * <p> The source class and method are not included, finding them requires a
+ * stack walk when the record is logged. A stack trace, if any, follows the
+ * line.
+ *
+ * @see AsyncLogHandler
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class StructuredLogFormatter extends Formatter {
+
+    /**
+     * The format of the time field.
+     */
+    private final SimpleDateFormat timeFormat =
+	new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSS" );
+
+    /**
+     * The line separator of the platform.
+     */
+    private static final String LINE_SEPARATOR =
+	System.getProperty( "line.separator" );
+
+    /**
+     * This method formats a log record.
+     *
+     * @param record A reference to the LogRecord object to format.
+     *
+     * @return A String object denoting the formatted record.
+     */
+    @Override
+    public synchronized String format( LogRecord record ) {
+
+	StringBuilder line = new StringBuilder( 160 );
+
+	line.append( "time=" )
+	    .append( timeFormat.format( new Date( record.getMillis() ) ) )
+	    .append( " level=" ).append( record.getLevel().getName() )
+	    .append( " thread=" ).append( record.getLongThreadID() )
+	    .append( " logger=" ).append( record.getLoggerName() )
+	    .append( " msg=\"" );
+
+	String message = formatMessage( record );
+
+	for ( int i = 0; i < message.length(); ++i ) {
+	    char c = message.charAt( i );
+	    if ( ( c == '"' ) || ( c == '\\' ) ) {
+		line.append( '\\' ).append( c );
+	    } else if ( ( c == '\n' ) || ( c == '\r' ) ) {
+		line.append( ' ' );
+	    } else {
+		line.append( c );
+	    }
+	}
+
+	line.append( '"' ).append( LINE_SEPARATOR );
+
+	if ( record.getThrown() != null ) {
+	    StringWriter trace = new StringWriter();
+	    record.getThrown().printStackTrace( new PrintWriter( trace ) );
+	    line.append( trace );
+	}
+
+	return line.toString();
+    }
+}
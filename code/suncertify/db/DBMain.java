@@ -7,6 +7,8 @@
 
 package suncertify.db;
 
+import java.util.Map;
+
 /**
  * The DBMain interface. Defines the data access APIs for the application.
  *
@@ -42,6 +44,35 @@ public interface DBMain {
      */
     public void update(int recNo, String [] vals) throws RecordNotFoundException;
 
+    /**
+     * Modifies the fields of several records together, each of which must
+     * be locked by the caller. Either all the records are updated or none.
+     * The new value for field n of record recNos[i] appears in vals[i][n].
+     *
+     * @param recNos The numbers of the records to be updated.
+     *
+     * @param vals The new values of the fields of each record.
+     *
+     * @throws RecordNotFoundException If one of the records does not exist
+     * or had been deleted.
+     */
+    public void updateAll(int [] recNos, String [][] vals) throws
+                                                RecordNotFoundException;
+
+    /**
+     * Modifies the owner of a record, which must be locked by the caller.
+     * The other fields of the record are left unchanged.
+     *
+     * @param recNo The number of the record to be booked or released.
+     *
+     * @param owner The new owner of the record, blank to release it.
+     *
+     * @throws RecordNotFoundException If the record does not exist or had been
+     *         deleted.
+     */
+    public void updateOwner(int recNo, String owner) throws
+                                                RecordNotFoundException;
+
     /**
      * Deletes a record, making the record number and associated fisk storage
      * available for reuse.
@@ -53,6 +84,17 @@ public interface DBMain {
      */
     public void delete(int recNo) throws RecordNotFoundException;
 
+    /**
+     * Deletes several records together. Each record must be locked by the
+     * caller. Either all the records are deleted or none.
+     *
+     * @param recNos The numbers of the records to be deleted.
+     *
+     * @throws RecordNotFoundException If one of the records does not exist
+     * or had been deleted.
+     */
+    public void deleteAll(int [] recNos) throws RecordNotFoundException;
+
     /**
      * Returns an array of record numbers that match the specified criteria.
      * Field n in the database file is described by criteria[n]. A null value in
@@ -69,6 +111,35 @@ public interface DBMain {
      */
     public int [] find(String [] criteria) throws RecordNotFoundException;
 
+    /**
+     * Returns an array of record numbers that match the specified criteria,
+     * following the same rules as find(). No matching record is a routine
+     * outcome and yields a zero length array instead of an exception.
+     *
+     * @param criteria An array of String objects.
+     *
+     * @return An array of record numbers, a zero length array if no record 
+     *         matches.
+     *
+     * @see #find(String[])
+     */
+    public int [] findMatching(String [] criteria);
+
+    /**
+     * Locks the records that match the specified criteria, following the
+     * same rules as find(). The records are locked in ascending record number
+     * order and checked again once locked, so that the records returned
+     * still match the criteria. The caller must unlock them.
+     *
+     * @param criteria An array of String objects.
+     *
+     * @return An array of the numbers of the locked records, in ascending
+     *         order, a zero length array if no record matches.
+     *
+     * @see #findMatching(String[])
+     */
+    public int [] lockMatching(String [] criteria);
+
     /**
      * Creates a new record in the database (possibly reusing a deleted entry). 
      * Inserts the given data, and returns the record number of the new record.
@@ -116,4 +187,13 @@ public interface DBMain {
      */
     public boolean isLocked(int recNo) throws RecordNotFoundException;
 
+    /**
+     * Returns the schema of the database, the name and the length of each
+     * attribute of a record, in schema order.
+     *
+     * @return A reference to a Map object denoting the name/length pairs of
+     * the record attributes. The caller may modify it.
+     */
+    public Map<String, Short> getSchema();
+
 }
@@ -7,36 +7,34 @@
 
 package suncertify.db;
 
-import java.io.RandomAccessFile;
 import java.io.IOException;
 
-import java.util.Map;
-import java.util.Iterator;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Arrays;
 
-import suncertify.server.ContractorRecord;
+import java.util.logging.Logger;
 
 import static suncertify.db.DatabaseMetaData.*;
 
 /**
- * The DBRecord class encapsulates a contractor record, it extends the
- * ContractorRecord.
+ * The DBRecord class encapsulates a contractor record as it is stored in the
+ * database file. The ContractorRecord objects of the server are created from
+ * its attributes.
+ *
+ * <p> The attributes are kept in the fixed width US-ASCII form in which they
+ * are stored in the database file. Searches are done directly on these bytes.
+ * An attribute is decoded into a String object only when it is accessed.
  *
  * @see suncertify.server.ContractorRecord
+ * @see SearchCriteria
  *
  * @author Augustine Ogundimu
  * @version 1.0
  * @since 1.0
  */
-class DBRecord extends ContractorRecord {
-
-	/**
-	 *
-	 */
-	private static final long serialVersionUID = 20120645454775L;
+class DBRecord {
 
 	/**
 	 * This is a reference to a Logger object. The logger's name is the fully
@@ -48,18 +46,32 @@ class DBRecord extends ContractorRecord {
 	 * This is the value to which the flag of a record is set when the record is
 	 * deleted.
 	 */
-	private final static short DELETED_REC_FLAG_VALUE = Short.MIN_VALUE;
+	final static short DELETED_REC_FLAG_VALUE = Short.MIN_VALUE;
 
 	/**
 	 * This is the value to which the flag of a record is set when the record is
 	 * valid.
 	 */
-	private final static short VALID_REC_FLAG_VALUE = 0;
+	final static short VALID_REC_FLAG_VALUE = 0;
 
 	/**
-	 * An array of String objects denoting the attributes of this record.
+	 * The layout of the attributes of this record.
 	 */
-	private String[] fieldsValues = null;
+	private final RecordLayout layout;
+
+	/**
+	 * The attributes of this record as they are stored in the database file,
+	 * US-ASCII characters padded with spaces to the length of each attribute.
+	 */
+	private final byte[] recordBytes;
+
+	/**
+	 * The attributes whose bytes changed since this record was read from, or
+	 * last written to, the database file.
+	 *
+	 * @see #writeDirtyFields(FileChannel, long)
+	 */
+	private final boolean[] dirtyFields;
 
 	/**
 	 * This value indicates whether this record is deleted or not.
@@ -69,476 +81,412 @@ class DBRecord extends ContractorRecord {
 	 */
 	private short statusFlag;
 
+	/**
+	 * The unique identifier for this record, its number in the database file.
+	 */
+	private int recordNumber;
+
 	/**
 	 * The constructor.
 	 *
-	 * @param fields     An array of String objects denoting the attributes of the
-	 *                   record.
+	 * @param fields An array of String objects denoting the attributes of the
+	 *               record.
 	 *
-	 * @param dbMetaData A reference to a Map object denoting the schema data for a
-	 *                   record in the database.
+	 * @param layout A reference to the RecordLayout object describing the
+	 *               schema of a record in the database.
 	 *
-	 * @param recNo      The unique identifier for this record.
+	 * @param recNo  The unique identifier for this record.
 	 */
-	DBRecord(String[] fields, Map<String, Short> dbMetaData, int recNo) {
+	DBRecord(String[] fields, RecordLayout layout, int recNo) {
 
-		fieldsValues = new String[fields.length];
+		this.layout = layout;
 		statusFlag = VALID_REC_FLAG_VALUE;
 		recordNumber = recNo;
-
-		Collection<Short> fieldLengths = dbMetaData.values();
-
-		Iterator<Short> iter = fieldLengths.iterator();
+		recordBytes = new byte[layout.getRecordLength()];
+		dirtyFields = new boolean[layout.getFieldCount()];
 
 		for (int i = 0; i < fields.length; ++i) {
 
-			String formatStr = "%" + "-" + iter.next().intValue() + "s";
-
 			if (fields[i] == null) {
 				fields[i] = "";
 			}
-			String value = fields[i].trim();
-
-			fieldsValues[i] = String.format(formatStr, value);
-
-			switch (i) {
-			case NAME_IDX:
-				name = fieldsValues[i];
-				break;
-			case LOCATION_IDX:
-				location = fieldsValues[i];
-				break;
-			case SPECIALITIES_IDX:
-				specialities = fieldsValues[i];
-				break;
-			case SIZE_IDX:
-				size = fieldsValues[i];
-				break;
-			case RATE_IDX:
-				rate = fieldsValues[i];
-				break;
-			case OWNER_IDX:
-				owner = fieldsValues[i];
-				break;
-			}
+
+			setField(i, fields[i]);
 		}
 	}
 
 	/**
-	 * The constructor.
+	 * The constructor. The attributes are copied from the start of the buffer,
+	 * so the caller may reuse it.
+	 *
+	 * @param buf     An array of bytes denoting the attributes of the new record.
 	 *
-	 * @param buf      An array of bytes denoting the attributes of the new record.
+	 * @param layout  A reference to the RecordLayout object describing the
+	 *                schema of a record in the database.
 	 *
-	 * @param metaData A reference to a Map object denoting the schema data for a
-	 *                 record in the database.
-	 * 
-	 * @param recNo    The unique identifier for this record.
+	 * @param recNo   The unique identifier for this record.
 	 *
-	 * @param recFlag  The status flag for the record.
+	 * @param recFlag The status flag for the record.
 	 */
-	DBRecord(byte[] buf, Map<String, Short> metaData, int recNo, short recFlag) {
+	DBRecord(byte[] buf, RecordLayout layout, int recNo, short recFlag) {
 
+		this(buf, 0, layout, recNo, recFlag);
+	}
+
+	/**
+	 * The constructor. The attributes are copied from the buffer starting at
+	 * the specified offset, so a buffer holding several records can be parsed
+	 * without copying each record out first. None of the attributes is
+	 * decoded.
+	 *
+	 * @param buf     An array of bytes holding the attributes of the new
+	 *                record.
+	 *
+	 * @param offset  The offset of the attributes of the record in the buffer.
+	 *
+	 * @param layout  A reference to the RecordLayout object describing the
+	 *                schema of a record in the database.
+	 *
+	 * @param recNo   The unique identifier for this record.
+	 *
+	 * @param recFlag The status flag for the record.
+	 */
+	DBRecord(byte[] buf, int offset, RecordLayout layout, int recNo, short recFlag) {
+
+		this.layout = layout;
 		statusFlag = recFlag;
 		recordNumber = recNo;
+		recordBytes = Arrays.copyOfRange(buf, offset, offset + layout.getRecordLength());
+		dirtyFields = new boolean[layout.getFieldCount()];
+	}
 
-		int totalFields = metaData.size();
+	/**
+	 * The copy constructor. The copy can be modified without affecting the
+	 * original record. None of the attributes of the copy is dirty.
+	 *
+	 * @param record A reference to the DBRecord object to be copied.
+	 */
+	DBRecord(DBRecord record) {
 
-		fieldsValues = new String[totalFields];
+		this(record.recordBytes, record.layout, record.recordNumber,
+				record.statusFlag);
+	}
 
-		Collection<Short> values = metaData.values();
+	/**
+	 * This method stores the trimmed value as the attribute with the specified
+	 * index. The value is truncated or padded with spaces to the length of the
+	 * attribute. The attribute becomes dirty if its bytes changed.
+	 *
+	 * @param idx   The index of the attribute.
+	 *
+	 * @param value A String object denoting the new value of the attribute.
+	 */
+	private void setField(int idx, String value) {
 
-		int offset = 0;
+		if (layout.encodeField(idx, value, recordBytes)) {
+			dirtyFields[idx] = true;
+		}
+	}
 
-		int i = 0;
+	/**
+	 * This method decodes the attribute with the specified index from the
+	 * record bytes. A new String object is created by every call.
+	 *
+	 * @param idx The index of the attribute.
+	 *
+	 * @return A String object denoting the trimmed attribute.
+	 */
+	private String decodeField(int idx) {
 
-		for (Short length : values) {
+		return layout.decodeTrimmed(idx, recordBytes);
+	}
 
-			fieldsValues[i] = new String(buf, offset, length.intValue());
+	/**
+	 * This method returns the name attribute of this record, decoded from the
+	 * record bytes.
+	 *
+	 * @return A String object denoting the trimmed attribute.
+	 */
+	String getName() {
 
-			switch (i) {
-			case NAME_IDX:
-				name = fieldsValues[i];
-				break;
-			case LOCATION_IDX:
-				location = fieldsValues[i];
-				break;
-			case SPECIALITIES_IDX:
-				specialities = fieldsValues[i];
-				break;
-			case SIZE_IDX:
-				size = fieldsValues[i];
-				break;
-			case RATE_IDX:
-				rate = fieldsValues[i];
-				break;
-			case OWNER_IDX:
-				owner = fieldsValues[i];
-				break;
-			default:
+		return decodeField(NAME_IDX);
+	}
 
-			}
+	/**
+	 * This method returns the location attribute of this record, decoded from the
+	 * record bytes.
+	 *
+	 * @return A String object denoting the trimmed attribute.
+	 */
+	String getLocation() {
 
-			offset += length;
-			++i;
-		}
+		return decodeField(LOCATION_IDX);
 	}
 
 	/**
-	 * This method changes the status flag on the record to delete. It does not
-	 * delete the record from the data file.
+	 * This method returns the specialities attribute of this record, decoded from the
+	 * record bytes.
+	 *
+	 * @return A String object denoting the trimmed attribute.
 	 */
-	void delete() {
+	String getSpecialities() {
 
-		statusFlag = DELETED_REC_FLAG_VALUE;
+		return decodeField(SPECIALITIES_IDX);
 	}
 
 	/**
-	 * This method undeletes a record by changing the status flag on the record to
-	 * valid.
+	 * This method returns the size attribute of this record, decoded from the
+	 * record bytes.
+	 *
+	 * @return A String object denoting the trimmed attribute.
 	 */
-	void undelete() {
+	String getSize() {
 
-		statusFlag = VALID_REC_FLAG_VALUE;
+		return decodeField(SIZE_IDX);
 	}
 
 	/**
-	 * This method assigns the attributes in the input parameter to the attributes
-	 * of this record. The assigned values are padded with space so the attribute
-	 * lengths match what is specified in the schema for each respective attribute.
-	 *
-	 * @param values     An array of String objects denoting the attributes of the
-	 *                   record.
+	 * This method returns the rate attribute of this record, decoded from the
+	 * record bytes.
 	 *
-	 * @param dbMetaData A reference to a Map object providing schema information.
+	 * @return A String object denoting the trimmed attribute.
 	 */
-	void setFieldsValues(String[] values, Map<String, Short> dbMetaData) {
+	String getRate() {
 
-		Collection<Short> fieldSizes = dbMetaData.values();
-		Object[] fieldSizeArray = fieldSizes.toArray();
-
-		for (int i = SPECIALITIES_IDX; i < fieldsValues.length; ++i) {
+		return decodeField(RATE_IDX);
+	}
 
-			if (values[i] == null) {
-				values[i] = "";
-			}
+	/**
+	 * This method returns the owner attribute of this record, decoded from the
+	 * record bytes.
+	 *
+	 * @return A String object denoting the trimmed attribute.
+	 */
+	String getOwner() {
 
-			String storedValue = values[i].trim();
-
-			String formatStr = "%" + "-" + ((Short) fieldSizeArray[i]).intValue() + "s";
-
-			fieldsValues[i] = String.format(formatStr, storedValue);
-
-			switch (i) {
-			case SPECIALITIES_IDX:
-				specialities = fieldsValues[i];
-				break;
-			case SIZE_IDX:
-				size = fieldsValues[i];
-				break;
-			case RATE_IDX:
-				rate = fieldsValues[i];
-				break;
-			case OWNER_IDX:
-				owner = fieldsValues[i];
-				break;
-			}
-		}
+		return decodeField(OWNER_IDX);
 	}
 
 	/**
-	 * This method returns an array of String objects denoting the attributes of
-	 * this record.
+	 * This method returns the unique identifier for this record.
 	 *
-	 * @return A reference to an array of String objects.
+	 * @return The record number.
 	 */
-	String[] getFieldsValues() {
+	int getRecordNumber() {
 
-		String[] values = new String[fieldsValues.length];
-
-		for (int i = 0; i < fieldsValues.length; ++i) {
+		return recordNumber;
+	}
 
-			values[i] = fieldsValues[i].trim();
-		}
+	/**
+	 * This method sets the unique identifier for this record.
+	 *
+	 * @param recNo The record number.
+	 */
+	void setRecordNumber(int recNo) {
 
-		return values;
+		recordNumber = recNo;
 	}
 
 	/**
-	 * This method writes the status flag of this record to the database file
-	 * argument provided. The method assumes that the file pointer is at the right
-	 * location in the data file for the status flag attribute of this record.
-	 * 
-	 * @param file A reference to a RandomAccessFile object to which the flag will
-	 *             be written.
+	 * This method returns the attributes of this record as they are stored in
+	 * the database file. The array must not be modified by the caller.
 	 *
-	 * @throws IOException If an error is encountered while writing to the data
-	 *                     file.
+	 * @return A reference to an array of bytes.
 	 */
-	void writeFlagToFile(RandomAccessFile file) throws IOException {
+	byte[] getRecordBytes() {
 
-		file.writeShort(statusFlag);
+		return recordBytes;
 	}
 
 	/**
-	 * This method writes the attributes of this record to the database file
-	 * argument provided. The method assumes that the file pointer is at the right
-	 * location in the data file for this record.
+	 * This method returns the layout of the attributes of this record.
 	 *
-	 * @param file A reference to a valid DataOutputStream object.
-	 *
-	 * @throws IOException If an error is encountered while writing to the data
-	 *                     file.
+	 * @return A reference to a RecordLayout object.
 	 */
-	void writeToFile(RandomAccessFile file) throws IOException {
+	RecordLayout getLayout() {
 
-		file.writeShort(statusFlag);
+		return layout;
+	}
 
-		for (String val : fieldsValues) {
+	/**
+	 * This method changes the status flag on the record to delete. It does not
+	 * delete the record from the data file.
+	 */
+	void delete() {
 
-			file.writeBytes(val);
-		}
+		statusFlag = DELETED_REC_FLAG_VALUE;
 	}
 
 	/**
-	 * This determines if the parameter String matches the name attribute of this
-	 * record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
-	 * <li>The match ignores case. "John" will match "john".
-	 * <li>It is considered a match if this record's name attribute starts with the
-	 * text of the parameter.
-	 * </ul>
-	 * 
-	 * @param value A reference to a String object denoting the criterion.
-	 * 
-	 * @return A boolean value true if the name matches and false otherwise.
-	 */
-	private boolean matchesName(String value) {
-
-		if ((value == null) || (value.trim().length() == 0)) {
-			return true;
-		} else {
-			return name.toUpperCase().startsWith(value.toUpperCase());
-		}
+	 * This method undeletes a record by changing the status flag on the record to
+	 * valid.
+	 */
+	void undelete() {
+
+		statusFlag = VALID_REC_FLAG_VALUE;
 	}
 
 	/**
-	 * This determines if the parameter String matches the location attribute of
-	 * this record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
-	 * <li>The match ignores case. "BOSTON" will match "boston".
-	 * <li>It is considered a match if this record's location attribute starts with
-	 * the text of the parameter.
-	 * </ul>
-	 *
-	 * @param value A String denoting the location criterion.
+	 * This method assigns the attributes in the input parameter to the attributes
+	 * of this record. The assigned values are padded with space so the attribute
+	 * lengths match what is specified in the schema for each respective attribute.
 	 *
-	 * @return boolean value true if there is a match, false otherwise.
+	 * @param values An array of String objects denoting the attributes of the
+	 *               record.
 	 */
-	private boolean matchesLocation(String value) {
+	void setFieldsValues(String[] values) {
 
-		if ((value == null) || (value.trim().length() == 0)) {
-			return true;
-		} else {
-			return location.toUpperCase().startsWith(value.toUpperCase());
-		}
-	}
+		for (int i = SPECIALITIES_IDX; i < dirtyFields.length; ++i) {
 
-	/**
-	 * This method determines if all the values in the parameter String has a match
-	 * in the list of specialities for this record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
-	 * <li>There could be one or more criterion in the argument, for this to be
-	 * considered a match, each criterion must have a match in this record list of
-	 * specialities.
-	 * <li>It is considered a match if one of this record's specialities starts with
-	 * the text of the criterion.
-	 * </ul>
-	 * 
-	 * @param value A reference to a String object denoting the specialities
-	 *              criteria. There could be one or more speciality in this
-	 *              argument, which means the criteria will be coma delimited.
-	 *
-	 * @return boolean value true if there is a match, false otherwise.
-	 */
-	private boolean matchesSpecialities(String value) {
-
-		if ((value == null) || (value.trim().length() == 0)) {
-			return true;
-		} else {
-
-			String[] vals = value.split(",");
-			String[] specs = specialities.split(",");
-
-			int matches = 0;
-
-			for (String v : vals) {
-				for (String s : specs) {
-					if (s.trim().startsWith(v.trim())) {
-						++matches;
-						break;
-					}
-				}
+			if (values[i] == null) {
+				values[i] = "";
 			}
 
-			return (matches == vals.length);
+			setField(i, values[i]);
 		}
 	}
 
 	/**
-	 * This determines if the parameter String matches the size attribute of this
-	 * record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
+	 * This method assigns the owner attribute of this record, leaving the
+	 * other attributes unchanged.
 	 *
-	 * <li>It is considered a match if this record's size attribute is greater than
-	 * or equal to the value specified in the parameter.
-	 * </ul>
-	 *
-	 * @param value A String denoting the search criterion
+	 * @param value A String object denoting the new owner, blank if the
+	 *              record is released.
+	 */
+	void changeOwner(String value) {
+
+		setField(OWNER_IDX, (value == null) ? "" : value);
+	}
+
+	/**
+	 * This method returns an array of String objects denoting the attributes of
+	 * this record. The attributes are decoded from the record bytes, trimmed,
+	 * by each call.
 	 *
-	 * @return boolean true if there is a match, false otherwise.
+	 * @return A reference to an array of String objects.
 	 */
-	private boolean matchesSize(String value) throws DBAccessException {
+	String[] getFieldsValues() {
 
-		if ((value == null) || (value.length() == 0)) {
-			return true;
-		} else {
-			try {
-				return (Short.parseShort(value.trim()) <= Short.parseShort(size.trim()));
+		String[] values = new String[dirtyFields.length];
 
-			} catch (NumberFormatException ex) {
-				String msg = "Non numerical values in the size attribute";
-				logger.log(Level.WARNING, msg);
-				DBAccessException e = new DBAccessException(ex.getMessage(), ex);
-				logger.throwing("Record", "matchesSize()", e);
-				throw e;
-			}
+		for (int i = 0; i < values.length; ++i) {
+
+			values[i] = decodeField(i);
 		}
+
+		return values;
 	}
 
 	/**
-	 * This determines if the parameter String matches the rate attribute of this
-	 * record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
+	 * This method writes the status flag of this record to the database file
+	 * at the specified position, with a single positional write.
 	 *
-	 * <li>It is considered a match if this record's rate attribute is less than or
-	 * equal to the value specified in the parameter.
-	 * </ul>
+	 * @param channel  A reference to a FileChannel object of the database
+	 *                 file.
 	 *
-	 * @param value A String denoting the search criterion
+	 * @param position The position of the status flag of this record in the
+	 *                 database file.
 	 *
-	 * @return boolean true if there is a match, false otherwise.
+	 * @param buf      A reference to a reusable ByteBuffer object with room
+	 *                 for at least the status flag.
+	 *
+	 * @throws IOException If an error is encountered while writing to the data
+	 *                     file.
 	 */
-	private boolean matchesRate(String value) throws DBAccessException {
+	void writeFlagTo(FileChannel channel, long position, ByteBuffer buf)
+			throws IOException {
 
-		if ((value == null) || (value.trim().length() == 0)) {
-			return true;
-		} else {
-			try {
-				return (Float.parseFloat(rate.trim().substring(1)) <= Float.parseFloat(value.trim().substring(1)));
+		buf.clear();
+		buf.putShort(statusFlag);
+		buf.flip();
 
-			} catch (NumberFormatException ex) {
-				String msg = "Non numerical values in the size attribute";
-				logger.log(Level.WARNING, msg);
-				DBAccessException e = new DBAccessException(ex.getMessage(), ex);
-				logger.throwing("Record", "matchesRate()", e);
-				throw e;
-			}
+		while (buf.hasRemaining()) {
+			channel.write(buf, position + buf.position());
 		}
 	}
 
 	/**
-	 * This determines if the parameter String matches the location attribute of
-	 * this record.
-	 * 
-	 * <ul>
-	 * <li>A null value or spaces or zero length string in the criterion is
-	 * considered a wild card.
-	 * <li>If the criterion value equals "-", it is a match if the record is booked.
-	 * <li>If the criterion value equals "+", it is a match if the record is not
-	 * booked.
-	 * <li>It is considered a match if this record's owner attribute starts with the
-	 * text of the parameter.
-	 * </ul>
+	 * This method writes the status flag and the attributes of this record to
+	 * the database file at the specified position. The record is encoded into
+	 * the buffer provided, so it is persisted with a single positional write.
+	 * The attributes are no longer dirty afterwards.
+	 *
+	 * @param channel  A reference to a FileChannel object of the database
+	 *                 file.
 	 *
-	 * @param value A String denoting the location criterion.
+	 * @param position The position of the status flag of this record in the
+	 *                 database file.
 	 *
-	 * @return boolean value true if there is a match, false otherwise.
+	 * @param buf      A reference to a reusable ByteBuffer object with room
+	 *                 for the status flag and the attributes of the record.
+	 *
+	 * @throws IOException If an error is encountered while writing to the data
+	 *                     file.
 	 */
-	private boolean matchesOwner(String value) {
+	void writeTo(FileChannel channel, long position, ByteBuffer buf)
+			throws IOException {
 
-		if ((value == null) || (value.trim().length() == 0)) {
-			return true;
-		} else {
-			if (value.trim().equals("+")) {
-				return ((owner == null) || (owner.trim().length() == 0));
+		buf.clear();
+		buf.putShort(statusFlag);
+		buf.put(recordBytes);
+		buf.flip();
 
-			} else if (value.trim().equals("-")) {
-				return ((owner != null) && (owner.trim().length() != 0));
-			} else {
-				return owner.toUpperCase().startsWith(value.toUpperCase());
-			}
+		while (buf.hasRemaining()) {
+			channel.write(buf, position + buf.position());
 		}
+
+		Arrays.fill(dirtyFields, false);
 	}
 
 	/**
-	 * This method matches each attribute of this record to each corresponding
-	 * criterion in the array of String objects provided.
-	 * <ul>
-	 * <li>When the "name" and "location" values are specified in the criteria array
-	 * and each of the other criteria is equal to null or space or zero length
-	 * String, the search is considered a "key" search. This means that only
-	 * undeleted records that match both the "name" and "location" exactly will be
-	 * returned.
-	 * <li>For this record to be considered a match, its attributes must match all
-	 * the criteria specified.
-	 * </ul>
+	 * This method writes the dirty attributes of this record to the database
+	 * file, with one positional write for each span of adjacent dirty
+	 * attributes. The status flag is not written. The attributes are no longer
+	 * dirty afterwards.
 	 *
-	 * @see #matchesName(String)
-	 * @see #matchesLocation(String)
-	 * @see #matchesSpecialities(String)
-	 * @see #matchesSize(String)
-	 * @see #matchesRate(String)
-	 * @see #matchesOwner(String)
+	 * @param channel  A reference to a FileChannel object of the database
+	 *                 file.
 	 *
-	 * @param criteria An array of String objects.
+	 * @param position The position of the status flag of this record in the
+	 *                 database file.
 	 *
-	 * @return A boolean value true if this record matches the specified criterian
-	 *         and false otherwise.
+	 * @return The number of bytes written, zero if no attribute is dirty.
+	 *
+	 * @throws IOException If an error is encountered while writing to the data
+	 *                     file.
 	 */
-	boolean matchesCriteria(String[] criteria) {
+	int writeDirtyFields(FileChannel channel, long position) throws IOException {
 
-		if (((criteria[NAME_IDX] != null) && (criteria[NAME_IDX].trim().length() != 0))
-				&& ((criteria[LOCATION_IDX] != null) && (criteria[LOCATION_IDX].trim().length() != 0))) {
+		/* The attributes follow the two byte status flag */
+		long base = position + 2;
+		int written = 0;
+		int idx = 0;
 
-			if (((criteria[SPECIALITIES_IDX] == null) || (criteria[SPECIALITIES_IDX].trim().length() == 0))
-					&& ((criteria[SIZE_IDX] == null) || (criteria[SIZE_IDX].trim().length() == 0))
-					&& ((criteria[RATE_IDX] == null) || (criteria[RATE_IDX].trim().length() == 0))
-					&& ((criteria[OWNER_IDX] == null) || (criteria[OWNER_IDX].trim().length() == 0))) {
+		while (idx < dirtyFields.length) {
 
-				return ((name.trim().compareToIgnoreCase(criteria[NAME_IDX]) == 0)
-						&& (location.trim().compareToIgnoreCase(criteria[LOCATION_IDX]) == 0));
+			if (!dirtyFields[idx]) {
+				++idx;
+				continue;
+			}
+
+			int first = idx;
+
+			while ((idx < dirtyFields.length) && dirtyFields[idx]) {
+				dirtyFields[idx++] = false;
 			}
-		}
 
-		return ((matchesName(criteria[NAME_IDX])) && (matchesLocation(criteria[LOCATION_IDX]))
-				&& (matchesSpecialities(criteria[SPECIALITIES_IDX])) && (matchesSize(criteria[SIZE_IDX]))
-				&& (matchesRate(criteria[RATE_IDX])) && (matchesOwner(criteria[OWNER_IDX])));
+			int start = layout.getOffset(first);
+			int end = layout.getOffset(idx - 1) + layout.getLength(idx - 1);
+			ByteBuffer buf = ByteBuffer.wrap(recordBytes, start, end - start);
 
+			while (buf.hasRemaining()) {
+				channel.write(buf, base + buf.position());
+			}
+
+			written += end - start;
+		}
+
+		return written;
 	}
 
 	/**
@@ -550,4 +498,16 @@ class DBRecord extends ContractorRecord {
 
 		return (statusFlag == DELETED_REC_FLAG_VALUE);
 	}
+
+	/**
+	 * Returns a String representation of this record, the trimmed attributes
+	 * delimited by " | ".
+	 *
+	 * @return A String object denoting the attributes of the record.
+	 */
+	@Override
+	public String toString() {
+
+		return String.join(" | ", getFieldsValues());
+	}
 }
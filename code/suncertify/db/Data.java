@@ -11,28 +11,41 @@ import java.io.File;
 import java.io.RandomAccessFile;
 import java.io.IOException;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.TreeMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 
 import java.lang.ref.SoftReference;
 
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 import suncertify.common.AppConfigManager;
 import suncertify.common.AppConfigParam;
+import suncertify.common.ManagementAgent;
 
 
 /**
@@ -43,6 +56,24 @@ import suncertify.common.AppConfigParam;
  * record references. This is in anticipation of possible garbage collection 
  * that may be induced by memory depletion. 
  *
+ * <p> The records are loaded into the cache in the background, by several
+ * threads reading the database file in large chunks, so that the database
+ * can be used as soon as its header has been read. Until the loading is
+ * complete, records that have not been loaded yet are read from the file
+ * when accessed, while searches and the operations that add or delete
+ * records wait for the loading to complete.
+ *
+ * <p> The record index is saved to a sidecar file when the application exits
+ * and periodically, and restored from it when the database is opened again,
+ * if the database file has not changed since. Adding or deleting a record
+ * deletes the sidecar file, so that a snapshot that no longer matches the
+ * database is never used after a crash.
+ *
+ * <p> The slots of the deleted records are reclaimed by compacting the
+ * database file in the background, while the database is in use. The
+ * record numbers do not change: a record map, saved to another sidecar file,
+ * maps them to the slots of the records in the compacted file.
+ *
  * <p> All operations that result in modifications to database entries are 
  * to the database file as part of the operation. This helps to guard against
  * loss of transactions and also it also provides support for the use of 
@@ -90,7 +121,8 @@ public class Data implements DBMain, AutoCloseable {
      * The DatabaseCleanup class provides the mechanism for ensuring that 
      * the physical database file is closed in the event of a sytem shutdown
      * or exit. The class extends the Thread class and it is used as a shutdown
-     * hook with the Runtime.
+     * hook with the Runtime. The record index is saved before the file is
+     * closed.
      */
     private class DatabaseCleanup extends Thread {
 
@@ -110,13 +142,535 @@ public class Data implements DBMain, AutoCloseable {
 	}
 
 	/**
-	 * The run method. It calls the close method on the Data class instance.
+	 * The run method. It saves the record index and calls the close method
+	 * on the Data class instance.
 	 */
 	public void run() {
+	    this.data.writeIndexSnapshot();
 	    this.data.close();
 	}
     }
     
+    /**
+     * The RecordReference class is the entry of a record in the database
+     * cache. It holds the number of the record, so that a search iterating
+     * the values of the cache needs neither its keys nor its entries.
+     */
+    private static final class RecordReference
+					extends SoftReference<DBRecord> {
+
+	/**
+	 * The unique identifier of the record.
+	 */
+	final int recNo;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param recNo The unique identifier of the record.
+	 *
+	 * @param record A reference to the cached DBRecord object.
+	 */
+	RecordReference( int recNo, DBRecord record ) {
+	    super( record );
+	    this.recNo = recNo;
+	}
+    }
+
+    /**
+     * The DatabaseLoader class loads the records of the database file into
+     * the cache and, unless it was restored from a snapshot, the record
+     * index. It is run by several threads, each of
+     * which repeatedly takes the next chunk of records, reads it from the
+     * file with a single positional read and parses its records. The last
+     * thread to finish completes the loading.
+     *
+     * <p> A record that is already in the cache when its chunk is parsed has
+     * been accessed, and possibly modified, since the chunk was read. Such a
+     * record is not replaced.
+     *
+     * @see #awaitLoaded()
+     */
+    private class DatabaseLoader implements Runnable {
+
+	/**
+	 * The number of records in the database file, that is the number of
+	 * slots.
+	 */
+	private final int recordCount;
+
+	/**
+	 * The number of records in a chunk.
+	 */
+	private final int chunkRecords;
+
+	/**
+	 * The number of chunks.
+	 */
+	private final int chunkCount;
+
+	/**
+	 * The index of the next chunk to be loaded.
+	 */
+	private final AtomicInteger nextChunk = new AtomicInteger(0);
+
+	/**
+	 * This value indicates whether the record index is built from the
+	 * loaded records.
+	 */
+	private final boolean buildIndex;
+
+	/**
+	 * The number of loading threads that have not finished.
+	 */
+	private final AtomicInteger activeThreads;
+
+	/**
+	 * The time when the loading started.
+	 */
+	private final long startTime = System.nanoTime();
+
+	/**
+	 * The constructor.
+	 *
+	 * @param recordCount The number of records in the database file.
+	 *
+	 * @param chunkRecords The number of records in a chunk.
+	 *
+	 * @param threads The number of loading threads.
+	 *
+	 * @param buildIndex true if the record index is to be built from the
+	 *        loaded records.
+	 */
+	DatabaseLoader( int recordCount, int chunkRecords, int threads,
+			boolean buildIndex ) {
+
+	    this.recordCount = recordCount;
+	    this.chunkRecords = chunkRecords;
+	    this.buildIndex = buildIndex;
+	    chunkCount = ( recordCount + chunkRecords - 1 ) / chunkRecords;
+	    activeThreads = new AtomicInteger( threads );
+	}
+
+	/**
+	 * The run method. It loads chunks until there are none left or the
+	 * loading has failed.
+	 */
+	public void run() {
+
+	    ByteBuffer buf = ByteBuffer.allocate( chunkRecords * recordSize );
+
+	    try {
+		int chunk;
+
+		while ( ( loadFailure == null ) &&
+			( ( chunk = nextChunk.getAndIncrement() )
+			  < chunkCount ) ) {
+		    loadChunk( chunk, buf );
+		}
+	    } catch( IOException ex ) {
+		logger.log( Level.SEVERE, "Database file error while "
+			    + "loading the records - " + ex, ex );
+		loadFailure = ex;
+	    } finally {
+		if ( activeThreads.decrementAndGet() == 0 ) {
+		    complete();
+		}
+	    }
+	}
+
+	/**
+	 * This method reads a chunk of records and adds them to the cache and
+	 * the record index.
+	 *
+	 * @param chunk The index of the chunk.
+	 *
+	 * @param buf A buffer large enough for a chunk.
+	 *
+	 * @throws IOException If an error is encountered while reading the
+	 *         database file.
+	 */
+	private void loadChunk( int chunk, ByteBuffer buf ) throws IOException {
+
+	    int first = chunk * chunkRecords;
+	    int count = Math.min( chunkRecords, recordCount - first );
+	    long position = offsetToRecZero + (long)first * recordSize;
+
+	    buf.clear();
+	    buf.limit( count * recordSize );
+
+	    while ( buf.hasRemaining() ) {
+		if ( databaseChannel.read( buf,
+					   position + buf.position() ) < 0 ) {
+		    throw new IOException( "Corrupted DB file, invalid length" );
+		}
+	    }
+
+	    byte[] bytes = buf.array();
+
+	    for ( int i = 0; i < count; ++i ) {
+
+		int recNo = recordMap.logicalOf( first + i );
+		int base = i * recordSize;
+		DBRecord record = new DBRecord( bytes, base + 2, recordLayout,
+						recNo, buf.getShort( base ) );
+
+		dbCache.putIfAbsent( recNo,
+				     new RecordReference( recNo, record ) );
+
+		if ( buildIndex ) {
+		    recordIndex.addLoaded( recNo, record );
+		}
+	    }
+	}
+
+	/**
+	 * This method completes the loading, releasing the threads waiting
+	 * for it.
+	 */
+	void complete() {
+
+	    if ( loadFailure == null ) {
+		if ( buildIndex ) {
+		    recordIndex.completeLoad();
+		}
+
+		if ( logger.isLoggable( Level.INFO ) ) {
+		    logger.log( Level.INFO, "Read and cached a total of "
+				+ "{0,number,#} records in {1,number,#} ms",
+				new Object[] { recordCount,
+					       ( System.nanoTime() - startTime )
+					       / 1000000 } );
+		}
+	    }
+
+	    indexed.countDown();
+	    loaded.countDown();
+	}
+    }
+
+    /**
+     * The DatabaseCompaction class writes the compacted file, which has the
+     * header of the database file followed by the records that were valid
+     * when they were copied, in the order of their slots, and then by the
+     * records added while the compaction was running. The slot and the
+     * record number of each copied record are tracked, so that a record
+     * copied again goes to the same slot and the record map of the
+     * compacted file can be built. The checksum of the file is kept up to
+     * date as the slots are written.
+     *
+     * @see #compact()
+     * @see RecordMap
+     */
+    private class DatabaseCompaction {
+
+	/**
+	 * The compacted file.
+	 */
+	private final File file;
+
+	/**
+	 * The channel through which the compacted file is written.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The record number of each slot of the compacted file.
+	 */
+	private int[] logicalOf = new int[ 1024 ];
+
+	/**
+	 * The checksum of each slot of the compacted file.
+	 */
+	private long[] checksums = new long[ 1024 ];
+
+	/**
+	 * The slot in the compacted file of each record number, -1 for the
+	 * records that have not been copied.
+	 */
+	private int[] physicalOf;
+
+	/**
+	 * The number of slots in the compacted file.
+	 */
+	private int slots = 0;
+
+	/**
+	 * The checksum of the compacted file.
+	 *
+	 * @see RecordMap#slotChecksum(int,byte[],int,int)
+	 */
+	private long checksum = 0;
+
+	/**
+	 * The constructor. It creates the compacted file and copies the
+	 * header of the database file into it.
+	 *
+	 * @param file The compacted file.
+	 *
+	 * @param recordNumbers The number of record numbers in use.
+	 *
+	 * @throws IOException If an error is encountered while accessing
+	 *         the database file or the compacted file.
+	 */
+	DatabaseCompaction( File file, int recordNumbers ) throws IOException {
+
+	    this.file = file;
+	    physicalOf = new int[ recordNumbers ];
+	    Arrays.fill( physicalOf, -1 );
+
+	    channel = FileChannel.open( file.toPath(),
+					StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE );
+
+	    ByteBuffer header = ByteBuffer.allocate( offsetToRecZero );
+	    readFully( header, 0 );
+	    writeFully( header, 0 );
+	}
+
+	/**
+	 * This method copies the valid records of the database file, reading
+	 * and writing the files in large chunks. It is called without holding
+	 * any lock, the records modified meanwhile are copied again later.
+	 *
+	 * @param slotCount The number of slots in the database file.
+	 *
+	 * @throws IOException If an error is encountered while accessing
+	 *         the database file or the compacted file.
+	 */
+	void copyRecords( int slotCount ) throws IOException {
+
+	    int chunkRecords = Math.max( 1, LOAD_CHUNK_SIZE / recordSize );
+	    ByteBuffer in = ByteBuffer.allocate( chunkRecords * recordSize );
+	    ByteBuffer out = ByteBuffer.allocate( chunkRecords * recordSize );
+	    byte[] bytes = in.array();
+
+	    for ( int first = 0; first < slotCount; first += chunkRecords ) {
+
+		int count = Math.min( chunkRecords, slotCount - first );
+		int firstSlot = slots;
+
+		in.clear();
+		in.limit( count * recordSize );
+		readFully( in, offsetToRecZero + (long)first * recordSize );
+		out.clear();
+
+		for ( int i = 0; i < count; ++i ) {
+
+		    int base = i * recordSize;
+
+		    if ( in.getShort( base ) !=
+			 DBRecord.DELETED_REC_FLAG_VALUE ) {
+			int slot = addSlot( recordMap.logicalOf( first + i ) );
+			updateChecksum( slot, bytes, base );
+			out.put( bytes, base, recordSize );
+		    }
+		}
+
+		out.flip();
+		writeFully( out, offsetToRecZero + (long)firstSlot * recordSize );
+	    }
+	}
+
+	/**
+	 * This method copies records again, as they are now in the database
+	 * file. A record that was not copied before is appended to the
+	 * compacted file, unless it is deleted and not to be kept.
+	 *
+	 * @param recNos The numbers of the records to copy.
+	 *
+	 * @param keep true if the records are to be kept even if they are
+	 *        deleted.
+	 *
+	 * @throws IOException If an error is encountered while accessing
+	 *         the database file or the compacted file.
+	 */
+	void copyRecords( Collection<Integer> recNos, boolean keep )
+			  throws IOException {
+
+	    ByteBuffer buf = ByteBuffer.allocate( recordSize );
+
+	    for ( int recNo : recNos ) {
+
+		buf.clear();
+		readFully( buf, positionOf( recNo ) );
+
+		int slot = contains( recNo ) ? physicalOf[ recNo ] : -1;
+
+		if ( slot < 0 ) {
+		    if ( ( ! keep ) && ( buf.getShort( 0 ) ==
+					 DBRecord.DELETED_REC_FLAG_VALUE ) ) {
+			continue;
+		    }
+
+		    slot = addSlot( recNo );
+		}
+
+		updateChecksum( slot, buf.array(), 0 );
+		writeFully( buf, offsetToRecZero + (long)slot * recordSize );
+	    }
+	}
+
+	/**
+	 * This method indicates whether a record has been copied.
+	 *
+	 * @param recNo The number of the record.
+	 *
+	 * @return boolean value true if the record has a slot in the
+	 *         compacted file.
+	 */
+	boolean contains( int recNo ) {
+
+	    return ( recNo >= 0 ) && ( recNo < physicalOf.length ) &&
+		( physicalOf[ recNo ] >= 0 );
+	}
+
+	/**
+	 * This method completes the compacted file, forcing it to the storage
+	 * device, and returns its record map.
+	 *
+	 * @param nextRecNo The number of the next record to be appended.
+	 *
+	 * @return A reference to the RecordMap object of the compacted file.
+	 *
+	 * @throws IOException If an error is encountered while accessing the
+	 *         compacted file.
+	 */
+	RecordMap complete( int nextRecNo ) throws IOException {
+
+	    channel.force( true );
+	    channel.close();
+
+	    return new RecordMap( Arrays.copyOf( logicalOf, slots ),
+				  nextRecNo );
+	}
+
+	/**
+	 * This method returns the length of the compacted file.
+	 *
+	 * @return The length in bytes.
+	 */
+	long length() {
+
+	    return offsetToRecZero + (long)slots * recordSize;
+	}
+
+	/**
+	 * This method returns the checksum of the compacted file.
+	 *
+	 * @return The sum of the checksums of the slots.
+	 */
+	long checksum() {
+
+	    return checksum;
+	}
+
+	/**
+	 * This method closes and deletes the compacted file, unless it has
+	 * replaced the database file.
+	 */
+	void discard() {
+
+	    try {
+		channel.close();
+		Files.deleteIfExists( file.toPath() );
+	    } catch( IOException ex ) {
+		logger.warning( "The compacted file could not be deleted - "
+				+ file );
+	    }
+	}
+
+	/**
+	 * This method appends a slot to the compacted file.
+	 *
+	 * @param recNo The number of the record in the slot.
+	 *
+	 * @return The slot.
+	 */
+	private int addSlot( int recNo ) {
+
+	    if ( slots == logicalOf.length ) {
+		logicalOf = Arrays.copyOf( logicalOf, slots * 2 );
+		checksums = Arrays.copyOf( checksums, slots * 2 );
+	    }
+
+	    if ( recNo >= physicalOf.length ) {
+		int length = physicalOf.length;
+		physicalOf = Arrays.copyOf( physicalOf,
+					    Math.max( recNo + 1, length * 2 ) );
+		Arrays.fill( physicalOf, length, physicalOf.length, -1 );
+	    }
+
+	    logicalOf[ slots ] = recNo;
+	    physicalOf[ recNo ] = slots;
+
+	    return slots++;
+	}
+
+	/**
+	 * This method updates the checksum of the compacted file for the new
+	 * content of a slot.
+	 *
+	 * @param slot The slot.
+	 *
+	 * @param buf The buffer holding the new content of the slot.
+	 *
+	 * @param offset The offset of the slot in the buffer.
+	 */
+	private void updateChecksum( int slot, byte[] buf, int offset ) {
+
+	    long sum = RecordMap.slotChecksum( slot, buf, offset, recordSize );
+
+	    checksum += sum - checksums[ slot ];
+	    checksums[ slot ] = sum;
+	}
+
+	/**
+	 * This method fills a buffer from the database file with positional
+	 * reads.
+	 *
+	 * @param buf The buffer.
+	 *
+	 * @param position The position in the database file.
+	 *
+	 * @throws IOException If the file could not be read or is too short.
+	 */
+	private void readFully( ByteBuffer buf, long position )
+				throws IOException {
+
+	    while ( buf.hasRemaining() ) {
+		if ( databaseChannel.read( buf,
+					   position + buf.position() ) < 0 ) {
+		    throw new IOException( "Corrupted DB file, invalid length" );
+		}
+	    }
+
+	    /* Ready to be read, or written to the compacted file */
+	    buf.flip();
+	}
+
+	/**
+	 * This method writes a buffer to the compacted file with positional
+	 * writes.
+	 *
+	 * @param buf The buffer.
+	 *
+	 * @param position The position in the compacted file.
+	 *
+	 * @throws IOException If the file could not be written.
+	 */
+	private void writeFully( ByteBuffer buf, long position )
+				 throws IOException {
+
+	    long start = position - buf.position();
+
+	    while ( buf.hasRemaining() ) {
+		channel.write( buf, start + buf.position() );
+	    }
+	}
+    }
+
     /**
      * The DatabaseLock class provides the mechanism for logical record locks. It
      * is a subclass of ReentrantLock. By extending the ReentrantLock class, 
@@ -166,13 +720,13 @@ public class Data implements DBMain, AutoCloseable {
 	}
 
 	/**
-	 * Increments the hold count on this lock and calls the same 
-	 * name method in the superclass.
+	 * Increments the hold count on this lock. It is called while holding
+	 * the master write lock, before the lock is acquired, so the lock
+	 * cannot be removed from the lock cache by its current owner while
+	 * this thread is about to wait for it.
 	 */
-	@Override
-	public void lock() {
+	void reserve() {
 	    holdCount.getAndIncrement();
-	    super.lock();
 	}
 
 	/**
@@ -187,39 +741,213 @@ public class Data implements DBMain, AutoCloseable {
     }
 
     /**
-     * This is a reference to the only instance of this class. Access to this 
-     * object is through the getInstance() method.
+     * The exception thrown by find() when no record matches the criteria.
+     * This is a routine outcome, so the exception is created once, without a
+     * stack trace.
      *
-     * @see #getInstance()
+     * @see #find(String[])
      */
-    private static DBMain instance = null;
+    private static final RecordNotFoundException NO_MATCH_EXCEPTION =
+	new RecordNotFoundException( "No record found for the specified "
+				     + "criteria", false );
 
     /**
-     * This is the reference to a Map for storing the name/size pair information
-     * for the database record attributes.
+     * The size in bytes of the chunks in which the records are loaded from the
+     * database file.
      *
+     * @see DatabaseLoader
      */
-    private Map<String, Short> dbMetaData = new LinkedHashMap<>();
+    private static final int LOAD_CHUNK_SIZE = 1 << 20;
 
     /**
-     * This is a reference to a RandomAccessFile used for accessing the physical
-     * database file.
+     * The number of modified records below which a compaction copies them
+     * while holding the write lock and replaces the database file.
      *
-     * @see java.io.RandomAccessFile
+     * @see #compact()
      */
-    private RandomAccessFile databaseFile;
+    private static final int COMPACTION_CATCH_UP_LIMIT = 64;
 
     /**
-     * This is a reference to a TreeMap object for storing the 
-     * record number/record reference pairs. This is the database cache.
+     * The maximum number of rounds in which a compaction copies the modified
+     * records without holding any lock, so that a steady stream of
+     * modifications cannot delay it indefinitely.
+     *
+     * @see #compact()
      */
-    private Map<Integer, SoftReference<DBRecord>> dbCache = new TreeMap<>();
+    private static final int COMPACTION_CATCH_UP_ROUNDS = 8;
 
     /**
-     * This is a reference to a Map object for storing record number/DatabaseLock 
-     * pairs.
+     * The suffix appended to the name of the database file to form the name
+     * of the compacted file.
      */
-    private Map<Integer, DatabaseLock> lockCache = new HashMap<>();
+    private static final String COMPACTED_FILE_SUFFIX = ".compact";
+
+    /**
+     * The reference returned for a record that has not been loaded yet. It
+     * refers to nothing, so the record is read from the file when accessed.
+     *
+     * @see #cacheReference(int)
+     */
+    private static final SoftReference<DBRecord> NOT_LOADED =
+	new SoftReference<>( null );
+
+    /**
+     * This is a reference to the only instance of this class. Access to this 
+     * object is through the getInstance() method.
+     *
+     * @see #getInstance()
+     */
+    private static DBMain instance = null;
+
+    /**
+     * This is the reference to a Map for storing the name/size pair information
+     * for the database record attributes.
+     *
+     */
+    private Map<String, Short> dbMetaData;
+
+    /**
+     * This is the reference to the layout of the record attributes. It is
+     * built from the schema read from the database file and shared by all
+     * the records.
+     */
+    private RecordLayout recordLayout;
+
+    /**
+     * A per thread buffer for collecting the numbers of the records matching
+     * a search. It is reused so that a search only allocates its result.
+     *
+     * @see #find(String[])
+     */
+    private final ThreadLocal<int[]> matchBuffer = new ThreadLocal<>();
+
+    /**
+     * The versions of the records replaced while searches were reading an
+     * older view of the database.
+     *
+     * @see #findMatching(String[])
+     */
+    private final RecordVersions versions = new RecordVersions();
+
+    /**
+     * This is a reference to a RandomAccessFile used for accessing the physical
+     * database file.
+     *
+     * @see java.io.RandomAccessFile
+     */
+    private RandomAccessFile databaseFile;
+
+    /**
+     * This is a reference to a FileChannel of the database file, used for
+     * the positional reads that recache records and for the positional
+     * writes of the records. Being the channel of the database file, its
+     * writes are synchronous.
+     *
+     * @see #recacheRecord(int)
+     */
+    private FileChannel databaseChannel;
+
+    /**
+     * This is a reference to a sorted Map object for storing the
+     * record number/record reference pairs. This is the database cache. It
+     * is a concurrent map so that records can be recached while holding
+     * only the read lock, and searched without any lock.
+     */
+    private Map<Integer, RecordReference> dbCache =
+	new ConcurrentSkipListMap<>();
+
+    /**
+     * This is a reference to a Map object for storing record number/DatabaseLock 
+     * pairs.
+     */
+    private Map<Integer, DatabaseLock> lockCache = new HashMap<>();
+
+    /**
+     * The index of the record keys and of the free record slots. It is only
+     * complete once it has been restored from its snapshot or the records
+     * have been loaded.
+     *
+     * @see #awaitIndexed()
+     */
+    private final RecordIndex recordIndex = new RecordIndex();
+
+    /**
+     * The latch released when the records have been loaded into the cache.
+     *
+     * @see DatabaseLoader
+     */
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /**
+     * The latch released when the record index is complete.
+     *
+     * @see #restoreIndexSnapshot(long,long)
+     * @see DatabaseLoader
+     */
+    private final CountDownLatch indexed = new CountDownLatch(1);
+
+    /**
+     * The database file.
+     */
+    private File dbFile;
+
+    /**
+     * The sidecar file holding the snapshot of the record index.
+     *
+     * @see IndexSnapshot
+     */
+    private File snapshotFile;
+
+    /**
+     * The number of modifications of the database. It is saved with the
+     * snapshot of the record index and restored from it.
+     */
+    private final AtomicLong mutationSequence = new AtomicLong(0);
+
+    /**
+     * The mutation sequence of the snapshot in the sidecar file, -1 if there
+     * is no valid snapshot.
+     */
+    private volatile long snapshotSequence = -1;
+
+    /**
+     * The timer writing the periodic snapshots of the record index, null if
+     * there are none.
+     */
+    private Timer snapshotTimer = null;
+
+    /**
+     * The map from the record numbers to the slots of the records in the
+     * database file. It is replaced, while holding the write lock, when the
+     * database file is compacted.
+     *
+     * @see RecordMap
+     */
+    private RecordMap recordMap = RecordMap.IDENTITY;
+
+    /**
+     * The numbers of the records modified while a compaction is running,
+     * null if none is. Guarded by the write lock.
+     *
+     * @see #compact()
+     */
+    private Set<Integer> compactionDirty = null;
+
+    /**
+     * This value indicates whether a compaction is running.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean( false );
+
+    /**
+     * The timer starting the compactions, null if there are none.
+     */
+    private Timer compactionTimer = null;
+
+    /**
+     * The error that made the loading of the records fail, null if there was
+     * none.
+     */
+    private volatile IOException loadFailure = null;
     
     /**
      * An interger value denoting the database file cookie. This value is read 
@@ -239,14 +967,31 @@ public class Data implements DBMain, AutoCloseable {
     private ReentrantReadWriteLock masterLock;
 
     /**
-     * The write lock component of the read/write lock.
+     * The write lock component of the read/write lock. It records its wait
+     * and hold times in the statistics.
+     */
+    private Lock writeLock;
+
+    /**
+     * The read lock component of the read/write lock. It records its wait
+     * and hold times in the statistics.
+     */
+    private Lock readLock;
+
+    /**
+     * The statistics of this object, exposed as an MXBean.
+     *
+     * @see DataStatsMXBean
      */
-    private ReentrantReadWriteLock.WriteLock writeLock;
+    private final DataStats stats = new DataStats( this );
 
     /**
-     * The read lock component of the read/write lock.
+     * The record lock contention profiler of this object.
+     *
+     * @see LockProfilerMXBean
      */
-    private ReentrantReadWriteLock.ReadLock readLock;
+    private final LockContentionProfiler lockProfiler =
+	new LockContentionProfiler();
 	
     /**
      * An reference to an AtomicInteger for generating record numbers 
@@ -263,6 +1008,15 @@ public class Data implements DBMain, AutoCloseable {
      */
     private int recordSize;
 
+    /**
+     * The buffer into which a record is encoded before it is written to the
+     * database file, so that each record is persisted with a single write.
+     * It is reused by all the writes and guarded by the write lock.
+     *
+     * @see DBRecord#writeTo(FileChannel, long, ByteBuffer)
+     */
+    private ByteBuffer recordBuffer;
+
     /**
      * This is the constructor for this class. It does the following:
      *
@@ -271,11 +1025,11 @@ public class Data implements DBMain, AutoCloseable {
      *      create a RandomAccessObject with the file name.
      * <li> It constructs the database schema object with values read from the
      *      database file.
-     * <li> It constructs the database cache by reading each record from the file
-     *      until the end of the database file is reached. 
      * <li> It constructs the lock objects needed for access synchronization. 
      * <li> It registers an instance of the DatabaseCleanup thread with the java
      *      runtime.
+     * <li> It starts loading the records into the database cache in the
+     *      background.
      * </ul>
      *
      * @throws DBAccessException If an error is encountered while accessing the 
@@ -283,69 +1037,73 @@ public class Data implements DBMain, AutoCloseable {
      */
     private Data() throws DBAccessException {
 
+	this( AppConfigManager.getInstance().get( AppConfigParam.DB_FILE_NAME ) );
+    }
+
+    /**
+     * This constructor opens the specified database file instead of the one
+     * named in the configuration. It is used by tools and benchmarks that
+     * need their own instance; the application uses the getInstance() method.
+     *
+     * @param dbLocation A String object denoting the path of the database
+     *        file.
+     *
+     * @throws DBAccessException If an error is encountered while accessing the
+     *         physical database file or if the file format is invalid.
+     *
+     * @see #getInstance()
+     */
+    Data( String dbLocation ) throws DBAccessException {
+
 	try {
-	    
-	    AppConfigManager configMgr = AppConfigManager.getInstance();
-	    
-	    String dbLocation = configMgr.get( AppConfigParam.DB_FILE_NAME );
 
-	    databaseFile = new RandomAccessFile( dbLocation.trim(), "rws" );
-	    
-	    /* This is the first 4 bytes - the file cookie*/
-	    fileCookieValue = databaseFile.readInt();
-	    
-	    /* Read the offset to the first record 4 bytes */
-	    offsetToRecZero = databaseFile.readInt();
-	    
-	    /* No of fields per record. 2 bytes */
-	    short fieldsPerRec = databaseFile.readShort();
-
-	    recordSize = 0; 
-
-	    for ( int i = 0; i < fieldsPerRec;  ++i ) {
-		short length = databaseFile.readShort();
-		byte[] buffer = new byte[length];
-		int num = databaseFile.read( buffer, 0, length );
-		String fieldName = new String( buffer );
-		short fieldLength = databaseFile.readShort();		
-		dbMetaData.put( fieldName, fieldLength );
-		recordSize += fieldLength;
-	    }
+	    dbFile = new File( dbLocation.trim() );
+	    snapshotFile = IndexSnapshot.sidecarOf( dbFile );
 
-	    logger.log(Level.INFO, "Finished caching database metadata" );
+	    /* Taken before any record can be modified */
+	    long lastModified = dbFile.lastModified();
 
-	    /* Add the length of the record flag */
-	    recordSize += 2;
+	    databaseFile = new RandomAccessFile( dbFile, "rws" );
+	    databaseChannel = databaseFile.getChannel();
 	    
-	    byte [] buf = new byte[recordSize - 2];
+	    /* The file cookie, the offset to the first record and the schema */
+	    DatabaseHeader header = DatabaseHeader.read( databaseFile );
 
-	    while ( databaseFile.getFilePointer() < databaseFile.length() ) {
+	    fileCookieValue = header.getCookie();
+	    offsetToRecZero = header.getOffsetToRecZero();
+	    dbMetaData = header.getSchema();
+	    recordLayout = header.getLayout();
 
-		short recFlag = databaseFile.readShort();
-		int bytesRead = databaseFile.read(buf, 0, (recordSize - 2));
+	    logger.log(Level.INFO, "Finished caching database metadata" );
 
-		if ( bytesRead < (recordSize - 2 ) ) {
-		    
-		    String msg = "Corrupted DB file, invalid length";
-		    logger.severe( msg );
-		    DBAccessException e = new DBAccessException( msg );
-		    logger.throwing("Data", "Data()", e );
-		    throw e;
-		}
+	    /* The length of the record flag and the fields */
+	    recordSize = header.getRecordSize();
+	    recordBuffer = ByteBuffer.allocate( recordSize );
 
-		int recNo = recordNumber.getAndIncrement();
-		DBRecord rec = new DBRecord(buf, dbMetaData, recNo, recFlag);
-		dbCache.put(recNo, new SoftReference<DBRecord>(rec));
-	    }	    
+	    long regionLength = databaseFile.length() - offsetToRecZero;
+
+	    if ( ( regionLength % recordSize ) != 0 ) {
+
+		String msg = "Corrupted DB file, invalid length";
+		logger.severe( msg );
+		DBAccessException e = new DBAccessException( msg );
+		logger.throwing("Data", "Data()", e );
+		throw e;
+	    }
 
-	    logger.info("Read and cached a total of " + dbCache.size()
-		                   + " records" );
+	    recordMap = recoverRecordMap();
+	    recordNumber.set( recordMap.nextRecordNumber(
+				  (int)( regionLength / recordSize ) ) );
 	    
 	    masterLock = new ReentrantReadWriteLock(true);
-	    readLock = masterLock.readLock();
-	    writeLock = masterLock.writeLock();
+	    readLock = new TimedLock( masterLock.readLock(),
+				      stats.readLockWait, stats.readLockHold );
+	    writeLock = new TimedLock( masterLock.writeLock(),
+				       stats.writeLockWait, stats.writeLockHold);
 
 	    Runtime.getRuntime().addShutdownHook( new DatabaseCleanup(this) );
+
+	    startLoading( databaseFile.length(), lastModified );
 	    
 	} catch( IOException exc ) {
 	    logger.log( Level.SEVERE, "Database file error", exc );
@@ -355,6 +1113,279 @@ public class Data implements DBMain, AutoCloseable {
 	}
     }
 
+    /**
+     * This method starts the threads loading the records into the cache, one
+     * per processor but no more than there are chunks to load. The first
+     * thread restores the record index from its snapshot before it starts
+     * the others, so they only build the index when it could not be restored.
+     *
+     * @param length The length of the database file.
+     *
+     * @param lastModified The modification time of the database file.
+     *
+     * @see DatabaseLoader
+     */
+    private void startLoading( final long length, final long lastModified ) {
+
+	final int recordCount = recordMap.slotCount( recordNumber.get() );
+	final int chunkRecords = Math.max( 1, LOAD_CHUNK_SIZE / recordSize );
+	int chunkCount = ( recordCount + chunkRecords - 1 ) / chunkRecords;
+	final int threads = Math.max( 1, Math.min(
+			Runtime.getRuntime().availableProcessors(), chunkCount ) );
+
+	Thread first = new Thread( "DatabaseLoader-0" ) {
+		public void run() {
+
+		    boolean restored =
+			restoreIndexSnapshot( length, lastModified );
+
+		    DatabaseLoader loader =
+			new DatabaseLoader( recordCount, chunkRecords, threads,
+					    ! restored );
+
+		    for ( int i = 1; i < threads; ++i ) {
+			Thread thread = new Thread( loader,
+						    "DatabaseLoader-" + i );
+			thread.setDaemon( true );
+			thread.start();
+		    }
+
+		    loader.run();
+		}
+	    };
+
+	first.setDaemon( true );
+	first.start();
+    }
+
+    /**
+     * This method reads the record map of the database file. A compaction
+     * interrupted while the compacted file was replacing the database file is
+     * completed if the database file is the compacted file, and discarded
+     * otherwise.
+     *
+     * @return A reference to the RecordMap object of the database file.
+     *
+     * @throws IOException If an error is encountered while accessing the
+     *         database file or if the record map is invalid.
+     *
+     * @see RecordMap
+     */
+    private RecordMap recoverRecordMap() throws IOException {
+
+	Files.deleteIfExists( new File( dbFile.getPath()
+					+ COMPACTED_FILE_SUFFIX ).toPath() );
+
+	File pending = RecordMap.pendingOf( dbFile );
+	long[] stamp = new long[2];
+	RecordMap map = null;
+
+	try {
+	    map = RecordMap.read( pending, stamp );
+	} catch( IOException ex ) {
+	    logger.warning( "Discarding an incomplete record map - " + ex );
+	}
+
+	if ( ( map != null ) && ( databaseFile.length() == stamp[0] ) &&
+	     ( databaseChecksum() == stamp[1] ) ) {
+	    RecordMap.commit( dbFile );
+	    logger.info( "Completed the interrupted compaction of "
+			 + dbFile );
+	} else if ( pending.exists() ) {
+	    Files.delete( pending.toPath() );
+	    logger.info( "Discarded the interrupted compaction of "
+			 + dbFile );
+	}
+
+	return RecordMap.read( dbFile );
+    }
+
+    /**
+     * This method computes the checksum of the records of the database file.
+     *
+     * @return The sum of the checksums of the slots.
+     *
+     * @throws IOException If an error is encountered while reading the
+     *         database file.
+     *
+     * @see RecordMap#slotChecksum(int,byte[],int,int)
+     */
+    private long databaseChecksum() throws IOException {
+
+	int slotCount = (int)( ( databaseFile.length() - offsetToRecZero )
+			       / recordSize );
+	int chunkRecords = Math.max( 1, LOAD_CHUNK_SIZE / recordSize );
+	ByteBuffer buf = ByteBuffer.allocate( chunkRecords * recordSize );
+	long checksum = 0;
+
+	for ( int first = 0; first < slotCount; first += chunkRecords ) {
+
+	    int count = Math.min( chunkRecords, slotCount - first );
+	    long position = offsetToRecZero + (long)first * recordSize;
+
+	    buf.clear();
+	    buf.limit( count * recordSize );
+
+	    while ( buf.hasRemaining() ) {
+		if ( databaseChannel.read( buf,
+					   position + buf.position() ) < 0 ) {
+		    throw new IOException( "Corrupted DB file, invalid length" );
+		}
+	    }
+
+	    for ( int i = 0; i < count; ++i ) {
+		checksum += RecordMap.slotChecksum( first + i, buf.array(),
+						    i * recordSize,
+						    recordSize );
+	    }
+	}
+
+	return checksum;
+    }
+
+    /**
+     * This method restores the record index from the snapshot in the sidecar
+     * file, if the snapshot matches the database file.
+     *
+     * @param length The length of the database file.
+     *
+     * @param lastModified The modification time of the database file.
+     *
+     * @return boolean value true if the index was restored, false if it has to
+     *         be built from the records.
+     *
+     * @see IndexSnapshot
+     */
+    private boolean restoreIndexSnapshot( long length, long lastModified ) {
+
+	try {
+	    IndexSnapshot snapshot = IndexSnapshot.read( snapshotFile );
+
+	    if ( snapshot == null ) {
+		logger.info( "No index snapshot, building the record index" );
+		return false;
+	    }
+
+	    if ( ! snapshot.matches( length, lastModified ) ) {
+		logger.info( "The index snapshot does not match the database "
+			     + "file, building the record index" );
+		return false;
+	    }
+
+	    snapshot.restoreTo( recordIndex );
+	    mutationSequence.set( snapshot.getMutationSequence() );
+	    snapshotSequence = snapshot.getMutationSequence();
+	    indexed.countDown();
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "Restored the record index from "
+			    + "{0}; mutation sequence {1,number,#}",
+			    new Object[] { snapshotFile,
+					   snapshotSequence } );
+	    }
+
+	    return true;
+	} catch( IOException ex ) {
+	    logger.log( Level.WARNING, "The index snapshot could not be "
+			+ "read, building the record index - " + ex );
+	    return false;
+	}
+    }
+
+    /**
+     * This method writes a snapshot of the record index to the sidecar file,
+     * unless the snapshot there is up to date. The read lock is held while the
+     * snapshot is written, so the index and the database file cannot change.
+     * Nothing is written before the index is complete or after the database
+     * has been closed.
+     *
+     * @see IndexSnapshot
+     */
+    void writeIndexSnapshot() {
+
+	if ( ( indexed.getCount() != 0 ) || ( loadFailure != null ) ) {
+	    return;
+	}
+
+	masterLock.readLock().lock();
+
+	try {
+	    long sequence = mutationSequence.get();
+
+	    if ( ( ! databaseChannel.isOpen() ) ||
+		 ( sequence == snapshotSequence ) ) {
+		return;
+	    }
+
+	    IndexSnapshot.write( snapshotFile, recordIndex,
+				 databaseFile.length(), dbFile.lastModified(),
+				 sequence );
+	    snapshotSequence = sequence;
+
+	    if ( logger.isLoggable( Level.FINE ) ) {
+		logger.log( Level.FINE, "Wrote the index snapshot; "
+			    + "mutation sequence {0,number,#}", sequence );
+	    }
+	} catch( IOException ex ) {
+	    logger.log( Level.WARNING, "The index snapshot could not be "
+			+ "written - " + ex );
+	} finally {
+	    masterLock.readLock().unlock();
+	}
+    }
+
+    /**
+     * This method counts a modification of the database. When the record
+     * index changes, the sidecar file is deleted, so that its snapshot is not
+     * used should the application crash before the next snapshot. While a
+     * compaction is running, the record is tracked so that the compaction
+     * copies it again. It must be called while holding the write lock, before
+     * the database file is written.
+     *
+     * @param recNo The number of the modified record.
+     *
+     * @param indexChanged true if the modification changes the record index.
+     */
+    private void recordMutation( int recNo, boolean indexChanged ) {
+
+	mutationSequence.incrementAndGet();
+
+	if ( compactionDirty != null ) {
+	    compactionDirty.add( recNo );
+	}
+
+	if ( indexChanged ) {
+	    invalidateIndexSnapshot();
+	}
+    }
+
+    /**
+     * This method deletes the sidecar file holding the snapshot of the record
+     * index, unless there is none. It must be called while holding the write
+     * lock, before the record index changes.
+     */
+    private void invalidateIndexSnapshot() {
+
+	if ( snapshotSequence >= 0 ) {
+	    snapshotSequence = -1;
+
+	    if ( ! IndexSnapshot.delete( dbFile ) ) {
+		logger.warning( "The index snapshot could not be deleted - "
+				+ snapshotFile );
+	    }
+	}
+    }
+
+    /**
+     * This method returns the number of modifications of the database.
+     *
+     * @return The mutation sequence.
+     */
+    long getMutationSequence() {
+
+	return mutationSequence.get();
+    }
+
     /**
      * A method for creating a text message when a record has been deleted. 
      *
@@ -382,19 +1413,160 @@ public class Data implements DBMain, AutoCloseable {
 
 	if (instance == null) {
 	    
-	    instance = new Data();	    
+	    Data data = new Data();
+	    data.startServices( "" );
+	    instance = data;
 	} 
 	
 	return instance;
     }
 
     /**
-     * This method recaches a record that had been garbage collected. This could
-     * be the case when the SoftReference to the object returns null which 
-     * indicates that the record has been garbage collected.
-     * 
-     * @param  recNo An integer value denoting the unique identifier of the 
-     *         record to be recached.
+     * This method registers the MXBeans of this object and starts the
+     * background tasks set up in the application configuration: the lock
+     * contention report, the index snapshots and the compactions.
+     *
+     * @param nameSuffix A String object appended to the object names of the
+     *        MXBeans, so that the MXBeans of several instances can be
+     *        registered.
+     *
+     * @see ShardedData#getInstance()
+     */
+    void startServices( String nameSuffix ) {
+
+	ManagementAgent.register( ManagementAgent.DATA_MBEAN_NAME + nameSuffix,
+				  stats );
+	ManagementAgent.register( ManagementAgent.LOCK_PROFILER_MBEAN_NAME
+				  + nameSuffix, lockProfiler );
+	configureLockProfiler();
+	configureIndexSnapshots();
+	configureCompaction();
+    }
+
+    /**
+     * This method configures the record lock contention profiler from the
+     * application configuration. A missing or invalid report interval
+     * disables the periodic report.
+     *
+     * @see AppConfigParam#LOCK_PROFILER_ENABLED
+     * @see AppConfigParam#LOCK_PROFILER_REPORT_INTERVAL
+     */
+    private void configureLockProfiler() {
+
+	AppConfigManager configMgr = AppConfigManager.getInstance();
+
+	if ( Boolean.parseBoolean(
+		 configMgr.get( AppConfigParam.LOCK_PROFILER_ENABLED ) ) ) {
+	    lockProfiler.setEnabled( true );
+	}
+
+	String interval =
+	    configMgr.get( AppConfigParam.LOCK_PROFILER_REPORT_INTERVAL );
+
+	if ( interval != null ) {
+	    try {
+		lockProfiler.startReporting( Long.parseLong( interval.trim() ) );
+	    } catch( NumberFormatException ex ) {
+		logger.warning( "Invalid lock profiler report interval - "
+				+ interval );
+	    }
+	}
+    }
+
+    /**
+     * This method schedules the periodic snapshots of the record index from
+     * the application configuration. A missing, zero or invalid interval
+     * disables the periodic snapshots; the snapshot is still written when the
+     * application exits.
+     *
+     * @see AppConfigParam#INDEX_SNAPSHOT_INTERVAL
+     */
+    private void configureIndexSnapshots() {
+
+	String interval = AppConfigManager.getInstance().get(
+				    AppConfigParam.INDEX_SNAPSHOT_INTERVAL );
+
+	if ( interval == null ) {
+	    return;
+	}
+
+	try {
+	    long period = Long.parseLong( interval.trim() ) * 1000;
+
+	    if ( period > 0 ) {
+		snapshotTimer = new Timer( "IndexSnapshotWriter", true );
+		snapshotTimer.schedule( new TimerTask() {
+			public void run() {
+			    writeIndexSnapshot();
+			}
+		    }, period, period );
+	    }
+	} catch( NumberFormatException ex ) {
+	    logger.warning( "Invalid index snapshot interval - " + interval );
+	}
+    }
+
+    /**
+     * This method schedules the periodic compactions of the database file
+     * from the application configuration. At each interval, the file is
+     * compacted if the proportion of its slots held by deleted records has
+     * reached the threshold. A missing, zero or invalid interval disables
+     * the compactions.
+     *
+     * @see AppConfigParam#COMPACTION_INTERVAL
+     * @see AppConfigParam#COMPACTION_THRESHOLD
+     */
+    private void configureCompaction() {
+
+	AppConfigManager configMgr = AppConfigManager.getInstance();
+	String interval = configMgr.get( AppConfigParam.COMPACTION_INTERVAL );
+	String threshold = configMgr.get( AppConfigParam.COMPACTION_THRESHOLD );
+
+	if ( interval == null ) {
+	    return;
+	}
+
+	try {
+	    long period = Long.parseLong( interval.trim() ) * 1000;
+	    final int percent = ( threshold == null ) ? 25 :
+		Integer.parseInt( threshold.trim() );
+
+	    if ( period > 0 ) {
+		compactionTimer = new Timer( "DatabaseCompactor", true );
+		compactionTimer.schedule( new TimerTask() {
+			public void run() {
+			    int slots = getCachedRecordCount();
+
+			    if ( ( slots > 0 ) && ( 100L * getDeletedRecordCount()
+						    >= (long)percent * slots ) ) {
+				try {
+				    compact();
+				} catch( DBAccessException ex ) {
+				    logger.warning( "The database file could "
+						    + "not be compacted - "
+						    + ex.getMessage() );
+				}
+			    }
+			}
+		    }, period, period );
+	    }
+	} catch( NumberFormatException ex ) {
+	    logger.warning( "Invalid compaction interval or threshold - "
+			    + interval + "/" + threshold );
+	}
+    }
+
+    /**
+     * This method recaches a record that had been garbage collected. This could
+     * be the case when the SoftReference to the object returns null which 
+     * indicates that the record has been garbage collected.
+     *
+     * <p> The record is read with a positional read which does not move the
+     * file pointer, so the method may be called while holding either the read
+     * or the write lock.
+     * 
+     * @param  recNo An integer value denoting the unique identifier of the 
+     *         record to be recached.
      *
      * @return A reference to a Record object.
      *
@@ -405,20 +1577,593 @@ public class Data implements DBMain, AutoCloseable {
      */
     private DBRecord recacheRecord( int recNo ) throws IOException {
 
+	ByteBuffer buf = ByteBuffer.allocate( recordSize );
+	long position = positionOf( recNo );
+
+	while ( buf.hasRemaining() ) {
+	    if ( databaseChannel.read( buf, position + buf.position() ) < 0 ) {
+		throw new IOException( "Corrupted DB file, invalid length" );
+	    }
+	}
+
+	short recFlag = buf.getShort( 0 );
+	DBRecord record = new DBRecord( buf.array(), 2, recordLayout, recNo,
+					recFlag );
+	dbCache.put(recNo, new RecordReference(recNo, record));
+	stats.recaches.getAndIncrement();
+
+	if ( logger.isLoggable( Level.FINE ) ) {
+	    logger.log( Level.FINE, "Recached record - " + record.toString() );
+	}
+
+	return record;
+    }
+
+    /**
+     * This method recaches a record that had been garbage collected, for a
+     * search holding no lock. The read lock is acquired for the time it
+     * takes to read the record.
+     *
+     * @param  recNo An integer value denoting the unique identifier of the
+     *         record to be recached.
+     *
+     * @return A reference to a DBRecord object, null if the record was
+     *         removed from the cache meanwhile.
+     *
+     * @throws IOException If an error was encountered while accessing the
+     *         physical database file.
+     */
+    private DBRecord recacheShared( int recNo ) throws IOException {
+
+	readLock.lock();
+
+	try {
+	    SoftReference<DBRecord> recRef = dbCache.get( recNo );
+
+	    return ( recRef == null ) ? null : cachedRecord( recNo, recRef );
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /**
+     * This method replaces a cached record with its modified copy. The
+     * cached records are never modified, so that the searches holding no
+     * lock read them safely; the replaced record is retained for the
+     * searches that started before the modification. It must be called while
+     * holding the write lock, and the modification is published before the
+     * write lock is released.
+     *
+     * @param recNo An integer value denoting the unique identifier of the
+     *        record.
+     *
+     * @param record A reference to the replaced DBRecord object, null if
+     *        there was no record with this number.
+     *
+     * @param copy A reference to the modified DBRecord object.
+     *
+     * @see RecordVersions#publish()
+     */
+    private void replaceRecord( int recNo, DBRecord record, DBRecord copy ) {
+
+	versions.retain( recNo, record );
+	dbCache.put( recNo, new RecordReference( recNo, copy ) );
+    }
+
+    /**
+     * This method returns the cache entry of a record. A record of the
+     * database file that has not been loaded yet has an entry which refers
+     * to nothing, so it is read from the file when accessed.
+     *
+     * @param recNo An integer value denoting the unique identifier of the
+     *        record.
+     *
+     * @return A reference to the SoftReference of the record, null if there
+     *         is no record with this number.
+     *
+     * @see #cachedRecord(int,SoftReference)
+     */
+    private SoftReference<DBRecord> cacheReference( int recNo ) {
+
+	SoftReference<DBRecord> recRef = dbCache.get( recNo );
+
+	if ( ( recRef == null ) && ( recNo >= 0 ) &&
+	     ( recNo < recordNumber.get() ) &&
+	     ( recordMap.physicalOf( recNo ) >= 0 ) ) {
+	    return NOT_LOADED;
+	}
+
+	return recRef;
+    }
+
+    /**
+     * This method returns the position of a record in the database file.
+     *
+     * @param recNo An integer value denoting the unique identifier of the
+     *        record.
+     *
+     * @return The position of the status flag of the record.
+     *
+     * @see RecordMap
+     */
+    private long positionOf( int recNo ) {
+
+	return offsetToRecZero + (long)recordMap.physicalOf( recNo ) * recordSize;
+    }
+
+    /**
+     * This method waits until the records have been loaded into the cache.
+     * It is called by the operations that need all the records, before
+     * acquiring the read or write lock.
+     *
+     * @throws DBAccessException If the loading of the records failed or the
+     *         thread was interrupted while waiting.
+     *
+     * @see DatabaseLoader
+     */
+    void awaitLoaded() throws DBAccessException {
+
+	await( loaded, "awaitLoaded()" );
+    }
+
+    /**
+     * This method waits until the record index is complete. It is called by
+     * the operations that add or delete records, before acquiring the write
+     * lock.
+     *
+     * @throws DBAccessException If the loading of the records failed or the
+     *         thread was interrupted while waiting.
+     */
+    private void awaitIndexed() throws DBAccessException {
+
+	await( indexed, "awaitIndexed()" );
+    }
+
+    /**
+     * This method waits for the loading of the database to reach a stage.
+     *
+     * @param latch The latch released at the stage.
+     *
+     * @param method The name of the calling method, for the log.
+     *
+     * @throws DBAccessException If the loading of the records failed or the
+     *         thread was interrupted while waiting.
+     */
+    private void await( CountDownLatch latch, String method )
+			throws DBAccessException {
+
+	try {
+	    latch.await();
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	    String msg = "Interrupted while waiting for the records to load";
+	    logger.log( Level.WARNING, msg );
+	    DBAccessException e = new DBAccessException( msg, ex );
+	    logger.throwing( "Data", method, e );
+	    throw e;
+	}
+
+	IOException failure = loadFailure;
+
+	if ( failure != null ) {
+	    String msg = "Database file error - " + failure.getMessage();
+	    logger.log( Level.SEVERE, msg );
+	    DBAccessException e = new DBAccessException( msg, failure );
+	    logger.throwing( "Data", method, e );
+	    throw e;
+	}
+    }
+
+    /**
+     * This method returns a cached record, recaching it if it had been
+     * garbage collected.
+     *
+     * @param recNo An integer value denoting the unique identifier of the
+     *        record.
+     *
+     * @param recRef A reference to the SoftReference of the record in the
+     *        cache.
+     *
+     * @return A reference to a DBRecord object.
+     *
+     * @throws IOException If an error was encountered while accessing the
+     *         physical database file.
+     */
+    private DBRecord cachedRecord( int recNo, SoftReference<DBRecord> recRef )
+				   throws IOException {
+
+	DBRecord record = recRef.get();
+
+	if ( record == null ) {
+	    return recacheRecord( recNo );
+	}
+
+	stats.cacheHits.getAndIncrement();
+	return record;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, Short> getSchema() {
+
+	return new LinkedHashMap<String, Short>( dbMetaData );
+    }
+
+    /**
+     * This method returns the number of records in the cache.
+     *
+     * @return The number of cached records, valid and deleted.
+     */
+    int getCachedRecordCount() {
+
+	return recordMap.slotCount( recordNumber.get() );
+    }
+
+    /**
+     * This method indicates whether the database holds a record, valid or
+     * deleted, with the same name and location as the specified attributes.
+     *
+     * @param data An array of String objects denoting the attributes of a
+     *        record. It is not modified.
+     *
+     * @return boolean value true if there is a record with the same key.
+     *
+     * @throws DBAccessException If the loading of the records failed.
+     *
+     * @see ShardedData#create(String[])
+     */
+    boolean containsKey( String[] data ) throws DBAccessException {
+
+	awaitIndexed();
+
+	readLock.lock();
+
+	try {
+	    return ( recordIndex.find( new DBRecord( data.clone(), recordLayout,
+						     -1 ) ) != null );
+	} finally {
+	    readLock.unlock();
+	}
+    }
+
+    /**
+     * This method returns the number of deleted records whose slots have not
+     * been reclaimed by a compaction yet.
+     *
+     * @return The number of deleted records.
+     */
+    int getDeletedRecordCount() {
+
+	return recordIndex.getFreeSlotCount();
+    }
+
+    /**
+     * This method returns the number of replaced record versions retained
+     * for the searches in progress.
+     *
+     * @return The number of versions.
+     */
+    long getRetainedVersionCount() {
+
+	return versions.getRetainedCount();
+    }
+
+    /**
+     * This method returns the number of searches in progress.
+     *
+     * @return The number of open views.
+     */
+    int getOpenViewCount() {
+
+	return versions.getViewCount();
+    }
+
+    /**
+     * This method returns the number of cached records that have not been
+     * garbage collected.
+     *
+     * @return The number of reachable cached records.
+     */
+    int getReachableRecordCount() {
+
+	int count = 0;
+
+	for ( SoftReference<DBRecord> recRef : dbCache.values() ) {
+	    if ( recRef.get() != null ) {
+		++count;
+	    }
+	}
+
+	return count;
+    }
+
+    /**
+     * This method returns the number of records locked by a client. The lock
+     * cache is read under the untimed read lock, so the statistics do not
+     * count their own collection.
+     *
+     * @return The number of locked records.
+     */
+    int getLockedRecordCount() {
+
+	masterLock.readLock().lock();
+
+	try {
+	    int count = 0;
+
+	    for ( DatabaseLock lock : lockCache.values() ) {
+		if ( lock.isLocked() ) {
+		    ++count;
+		}
+	    }
+
+	    return count;
+	} finally {
+	    masterLock.readLock().unlock();
+	}
+    }
+
+    /**
+     * This method returns the number of threads waiting for a record lock.
+     *
+     * @return The number of waiting threads.
+     */
+    int getRecordLockWaiterCount() {
+
+	masterLock.readLock().lock();
+
+	try {
+	    int count = 0;
+
+	    for ( DatabaseLock lock : lockCache.values() ) {
+		count += lock.getQueueLength();
+	    }
+
+	    return count;
+	} finally {
+	    masterLock.readLock().unlock();
+	}
+    }
+
+    /**
+     * This method clears the SoftReferences of all the cached records, as the
+     * garbage collector would under memory pressure. The records are recached
+     * from the database file when they are next accessed. It is used by the
+     * benchmarks for measuring cache-cold operations.
+     *
+     * @throws DBAccessException If the loading of the records failed.
+     */
+    void clearCachedRecords() throws DBAccessException {
+
+	awaitLoaded();
+
 	writeLock.lock();
-	
+
+	try {
+	    for ( SoftReference<DBRecord> recRef : dbCache.values() ) {
+		recRef.clear();
+	    }
+	} finally {
+	    writeLock.unlock();
+	}
+    }
+
+    /**
+     * This method compacts the database file, reclaiming the slots of the
+     * deleted records, while the database is in use. It proceeds as follows:
+     *
+     * <ul>
+     * <li> While holding the write lock, it starts tracking the records
+     *      modified from then on.
+     * <li> Without holding any lock, it copies the valid records of the
+     *      database file into the compacted file.
+     * <li> Without holding any lock, it copies the modified records again,
+     *      in rounds, until few are left.
+     * <li> While holding the write lock, it copies the remaining modified
+     *      records and the deleted records that are still locked, writes the
+     *      record map of the compacted file and moves the compacted file over
+     *      the database file.
+     * </ul>
+     *
+     * The record numbers do not change. The deleted records left out of the
+     * compacted file no longer exist, their numbers are not reused.
+     *
+     * @return The number of slots reclaimed, 0 if there were none or if a
+     *         compaction is already running.
+     *
+     * @throws DBAccessException If an error is encountered while accessing
+     *         the database file or the compacted file. The database file is
+     *         left unchanged.
+     *
+     * @see RecordMap
+     */
+    int compact() throws DBAccessException {
+
+	awaitLoaded();
+
+	if ( ! compacting.compareAndSet( false, true ) ) {
+	    logger.info( "A compaction of the database file is already running" );
+	    return 0;
+	}
+
+	long startTime = System.nanoTime();
+	DatabaseCompaction compaction = null;
+
+	try {
+	    int slotCount;
+	    int recordNumbers;
+
+	    writeLock.lock();
+
+	    try {
+		slotCount = recordMap.slotCount( recordNumber.get() );
+		recordNumbers = recordNumber.get();
+		compactionDirty = new HashSet<>();
+	    } finally {
+		writeLock.unlock();
+	    }
+
+	    compaction = new DatabaseCompaction(
+		new File( dbFile.getPath() + COMPACTED_FILE_SUFFIX ),
+		recordNumbers );
+	    compaction.copyRecords( slotCount );
+
+	    Set<Integer> modified;
+
+	    for ( int round = 0; ( round < COMPACTION_CATCH_UP_ROUNDS ) &&
+		      ( ( modified = takeCompactionDirty() ) != null ); ++round ) {
+		compaction.copyRecords( modified, false );
+	    }
+
+	    int reclaimed;
+
+	    writeLock.lock();
+
+	    try {
+		reclaimed = replaceDatabaseFile( compaction );
+	    } finally {
+		writeLock.unlock();
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "Compacted the database file, "
+			    + "reclaimed {0,number,#} slots in {1,number,#} ms",
+			    new Object[] { reclaimed,
+					   ( System.nanoTime() - startTime )
+					   / 1000000 } );
+	    }
+
+	    return reclaimed;
+	} catch( IOException ex ) {
+	    logger.log( Level.SEVERE, "Database file error while compacting - "
+			+ ex, ex );
+	    DBAccessException e = new DBAccessException( ex.getMessage(), ex );
+	    logger.throwing( "Data", "compact()", e );
+	    throw e;
+	} finally {
+	    writeLock.lock();
+
+	    try {
+		compactionDirty = null;
+	    } finally {
+		writeLock.unlock();
+	    }
+
+	    if ( compaction != null ) {
+		compaction.discard();
+	    }
+
+	    compacting.set( false );
+	}
+    }
+
+    /**
+     * This method takes the numbers of the records modified since the last
+     * call, if there are enough of them to be copied without holding any
+     * lock.
+     *
+     * @return A reference to a Set of the record numbers, null if there are
+     *         few enough to be copied while holding the write lock.
+     */
+    private Set<Integer> takeCompactionDirty() {
+
+	writeLock.lock();
+
 	try {
-	    databaseFile.seek(offsetToRecZero + recNo * recordSize);
-	    short recFlag = databaseFile.readShort();
-	    byte[] buf = new byte[recordSize - 2];
-	    DBRecord record = new DBRecord(buf, dbMetaData, recNo, recFlag);
-	    dbCache.put(recNo, new SoftReference<DBRecord>(record));
-	    logger.log( Level.WARNING, "Recached record - " + record.toString() );
-	    return record;
+	    if ( compactionDirty.size() <= COMPACTION_CATCH_UP_LIMIT ) {
+		return null;
+	    }
+
+	    Set<Integer> modified = compactionDirty;
+	    compactionDirty = new HashSet<>();
+
+	    return modified;
 	} finally {
 	    writeLock.unlock();
 	}
     }
+
+    /**
+     * This method completes a compaction and moves the compacted file over
+     * the database file. The pending record map is written first, so that the
+     * replacement can be recognized and completed should the application
+     * crash before the record map is in place. It must be called while
+     * holding the write lock.
+     *
+     * @param compaction The compaction.
+     *
+     * @return The number of slots reclaimed.
+     *
+     * @throws IOException If an error is encountered while accessing the
+     *         database file or the compacted file. The database file is
+     *         left unchanged.
+     *
+     * @see #recoverRecordMap()
+     */
+    private int replaceDatabaseFile( DatabaseCompaction compaction )
+				     throws IOException {
+
+	compaction.copyRecords( compactionDirty, false );
+
+	/* A deleted record may still be locked and unlocked later */
+	compaction.copyRecords( lockCache.keySet(), true );
+
+	List<DBRecord> dropped = new ArrayList<>();
+
+	for ( Map.Entry<Integer, RecordReference> entry :
+		  dbCache.entrySet() ) {
+
+	    if ( ! compaction.contains( entry.getKey() ) ) {
+		dropped.add( cachedRecord( entry.getKey(), entry.getValue() ) );
+	    }
+	}
+
+	if ( dropped.isEmpty() ) {
+	    return 0;
+	}
+
+	RecordMap map = compaction.complete( recordNumber.get() );
+	map.writePending( dbFile, compaction.length(), compaction.checksum() );
+
+	databaseFile.close();
+
+	try {
+	    Files.move( compaction.file.toPath(), dbFile.toPath(),
+			StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE );
+	} catch( IOException ex ) {
+	    Files.deleteIfExists( RecordMap.pendingOf( dbFile ).toPath() );
+	    throw ex;
+	} finally {
+	    databaseFile = new RandomAccessFile( dbFile, "rws" );
+	    databaseChannel = databaseFile.getChannel();
+	}
+
+	recordMap = map;
+
+	try {
+	    RecordMap.commit( dbFile );
+	} catch( IOException ex ) {
+	    logger.log( Level.WARNING, "The record map could not be moved into "
+			+ "place, it will be when the database is opened - "
+			+ ex );
+	}
+
+	for ( DBRecord record : dropped ) {
+	    int recNo = record.getRecordNumber();
+
+	    dbCache.remove( recNo );
+	    recordIndex.remove( recNo, record );
+	    recordIndex.removeFreeSlot( recNo );
+	}
+
+	mutationSequence.incrementAndGet();
+	invalidateIndexSnapshot();
+	stats.compactions.getAndIncrement();
+
+	return dropped.size();
+    }
     
     /**
      * This method reads from the database a record with the number in the input
@@ -439,10 +2184,12 @@ public class Data implements DBMain, AutoCloseable {
     public String [] read(int recNo) throws RecordNotFoundException,
                                             DBAccessException {
 
+	long start = System.nanoTime();
+
 	readLock.lock();
 		
 	try {	    
-	    SoftReference<DBRecord> recRef = dbCache.get( recNo );
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 
 	    if ( recRef == null ) {
 		String msg = "Record number " + recNo + " does not exist";
@@ -450,19 +2197,13 @@ public class Data implements DBMain, AutoCloseable {
 		RecordNotFoundException e = new RecordNotFoundException(msg);
 		logger.throwing("Data", "read()", e );
 		throw e;		
-	    } else {
-
-		DBRecord record = recRef.get();
-
-		if ( record == null ) {
-		    readLock.unlock();
-		    record = recacheRecord( recNo );
-		    readLock.lock();
-		}
+	    } else {
+
+		DBRecord record = cachedRecord( recNo, recRef );
 		
 		if ( record.isDeleted() ) {
 		    String msg = getDeletedRecordMsg(record);
-		    logger.info( msg );
+		    logger.fine( msg );
 		    RecordNotFoundException e = new RecordNotFoundException(msg);
 		    logger.throwing("Data", "read()", e );
 		    throw e;
@@ -478,6 +2219,7 @@ public class Data implements DBMain, AutoCloseable {
 	    throw e;
 	} finally {	    
 	    readLock.unlock();
+	    stats.readLatency.recordSince( start );
 	}
     }
 
@@ -505,10 +2247,12 @@ public class Data implements DBMain, AutoCloseable {
     public void update(int recNo, String[] data) throws RecordNotFoundException,
                                                         DBAccessException {
 
+	long start = System.nanoTime();
+
 	writeLock.lock();
     
 	try {
-	    SoftReference<DBRecord> recRef = dbCache.get( recNo );
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 
 	    if ( recRef == null ) {
 		String msg = "Record number - " + recNo + " does not exist";
@@ -535,25 +2279,22 @@ public class Data implements DBMain, AutoCloseable {
 		    if ( (owner != null) &&
 			 ( owner.getId() == Thread.currentThread().getId())) {
 
-			DBRecord record = recRef.get();
-
-			if ( record == null ) {
-			    /* Record has been garbage collected, recache it */
-			    record = recacheRecord( recNo );
-			}
+			DBRecord record = cachedRecord( recNo, recRef );
 
 			if ( record.isDeleted() ) {
 			    String msg = getDeletedRecordMsg(record) +
 				                    "It cannot be updated!";
-			    logger.log(Level.INFO, msg );
+			    logger.log(Level.FINE, msg );
 			    RecordNotFoundException e = new RecordNotFoundException(msg);
 			    logger.throwing("Data", "update()", e );
 			    throw e;
 			}
 			
-			record.setFieldsValues( data, dbMetaData );
-			databaseFile.seek(offsetToRecZero + recNo * recordSize);
-			record.writeToFile( databaseFile );
+			recordMutation( recNo, false );
+			DBRecord copy = new DBRecord( record );
+			copy.setFieldsValues( data );
+			writeDirtyFields( recNo, copy, databaseChannel );
+			replaceRecord( recNo, record, copy );
 		    } else {
 			String msg = "Attempt to update record number - "
 			           + recNo + " failed, not owner of the lock "
@@ -571,10 +2312,283 @@ public class Data implements DBMain, AutoCloseable {
 	    logger.throwing( "Data", "update()", e );
 	    throw e;
 	} finally {
+	    versions.publish();
+	    writeLock.unlock();
+	    stats.updateLatency.recordSince( start );
+	}
+    }
+
+    /**
+     * This method updates several records together. Each record must be
+     * locked by the calling thread. All the records are checked before any
+     * of them is modified, so either all the records are updated or none,
+     * and the updated records are written with a single flush of the
+     * database file instead of one synchronous write each.
+     *
+     * @param recNos An array of integers denoting the records to be updated.
+     *
+     * @param data An array holding, for each record, an array of String
+     *        objects denoting its new attributes.
+     *
+     * @throws RecordNotFoundException is thrown if one of the records does
+     *         not exist or had been deleted. No record is updated.
+     *
+     * @throws DBAccessException is thrown if one of the records is not
+     *         locked by the calling thread, in which case no record is
+     *         updated, or if an error is encountered while accessing the
+     *         physical database file.
+     *
+     * @see #update(int, String[])
+     */
+    public void updateAll(int [] recNos, String [][] data) throws
+						RecordNotFoundException,
+						DBAccessException {
+
+	writeLock.lock();
+
+	try {
+	    DBRecord [] records = new DBRecord[ recNos.length ];
+
+	    for ( int i = 0; i < recNos.length; ++i ) {
+		records[i] = ownedRecord( recNos[i], "updateAll()" );
+	    }
+
+	    /* Unlike the database file, this channel does not write through */
+	    try ( FileChannel channel =
+		  FileChannel.open( dbFile.toPath(), StandardOpenOption.WRITE ) ) {
+
+		for ( int i = 0; i < records.length; ++i ) {
+
+		    recordMutation( recNos[i], false );
+		    DBRecord copy = new DBRecord( records[i] );
+		    copy.setFieldsValues( data[i] );
+		    writeDirtyFields( recNos[i], copy, channel );
+		    replaceRecord( recNos[i], records[i], copy );
+		}
+
+		channel.force( false );
+	    }
+
+	    stats.batchedUpdates.getAndAdd( records.length );
+
+	} catch(IOException exc) {
+	    logger.log(Level.SEVERE, "Database file error - " + exc );
+	    DBAccessException e = new DBAccessException(exc.getMessage(), exc);
+	    logger.throwing( "Data", "updateAll()", e );
+	    throw e;
+	} finally {
+	    versions.publish();
+	    writeLock.unlock();
+	}
+    }
+
+    /**
+     * This method books or releases a record by changing only its owner. The
+     * record must be locked by the calling thread. Only the bytes of the
+     * owner attribute are written to the database file, and nothing at all
+     * if the owner is unchanged.
+     *
+     * @param recNo An integer uniquely identifying the record.
+     *
+     * @param owner A String object denoting the new owner of the record,
+     *        blank to release it.
+     *
+     * @throws RecordNotFoundException is thrown if the record does not exist
+     *         or had been deleted.
+     *
+     * @throws DBAccessException is thrown if the record is not locked by the
+     *         calling thread, or if an error is encountered while accessing
+     *         the physical database file.
+     *
+     * @see #update(int, String[])
+     */
+    public void updateOwner(int recNo, String owner) throws
+						RecordNotFoundException,
+						DBAccessException {
+
+	long start = System.nanoTime();
+
+	writeLock.lock();
+
+	try {
+	    DBRecord record = ownedRecord( recNo, "updateOwner()" );
+
+	    recordMutation( recNo, false );
+	    DBRecord copy = new DBRecord( record );
+	    copy.changeOwner( owner );
+	    writeDirtyFields( recNo, copy, databaseChannel );
+	    replaceRecord( recNo, record, copy );
+
+	} catch(IOException exc) {
+	    logger.log(Level.SEVERE, "Database file error - " + exc );
+	    DBAccessException e = new DBAccessException(exc.getMessage(), exc);
+	    logger.throwing( "Data", "updateOwner()", e );
+	    throw e;
+	} finally {
+	    versions.publish();
+	    writeLock.unlock();
+	    stats.updateLatency.recordSince( start );
+	}
+    }
+
+    /**
+     * This method deletes several records together. Each record must be
+     * locked by the calling thread. All the records are checked before any
+     * of them is deleted, so either all the records are deleted or none, and
+     * the status flags are written with a single flush of the database file.
+     *
+     * @param recNos An array of integers denoting the records to be deleted.
+     *
+     * @throws RecordNotFoundException is thrown if one of the records does
+     *         not exist or had been deleted. No record is deleted.
+     *
+     * @throws DBAccessException is thrown if one of the records is not
+     *         locked by the calling thread, in which case no record is
+     *         deleted, or if an error is encountered while accessing the
+     *         physical database file.
+     *
+     * @see #delete(int)
+     */
+    public void deleteAll(int [] recNos) throws RecordNotFoundException,
+						DBAccessException {
+
+	awaitIndexed();
+
+	writeLock.lock();
+
+	try {
+	    DBRecord [] records = new DBRecord[ recNos.length ];
+
+	    for ( int i = 0; i < recNos.length; ++i ) {
+		records[i] = ownedRecord( recNos[i], "deleteAll()" );
+	    }
+
+	    ByteBuffer buf = ByteBuffer.allocate( 2 );
+
+	    /* Unlike the database file, this channel does not write through */
+	    try ( FileChannel channel =
+		  FileChannel.open( dbFile.toPath(), StandardOpenOption.WRITE ) ) {
+
+		for ( int i = 0; i < records.length; ++i ) {
+
+		    recordMutation( recNos[i], true );
+		    DBRecord copy = new DBRecord( records[i] );
+		    copy.delete();
+
+		    buf.clear();
+		    buf.putShort( DBRecord.DELETED_REC_FLAG_VALUE );
+		    buf.flip();
+
+		    long position = positionOf( recNos[i] );
+		    while ( buf.hasRemaining() ) {
+			channel.write( buf, position + buf.position() );
+		    }
+
+		    replaceRecord( recNos[i], records[i], copy );
+		    recordIndex.addFreeSlot( recNos[i] );
+		}
+
+		channel.force( false );
+	    }
+
+	    stats.batchedDeletes.getAndAdd( records.length );
+
+	} catch(IOException exc) {
+	    logger.log(Level.SEVERE, "Database file error - " + exc );
+	    DBAccessException e = new DBAccessException(exc.getMessage(), exc);
+	    logger.throwing( "Data", "deleteAll()", e );
+	    throw e;
+	} finally {
+	    versions.publish();
 	    writeLock.unlock();
 	}
     }
 
+    /**
+     * This method returns a valid record locked by the calling thread. The
+     * write lock must be held.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param method A String object denoting the calling method, for the log.
+     *
+     * @return A reference to the DBRecord object.
+     *
+     * @throws RecordNotFoundException is thrown if the record does not exist
+     *         or had been deleted.
+     *
+     * @throws DBAccessException is thrown if the record is not locked by the
+     *         calling thread.
+     *
+     * @throws IOException If the record could not be read back from the
+     *         database file.
+     */
+    private DBRecord ownedRecord( int recNo, String method ) throws
+						RecordNotFoundException,
+						DBAccessException,
+						IOException {
+
+	SoftReference<DBRecord> recRef = cacheReference( recNo );
+
+	if ( recRef == null ) {
+	    String msg = "Record number - " + recNo + " does not exist";
+	    logger.log(Level.WARNING, msg);
+	    RecordNotFoundException e = new RecordNotFoundException(msg);
+	    logger.throwing("Data", method, e );
+	    throw e;
+	}
+
+	DatabaseLock lock = lockCache.get( recNo );
+	Thread owner = ( lock == null ) ? null : lock.getOwner();
+
+	if ( ( owner == null ) ||
+	     ( owner.getId() != Thread.currentThread().getId() ) ) {
+	    String msg = "Record - " + recNo
+		+ " is not locked by the caller, cannot be modified";
+	    logger.log(Level.WARNING, msg);
+	    DBAccessException e = new DBAccessException(msg);
+	    logger.throwing("Data", method, e );
+	    throw e;
+	}
+
+	DBRecord record = cachedRecord( recNo, recRef );
+
+	if ( record.isDeleted() ) {
+	    String msg = getDeletedRecordMsg(record) + "It cannot be modified!";
+	    logger.log(Level.FINE, msg );
+	    RecordNotFoundException e = new RecordNotFoundException(msg);
+	    logger.throwing("Data", method, e );
+	    throw e;
+	}
+
+	return record;
+    }
+
+    /**
+     * This method writes the attributes of a record that changed since it
+     * was copied from the cached record, one positional write per span of
+     * adjacent changed attributes. The write lock must be held.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param record A reference to the modified copy of the record.
+     *
+     * @param channel A reference to a FileChannel object of the database
+     *        file.
+     *
+     * @throws IOException If an error is encountered while writing to the
+     *         database file.
+     *
+     * @see DBRecord#writeDirtyFields(FileChannel, long)
+     */
+    private void writeDirtyFields( int recNo, DBRecord record,
+				   FileChannel channel ) throws IOException {
+
+	int written = record.writeDirtyFields( channel, positionOf( recNo ) );
+
+	stats.writtenBytes.getAndAdd( written );
+    }
+
     /**
      * This method logically deletes the record uniquely identified by the 
      * integer record number argument from the database. 
@@ -593,10 +2607,14 @@ public class Data implements DBMain, AutoCloseable {
     public void delete(int recNo) throws RecordNotFoundException,
                                          DBAccessException {
 	
+	long start = System.nanoTime();
+
+	awaitIndexed();
+
 	writeLock.lock();
 
 	try {
-	    SoftReference<DBRecord> recRef = dbCache.get( recNo );
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 
 	    if ( recRef == null ) {		
 		String msg = "Record number - " + recNo + " does not exist";
@@ -606,16 +2624,12 @@ public class Data implements DBMain, AutoCloseable {
 		throw e;
 	    } else {
 		
-		DBRecord record = recRef.get();
-		
-		if ( record == null ) {
-		    record = recacheRecord( recNo );		    
-		} 
+		DBRecord record = cachedRecord( recNo, recRef );
 		
 		if ( record.isDeleted() ) {		    
 		    String msg = getDeletedRecordMsg(record) +
 			                    "It cannot be deleted again!!";
-		    logger.info( msg );
+		    logger.fine( msg );
 		    RecordNotFoundException e = new RecordNotFoundException(msg);
 		    logger.throwing("Data", "delete()", e );
 		    throw e;	
@@ -637,9 +2651,13 @@ public class Data implements DBMain, AutoCloseable {
 		if ( (owner != null) &&
 			 ( owner.getId() == Thread.currentThread().getId())) {
 
-		    record.delete();
-		    databaseFile.seek( offsetToRecZero + recNo * recordSize );
-		    record.writeToFile( databaseFile );
+		    recordMutation( recNo, true );
+		    DBRecord copy = new DBRecord( record );
+		    copy.delete();
+		    copy.writeTo( databaseChannel, positionOf( recNo ),
+				  recordBuffer );
+		    replaceRecord( recNo, record, copy );
+		    recordIndex.addFreeSlot( recNo );
 		} else {
 		    String msg = "Attempt to delete record number - "
 			           + recNo + " failed, not owner of the lock "
@@ -656,7 +2674,9 @@ public class Data implements DBMain, AutoCloseable {
 	    logger.throwing( "Data", "delete()", e );
 	    throw e;	    
 	} finally {
+	    versions.publish();
 	    writeLock.unlock();
+	    stats.deleteLatency.recordSince( start );
 	}
     }
 
@@ -714,61 +2734,215 @@ public class Data implements DBMain, AutoCloseable {
      *         the physical database file.
      *
      * @throws RecordNotFoundException is thrown if no record matching the 
-     *         criteria is found.
+     *         criteria is found. The exception is shared and has no stack
+     *         trace.
      *
-     * @see DBRecord#matchesCriteria(String[])
+     * @see SearchCriteria
+     * @see #findMatching(String[])
      */
     public int [] find(String [] criteria) throws RecordNotFoundException,
                                                   DBAccessException {
 
-	readLock.lock();
+	int [] matches = findMatching( criteria );
+
+	if ( matches.length == 0 ) {
+	    /* An expected outcome, not worth more than a debug entry */
+	    logger.log(Level.FINE, NO_MATCH_EXCEPTION.getMessage());
+	    logger.throwing("Data", "find()", NO_MATCH_EXCEPTION );
+	    throw NO_MATCH_EXCEPTION;
+	}
+
+	return matches;
+    }
+
+    /**
+     * This method does a search of the database for records matching the
+     * specified criteria, following the rules described for the find()
+     * method. Finding no record is a routine outcome, it is reported with a
+     * zero length array rather than an exception.
+     *
+     * <p> The search holds no lock. It reads the records as they were when it
+     * started, the records modified meanwhile being taken from the retained
+     * versions, so it neither waits for the writers nor makes them wait. Only
+     * a record that was garbage collected is read again under the read lock.
+     *
+     * @param  criteria An array of String objects with each element indicating
+     * the criterion for the corresponding attribute in an array of record
+     * attributes.
+     *
+     * @return An array of integers denoting the unique identifiers of the
+     *         records matching the criteria, a zero length array if there are
+     *         none.
+     *
+     * @throws DBAccessException If an error is encountered while accessing
+     *         the physical database file.
+     *
+     * @see #find(String[])
+     * @see RecordVersions
+     */
+    public int [] findMatching(String [] criteria) throws DBAccessException {
+
+	long start = System.nanoTime();
+
+	/* A search needs every record, it waits for the loading */
+	awaitLoaded();
+
+	RecordVersions.View view = versions.open();
 	
 	try {
-	    Set<Integer> recKeys = dbCache.keySet();
-	    Set<Integer> result = new TreeSet<>();
-	    
-	    for( Integer key : recKeys ) {
+	    SearchCriteria compiled = SearchCriteria.compile( criteria );
+
+	    int [] matches = matchBuffer.get();
+	    int cached = getCachedRecordCount();
+	    if ( ( matches == null ) || ( matches.length < cached ) ) {
+		matches = new int[ cached ];
+		matchBuffer.set( matches );
+	    }
+
+	    int count = 0;
+	    int hits = 0;
 
-		SoftReference<DBRecord> recRef = dbCache.get( key );
-		DBRecord record = null;
+	    /* The cache is ordered by record number, so are the matches.
+	       Its values are iterated, the entry view of the skip list
+	       would allocate an entry for every record */
+	    for( RecordReference recRef : dbCache.values() ) {
+
+		int recNo = recRef.recNo;
+		DBRecord record = recRef.get();
 			
-		if ( (recRef == null) || ( (record = recRef.get()) == null) ) {
-		    record = recacheRecord( key );		    
+		if ( record == null ) {
+		    record = recacheShared( recNo );
+		} else {
+		    ++hits;
+		}
+
+		/* The cached record is read first, then its older versions */
+		RecordVersions.Version version =
+		    versions.versionAt( recNo, view );
+
+		if ( version != null ) {
+		    record = version.record;
 		}
 				
-		if ( ( ! record.isDeleted() ) &&
-		     ( record.matchesCriteria(criteria) ) ) {
+		if ( ( record != null ) && ( ! record.isDeleted() ) &&
+		     ( compiled.matches(record) ) ) {
+
+		    /* Records may be added while searching */
+		    if ( count == matches.length ) {
+			matches = Arrays.copyOf( matches, 2 * count + 1 );
+			matchBuffer.set( matches );
+		    }
 
-		    result.add( key );
+		    matches[ count++ ] = recNo;
 		}		
 	    }
 
-	    if ( result.size() == 0 ) {
-		
-		String msg = "No record found for the specified criteria";
-		logger.log(Level.INFO, msg);
-		RecordNotFoundException e = new RecordNotFoundException(msg);
-		logger.throwing("Data", "find()", e );
-		throw e;
-		
-	    } else {
-		int [] recNos = new int[ result.size() ];
-		int idx = 0;
-		for( Integer value : result) {
-		    recNos[idx] = value;
-		    ++idx;
-		}
+	    stats.cacheHits.getAndAdd( hits );
 
-		return recNos;
-	    }	    
+	    return Arrays.copyOf( matches, count );
 	} catch( IOException ex ) {
 	    logger.log(Level.SEVERE, "Database file error - " + ex );	    
 	    DBAccessException e = new DBAccessException(ex.getMessage(), ex);
-	    logger.throwing( "Data", "find()", e );
+	    logger.throwing( "Data", "findMatching()", e );
 	    throw e;
 	} finally {
 
-	    readLock.unlock();
+	    versions.close( view );
+	    stats.findLatency.recordSince( start );
+	}
+    }
+
+    /**
+     * This method locks the records matching the specified criteria,
+     * following the rules described for the find() method. The matching
+     * records are found with findMatching(), then locked one by one in
+     * ascending record number order, waiting for the records locked by other
+     * threads. A record that was deleted or no longer matches by the time it
+     * is locked is unlocked again and left out.
+     *
+     * @param  criteria An array of String objects with each element indicating
+     * the criterion for the corresponding attribute in an array of record
+     * attributes.
+     *
+     * @return An array of integers denoting the records locked by the calling
+     *         thread, in ascending order, a zero length array if no record
+     *         matches. The caller must unlock them.
+     *
+     * @throws DBAccessException If an error is encountered while accessing
+     *         the physical database file. No record is left locked.
+     *
+     * @see #findMatching(String[])
+     */
+    public int [] lockMatching(String [] criteria) throws DBAccessException {
+
+	int [] matches = findMatching( criteria );
+	SearchCriteria compiled = SearchCriteria.compile( criteria );
+	int count = 0;
+	boolean done = false;
+
+	try {
+	    for ( int recNo : matches ) {
+
+		try {
+		    lock( recNo );
+		} catch( RecordNotFoundException ex ) {
+		    /* Deleted since the search */
+		    continue;
+		}
+
+		matches[ count++ ] = recNo;
+
+		boolean keep;
+
+		readLock.lock();
+
+		try {
+		    DBRecord record = cachedRecord( recNo,
+						    cacheReference( recNo ) );
+		    keep = ( ! record.isDeleted() ) &&
+			compiled.matches( record );
+		} finally {
+		    readLock.unlock();
+		}
+
+		if ( ! keep ) {
+		    --count;
+		    unlockAll( new int[] { recNo } );
+		}
+	    }
+
+	    done = true;
+
+	    return Arrays.copyOf( matches, count );
+	} catch( IOException ex ) {
+	    logger.log(Level.SEVERE, "Database file error - " + ex );
+	    DBAccessException e = new DBAccessException(ex.getMessage(), ex);
+	    logger.throwing( "Data", "lockMatching()", e );
+	    throw e;
+	} finally {
+	    if ( ! done ) {
+		unlockAll( Arrays.copyOf( matches, count ) );
+	    }
+	}
+    }
+
+    /**
+     * This method unlocks records locked by the calling thread, in the
+     * reverse order of the array. The records are known to exist, a failure
+     * to unlock one is logged and does not prevent the unlocking of the
+     * others.
+     *
+     * @param recNos An array of integers denoting the locked records.
+     */
+    void unlockAll(int [] recNos) {
+
+	for ( int i = recNos.length - 1; i >= 0; --i ) {
+	    try {
+		unlock( recNos[i] );
+	    } catch( RecordNotFoundException | DBAccessException ex ) {
+		logger.log( Level.WARNING, "Could not unlock record - "
+			    + recNos[i], ex );
+	    }
 	}
     }
 
@@ -779,7 +2953,10 @@ public class Data implements DBMain, AutoCloseable {
      * matching the new record, the record is reactivated and its attributes 
      * are replaced with the attributes of the new record. 
      *
-     * <p> If there are no matching records, 
+     * <p> If there are no matching records, the new record takes the slot of
+     * the deleted record with the lowest number, or is appended to the
+     * database file if no record is deleted. The matching record and the free
+     * slot are found with the record index, once it is complete.
      *
      * @param data This is an array of String objects denoting the attributes 
      *        of the new record.
@@ -796,71 +2973,44 @@ public class Data implements DBMain, AutoCloseable {
     public int create(String [] data) throws DuplicateKeyException,
                                              DBAccessException {
 
+	long start = System.nanoTime();
+
+	awaitIndexed();
+
 	writeLock.lock();
 	
 	try {	    
-	    int recNo = recordNumber.getAndIncrement();
-
-	    DBRecord newRecord = new DBRecord( data, dbMetaData, recNo );
-
-	    Set<Integer> recKeys = dbCache.keySet();
-	    boolean noDuplicate = true;
-	    DBRecord record = null;
-	    boolean foundDeleted = false;
-	    
-	    /* Search for a matching record in the cache */
-	    for(Integer key : recKeys) {
-		
-		SoftReference<DBRecord> recRef = dbCache.get( key );
-		
-		if ( (recRef == null) || ( (record = recRef.get()) == null) ) {
-		    record = recacheRecord( key );		    
-		}
-		
-		if ( record.equals( newRecord ) ) {
-		    noDuplicate = false;
-		    recNo = key;
-		    break;
-		}
-
-		if ( ! foundDeleted ) {		    
-		    if ( record.isDeleted() ) {
-			foundDeleted = true;
-			recNo = key;
-		    }		    
-		}
-	    }
-
-	    if ( noDuplicate ) {
-		if ( foundDeleted ) {
-		    recordNumber.getAndDecrement();		    
-		} 
+	    DBRecord newRecord = new DBRecord( data, recordLayout,
+					       recordNumber.get() );
 
-		dbCache.put( recNo, new SoftReference<DBRecord>(newRecord) );
-		databaseFile.seek( offsetToRecZero + recNo * recordSize );
-		newRecord.writeToFile( databaseFile );
-		logger.log( Level.INFO,
-			    "Added new record to the database; values - "
-			    + newRecord );
-		return recNo;
-		
-	    } else {
+	    /* Look up a record with the same key in the index */
+	    Integer match = recordIndex.find( newRecord );
 
-		recordNumber.getAndDecrement();
+	    if ( match != null ) {
 
+		int recNo = match;
+		DBRecord record = cachedRecord( recNo, cacheReference( recNo ) );
 		String msg = "The record already exists in the database; ";
 		
 		if ( record.isDeleted() ) {
 		    
 		    /* If duplicate record is deleted, undelete it */
-		    record.undelete();
+		    recordMutation( recNo, true );
+		    DBRecord copy = new DBRecord( record );
+		    copy.undelete();
 		    /* Set the values to the values for the new record */
-		    record.setFieldsValues( data, dbMetaData );
-		    /* Set the file pointer and Write it to the file */		    
-		    databaseFile.seek(offsetToRecZero + recNo * recordSize);
-		    record.writeFlagToFile( databaseFile );
-		    logger.log(Level.INFO, msg + "undeleting record - "
-			                       + record); 
+		    copy.setFieldsValues( data );
+		    /* Write the changed values, then the status flag, so the
+		       record is not live on disk with its old values */
+		    writeDirtyFields( recNo, copy, databaseChannel );
+		    copy.writeFlagTo( databaseChannel, positionOf( recNo ),
+				      recordBuffer );
+		    replaceRecord( recNo, record, copy );
+		    recordIndex.removeFreeSlot( recNo );
+		    if ( logger.isLoggable( Level.INFO ) ) {
+			logger.log(Level.INFO, "{0}undeleting record - {1}",
+				   new Object[] { msg, copy.toString() } );
+		    }
 		    return recNo;		    
 		} else {
 		    /* Duplicate record that is active */
@@ -871,13 +3021,41 @@ public class Data implements DBMain, AutoCloseable {
 		    throw e;
 		}		
 	    }
+
+	    /* Reuse the slot of the first deleted record, if there is one */
+	    Integer freeSlot = recordIndex.takeFreeSlot();
+	    DBRecord previous = null;
+	    int recNo;
+
+	    if ( freeSlot != null ) {
+		recNo = freeSlot;
+		previous = cachedRecord( recNo, cacheReference( recNo ) );
+		recordIndex.remove( recNo, previous );
+		newRecord.setRecordNumber( recNo );
+	    } else {
+		recNo = recordNumber.getAndIncrement();
+	    }
+
+	    recordMutation( recNo, true );
+	    replaceRecord( recNo, previous, newRecord );
+	    newRecord.writeTo( databaseChannel, positionOf( recNo ),
+			       recordBuffer );
+	    recordIndex.add( recNo, newRecord );
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "Added new record to the database;"
+			    + " recNo={0,number,#} values - {1}",
+			    new Object[] { recNo, newRecord.toString() } );
+	    }
+	    return recNo;
 	} catch( IOException exc ) {		  
 	    logger.log( Level.SEVERE, "Database file error", exc );
 	    DBAccessException e = new DBAccessException(exc.getMessage(), exc);
 	    logger.throwing( "Data", "create()", e );
 	    throw e;	
 	} finally {
+	    versions.publish();
 	    writeLock.unlock();
+	    stats.createLatency.recordSince( start );
 	}	
     }
 
@@ -887,6 +3065,11 @@ public class Data implements DBMain, AutoCloseable {
      * thread making this call is blocked until the thread that currently owns 
      * the lock on the specified record releases it. 
      *
+     * <p> When the lock contention profiler is enabled the acquisition and
+     * the time spent waiting for the lock are recorded.
+     *
+     * @see LockContentionProfiler
+     *
      * @param  recNo An integer value that uniquely identfies the record to be 
      *         locked.
      *
@@ -904,7 +3087,7 @@ public class Data implements DBMain, AutoCloseable {
 	DatabaseLock lock;
 	
 	try {	    	  	    
-	    SoftReference<DBRecord> recRef = dbCache.get( recNo );
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 	    
 	    if ( recRef == null ) {
 
@@ -915,15 +3098,11 @@ public class Data implements DBMain, AutoCloseable {
 		throw e;
 	    } 
 	    
-	    DBRecord record = recRef.get();
-	    
-	    if ( record == null ) {
-		record = recacheRecord( recNo );
-	    } 	
+	    DBRecord record = cachedRecord( recNo, recRef );
 	    
 	    if ( record.isDeleted() ) {		
 		String msg = getDeletedRecordMsg(record) + "It cannot be locked";
-		logger.log(Level.INFO, msg );
+		logger.log(Level.FINE, msg );
 		RecordNotFoundException e = new RecordNotFoundException(msg);
 		logger.throwing("Data", "lock()", e );
 		throw e;		
@@ -935,6 +3114,8 @@ public class Data implements DBMain, AutoCloseable {
 		    lock = new DatabaseLock();
 		    lockCache.put( recNo, lock );
 		} 
+
+		lock.reserve();
 	    }		
 	    	   	      
 	} catch(IOException exc) {
@@ -946,7 +3127,19 @@ public class Data implements DBMain, AutoCloseable {
 	    writeLock.unlock();
 	}
 
-	lock.lock();		    
+	LockContentionProfiler.Counters contention = null;
+	long waitStart = 0;
+
+	if ( lockProfiler.isEnabled() ) {
+	    contention = lockProfiler.beginWait( recNo, lock.isLocked() );
+	    waitStart = System.nanoTime();
+	}
+
+	lock.lock();
+
+	if ( contention != null ) {
+	    lockProfiler.endWait( contention, waitStart );
+	}
     }
 
     /**
@@ -969,7 +3162,7 @@ public class Data implements DBMain, AutoCloseable {
 	writeLock.lock();
 
 	try {
-	    SoftReference<DBRecord> recRef = dbCache.get(recNo);
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 
 	    if ( recRef == null ) {	
 		String msg = "Record number - " + recNo + " does not exist";
@@ -979,11 +3172,7 @@ public class Data implements DBMain, AutoCloseable {
 		throw e;
 	    }
 
-	    DBRecord record = recRef.get();
-
-	    if ( record == null ) {
-		record = recacheRecord( recNo );
-	    }
+	    DBRecord record = cachedRecord( recNo, recRef );
 	    
 	    DatabaseLock lock = lockCache.get( recNo );
 	    
@@ -1054,7 +3243,7 @@ public class Data implements DBMain, AutoCloseable {
 	
 	try {
 
-	    SoftReference<DBRecord> recRef = dbCache.get(recNo);
+	    SoftReference<DBRecord> recRef = cacheReference( recNo );
 
 	    if ( recRef == null ) {
 
@@ -1065,13 +3254,7 @@ public class Data implements DBMain, AutoCloseable {
 		throw e;
 	    }
 
-	    DBRecord record = recRef.get();
-
-	    if ( record == null ) {
-		readLock.unlock();
-		record = recacheRecord( recNo );
-		readLock.lock();
-	    }
+	    DBRecord record = cachedRecord( recNo, recRef );
 
 	    if ( record.isDeleted() ) {
 		String msg = getDeletedRecordMsg(record); 
@@ -1105,6 +3288,14 @@ public class Data implements DBMain, AutoCloseable {
      * implementation. 
      */
     public void close() {
+
+	if ( snapshotTimer != null ) {
+	    snapshotTimer.cancel();
+	}
+
+	if ( compactionTimer != null ) {
+	    compactionTimer.cancel();
+	}
 	
 	writeLock.lock();	
 	try {
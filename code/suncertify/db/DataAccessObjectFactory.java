@@ -6,6 +6,9 @@
  */
 package suncertify.db;
 
+import suncertify.common.AppConfigManager;
+import suncertify.common.AppConfigParam;
+
 /**
  * The DataAccessObjectFactory class is the factory for creating the data access 
  * object in this application.
@@ -17,14 +20,25 @@ package suncertify.db;
 public abstract class DataAccessObjectFactory {
 
     /**
-     * Method for obtaining the reference to the data access object.
+     * Method for obtaining the reference to the data access object. The
+     * records are partitioned across several database files when shard files
+     * are named in the application configuration.
      * 
      * @return A reference to a DBMain object.
      *
      * @throws DBAccessException is thrown if an error is encountered while 
      *         creating the data access object. 
+     *
+     * @see ShardedData
      */    
     static public DBMain createDataAccessObject() throws DBAccessException { 
+
+	String shardFiles = AppConfigManager.getInstance().get(
+					 AppConfigParam.DB_SHARD_FILES );
+
+	if ( ( shardFiles != null ) && ( ! shardFiles.trim().isEmpty() ) ) {
+	    return ShardedData.getInstance();
+	}
 	
 	return Data.getInstance();
     }
@@ -0,0 +1,280 @@
+/*
+ * DataStats.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import suncertify.common.LatencyHistogram;
+import suncertify.common.LatencySnapshot;
+
+/**
+ * The DataStats class collects the statistics of a Data object and exposes
+ * them as an MXBean. The counters and histograms are updated by the Data
+ * object; the gauges are read from it on demand.
+ *
+ * @see DataStatsMXBean
+ * @see Data
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class DataStats implements DataStatsMXBean {
+
+    /**
+     * The Data object whose statistics are collected.
+     */
+    private final Data data;
+
+    /**
+     * The number of record accesses served from the cache.
+     */
+    final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * The number of records read again from the database file.
+     */
+    final AtomicLong recaches = new AtomicLong();
+
+    /**
+     * The number of compactions of the database file.
+     */
+    final AtomicLong compactions = new AtomicLong();
+
+    /**
+     * The number of records updated in batches written with a single flush.
+     */
+    final AtomicLong batchedUpdates = new AtomicLong();
+
+    /**
+     * The number of records deleted in batches written with a single flush.
+     */
+    final AtomicLong batchedDeletes = new AtomicLong();
+
+    /**
+     * The number of attribute bytes written by the updates of records.
+     */
+    final AtomicLong writtenBytes = new AtomicLong();
+
+    /**
+     * The wait times of the read lock.
+     */
+    final LatencyHistogram readLockWait = new LatencyHistogram();
+
+    /**
+     * The hold times of the read lock.
+     */
+    final LatencyHistogram readLockHold = new LatencyHistogram();
+
+    /**
+     * The wait times of the write lock.
+     */
+    final LatencyHistogram writeLockWait = new LatencyHistogram();
+
+    /**
+     * The hold times of the write lock.
+     */
+    final LatencyHistogram writeLockHold = new LatencyHistogram();
+
+    /**
+     * The latencies of the read operation.
+     */
+    final LatencyHistogram readLatency = new LatencyHistogram();
+
+    /**
+     * The latencies of the find operation.
+     */
+    final LatencyHistogram findLatency = new LatencyHistogram();
+
+    /**
+     * The latencies of the create operation.
+     */
+    final LatencyHistogram createLatency = new LatencyHistogram();
+
+    /**
+     * The latencies of the update operation.
+     */
+    final LatencyHistogram updateLatency = new LatencyHistogram();
+
+    /**
+     * The latencies of the delete operation.
+     */
+    final LatencyHistogram deleteLatency = new LatencyHistogram();
+
+    /**
+     * The constructor.
+     *
+     * @param data A reference to the Data object whose statistics are
+     *        collected.
+     */
+    DataStats( Data data ) {
+
+	this.data = data;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getCachedRecords() {
+	return data.getCachedRecordCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getReachableRecords() {
+	return data.getReachableRecordCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCacheHits() {
+	return cacheHits.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRecaches() {
+	return recaches.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getReadLockWait() {
+	return readLockWait.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getReadLockHold() {
+	return readLockHold.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getWriteLockWait() {
+	return writeLockWait.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getWriteLockHold() {
+	return writeLockHold.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLockedRecords() {
+	return data.getLockedRecordCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getRecordLockWaiters() {
+	return data.getRecordLockWaiterCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMutationSequence() {
+	return data.getMutationSequence();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDeletedRecords() {
+	return data.getDeletedRecordCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCompactions() {
+	return compactions.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBatchedUpdates() {
+	return batchedUpdates.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBatchedDeletes() {
+	return batchedDeletes.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getWrittenBytes() {
+	return writtenBytes.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRetainedVersions() {
+	return data.getRetainedVersionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getOpenSearches() {
+	return data.getOpenViewCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getReadLatency() {
+	return readLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getFindLatency() {
+	return findLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getCreateLatency() {
+	return createLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getUpdateLatency() {
+	return updateLatency.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getDeleteLatency() {
+	return deleteLatency.snapshot();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * DataStatsMXBean.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import suncertify.common.LatencySnapshot;
+
+/**
+ * The DataStatsMXBean interface defines the management attributes of the
+ * application database. It is registered under the name
+ * {@value suncertify.common.ManagementAgent#DATA_MBEAN_NAME}.
+ *
+ * @see Data
+ * @see suncertify.common.ManagementAgent
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public interface DataStatsMXBean {
+
+    /**
+     * Returns the number of records in the database cache, valid and
+     * deleted.
+     *
+     * @return The number of cached records.
+     */
+    int getCachedRecords();
+
+    /**
+     * Returns the number of cached records that have not been garbage
+     * collected. This walks the cache, so it should not be polled often.
+     *
+     * @return The number of reachable cached records.
+     */
+    int getReachableRecords();
+
+    /**
+     * Returns the number of record accesses served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    long getCacheHits();
+
+    /**
+     * Returns the number of records read again from the database file after
+     * being garbage collected.
+     *
+     * @return The number of recaches.
+     */
+    long getRecaches();
+
+    /**
+     * Returns the wait times of the read lock.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getReadLockWait();
+
+    /**
+     * Returns the hold times of the read lock.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getReadLockHold();
+
+    /**
+     * Returns the wait times of the write lock.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getWriteLockWait();
+
+    /**
+     * Returns the hold times of the write lock.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getWriteLockHold();
+
+    /**
+     * Returns the number of records currently locked by a client.
+     *
+     * @return The number of locked records.
+     */
+    int getLockedRecords();
+
+    /**
+     * Returns the number of threads waiting for a record lock.
+     *
+     * @return The number of waiting threads.
+     */
+    int getRecordLockWaiters();
+
+    /**
+     * Returns the number of modifications of the database. The sequence is
+     * carried over restarts by the snapshot of the record index.
+     *
+     * @return The mutation sequence.
+     */
+    long getMutationSequence();
+
+    /**
+     * Returns the number of deleted records whose slots in the database file
+     * have not been reclaimed by a compaction yet.
+     *
+     * @return The number of deleted records.
+     */
+    int getDeletedRecords();
+
+    /**
+     * Returns the number of compactions of the database file.
+     *
+     * @return The number of compactions.
+     */
+    long getCompactions();
+
+    /**
+     * Returns the number of records updated in batches, each batch being
+     * written with a single flush of the database file.
+     *
+     * @return The number of records.
+     */
+    long getBatchedUpdates();
+
+    /**
+     * Returns the number of records deleted in batches, each batch being
+     * written with a single flush of the database file.
+     *
+     * @return The number of records.
+     */
+    long getBatchedDeletes();
+
+    /**
+     * Returns the number of attribute bytes written by the updates of
+     * records. Only the attributes that changed are written, so booking a
+     * record writes the owner attribute alone.
+     *
+     * @return The number of bytes.
+     */
+    long getWrittenBytes();
+
+    /**
+     * Returns the number of replaced record versions retained for the
+     * searches reading an older view of the database.
+     *
+     * @return The number of versions.
+     */
+    long getRetainedVersions();
+
+    /**
+     * Returns the number of searches in progress.
+     *
+     * @return The number of open views.
+     */
+    int getOpenSearches();
+
+    /**
+     * Returns the latencies of the read operation.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getReadLatency();
+
+    /**
+     * Returns the latencies of the find operation.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getFindLatency();
+
+    /**
+     * Returns the latencies of the create operation.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getCreateLatency();
+
+    /**
+     * Returns the latencies of the update operation.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getUpdateLatency();
+
+    /**
+     * Returns the latencies of the delete operation.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getDeleteLatency();
+}
@@ -0,0 +1,441 @@
+/*
+ * DatabaseBulkTool.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The DatabaseBulkTool class is an offline tool for loading the records of a
+ * CSV file into a new database file and for exporting the records of a
+ * database file to a CSV file. It must not be run against a database file
+ * that is in use by the application.
+ *
+ * <p> Both directions stream the records through large buffers, holding one
+ * record in memory at a time. The loader keeps the keys, name and location,
+ * of the records written so far to detect duplicates with the same rule as
+ * {@link Data#create(String[])}; duplicates are skipped and reported. The
+ * exporter skips deleted records.
+ *
+ * <p> The CSV files have one record per row, the attributes in schema order.
+ * Attributes containing commas, quotes or line breaks are quoted and quotes
+ * are doubled. The exporter writes the attribute names as the first row, the
+ * loader skips a first row matching the attribute names.
+ *
+ * <p> Usage:
+ * <pre>
+ *   java suncertify.db.DatabaseBulkTool load schema.db input.csv output.db
+ *   java suncertify.db.DatabaseBulkTool export input.db output.csv
+ * </pre>
+ *
+ * The header, cookie and schema, of the loaded database file is copied from
+ * the schema database file.
+ *
+ * @see DatabaseHeader
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class DatabaseBulkTool {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualitified name for this class.
+     */
+    private static final Logger logger =
+	Logger.getLogger( DatabaseBulkTool.class.getName() );
+
+    /**
+     * The size of the I/O buffers.
+     */
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The tool only has class methods.
+     */
+    private DatabaseBulkTool() {
+
+    }
+
+    /**
+     * This method loads the records of a CSV file into a new database file.
+     *
+     * @param schemaFile A reference to a File object denoting the database
+     *        file whose header is copied to the new database file.
+     *
+     * @param csvFile A reference to a File object denoting the CSV file.
+     *
+     * @param dbFile A reference to a File object denoting the new database
+     *        file. An existing file is overwritten.
+     *
+     * @return The number of records written.
+     *
+     * @throws IOException If an error is encountered while accessing the
+     *         files or if the CSV file is invalid.
+     */
+    public static long load( File schemaFile, File csvFile, File dbFile )
+			     throws IOException {
+
+	DatabaseHeader header;
+
+	try ( DataInputStream in =
+	      new DataInputStream( new FileInputStream( schemaFile ) ) ) {
+	    header = DatabaseHeader.read( in );
+	}
+
+	RecordLayout layout = header.getLayout();
+	int fieldCount = layout.getFieldCount();
+	byte [] buf = new byte[ layout.getRecordLength() ];
+
+	Set<String> keys = new HashSet<>();
+	List<String> row = new ArrayList<>( fieldCount );
+	StringBuilder sb = new StringBuilder();
+
+	long rowNumber = 0;
+	long written = 0;
+	long duplicates = 0;
+
+	try ( Reader in = new BufferedReader(
+			      new InputStreamReader( new FileInputStream( csvFile ),
+						     StandardCharsets.US_ASCII ),
+			      IO_BUFFER_SIZE );
+	      DataOutputStream out = new DataOutputStream(
+			      new BufferedOutputStream(
+				  new FileOutputStream( dbFile ),
+				  IO_BUFFER_SIZE ) ) ) {
+
+	    header.write( out );
+
+	    while ( readRow( in, row, sb ) ) {
+
+		++rowNumber;
+
+		if ( ( rowNumber == 1 ) && isHeaderRow( row, layout ) ) {
+		    continue;
+		}
+
+		if ( row.size() != fieldCount ) {
+		    String msg = "Invalid CSV row " + rowNumber + " - expected "
+			+ fieldCount + " attributes, found " + row.size();
+		    logger.severe( msg );
+		    IOException e = new IOException( msg );
+		    logger.throwing( "DatabaseBulkTool", "load()", e );
+		    throw e;
+		}
+
+		for ( int i = 0; i < fieldCount; ++i ) {
+		    layout.encodeField( i, row.get(i), buf );
+		}
+
+		String key = layout.decodeTrimmed( NAME_IDX, buf )
+		    .toUpperCase() + '\n'
+		    + layout.decodeTrimmed( LOCATION_IDX, buf )
+		    .toUpperCase();
+
+		if ( ! keys.add( key ) ) {
+		    ++duplicates;
+		    logger.log( Level.WARNING, "Skipping duplicate record in CSV "
+				+ "row " + rowNumber + " - " + row );
+		    continue;
+		}
+
+		out.writeShort( DBRecord.VALID_REC_FLAG_VALUE );
+		out.write( buf );
+		++written;
+	    }
+	}
+
+	/* The sidecars of an overwritten database no longer apply */
+	IndexSnapshot.delete( dbFile );
+	RecordMap.delete( dbFile );
+
+	logger.info( "Loaded " + written + " records from " + csvFile
+		     + " into " + dbFile + ", skipped " + duplicates
+		     + " duplicates" );
+
+	return written;
+    }
+
+    /**
+     * This method exports the valid records of a database file to a CSV file.
+     *
+     * @param dbFile A reference to a File object denoting the database file.
+     *
+     * @param csvFile A reference to a File object denoting the CSV file. An
+     *        existing file is overwritten.
+     *
+     * @return The number of records exported.
+     *
+     * @throws IOException If an error is encountered while accessing the
+     *         files or if the database file is invalid.
+     */
+    public static long export( File dbFile, File csvFile ) throws IOException {
+
+	long exported = 0;
+
+	try ( DataInputStream in = new DataInputStream(
+			      new BufferedInputStream(
+				  new FileInputStream( dbFile ),
+				  IO_BUFFER_SIZE ) );
+	      Writer out = new BufferedWriter(
+			      new OutputStreamWriter(
+				  new FileOutputStream( csvFile ),
+				  StandardCharsets.US_ASCII ),
+			      IO_BUFFER_SIZE ) ) {
+
+	    DatabaseHeader header = DatabaseHeader.read( in );
+	    RecordLayout layout = header.getLayout();
+	    int fieldCount = layout.getFieldCount();
+	    byte [] buf = new byte[ layout.getRecordLength() ];
+
+	    for ( int i = 0; i < fieldCount; ++i ) {
+		writeValue( out, layout.getFieldName(i), i );
+	    }
+	    out.write( '\n' );
+
+	    while ( true ) {
+
+		short recFlag;
+
+		try {
+		    recFlag = in.readShort();
+		} catch( EOFException ex ) {
+		    break;
+		}
+
+		try {
+		    in.readFully( buf );
+		} catch( EOFException ex ) {
+		    String msg = "Corrupted DB file, invalid length";
+		    logger.severe( msg );
+		    IOException e = new IOException( msg, ex );
+		    logger.throwing( "DatabaseBulkTool", "export()", e );
+		    throw e;
+		}
+
+		if ( recFlag == DBRecord.DELETED_REC_FLAG_VALUE ) {
+		    continue;
+		}
+
+		for ( int i = 0; i < fieldCount; ++i ) {
+		    writeValue( out, layout.decodeTrimmed( i, buf ), i );
+		}
+		out.write( '\n' );
+		++exported;
+	    }
+	}
+
+	logger.info( "Exported " + exported + " records from " + dbFile
+		     + " to " + csvFile );
+
+	return exported;
+    }
+
+    /**
+     * This method indicates whether a CSV row holds the attribute names.
+     *
+     * @param row A reference to a List object denoting the CSV row.
+     *
+     * @param layout A reference to the RecordLayout object of the database.
+     *
+     * @return boolean value true if the row holds the attribute names, false
+     *         otherwise.
+     */
+    private static boolean isHeaderRow( List<String> row, RecordLayout layout ) {
+
+	if ( row.size() != layout.getFieldCount() ) {
+	    return false;
+	}
+
+	for ( int i = 0; i < row.size(); ++i ) {
+	    if ( ! row.get(i).trim().equalsIgnoreCase(
+					    layout.getFieldName(i).trim() ) ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * This method reads the next row from a CSV file.
+     *
+     * @param in A reference to a Reader object for the CSV file.
+     *
+     * @param row A reference to a List object. It is cleared and filled with
+     *        the values of the row.
+     *
+     * @param sb A reference to a StringBuilder object used for building the
+     *        values.
+     *
+     * @return boolean value true if a row was read, false at the end of the
+     *         file.
+     *
+     * @throws IOException If an error is encountered while reading the file
+     *         or if a quoted value is not terminated.
+     */
+    private static boolean readRow( Reader in, List<String> row,
+				    StringBuilder sb ) throws IOException {
+
+	row.clear();
+	sb.setLength( 0 );
+
+	boolean quoted = false;
+	boolean empty = true;
+	int c;
+
+	while ( ( c = in.read() ) != -1 ) {
+
+	    if ( quoted ) {
+		if ( c == '"' ) {
+		    in.mark( 1 );
+		    if ( in.read() == '"' ) {
+			sb.append( '"' );
+		    } else {
+			in.reset();
+			quoted = false;
+		    }
+		} else {
+		    sb.append( (char)c );
+		}
+		continue;
+	    }
+
+	    if ( c == '"' ) {
+		quoted = true;
+		empty = false;
+	    } else if ( c == ',' ) {
+		row.add( sb.toString() );
+		sb.setLength( 0 );
+		empty = false;
+	    } else if ( c == '\n' ) {
+		if ( empty && ( sb.length() == 0 ) ) {
+		    /* Skip blank lines */
+		    continue;
+		}
+		row.add( sb.toString() );
+		return true;
+	    } else if ( c != '\r' ) {
+		sb.append( (char)c );
+		empty = false;
+	    }
+	}
+
+	if ( quoted ) {
+	    throw new IOException( "Invalid CSV file, unterminated quoted value" );
+	}
+
+	if ( empty ) {
+	    return false;
+	}
+
+	row.add( sb.toString() );
+	return true;
+    }
+
+    /**
+     * This method writes a value to a CSV file, quoting it if needed.
+     *
+     * @param out A reference to a Writer object for the CSV file.
+     *
+     * @param value A String object denoting the value.
+     *
+     * @param idx The index of the value in the row.
+     *
+     * @throws IOException If an error is encountered while writing the file.
+     */
+    private static void writeValue( Writer out, String value, int idx )
+				    throws IOException {
+
+	if ( idx > 0 ) {
+	    out.write( ',' );
+	}
+
+	boolean quote = false;
+
+	for ( int i = 0; i < value.length() && ! quote; ++i ) {
+	    char c = value.charAt(i);
+	    quote = ( c == ',' ) || ( c == '"' ) || ( c == '\n' )
+		|| ( c == '\r' );
+	}
+
+	if ( ! quote ) {
+	    out.write( value );
+	    return;
+	}
+
+	out.write( '"' );
+	for ( int i = 0; i < value.length(); ++i ) {
+	    char c = value.charAt(i);
+	    if ( c == '"' ) {
+		out.write( '"' );
+	    }
+	    out.write( c );
+	}
+	out.write( '"' );
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args Array of String objects denoting the command line arguments.
+     */
+    public static void main( String ... args ) {
+
+	try {
+	    if ( ( args.length == 4 ) && "load".equals( args[0] ) ) {
+
+		long count = load( new File( args[1] ), new File( args[2] ),
+				   new File( args[3] ) );
+		System.out.println( "Loaded " + count + " records" );
+
+	    } else if ( ( args.length == 3 ) && "export".equals( args[0] ) ) {
+
+		long count = export( new File( args[1] ), new File( args[2] ) );
+		System.out.println( "Exported " + count + " records" );
+
+	    } else {
+		System.out.println(
+		   "Usage: java suncertify.db.DatabaseBulkTool load schema.db "
+		   + "input.csv output.db" );
+		System.out.println(
+		   "       java suncertify.db.DatabaseBulkTool export input.db "
+		   + "output.csv" );
+	    }
+	} catch( IOException ex ) {
+	    System.out.println( "Bulk operation failed - " + ex.getMessage() );
+	    System.exit( 1 );
+	}
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * DatabaseHeader.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Collections;
+
+/**
+ * The DatabaseHeader class holds the header of a database file: the file
+ * cookie, the offset to the first record and the schema of the records. The
+ * header is laid out as follows:
+ *
+ * <ul>
+ * <li> The file cookie - 4 bytes
+ * <li> The offset to the first record - 4 bytes
+ * <li> The number of fields per record - 2 bytes
+ * <li> For each field, the length of the field name - 2 bytes, the field name
+ *      in US-ASCII and the length of the field - 2 bytes
+ * </ul>
+ *
+ * Each record is made of a 2 byte status flag followed by the fields.
+ *
+ * @see Data
+ * @see RecordLayout
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class DatabaseHeader {
+
+    /**
+     * The number of bytes of the status flag preceding the fields of each
+     * record.
+     */
+    static final int REC_FLAG_LENGTH = 2;
+
+    /**
+     * The database file cookie.
+     */
+    private final int cookie;
+
+    /**
+     * The number of bytes preceding the first record in the database file.
+     */
+    private final int offsetToRecZero;
+
+    /**
+     * The name/length pairs of the record attributes in schema order.
+     */
+    private final Map<String, Short> schema;
+
+    /**
+     * The layout of the record attributes built from the schema.
+     */
+    private final RecordLayout layout;
+
+    /**
+     * The constructor.
+     *
+     * @param cookie The database file cookie.
+     *
+     * @param offsetToRecZero The number of bytes preceding the first record.
+     *
+     * @param schema A reference to a Map object denoting the name/length pairs
+     *        of the record attributes in schema order.
+     */
+    DatabaseHeader( int cookie, int offsetToRecZero,
+		    Map<String, Short> schema ) {
+
+	this.cookie = cookie;
+	this.offsetToRecZero = offsetToRecZero;
+	this.schema = Collections.unmodifiableMap(
+				  new LinkedHashMap<String, Short>( schema ) );
+	this.layout = new RecordLayout( this.schema );
+    }
+
+    /**
+     * This method reads a header from the input. On return the input is
+     * positioned on the first record.
+     *
+     * @param in A reference to a DataInput object positioned on the first
+     *        byte of the database file.
+     *
+     * @return A reference to a DatabaseHeader object.
+     *
+     * @throws IOException If the header could not be read or is invalid.
+     */
+    static DatabaseHeader read( DataInput in ) throws IOException {
+
+	int cookie = in.readInt();
+	int offsetToRecZero = in.readInt();
+	short fieldsPerRec = in.readShort();
+
+	if ( fieldsPerRec <= 0 ) {
+	    throw new IOException( "Corrupted DB file, invalid field count - "
+				   + fieldsPerRec );
+	}
+
+	Map<String, Short> schema = new LinkedHashMap<>();
+	int headerLength = 10;
+
+	for ( int i = 0; i < fieldsPerRec;  ++i ) {
+	    short length = in.readShort();
+	    byte[] buffer = new byte[length];
+	    in.readFully( buffer );
+	    String fieldName = new String( buffer, StandardCharsets.US_ASCII );
+	    short fieldLength = in.readShort();
+
+	    if ( fieldLength <= 0 ) {
+		throw new IOException( "Corrupted DB file, invalid length for "
+				       + "field - " + fieldName );
+	    }
+
+	    schema.put( fieldName, fieldLength );
+	    headerLength += 4 + length;
+	}
+
+	if ( offsetToRecZero < headerLength ) {
+	    throw new IOException( "Corrupted DB file, invalid offset to "
+				   + "first record - " + offsetToRecZero );
+	}
+
+	in.skipBytes( offsetToRecZero - headerLength );
+
+	return new DatabaseHeader( cookie, offsetToRecZero, schema );
+    }
+
+    /**
+     * This method writes this header to the output, padding it with zeros
+     * up to the offset of the first record.
+     *
+     * @param out A reference to a DataOutput object positioned on the first
+     *        byte of the database file.
+     *
+     * @throws IOException If an error is encountered while writing.
+     */
+    void write( DataOutput out ) throws IOException {
+
+	out.writeInt( cookie );
+	out.writeInt( offsetToRecZero );
+	out.writeShort( schema.size() );
+
+	int headerLength = 10;
+
+	for ( Map.Entry<String, Short> entry : schema.entrySet() ) {
+	    byte[] name = entry.getKey().getBytes( StandardCharsets.US_ASCII );
+	    out.writeShort( name.length );
+	    out.write( name );
+	    out.writeShort( entry.getValue() );
+	    headerLength += 4 + name.length;
+	}
+
+	for ( int i = headerLength; i < offsetToRecZero; ++i ) {
+	    out.write( 0 );
+	}
+    }
+
+    /**
+     * Returns the database file cookie.
+     *
+     * @return The file cookie.
+     */
+    int getCookie() {
+	return cookie;
+    }
+
+    /**
+     * Returns the offset of the first record.
+     *
+     * @return The number of bytes preceding the first record.
+     */
+    int getOffsetToRecZero() {
+	return offsetToRecZero;
+    }
+
+    /**
+     * Returns the schema of the records.
+     *
+     * @return An unmodifiable Map object denoting the name/length pairs of
+     *         the record attributes in schema order.
+     */
+    Map<String, Short> getSchema() {
+	return schema;
+    }
+
+    /**
+     * Returns the layout of the record attributes.
+     *
+     * @return A reference to a RecordLayout object.
+     */
+    RecordLayout getLayout() {
+	return layout;
+    }
+
+    /**
+     * Returns the size of a record in the database file.
+     *
+     * @return The number of bytes of a record, including the status flag.
+     */
+    int getRecordSize() {
+	return REC_FLAG_LENGTH + layout.getRecordLength();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * IndexSnapshot.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The IndexSnapshot class is the persisted form of the record index, kept in
+ * a sidecar file next to the database file. Restoring the index from the
+ * snapshot spares the database the building of the index from all the
+ * records when it is opened.
+ *
+ * <p> The snapshot is stamped with the length and the modification time of
+ * the database file when it was written, and with the mutation sequence of
+ * the database. The content of the snapshot is protected by a CRC32
+ * checksum. A snapshot is only used when its checksum is correct and the
+ * database file still has the stamped length and modification time.
+ *
+ * <p> The snapshot is written to a temporary file which then replaces the
+ * sidecar file, so a crash while writing never leaves a partial snapshot.
+ *
+ * @see RecordIndex
+ * @see Data
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class IndexSnapshot {
+
+    /**
+     * The first bytes of a snapshot file.
+     */
+    private static final int MAGIC = 0x49445831;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The suffix appended to the name of the database file to form the name
+     * of the sidecar file.
+     */
+    private static final String SIDECAR_SUFFIX = ".idx";
+
+    /**
+     * The size of the I/O buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The length of the database file when the snapshot was written.
+     */
+    private final long dbLength;
+
+    /**
+     * The modification time of the database file when the snapshot was
+     * written.
+     */
+    private final long dbLastModified;
+
+    /**
+     * The mutation sequence of the database when the snapshot was written.
+     */
+    private final long mutationSequence;
+
+    /**
+     * The record numbers by record key.
+     */
+    private final Map<String, Integer> keys;
+
+    /**
+     * The numbers of the deleted records.
+     */
+    private final List<Integer> freeSlots;
+
+    /**
+     * The constructor.
+     *
+     * @param dbLength The length of the database file.
+     *
+     * @param dbLastModified The modification time of the database file.
+     *
+     * @param mutationSequence The mutation sequence of the database.
+     *
+     * @param keys The record numbers by record key.
+     *
+     * @param freeSlots The numbers of the deleted records.
+     */
+    private IndexSnapshot( long dbLength, long dbLastModified,
+			   long mutationSequence, Map<String, Integer> keys,
+			   List<Integer> freeSlots ) {
+
+	this.dbLength = dbLength;
+	this.dbLastModified = dbLastModified;
+	this.mutationSequence = mutationSequence;
+	this.keys = keys;
+	this.freeSlots = freeSlots;
+    }
+
+    /**
+     * This method returns the sidecar file of a database file.
+     *
+     * @param dbFile The database file.
+     *
+     * @return A reference to a File object denoting the sidecar file.
+     */
+    static File sidecarOf( File dbFile ) {
+
+	return new File( dbFile.getPath() + SIDECAR_SUFFIX );
+    }
+
+    /**
+     * This method indicates whether the snapshot was written for the
+     * database file in its current state.
+     *
+     * @param length The length of the database file.
+     *
+     * @param lastModified The modification time of the database file.
+     *
+     * @return boolean value true if the stamp of the snapshot matches.
+     */
+    boolean matches( long length, long lastModified ) {
+
+	return ( dbLength == length ) && ( dbLastModified == lastModified );
+    }
+
+    /**
+     * This method returns the mutation sequence of the database when the
+     * snapshot was written.
+     *
+     * @return The mutation sequence.
+     */
+    long getMutationSequence() {
+
+	return mutationSequence;
+    }
+
+    /**
+     * This method replaces the content of a record index with the snapshot.
+     *
+     * @param index A reference to the record index.
+     */
+    void restoreTo( RecordIndex index ) {
+
+	index.restore( keys, freeSlots );
+    }
+
+    /**
+     * This method reads a snapshot from a sidecar file.
+     *
+     * @param sidecar The sidecar file.
+     *
+     * @return A reference to an IndexSnapshot object, null if the sidecar file
+     *         does not exist.
+     *
+     * @throws IOException If the file could not be read, is not a snapshot
+     *         or its checksum is wrong.
+     */
+    static IndexSnapshot read( File sidecar ) throws IOException {
+
+	FileInputStream file;
+
+	try {
+	    file = new FileInputStream( sidecar );
+	} catch( FileNotFoundException ex ) {
+	    return null;
+	}
+
+	CRC32 crc = new CRC32();
+
+	try ( DataInputStream in = new DataInputStream(
+		  new CheckedInputStream(
+		      new BufferedInputStream( file, BUFFER_SIZE ), crc ) ) ) {
+
+	    if ( ( in.readInt() != MAGIC ) ||
+		 ( in.readInt() != FORMAT_VERSION ) ) {
+		throw new IOException( "Not an index snapshot - " + sidecar );
+	    }
+
+	    long dbLength = in.readLong();
+	    long dbLastModified = in.readLong();
+	    long mutationSequence = in.readLong();
+
+	    int keyCount = in.readInt();
+	    Map<String, Integer> keys = new HashMap<>( keyCount * 4 / 3 + 1 );
+
+	    for ( int i = 0; i < keyCount; ++i ) {
+		String key = in.readUTF();
+		keys.put( key, in.readInt() );
+	    }
+
+	    int freeCount = in.readInt();
+	    List<Integer> freeSlots = new ArrayList<>( freeCount );
+
+	    for ( int i = 0; i < freeCount; ++i ) {
+		freeSlots.add( in.readInt() );
+	    }
+
+	    long expected = crc.getValue();
+
+	    if ( in.readLong() != expected ) {
+		throw new IOException( "Index snapshot checksum mismatch - "
+				       + sidecar );
+	    }
+
+	    return new IndexSnapshot( dbLength, dbLastModified,
+				      mutationSequence, keys, freeSlots );
+	}
+    }
+
+    /**
+     * This method writes a snapshot of a record index to a sidecar file. The
+     * index must not be modified while it is written.
+     *
+     * @param sidecar The sidecar file.
+     *
+     * @param index A reference to the record index.
+     *
+     * @param dbLength The length of the database file.
+     *
+     * @param dbLastModified The modification time of the database file.
+     *
+     * @param mutationSequence The mutation sequence of the database.
+     *
+     * @throws IOException If the snapshot could not be written.
+     */
+    static void write( File sidecar, RecordIndex index, long dbLength,
+		       long dbLastModified, long mutationSequence )
+		       throws IOException {
+
+	File temp = new File( sidecar.getPath() + ".tmp" );
+	CRC32 crc = new CRC32();
+
+	try ( DataOutputStream out = new DataOutputStream(
+		  new CheckedOutputStream(
+		      new BufferedOutputStream(
+			  new FileOutputStream( temp ), BUFFER_SIZE ),
+		      crc ) ) ) {
+
+	    out.writeInt( MAGIC );
+	    out.writeInt( FORMAT_VERSION );
+	    out.writeLong( dbLength );
+	    out.writeLong( dbLastModified );
+	    out.writeLong( mutationSequence );
+
+	    Map<String, Integer> keys = index.getKeys();
+	    out.writeInt( keys.size() );
+
+	    for ( Map.Entry<String, Integer> entry : keys.entrySet() ) {
+		out.writeUTF( entry.getKey() );
+		out.writeInt( entry.getValue() );
+	    }
+
+	    List<Integer> freeSlots = new ArrayList<>( index.getFreeSlots() );
+	    out.writeInt( freeSlots.size() );
+
+	    for ( Integer recNo : freeSlots ) {
+		out.writeInt( recNo );
+	    }
+
+	    out.writeLong( crc.getValue() );
+	}
+
+	Files.move( temp.toPath(), sidecar.toPath(),
+		    StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * This method deletes the sidecar file of a database file, so that a
+     * snapshot that no longer matches the database is never used.
+     *
+     * @param dbFile The database file.
+     *
+     * @return boolean value true if there is no sidecar file any more.
+     */
+    static boolean delete( File dbFile ) {
+
+	File sidecar = sidecarOf( dbFile );
+
+	return sidecar.delete() || ! sidecar.exists();
+    }
+}
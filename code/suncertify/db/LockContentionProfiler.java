@@ -0,0 +1,404 @@
+/*
+ * LockContentionProfiler.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * The LockContentionProfiler class collects the contention on the logical
+ * record locks of the database, so that the records clients fight over can
+ * be identified.
+ *
+ * <p> For each record it counts the lock acquisitions, the acquisitions that
+ * had to wait, the total and longest wait and the threads currently waiting.
+ * At most {@link #MAX_TRACKED_RECORDS} records are tracked. When a record
+ * that is not tracked is locked and the profiler is full, the tracked record
+ * with the fewest acquisitions is replaced and the new record inherits its
+ * count. This keeps the hottest records tracked with bounded memory, at the
+ * price of overestimating the counts of records that became hot late.
+ *
+ * <p> When the profiler is disabled, which is the default, the record lock
+ * path only reads a volatile flag.
+ *
+ * @see Data#lock(int)
+ * @see LockProfilerMXBean
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class LockContentionProfiler implements LockProfilerMXBean {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The maximum number of records tracked by the profiler.
+     */
+    static final int MAX_TRACKED_RECORDS = 256;
+
+    /**
+     * The number of records included in a report.
+     */
+    static final int REPORT_SIZE = 10;
+
+    /**
+     * The Counters class holds the figures collected for a single record.
+     */
+    static final class Counters {
+
+	/**
+	 * The number of the record.
+	 */
+	final int recNo;
+
+	/**
+	 * The number of lock acquisitions.
+	 */
+	final AtomicLong acquisitions;
+
+	/**
+	 * The number of lock acquisitions that had to wait.
+	 */
+	final AtomicLong contended = new AtomicLong();
+
+	/**
+	 * The total wait time in nanoseconds.
+	 */
+	final AtomicLong totalWaitNanos = new AtomicLong();
+
+	/**
+	 * The longest wait time in nanoseconds.
+	 */
+	final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 * The number of threads currently waiting for the lock.
+	 */
+	final AtomicInteger waiters = new AtomicInteger();
+
+	/**
+	 * The constructor.
+	 *
+	 * @param recNo The number of the record.
+	 * @param acquisitions The number of acquisitions inherited from the
+	 *        record this one replaces.
+	 */
+	Counters( int recNo, long acquisitions ) {
+	    this.recNo = recNo;
+	    this.acquisitions = new AtomicLong( acquisitions );
+	}
+
+	/**
+	 * This method returns an immutable view of the counters.
+	 *
+	 * @return A reference to a RecordContention object.
+	 */
+	RecordContention snapshot() {
+	    return new RecordContention( recNo, acquisitions.get(),
+					 contended.get(),
+					 totalWaitNanos.get() / 1000,
+					 maxWaitNanos.get() / 1000,
+					 waiters.get() );
+	}
+    }
+
+    /**
+     * Orders record contention views by decreasing number of acquisitions.
+     */
+    private static final Comparator<RecordContention> BY_ACQUISITIONS =
+	new Comparator<RecordContention>() {
+	    public int compare( RecordContention a, RecordContention b ) {
+		return Long.compare( b.getAcquisitions(), a.getAcquisitions() );
+	    }
+	};
+
+    /**
+     * Orders record contention views by decreasing total wait.
+     */
+    private static final Comparator<RecordContention> BY_WAIT =
+	new Comparator<RecordContention>() {
+	    public int compare( RecordContention a, RecordContention b ) {
+		return Long.compare( b.getTotalWaitMicros(),
+				     a.getTotalWaitMicros() );
+	    }
+	};
+
+    /**
+     * Whether the profiler is collecting.
+     */
+    private volatile boolean enabled = false;
+
+    /**
+     * The tracked records. Records are added and replaced while holding the
+     * map's monitor; the counters are updated without it.
+     */
+    private final Map<Integer, Counters> records =
+	new ConcurrentHashMap<Integer, Counters>();
+
+    /**
+     * The number of lock acquisitions since the profiler was created, used
+     * to skip the periodic report when nothing was locked.
+     */
+    private final AtomicLong totalAcquisitions = new AtomicLong();
+
+    /**
+     * The timer writing the periodic report, null if there is none.
+     */
+    private Timer reportTimer;
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEnabled() {
+	return enabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setEnabled( boolean enabled ) {
+	this.enabled = enabled;
+	logger.info( "Record lock contention profiler "
+		     + ( enabled ? "enabled" : "disabled" ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getTrackedRecords() {
+	return records.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public RecordContention[] getHottestRecords() {
+	return top( BY_ACQUISITIONS, REPORT_SIZE );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public RecordContention[] getMostContendedRecords() {
+	return top( BY_WAIT, REPORT_SIZE );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset() {
+	synchronized( records ) {
+	    records.clear();
+	}
+    }
+
+    /**
+     * This method is called by a thread about to acquire a record lock. It
+     * must only be called when the profiler is enabled, and when it returns
+     * counters the thread must call endWait() once it holds the lock.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param locked true if the lock was held by another thread when the
+     *        thread started to acquire it.
+     *
+     * @return A reference to the Counters object of the record, or null if
+     *         the record could not be tracked.
+     *
+     * @see #endWait(Counters, long)
+     */
+    Counters beginWait( int recNo, boolean locked ) {
+
+	Counters counters = track( recNo );
+
+	if ( counters != null ) {
+	    counters.waiters.getAndIncrement();
+	    if ( locked ) {
+		counters.contended.getAndIncrement();
+	    }
+	}
+
+	return counters;
+    }
+
+    /**
+     * This method is called by a thread that acquired a record lock after
+     * calling beginWait().
+     *
+     * @param counters A reference to the Counters object returned by
+     *        beginWait().
+     *
+     * @param startNanos The value of System.nanoTime() when the thread
+     *        started to acquire the lock.
+     *
+     * @see #beginWait(int, boolean)
+     */
+    void endWait( Counters counters, long startNanos ) {
+
+	long wait = System.nanoTime() - startNanos;
+
+	counters.waiters.getAndDecrement();
+	counters.acquisitions.getAndIncrement();
+	counters.totalWaitNanos.getAndAdd( wait );
+	totalAcquisitions.getAndIncrement();
+
+	long max = counters.maxWaitNanos.get();
+	while ( ( wait > max ) &&
+		( ! counters.maxWaitNanos.compareAndSet( max, wait ) ) ) {
+	    max = counters.maxWaitNanos.get();
+	}
+    }
+
+    /**
+     * This method starts writing the report of the hottest records to the
+     * log at a fixed interval. The report is skipped when the profiler is
+     * disabled or no record was locked since the previous report.
+     *
+     * @param intervalSeconds The interval in seconds, 0 or less to stop
+     *        writing the report.
+     */
+    synchronized void startReporting( long intervalSeconds ) {
+
+	if ( reportTimer != null ) {
+	    reportTimer.cancel();
+	    reportTimer = null;
+	}
+
+	if ( intervalSeconds <= 0 ) {
+	    return;
+	}
+
+	reportTimer = new Timer( "LockContentionReport", true );
+	reportTimer.schedule( new TimerTask() {
+
+		private long reported = 0;
+
+		public void run() {
+		    long acquisitions = totalAcquisitions.get();
+
+		    if ( enabled && ( acquisitions != reported ) ) {
+			reported = acquisitions;
+			logReport();
+		    }
+		}
+	    }, intervalSeconds * 1000, intervalSeconds * 1000 );
+    }
+
+    /**
+     * This method writes the report of the hottest records to the log.
+     */
+    void logReport() {
+
+	if ( ! logger.isLoggable( Level.INFO ) ) {
+	    return;
+	}
+
+	StringBuilder report = new StringBuilder( "Hottest records by lock "
+						  + "acquisitions:" );
+
+	for ( RecordContention record : getHottestRecords() ) {
+	    report.append( "\n    " ).append( record );
+	}
+
+	logger.info( report.toString() );
+    }
+
+    /**
+     * This method returns the counters of a record, starting to track the
+     * record if necessary.
+     *
+     * @param recNo The number of the record.
+     *
+     * @return A reference to the Counters object of the record, or null if
+     *         all the tracked records have waiting threads.
+     */
+    private Counters track( int recNo ) {
+
+	Counters counters = records.get( recNo );
+
+	if ( counters != null ) {
+	    return counters;
+	}
+
+	synchronized( records ) {
+	    counters = records.get( recNo );
+
+	    if ( counters == null ) {
+		long inherited = 0;
+
+		if ( records.size() >= MAX_TRACKED_RECORDS ) {
+
+		    Counters coldest = null;
+
+		    for ( Counters each : records.values() ) {
+			if ( ( each.waiters.get() == 0 ) &&
+			     ( ( coldest == null ) ||
+			       ( each.acquisitions.get()
+				 < coldest.acquisitions.get() ) ) ) {
+			    coldest = each;
+			}
+		    }
+
+		    if ( coldest == null ) {
+			return null;
+		    }
+
+		    records.remove( coldest.recNo );
+		    inherited = coldest.acquisitions.get();
+		}
+
+		counters = new Counters( recNo, inherited );
+		records.put( recNo, counters );
+	    }
+
+	    return counters;
+	}
+    }
+
+    /**
+     * This method returns the tracked records in the specified order.
+     *
+     * @param order The order of the records.
+     *
+     * @param count The maximum number of records to return.
+     *
+     * @return An array of RecordContention objects.
+     */
+    private RecordContention[] top( Comparator<RecordContention> order,
+				    int count ) {
+
+	RecordContention[] all = new RecordContention[0];
+	int size = 0;
+
+	for ( Counters counters : records.values() ) {
+	    if ( size == all.length ) {
+		all = Arrays.copyOf( all, Math.max( 16, size * 2 ) );
+	    }
+	    all[ size++ ] = counters.snapshot();
+	}
+
+	Arrays.sort( all, 0, size, order );
+
+	return Arrays.copyOf( all, Math.min( size, count ) );
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * LockProfilerMXBean.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+/**
+ * The LockProfilerMXBean interface defines the management attributes and
+ * operations of the record lock contention profiler. It is registered under
+ * the name {@value suncertify.common.ManagementAgent#LOCK_PROFILER_MBEAN_NAME}.
+ *
+ * @see LockContentionProfiler
+ * @see suncertify.common.ManagementAgent
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public interface LockProfilerMXBean {
+
+    /**
+     * Returns whether the profiler is collecting.
+     *
+     * @return true if the profiler is enabled, false otherwise.
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables the profiler. The collected figures are kept when
+     * the profiler is disabled.
+     *
+     * @param enabled true to enable the profiler, false to disable it.
+     */
+    void setEnabled( boolean enabled );
+
+    /**
+     * Returns the number of records currently tracked by the profiler.
+     *
+     * @return The number of tracked records.
+     */
+    int getTrackedRecords();
+
+    /**
+     * Returns the records with the most lock acquisitions, hottest first.
+     *
+     * @return An array of RecordContention objects.
+     */
+    RecordContention[] getHottestRecords();
+
+    /**
+     * Returns the records with the longest total lock wait, longest first.
+     *
+     * @return An array of RecordContention objects.
+     */
+    RecordContention[] getMostContendedRecords();
+
+    /**
+     * Discards the collected figures.
+     */
+    void reset();
+}
@@ -0,0 +1,148 @@
+/*
+ * RecordContention.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The RecordContention class is an immutable view of the lock contention
+ * on a single record, as collected by the lock contention profiler. JMX
+ * clients see it as composite data.
+ *
+ * @see LockProfilerMXBean
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class RecordContention {
+
+    /**
+     * The number of the record.
+     */
+    private final int recordNumber;
+
+    /**
+     * The number of times the record lock was acquired.
+     */
+    private final long acquisitions;
+
+    /**
+     * The number of times a thread had to wait for the record lock.
+     */
+    private final long contendedAcquisitions;
+
+    /**
+     * The total time in microseconds spent waiting for the record lock.
+     */
+    private final long totalWaitMicros;
+
+    /**
+     * The longest time in microseconds spent waiting for the record lock.
+     */
+    private final long maxWaitMicros;
+
+    /**
+     * The number of threads currently waiting for the record lock.
+     */
+    private final int waiters;
+
+    /**
+     * The constructor.
+     *
+     * @param recordNumber The number of the record.
+     * @param acquisitions The number of lock acquisitions.
+     * @param contendedAcquisitions The number of acquisitions that waited.
+     * @param totalWaitMicros The total wait time in microseconds.
+     * @param maxWaitMicros The longest wait time in microseconds.
+     * @param waiters The number of threads currently waiting.
+     */
+    @ConstructorProperties( { "recordNumber", "acquisitions",
+			      "contendedAcquisitions", "totalWaitMicros",
+			      "maxWaitMicros", "waiters" } )
+    public RecordContention( int recordNumber, long acquisitions,
+			     long contendedAcquisitions, long totalWaitMicros,
+			     long maxWaitMicros, int waiters ) {
+
+	this.recordNumber = recordNumber;
+	this.acquisitions = acquisitions;
+	this.contendedAcquisitions = contendedAcquisitions;
+	this.totalWaitMicros = totalWaitMicros;
+	this.maxWaitMicros = maxWaitMicros;
+	this.waiters = waiters;
+    }
+
+    /**
+     * Returns the number of the record.
+     *
+     * @return The record number.
+     */
+    public int getRecordNumber() {
+	return recordNumber;
+    }
+
+    /**
+     * Returns the number of times the record lock was acquired. Once the
+     * profiler tracks as many records as it can, a newly tracked record
+     * inherits the count of the record it replaces, so the figure may be an
+     * overestimate for records that were not always among the hottest.
+     *
+     * @return The number of acquisitions.
+     */
+    public long getAcquisitions() {
+	return acquisitions;
+    }
+
+    /**
+     * Returns the number of times a thread had to wait for the record lock.
+     *
+     * @return The number of contended acquisitions.
+     */
+    public long getContendedAcquisitions() {
+	return contendedAcquisitions;
+    }
+
+    /**
+     * Returns the total time spent waiting for the record lock.
+     *
+     * @return The total wait time in microseconds.
+     */
+    public long getTotalWaitMicros() {
+	return totalWaitMicros;
+    }
+
+    /**
+     * Returns the longest time spent waiting for the record lock.
+     *
+     * @return The longest wait time in microseconds.
+     */
+    public long getMaxWaitMicros() {
+	return maxWaitMicros;
+    }
+
+    /**
+     * Returns the number of threads currently waiting for the record lock.
+     *
+     * @return The number of waiting threads.
+     */
+    public int getWaiters() {
+	return waiters;
+    }
+
+    /**
+     * This method returns a one line summary of the contention.
+     *
+     * @return A String object denoting the contention on the record.
+     */
+    public String toString() {
+	return "record " + recordNumber + ": " + acquisitions + " locks, "
+	    + contendedAcquisitions + " contended, wait total "
+	    + totalWaitMicros + " us, max " + maxWaitMicros + " us, "
+	    + waiters + " waiting";
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * RecordIndex.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import java.util.function.BiFunction;
+
+/**
+ * The RecordIndex class holds the lookup structures derived from the records
+ * of the database, which spare the record creation a scan of the whole cache:
+ *
+ * <ul>
+ * <li> The key index maps the name and location of a record, compared
+ *      ignoring case, to the number of the record. Deleted records are
+ *      included, so that a deleted record can be reactivated when it is
+ *      added again.
+ * <li> The free slots are the numbers of the deleted records, whose slots
+ *      in the database file can be reused.
+ * </ul>
+ *
+ * <p> The index is filled concurrently by the threads loading the database
+ * file, or restored from a snapshot, after which all the modifications are
+ * done by the Data class while holding its write lock.
+ *
+ * @see Data#create(String[])
+ * @see IndexSnapshot
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class RecordIndex {
+
+    /**
+     * The function keeping the lower of two record numbers.
+     */
+    private static final BiFunction<Integer, Integer, Integer> LOWER =
+	new BiFunction<Integer, Integer, Integer>() {
+	    public Integer apply( Integer current, Integer candidate ) {
+		return ( candidate < current ) ? candidate : current;
+	    }
+	};
+
+    /**
+     * The record numbers by record key.
+     */
+    private final ConcurrentMap<String, Integer> keys =
+	new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the deleted records seen while loading, kept apart so that
+     * a valid record always takes precedence over a deleted one with the
+     * same key. Cleared when the loading is complete.
+     */
+    private final ConcurrentMap<String, Integer> deletedKeys =
+	new ConcurrentHashMap<>();
+
+    /**
+     * The numbers of the deleted records, in ascending order.
+     */
+    private final ConcurrentSkipListSet<Integer> freeSlots =
+	new ConcurrentSkipListSet<>();
+
+    /**
+     * This method returns the key of a record, its trimmed name and location
+     * in upper case.
+     *
+     * @param record A reference to a DBRecord object.
+     *
+     * @return A String object denoting the key of the record.
+     */
+    static String keyOf( DBRecord record ) {
+
+	return record.getName().trim().toUpperCase() + '\n'
+	    + record.getLocation().trim().toUpperCase();
+    }
+
+    /**
+     * This method adds a record read from the database file. It may be
+     * called concurrently by several threads. When several records have the
+     * same key, a valid record is preferred to a deleted one, then the
+     * lowest record number, so the result does not depend on the loading
+     * order.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param record A reference to the record.
+     *
+     * @see #completeLoad()
+     */
+    void addLoaded( int recNo, DBRecord record ) {
+
+	if ( record.isDeleted() ) {
+	    deletedKeys.merge( keyOf( record ), recNo, LOWER );
+	    freeSlots.add( recNo );
+	} else {
+	    keys.merge( keyOf( record ), recNo, LOWER );
+	}
+    }
+
+    /**
+     * This method completes the loading of the index, once all the records
+     * have been added.
+     *
+     * @see #addLoaded(int,DBRecord)
+     */
+    void completeLoad() {
+
+	for ( Map.Entry<String, Integer> entry : deletedKeys.entrySet() ) {
+	    keys.putIfAbsent( entry.getKey(), entry.getValue() );
+	}
+
+	deletedKeys.clear();
+    }
+
+    /**
+     * This method replaces the content of the index.
+     *
+     * @param keyMap The record numbers by record key.
+     *
+     * @param slots The numbers of the deleted records.
+     *
+     * @see IndexSnapshot#restoreTo(RecordIndex)
+     */
+    void restore( Map<String, Integer> keyMap, Collection<Integer> slots ) {
+
+	keys.clear();
+	keys.putAll( keyMap );
+	deletedKeys.clear();
+	freeSlots.clear();
+	freeSlots.addAll( slots );
+    }
+
+    /**
+     * This method returns the keys of the index.
+     *
+     * @return An unmodifiable view of the record numbers by record key.
+     */
+    Map<String, Integer> getKeys() {
+
+	return Collections.unmodifiableMap( keys );
+    }
+
+    /**
+     * This method returns the free slots of the index.
+     *
+     * @return An unmodifiable view of the numbers of the deleted records, in
+     *         ascending order.
+     */
+    Set<Integer> getFreeSlots() {
+
+	return Collections.unmodifiableSet( freeSlots );
+    }
+
+    /**
+     * This method returns the number of the record with the same key as the
+     * specified record.
+     *
+     * @param record A reference to a DBRecord object.
+     *
+     * @return The number of the record with the same key, null if there is
+     *         none.
+     */
+    Integer find( DBRecord record ) {
+
+	return keys.get( keyOf( record ) );
+    }
+
+    /**
+     * This method adds the key of a record.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param record A reference to the record.
+     */
+    void add( int recNo, DBRecord record ) {
+
+	keys.put( keyOf( record ), recNo );
+    }
+
+    /**
+     * This method removes the key of a record, if it still refers to the
+     * record.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param record A reference to the record.
+     */
+    void remove( int recNo, DBRecord record ) {
+
+	keys.remove( keyOf( record ), recNo );
+    }
+
+    /**
+     * This method records that the slot of a record is free, the record
+     * having been deleted.
+     *
+     * @param recNo The number of the deleted record.
+     */
+    void addFreeSlot( int recNo ) {
+
+	freeSlots.add( recNo );
+    }
+
+    /**
+     * This method records that the slot of a record is in use again, the
+     * record having been reactivated.
+     *
+     * @param recNo The number of the record.
+     */
+    void removeFreeSlot( int recNo ) {
+
+	freeSlots.remove( recNo );
+    }
+
+    /**
+     * This method takes the free slot with the lowest record number.
+     *
+     * @return The number of the deleted record whose slot is taken, null if
+     *         there are no free slots.
+     */
+    Integer takeFreeSlot() {
+
+	return freeSlots.pollFirst();
+    }
+
+    /**
+     * This method returns the number of keys in the index.
+     *
+     * @return The number of keys.
+     */
+    int getKeyCount() {
+
+	return keys.size();
+    }
+
+    /**
+     * This method returns the number of free slots.
+     *
+     * @return The number of deleted records.
+     */
+    int getFreeSlotCount() {
+
+	return freeSlots.size();
+    }
+}
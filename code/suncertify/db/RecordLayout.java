@@ -0,0 +1,230 @@
+/*
+ * RecordLayout.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Map;
+
+/**
+ * The RecordLayout class describes the fixed width layout of the attributes of
+ * a record in the database file. It is built once from the schema read from
+ * the header of the database file and it is shared by all the records of the
+ * file.
+ *
+ * <p> The offsets are relative to the first byte following the record status
+ * flag.
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class RecordLayout {
+
+    /**
+     * The names of the attributes in schema order.
+     */
+    private final String[] fieldNames;
+
+    /**
+     * The offset of each attribute from the start of the attributes.
+     */
+    private final int[] offsets;
+
+    /**
+     * The length in bytes of each attribute.
+     */
+    private final int[] lengths;
+
+    /**
+     * The total length in bytes of the attributes of a record, excluding the
+     * status flag.
+     */
+    private final int recordLength;
+
+    /**
+     * The constructor.
+     *
+     * @param schema A reference to a Map object denoting the name/length pairs
+     *        of the record attributes in schema order.
+     */
+    RecordLayout( Map<String, Short> schema ) {
+
+	int count = schema.size();
+
+	fieldNames = new String[count];
+	offsets = new int[count];
+	lengths = new int[count];
+
+	int offset = 0;
+	int i = 0;
+
+	for ( Map.Entry<String, Short> entry : schema.entrySet() ) {
+	    fieldNames[i] = entry.getKey();
+	    offsets[i] = offset;
+	    lengths[i] = entry.getValue().intValue();
+	    offset += lengths[i];
+	    ++i;
+	}
+
+	recordLength = offset;
+    }
+
+    /**
+     * Returns the number of attributes in a record.
+     *
+     * @return The number of attributes.
+     */
+    int getFieldCount() {
+	return lengths.length;
+    }
+
+    /**
+     * Returns the name of an attribute.
+     *
+     * @param field The index of the attribute.
+     *
+     * @return The name of the attribute as stored in the schema.
+     */
+    String getFieldName( int field ) {
+	return fieldNames[field];
+    }
+
+    /**
+     * Returns the offset of an attribute.
+     *
+     * @param field The index of the attribute.
+     *
+     * @return The offset of the attribute from the start of the attributes.
+     */
+    int getOffset( int field ) {
+	return offsets[field];
+    }
+
+    /**
+     * Returns the length of an attribute.
+     *
+     * @param field The index of the attribute.
+     *
+     * @return The length in bytes of the attribute.
+     */
+    int getLength( int field ) {
+	return lengths[field];
+    }
+
+    /**
+     * Returns the length of the attributes of a record.
+     *
+     * @return The length in bytes of the attributes, excluding the status
+     *         flag.
+     */
+    int getRecordLength() {
+	return recordLength;
+    }
+
+    /**
+     * The byte a character that is not US-ASCII is encoded to, as done by
+     * the US-ASCII charset.
+     */
+    private static final byte UNMAPPABLE = (byte)'?';
+
+    /**
+     * This method stores the trimmed value as an attribute of the record
+     * bytes. The value is encoded in US-ASCII and truncated or padded with
+     * spaces to the length of the attribute. The characters are encoded
+     * straight into the record bytes, without any intermediate array.
+     *
+     * @param field The index of the attribute.
+     *
+     * @param value A String object denoting the value of the attribute.
+     *
+     * @param record An array of bytes denoting the attributes of a record.
+     *
+     * @return A boolean value true if the bytes of the attribute changed,
+     *         false if the attribute already had this value.
+     */
+    boolean encodeField( int field, String value, byte[] record ) {
+
+	/* The bounds of the value trimmed as by String.trim() */
+	int first = 0;
+	int last = value.length();
+
+	while ( ( first < last ) && ( value.charAt( first ) <= ' ' ) ) {
+	    ++first;
+	}
+
+	while ( ( last > first ) && ( value.charAt( last - 1 ) <= ' ' ) ) {
+	    --last;
+	}
+
+	int count = Math.min( last - first, lengths[field] );
+	boolean changed = false;
+
+	for ( int i = 0; i < lengths[field]; ++i ) {
+
+	    byte b = (byte)' ';
+
+	    if ( i < count ) {
+		char c = value.charAt( first + i );
+		b = ( c < 0x80 ) ? (byte)c : UNMAPPABLE;
+	    }
+
+	    int pos = offsets[field] + i;
+
+	    if ( record[pos] != b ) {
+		record[pos] = b;
+		changed = true;
+	    }
+	}
+
+	return changed;
+    }
+
+    /**
+     * This method decodes an attribute from the record bytes.
+     *
+     * @param field The index of the attribute.
+     *
+     * @param record An array of bytes denoting the attributes of a record.
+     *
+     * @return A String object denoting the attribute, including its padding.
+     */
+    String decodeField( int field, byte[] record ) {
+
+	return new String( record, offsets[field], lengths[field],
+			   StandardCharsets.US_ASCII );
+    }
+
+    /**
+     * This method decodes an attribute from the record bytes without its
+     * padding. The bytes are trimmed as by String.trim() before they are
+     * decoded, so no padded String object is created.
+     *
+     * @param field The index of the attribute.
+     *
+     * @param record An array of bytes denoting the attributes of a record.
+     *
+     * @return A String object denoting the trimmed attribute.
+     */
+    String decodeTrimmed( int field, byte[] record ) {
+
+	int first = offsets[field];
+	int last = first + lengths[field];
+
+	while ( ( first < last ) && ( ( record[first] & 0xFF ) <= ' ' ) ) {
+	    ++first;
+	}
+
+	while ( ( last > first ) && ( ( record[last - 1] & 0xFF ) <= ' ' ) ) {
+	    --last;
+	}
+
+	return new String( record, first, last - first,
+			   StandardCharsets.US_ASCII );
+    }
+}
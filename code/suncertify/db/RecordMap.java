@@ -0,0 +1,390 @@
+/*
+ * RecordMap.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Arrays;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The RecordMap class maps the record numbers known to the clients, the
+ * logical record numbers, to the slots of the records in the database file.
+ * Until the database file is first compacted, the record number of a record
+ * is its slot. The compaction moves the valid records into a dense file and
+ * the map keeps their record numbers valid.
+ *
+ * <p> The slots written by a compaction are mapped explicitly. The records
+ * added after it are appended to the file and mapped implicitly: the first
+ * slot after the compacted ones holds the record numbered
+ * {@code logicalBase}, the next one the record numbered
+ * {@code logicalBase + 1} and so on. The map therefore only changes when the
+ * file is compacted.
+ *
+ * <p> The map is persisted in a sidecar file next to the database file. A
+ * missing sidecar file denotes the identity map. A compaction writes the new
+ * map to a pending sidecar file, stamped with the length and the checksum of
+ * the compacted database file, before the compacted file replaces the
+ * database file. When the database is opened, a pending map is completed if
+ * the database file matches its stamp, and discarded otherwise.
+ *
+ * <p> RecordMap objects are immutable.
+ *
+ * @see Data
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class RecordMap {
+
+    /**
+     * The identity map of a database file that was never compacted.
+     */
+    static final RecordMap IDENTITY = new RecordMap( new int[0], 0 );
+
+    /**
+     * The first bytes of a map file.
+     */
+    private static final int MAGIC = 0x524D4150;
+
+    /**
+     * The version of the map file format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The suffix appended to the name of the database file to form the name
+     * of the sidecar file.
+     */
+    private static final String SIDECAR_SUFFIX = ".map";
+
+    /**
+     * The suffix appended to the name of the sidecar file to form the name
+     * of the pending sidecar file.
+     */
+    private static final String PENDING_SUFFIX = ".new";
+
+    /**
+     * The size of the I/O buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The record number of each compacted slot.
+     */
+    private final int[] logicalOf;
+
+    /**
+     * The slot of each record numbered below the logical base, -1 for the
+     * record numbers no longer in use.
+     */
+    private final int[] physicalOf;
+
+    /**
+     * The record number of the first slot following the compacted ones.
+     */
+    private final int logicalBase;
+
+    /**
+     * The constructor.
+     *
+     * @param logicalOf The record number of each compacted slot.
+     *
+     * @param logicalBase The record number of the first slot following the
+     *        compacted ones. It must be greater than all the record numbers
+     *        of the compacted slots.
+     */
+    RecordMap( int[] logicalOf, int logicalBase ) {
+
+	this.logicalOf = logicalOf;
+	this.logicalBase = logicalBase;
+
+	physicalOf = new int[ logicalBase ];
+	Arrays.fill( physicalOf, -1 );
+
+	for ( int slot = 0; slot < logicalOf.length; ++slot ) {
+	    physicalOf[ logicalOf[slot] ] = slot;
+	}
+    }
+
+    /**
+     * This method returns the slot of a record.
+     *
+     * @param recNo The record number.
+     *
+     * @return The slot of the record in the database file, -1 if the record
+     *         number is not in use. Record numbers from the logical base on
+     *         are mapped whether or not their slot exists.
+     */
+    int physicalOf( int recNo ) {
+
+	if ( recNo >= logicalBase ) {
+	    return logicalOf.length + ( recNo - logicalBase );
+	}
+
+	return ( recNo < 0 ) ? -1 : physicalOf[ recNo ];
+    }
+
+    /**
+     * This method returns the record number of a slot.
+     *
+     * @param slot The slot in the database file.
+     *
+     * @return The number of the record in the slot.
+     */
+    int logicalOf( int slot ) {
+
+	if ( slot >= logicalOf.length ) {
+	    return logicalBase + ( slot - logicalOf.length );
+	}
+
+	return logicalOf[ slot ];
+    }
+
+    /**
+     * This method returns the record number following the highest one in
+     * use, which is the number of the next record appended to the file.
+     *
+     * @param slots The number of slots in the database file.
+     *
+     * @return The next record number.
+     */
+    int nextRecordNumber( int slots ) {
+
+	return logicalBase + ( slots - logicalOf.length );
+    }
+
+    /**
+     * This method returns the number of slots in the database file.
+     *
+     * @param nextRecNo The next record number.
+     *
+     * @return The number of slots.
+     *
+     * @see #nextRecordNumber(int)
+     */
+    int slotCount( int nextRecNo ) {
+
+	return logicalOf.length + ( nextRecNo - logicalBase );
+    }
+
+    /**
+     * This method returns the checksum of a slot of a database file. The
+     * checksum of a file is the sum of the checksums of its slots, so it can
+     * be computed in any order and updated when a slot is rewritten.
+     *
+     * @param slot The slot in the database file.
+     *
+     * @param buf The buffer holding the content of the slot.
+     *
+     * @param offset The offset of the slot in the buffer.
+     *
+     * @param length The length of a slot.
+     *
+     * @return The checksum of the slot.
+     */
+    static long slotChecksum( int slot, byte[] buf, int offset, int length ) {
+
+	CRC32 crc = new CRC32();
+	crc.update( buf, offset, length );
+
+	return crc.getValue() * ( 2L * slot + 1 );
+    }
+
+    /**
+     * This method returns the sidecar file of a database file.
+     *
+     * @param dbFile The database file.
+     *
+     * @return A reference to a File object denoting the sidecar file.
+     */
+    static File sidecarOf( File dbFile ) {
+
+	return new File( dbFile.getPath() + SIDECAR_SUFFIX );
+    }
+
+    /**
+     * This method returns the pending sidecar file of a database file.
+     *
+     * @param dbFile The database file.
+     *
+     * @return A reference to a File object denoting the pending sidecar file.
+     */
+    static File pendingOf( File dbFile ) {
+
+	return new File( sidecarOf( dbFile ).getPath() + PENDING_SUFFIX );
+    }
+
+    /**
+     * This method reads the map of a database file, a missing map file
+     * denoting the identity map.
+     *
+     * @param dbFile The database file.
+     *
+     * @return A reference to a RecordMap object.
+     *
+     * @throws IOException If the map file could not be read or is invalid.
+     */
+    static RecordMap read( File dbFile ) throws IOException {
+
+	long[] stamp = new long[2];
+	RecordMap map = read( sidecarOf( dbFile ), stamp );
+
+	return ( map == null ) ? IDENTITY : map;
+    }
+
+    /**
+     * This method reads a map file.
+     *
+     * @param file The map file.
+     *
+     * @param stamp An array receiving the length and the checksum of the
+     *        database file the map was written for.
+     *
+     * @return A reference to a RecordMap object, null if the file does not
+     *         exist.
+     *
+     * @throws IOException If the file could not be read or is invalid.
+     */
+    static RecordMap read( File file, long[] stamp ) throws IOException {
+
+	FileInputStream stream;
+
+	try {
+	    stream = new FileInputStream( file );
+	} catch( FileNotFoundException ex ) {
+	    return null;
+	}
+
+	CRC32 crc = new CRC32();
+
+	try ( DataInputStream in = new DataInputStream(
+		  new CheckedInputStream(
+		      new BufferedInputStream( stream, BUFFER_SIZE ), crc ) ) ) {
+
+	    if ( ( in.readInt() != MAGIC ) ||
+		 ( in.readInt() != FORMAT_VERSION ) ) {
+		throw new IOException( "Not a record map - " + file );
+	    }
+
+	    stamp[0] = in.readLong();
+	    stamp[1] = in.readLong();
+
+	    int logicalBase = in.readInt();
+	    int[] logicalOf = new int[ in.readInt() ];
+
+	    for ( int slot = 0; slot < logicalOf.length; ++slot ) {
+		logicalOf[slot] = in.readInt();
+
+		if ( ( logicalOf[slot] < 0 ) ||
+		     ( logicalOf[slot] >= logicalBase ) ) {
+		    throw new IOException( "Invalid record map - " + file );
+		}
+	    }
+
+	    long expected = crc.getValue();
+
+	    if ( in.readLong() != expected ) {
+		throw new IOException( "Record map checksum mismatch - "
+				       + file );
+	    }
+
+	    return new RecordMap( logicalOf, logicalBase );
+	}
+    }
+
+    /**
+     * This method writes the map to the pending sidecar file of a database
+     * file, stamped with the length and the checksum of the compacted
+     * database file. The file is forced to the storage device.
+     *
+     * @param dbFile The database file.
+     *
+     * @param dbLength The length of the compacted database file.
+     *
+     * @param dbChecksum The checksum of the compacted database file.
+     *
+     * @throws IOException If the map could not be written.
+     *
+     * @see #commit(File)
+     */
+    void writePending( File dbFile, long dbLength, long dbChecksum )
+		       throws IOException {
+
+	CRC32 crc = new CRC32();
+	FileOutputStream stream = new FileOutputStream( pendingOf( dbFile ) );
+
+	try ( DataOutputStream out = new DataOutputStream(
+		  new CheckedOutputStream(
+		      new BufferedOutputStream( stream, BUFFER_SIZE ),
+		      crc ) ) ) {
+
+	    out.writeInt( MAGIC );
+	    out.writeInt( FORMAT_VERSION );
+	    out.writeLong( dbLength );
+	    out.writeLong( dbChecksum );
+	    out.writeInt( logicalBase );
+	    out.writeInt( logicalOf.length );
+
+	    for ( int recNo : logicalOf ) {
+		out.writeInt( recNo );
+	    }
+
+	    out.writeLong( crc.getValue() );
+	    out.flush();
+	    stream.getFD().sync();
+	}
+    }
+
+    /**
+     * This method makes the pending map of a database file its map, once the
+     * compacted database file has replaced the database file.
+     *
+     * @param dbFile The database file.
+     *
+     * @throws IOException If the pending map could not be renamed.
+     */
+    static void commit( File dbFile ) throws IOException {
+
+	Files.move( pendingOf( dbFile ).toPath(), sidecarOf( dbFile ).toPath(),
+		    StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    /**
+     * This method deletes the map files of a database file, so that the map
+     * of a compacted file is not applied to a database file that replaced it.
+     *
+     * @param dbFile The database file.
+     *
+     * @return boolean value true if there are no map files any more.
+     */
+    static boolean delete( File dbFile ) {
+
+	File sidecar = sidecarOf( dbFile );
+	File pending = pendingOf( dbFile );
+
+	return ( sidecar.delete() || ! sidecar.exists() )
+	    & ( pending.delete() || ! pending.exists() );
+    }
+}
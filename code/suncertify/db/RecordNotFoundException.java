@@ -37,4 +37,18 @@ public class RecordNotFoundException extends Exception {
     public RecordNotFoundException(String reason) {
 	super( reason );
     }
+
+    /**
+     * Reason parameter constructor for exceptions reporting routine outcomes.
+     * An exception without a stack trace is cheap to create and to send to a
+     * remote client, and it can be created once and thrown repeatedly.
+     *
+     * @param reason The reason for the exception.
+     *
+     * @param writableStackTrace false to create the exception without a
+     *        stack trace.
+     */
+    public RecordNotFoundException(String reason, boolean writableStackTrace) {
+	super( reason, null, false, writableStackTrace );
+    }
 }
@@ -0,0 +1,332 @@
+/*
+ * RecordVersions.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The RecordVersions class keeps the superseded versions of the records that
+ * searches running against an older view of the database may still need.
+ *
+ * <p> The records are copied on write: a modification replaces the cached
+ * record with a modified copy instead of changing it, so a record once
+ * published is never modified. Each modification, done while holding the
+ * write lock of the database, belongs to a write epoch. The replaced record
+ * is retained here, tagged with the epoch that replaced it, and the epoch is
+ * published once all the records of the modification are in place.
+ *
+ * <p> A search opens a view at the last published epoch and then reads the
+ * cache without any lock. For each record it takes the cached record and
+ * then looks here for a version replaced after the view was opened; the
+ * oldest such version is the one the view sees. A record created after the
+ * view was opened has an empty version, which the view skips.
+ *
+ * <p> A version is reclaimed once no open view is older than the epoch that
+ * replaced it, when a view is closed or when a modification is published.
+ *
+ * @see Data#findMatching(String[])
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class RecordVersions {
+
+    /**
+     * The Version class is a superseded version of a record.
+     */
+    static final class Version {
+
+	/**
+	 * The number of the record.
+	 */
+	final int recNo;
+
+	/**
+	 * The epoch of the modification that replaced this version.
+	 */
+	final long replacedAt;
+
+	/**
+	 * The record, null if the record did not exist.
+	 */
+	final DBRecord record;
+
+	/**
+	 * The previous version of the same record, replaced at an earlier
+	 * epoch. It is cut off when reclaimed.
+	 */
+	volatile Version older;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param recNo The number of the record.
+	 * @param replacedAt The epoch of the replacing modification.
+	 * @param record The record, null if the record did not exist.
+	 * @param older The previous version of the record.
+	 */
+	Version( int recNo, long replacedAt, DBRecord record, Version older ) {
+	    this.recNo = recNo;
+	    this.replacedAt = replacedAt;
+	    this.record = record;
+	    this.older = older;
+	}
+    }
+
+    /**
+     * The View class is the point in time at which a search reads the
+     * database.
+     */
+    static final class View implements Comparable<View> {
+
+	/**
+	 * The source of the view identifiers.
+	 */
+	private static final AtomicLong NEXT_ID = new AtomicLong();
+
+	/**
+	 * The last epoch published when the view was opened.
+	 */
+	final long epoch;
+
+	/**
+	 * The identifier of the view, telling apart views of the same epoch.
+	 */
+	private final long id = NEXT_ID.getAndIncrement();
+
+	/**
+	 * The constructor.
+	 *
+	 * @param epoch The last published epoch.
+	 */
+	View( long epoch ) {
+	    this.epoch = epoch;
+	}
+
+	/**
+	 * Orders the views by epoch, the oldest first.
+	 *
+	 * @param other The view compared with this one.
+	 *
+	 * @return A negative integer, zero, or a positive integer as this view
+	 *         is older than, the same as, or newer than the other view.
+	 */
+	public int compareTo( View other ) {
+	    int order = Long.compare( epoch, other.epoch );
+	    return ( order != 0 ) ? order : Long.compare( id, other.id );
+	}
+    }
+
+    /**
+     * The last published epoch.
+     */
+    private volatile long publishedEpoch = 0;
+
+    /**
+     * Whether versions were retained for the epoch being written. Only
+     * accessed while holding the write lock of the database.
+     */
+    private boolean pending = false;
+
+    /**
+     * The newest retained version of each record. Its chains are modified
+     * while holding its monitor, and read without locking by the searches.
+     */
+    private final Map<Integer, Version> newest = new ConcurrentHashMap<>();
+
+    /**
+     * The retained versions, in the order of the epochs that replaced them.
+     */
+    private final ConcurrentLinkedQueue<Version> retained =
+	new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of retained versions.
+     */
+    private final AtomicLong retainedCount = new AtomicLong();
+
+    /**
+     * The open views, the oldest first.
+     */
+    private final ConcurrentSkipListSet<View> views =
+	new ConcurrentSkipListSet<>();
+
+    /**
+     * This method retains the version of a record replaced by the
+     * modification being written. It must be called while holding the write
+     * lock of the database, before the cached record is replaced.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param record The replaced record, null if the record did not exist.
+     */
+    void retain( int recNo, DBRecord record ) {
+
+	long epoch = publishedEpoch + 1;
+	Version version;
+
+	synchronized( newest ) {
+	    version = new Version( recNo, epoch, record, newest.get( recNo ) );
+	    newest.put( recNo, version );
+	}
+
+	retained.add( version );
+	retainedCount.getAndIncrement();
+	pending = true;
+    }
+
+    /**
+     * This method publishes the modification being written, once all its
+     * records are in the cache, and reclaims the versions no view needs. It
+     * must be called while holding the write lock of the database.
+     */
+    void publish() {
+
+	if ( pending ) {
+	    pending = false;
+	    publishedEpoch = publishedEpoch + 1;
+	    reclaim();
+	}
+    }
+
+    /**
+     * This method opens a view at the last published epoch. The view must be
+     * closed.
+     *
+     * @return A reference to the View object.
+     *
+     * @see #close(View)
+     */
+    View open() {
+
+	while ( true ) {
+	    View view = new View( publishedEpoch );
+	    views.add( view );
+
+	    /* Unless an epoch was published meanwhile, reclaim spares it */
+	    if ( publishedEpoch == view.epoch ) {
+		return view;
+	    }
+
+	    views.remove( view );
+	}
+    }
+
+    /**
+     * This method closes a view and reclaims the versions no view needs any
+     * longer.
+     *
+     * @param view A reference to the View object.
+     */
+    void close( View view ) {
+
+	views.remove( view );
+	reclaim();
+    }
+
+    /**
+     * This method returns the version of a record a view sees when it is not
+     * the cached record. The cached record must be read before this method is
+     * called.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param view A reference to the View object.
+     *
+     * @return A reference to the Version object the view sees, null if the
+     *         view sees the cached record.
+     */
+    Version versionAt( int recNo, View view ) {
+
+	/* Without retained versions, spare boxing the record number */
+	if ( newest.isEmpty() ) {
+	    return null;
+	}
+
+	/* No lock, reclaim only unlinks the versions older than the view sees */
+	Version version = newest.get( recNo );
+	Version seen = null;
+
+	while ( ( version != null ) && ( version.replacedAt > view.epoch ) ) {
+	    seen = version;
+	    version = version.older;
+	}
+
+	return seen;
+    }
+
+    /**
+     * This method discards the versions replaced at or before the epoch of
+     * the oldest open view, or at or before the last published epoch when no
+     * view is open.
+     */
+    private void reclaim() {
+
+	long bound = publishedEpoch;
+
+	if ( ! views.isEmpty() ) {
+	    try {
+		bound = Math.min( bound, views.first().epoch );
+	    } catch( NoSuchElementException ex ) {
+		/* The last view was closed meanwhile */
+	    }
+	}
+
+	Version version;
+
+	while ( ( ( version = retained.peek() ) != null ) &&
+		( version.replacedAt <= bound ) ) {
+
+	    if ( ! retained.remove( version ) ) {
+		continue;
+	    }
+
+	    retainedCount.getAndDecrement();
+
+	    synchronized( newest ) {
+		Version current = newest.get( version.recNo );
+
+		if ( current == version ) {
+		    newest.remove( version.recNo );
+		} else {
+		    for ( ; current != null; current = current.older ) {
+			if ( current.older == version ) {
+			    current.older = null;
+			    break;
+			}
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * This method returns the number of retained versions.
+     *
+     * @return The number of versions.
+     */
+    long getRetainedCount() {
+	return retainedCount.get();
+    }
+
+    /**
+     * This method returns the number of open views.
+     *
+     * @return The number of views.
+     */
+    int getViewCount() {
+	return views.size();
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * ReplicaData.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.Map;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * The ReplicaData class holds an in memory copy of the records of the
+ * application database, kept up to date by a replica server from the
+ * mutations published by the primary server. The records keep the record
+ * numbers they have in the primary database and they are stored and searched
+ * in the fixed width form of the database file, so searches follow exactly
+ * the same rules as those of the Data class.
+ *
+ * <p> The copy is read-only for the clients, the operations modifying the
+ * database or locking records are rejected. The mutations are applied by
+ * the replica server through the apply() method.
+ *
+ * @see Data
+ * @see #apply(int,String[])
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class ReplicaData implements DBMain {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The exception thrown by find() when no record matches the criteria.
+     * This is a routine outcome, so the exception is created once, without a
+     * stack trace.
+     *
+     * @see #find(String[])
+     */
+    private static final RecordNotFoundException NO_MATCH_EXCEPTION =
+	new RecordNotFoundException( "No record found for the specified "
+				     + "criteria", false );
+
+    /**
+     * The schema of the primary database.
+     */
+    private final Map<String, Short> schema;
+
+    /**
+     * The layout of the attributes of a record.
+     */
+    private final RecordLayout layout;
+
+    /**
+     * The valid records by record number.
+     */
+    private final ConcurrentSkipListMap<Integer, DBRecord> records =
+	new ConcurrentSkipListMap<>();
+
+    /**
+     * The constructor.
+     *
+     * @param schema A reference to a Map object denoting the name/length
+     *        pairs of the record attributes of the primary database, in
+     *        schema order.
+     */
+    public ReplicaData( Map<String, Short> schema ) {
+
+	this.schema = new LinkedHashMap<String, Short>( schema );
+	this.layout = new RecordLayout( this.schema );
+    }
+
+    /**
+     * This method applies a mutation of the primary database to this copy.
+     * Each mutation carries the whole state of the record, so applying it
+     * again is harmless.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param data An array of String objects denoting the attributes of the
+     *        record, null if the record was deleted.
+     */
+    public void apply( int recNo, String [] data ) {
+
+	if ( data == null ) {
+	    records.remove( recNo );
+	} else {
+	    records.put( recNo, new DBRecord( data.clone(), layout, recNo ) );
+	}
+    }
+
+    /**
+     * This method removes the records other than the specified ones, once
+     * the records of a new snapshot of the primary database are applied.
+     *
+     * @param recNos A reference to a Collection object denoting the numbers
+     *        of the records in the snapshot.
+     */
+    public void retainAll( Collection<Integer> recNos ) {
+
+	records.keySet().retainAll( recNos );
+    }
+
+    /**
+     * This method returns the number of valid records in this copy.
+     *
+     * @return The number of records.
+     */
+    public int getRecordCount() {
+
+	return records.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, Short> getSchema() {
+
+	return new LinkedHashMap<String, Short>( schema );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#read(int)
+     */
+    public String [] read( int recNo ) throws RecordNotFoundException {
+
+	DBRecord record = records.get( recNo );
+
+	if ( record == null ) {
+	    String msg = "Record number " + recNo + " does not exist";
+	    logger.fine( msg );
+	    RecordNotFoundException e = new RecordNotFoundException( msg );
+	    logger.throwing( "ReplicaData", "read()", e );
+	    throw e;
+	}
+
+	return record.getFieldsValues();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#find(String[])
+     */
+    public int [] find( String [] criteria ) throws RecordNotFoundException,
+						    DBAccessException {
+
+	int [] matches = findMatching( criteria );
+
+	if ( matches.length == 0 ) {
+	    logger.log( Level.FINE, NO_MATCH_EXCEPTION.getMessage() );
+	    logger.throwing( "ReplicaData", "find()", NO_MATCH_EXCEPTION );
+	    throw NO_MATCH_EXCEPTION;
+	}
+
+	return matches;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#findMatching(String[])
+     */
+    public int [] findMatching( String [] criteria ) throws DBAccessException {
+
+	SearchCriteria compiled = SearchCriteria.compile( criteria );
+
+	int [] matches = new int[ records.size() ];
+	int count = 0;
+
+	/* The map is ordered by record number, so are the matches */
+	for ( DBRecord record : records.values() ) {
+
+	    if ( compiled.matches( record ) ) {
+
+		if ( count == matches.length ) {
+		    int [] grown = new int[ count * 2 + 1 ];
+		    System.arraycopy( matches, 0, grown, 0, count );
+		    matches = grown;
+		}
+
+		matches[ count++ ] = record.getRecordNumber();
+	    }
+	}
+
+	if ( count == matches.length ) {
+	    return matches;
+	}
+
+	int [] result = new int[ count ];
+	System.arraycopy( matches, 0, result, 0, count );
+	return result;
+    }
+
+    /**
+     * This method rejects the update, the copy is read-only.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param data An array of String objects denoting the attributes.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void update( int recNo, String [] data ) throws DBAccessException {
+
+	throw readOnly( "update()" );
+    }
+
+    /**
+     * This method rejects the update, the copy is read-only.
+     *
+     * @param recNos An array of integers denoting the records.
+     *
+     * @param data The attributes of each record.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void updateAll( int [] recNos, String [][] data ) throws
+						      DBAccessException {
+
+	throw readOnly( "updateAll()" );
+    }
+
+    /**
+     * This method rejects the booking, the copy is read-only.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param owner A String object denoting the owner.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void updateOwner( int recNo, String owner ) throws
+						      DBAccessException {
+
+	throw readOnly( "updateOwner()" );
+    }
+
+    /**
+     * This method rejects the deletion, the copy is read-only.
+     *
+     * @param recNos The numbers of the records.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void deleteAll( int [] recNos ) throws DBAccessException {
+
+	throw readOnly( "deleteAll()" );
+    }
+
+    /**
+     * This method rejects the locking, the copy is read-only.
+     *
+     * @param criteria An array of String objects.
+     *
+     * @return Nothing.
+     *
+     * @throws DBAccessException Always.
+     */
+    public int [] lockMatching( String [] criteria ) throws DBAccessException {
+
+	throw readOnly( "lockMatching()" );
+    }
+
+    /**
+     * This method rejects the deletion, the copy is read-only.
+     *
+     * @param recNo The number of the record.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void delete( int recNo ) throws DBAccessException {
+
+	throw readOnly( "delete()" );
+    }
+
+    /**
+     * This method rejects the creation, the copy is read-only.
+     *
+     * @param data An array of String objects denoting the attributes.
+     *
+     * @return Never.
+     *
+     * @throws DBAccessException Always.
+     */
+    public int create( String [] data ) throws DBAccessException {
+
+	throw readOnly( "create()" );
+    }
+
+    /**
+     * This method rejects the lock, the records of the copy are locked in
+     * the primary database.
+     *
+     * @param recNo The number of the record.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void lock( int recNo ) throws DBAccessException {
+
+	throw readOnly( "lock()" );
+    }
+
+    /**
+     * This method rejects the unlock, the records of the copy are locked in
+     * the primary database.
+     *
+     * @param recNo The number of the record.
+     *
+     * @throws DBAccessException Always.
+     */
+    public void unlock( int recNo ) throws DBAccessException {
+
+	throw readOnly( "unlock()" );
+    }
+
+    /**
+     * This method indicates whether a record is locked. The records of the
+     * copy are never locked.
+     *
+     * @param recNo The number of the record.
+     *
+     * @return false.
+     *
+     * @throws RecordNotFoundException If the record does not exist in the
+     *         copy.
+     */
+    public boolean isLocked( int recNo ) throws RecordNotFoundException {
+
+	read( recNo );
+
+	return false;
+    }
+
+    /**
+     * This method creates the exception rejecting a modification of the
+     * copy.
+     *
+     * @param method A String object denoting the rejected method.
+     *
+     * @return A reference to a DBAccessException object.
+     */
+    private DBAccessException readOnly( String method ) {
+
+	String msg = "The replica database is read-only, " + method
+	    + " must be sent to the primary server";
+	logger.warning( msg );
+	DBAccessException e = new DBAccessException( msg );
+	logger.throwing( "ReplicaData", method, e );
+	return e;
+    }
+}
@@ -0,0 +1,624 @@
+/*
+ * SearchCriteria.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The SearchCriteria class is the compiled, immutable form of the array of
+ * String objects passed to the find method of the data access object. The
+ * criteria are validated, trimmed, case folded and split once when the object
+ * is compiled, so that testing a record against it does not allocate any
+ * objects.
+ *
+ * <p> Records are tested directly on their US-ASCII attribute bytes. Prefixes
+ * are compared ignoring the ASCII case, the specialities attribute is split at
+ * its commas in place and the size and rate attributes are parsed in place.
+ *
+ * <p> The matching rules are the same as those documented for the find
+ * method. Compiled criteria are kept in a small least recently used cache
+ * because the same few searches are repeated by most clients.
+ *
+ * @see Data#find(String[])
+ * @see #compile(String[])
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class SearchCriteria {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualitified name for this class.
+     */
+    private static final Logger logger =
+			   Logger.getLogger( SearchCriteria.class.getName() );
+
+    /**
+     * The maximum number of compiled criteria kept in the cache.
+     */
+    private static final int MAX_CACHED_CRITERIA = 64;
+
+    /**
+     * The owner criterion is a wild card.
+     */
+    private static final int OWNER_ANY = 0;
+
+    /**
+     * The owner criterion is "+", only unbooked records match.
+     */
+    private static final int OWNER_UNBOOKED = 1;
+
+    /**
+     * The owner criterion is "-", only booked records match.
+     */
+    private static final int OWNER_BOOKED = 2;
+
+    /**
+     * The owner criterion is a prefix of the owner attribute.
+     */
+    private static final int OWNER_PREFIX = 3;
+
+    /**
+     * The number of fraction digits kept when the rate attribute and the rate
+     * criterion are parsed. Rates are compared as scaled integers.
+     */
+    private static final int RATE_FRACTION_DIGITS = 4;
+
+    /**
+     * The maximum number of digits in a parsed numeric value.
+     */
+    private static final int MAX_DIGITS = 15;
+
+    /**
+     * The least recently used cache of compiled criteria. The key is the list
+     * of the normalized criteria.
+     */
+    private static final Map<List<String>, SearchCriteria> cache =
+	new LinkedHashMap<List<String>, SearchCriteria>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(
+			     Map.Entry<List<String>, SearchCriteria> eldest ) {
+		return size() > MAX_CACHED_CRITERIA;
+	    }
+	};
+
+    /**
+     * The upper case name prefix, null if the name criterion is a wild card.
+     */
+    private final byte[] namePrefix;
+
+    /**
+     * The upper case location prefix, null if the location criterion is a
+     * wild card.
+     */
+    private final byte[] locationPrefix;
+
+    /**
+     * The trimmed speciality tokens, a zero length array if the specialities
+     * criterion is a wild card.
+     */
+    private final byte[][] specialityTokens;
+
+    /**
+     * The minimum size, -1 if the size criterion is a wild card.
+     */
+    private final long minSize;
+
+    /**
+     * The maximum rate in units of 1/10^RATE_FRACTION_DIGITS, -1 if the rate
+     * criterion is a wild card.
+     *
+     * @see #RATE_FRACTION_DIGITS
+     */
+    private final long maxRate;
+
+    /**
+     * One of the OWNER_* values.
+     */
+    private final int ownerMode;
+
+    /**
+     * The upper case owner prefix, only used with OWNER_PREFIX.
+     */
+    private final byte[] ownerPrefix;
+
+    /**
+     * A boolean value indicating whether this is a "key" search, only the
+     * name and location criteria are set and both must match exactly.
+     */
+    private final boolean keySearch;
+
+    /**
+     * The private constructor, instances are obtained through the compile
+     * method.
+     *
+     * @param criteria An array of normalized criteria, no element is null and
+     *        each element is trimmed.
+     *
+     * @throws DBAccessException If the size or rate criterion is not numeric.
+     */
+    private SearchCriteria( String[] criteria ) throws DBAccessException {
+
+	namePrefix = foldedOrNull( criteria[NAME_IDX] );
+	locationPrefix = foldedOrNull( criteria[LOCATION_IDX] );
+
+	List<byte[]> tokens = new ArrayList<>();
+	for ( String token : criteria[SPECIALITIES_IDX].split(",") ) {
+	    if ( token.trim().length() != 0 ) {
+		tokens.add( token.trim().getBytes(StandardCharsets.US_ASCII) );
+	    }
+	}
+	specialityTokens = tokens.toArray( new byte[tokens.size()][] );
+
+	minSize = parseCriterion( criteria[SIZE_IDX], 0, "size" );
+	maxRate = parseCriterion( criteria[RATE_IDX], RATE_FRACTION_DIGITS,
+				  "rate" );
+
+	String owner = criteria[OWNER_IDX];
+	if ( owner.length() == 0 ) {
+	    ownerMode = OWNER_ANY;
+	} else if ( owner.equals("+") ) {
+	    ownerMode = OWNER_UNBOOKED;
+	} else if ( owner.equals("-") ) {
+	    ownerMode = OWNER_BOOKED;
+	} else {
+	    ownerMode = OWNER_PREFIX;
+	}
+	ownerPrefix = foldedOrNull( owner );
+
+	keySearch = ( namePrefix != null ) && ( locationPrefix != null )
+	    && ( specialityTokens.length == 0 ) && ( minSize < 0 )
+	    && ( maxRate < 0 ) && ( ownerMode == OWNER_ANY );
+    }
+
+    /**
+     * This method returns the compiled form of the criteria argument. A
+     * previously compiled object is returned if the same criteria were
+     * compiled recently.
+     *
+     * @param criteria An array of String objects with each element indicating
+     *        the criterion for the corresponding attribute of a record.
+     *
+     * @return A reference to a SearchCriteria object.
+     *
+     * @throws DBAccessException If the size or rate criterion is not numeric.
+     */
+    static SearchCriteria compile( String[] criteria ) throws
+						       DBAccessException {
+
+	String[] normalized = new String[ OWNER_IDX + 1 ];
+
+	for ( int i = 0; i < normalized.length; ++i ) {
+	    String value = ( i < criteria.length ) ? criteria[i] : null;
+	    normalized[i] = ( value == null ) ? "" : value.trim();
+	}
+
+	List<String> key = Arrays.asList( normalized );
+
+	synchronized( cache ) {
+	    SearchCriteria compiled = cache.get( key );
+	    if ( compiled != null ) {
+		return compiled;
+	    }
+	}
+
+	SearchCriteria compiled = new SearchCriteria( normalized );
+
+	synchronized( cache ) {
+	    cache.put( key, compiled );
+	}
+
+	return compiled;
+    }
+
+    /**
+     * Returns the upper case US-ASCII form of the argument or null if it is a
+     * zero length String.
+     *
+     * @param value A trimmed String object.
+     *
+     * @return The upper case value or null.
+     */
+    private static byte[] foldedOrNull( String value ) {
+
+	if ( value.length() == 0 ) {
+	    return null;
+	}
+
+	byte[] folded = value.getBytes( StandardCharsets.US_ASCII );
+	for ( int i = 0; i < folded.length; ++i ) {
+	    folded[i] = toUpper( folded[i] );
+	}
+	return folded;
+    }
+
+    /**
+     * Parses a numeric criterion.
+     *
+     * @param value The trimmed criterion.
+     * @param fractionDigits The number of fraction digits kept.
+     * @param attribute The name of the attribute, used in the error message.
+     *
+     * @return The scaled value or -1 if the criterion is a wild card.
+     *
+     * @throws DBAccessException If the criterion is not numeric.
+     */
+    private static long parseCriterion( String value, int fractionDigits,
+					String attribute )
+					throws DBAccessException {
+
+	if ( value.length() == 0 ) {
+	    return -1;
+	}
+
+	byte[] bytes = value.getBytes( StandardCharsets.US_ASCII );
+	long parsed = parseNumber( bytes, 0, bytes.length, fractionDigits );
+
+	if ( parsed < 0 ) {
+	    throw numericError( attribute, value );
+	}
+
+	return parsed;
+    }
+
+    /**
+     * This method determines whether the record argument matches these
+     * criteria. It does not allocate any objects.
+     *
+     * @param record A reference to a DBRecord object.
+     *
+     * @return A boolean value true if the record matches and false otherwise.
+     *
+     * @throws DBAccessException If the size or rate attribute of the record
+     *         is not numeric and the corresponding criterion is set.
+     */
+    boolean matches( DBRecord record ) throws DBAccessException {
+
+	byte[] bytes = record.getRecordBytes();
+	RecordLayout layout = record.getLayout();
+
+	if ( keySearch ) {
+	    return equalsFolded( bytes, layout.getOffset(NAME_IDX),
+				 layout.getLength(NAME_IDX), namePrefix )
+		&& equalsFolded( bytes, layout.getOffset(LOCATION_IDX),
+				 layout.getLength(LOCATION_IDX),
+				 locationPrefix );
+	}
+
+	if ( ( namePrefix != null ) &&
+	     ( ! startsWithFolded( bytes, layout.getOffset(NAME_IDX),
+				   layout.getLength(NAME_IDX), namePrefix ) ) ) {
+	    return false;
+	}
+
+	if ( ( locationPrefix != null ) &&
+	     ( ! startsWithFolded( bytes, layout.getOffset(LOCATION_IDX),
+				   layout.getLength(LOCATION_IDX),
+				   locationPrefix ) ) ) {
+	    return false;
+	}
+
+	if ( ( minSize >= 0 ) &&
+	     ( parseAttribute( bytes, layout, SIZE_IDX, 0, "size" ) < minSize ) ) {
+	    return false;
+	}
+
+	if ( ( maxRate >= 0 ) &&
+	     ( parseAttribute( bytes, layout, RATE_IDX, RATE_FRACTION_DIGITS,
+			       "rate" ) > maxRate ) ) {
+	    return false;
+	}
+
+	if ( ! matchesOwner( bytes, layout.getOffset(OWNER_IDX),
+			     layout.getLength(OWNER_IDX) ) ) {
+	    return false;
+	}
+
+	return matchesSpecialities( bytes, layout.getOffset(SPECIALITIES_IDX),
+				    layout.getLength(SPECIALITIES_IDX) );
+    }
+
+    /**
+     * Matches the owner attribute of a record.
+     *
+     * @param bytes The attributes of the record.
+     * @param offset The offset of the owner attribute.
+     * @param length The length of the owner attribute.
+     *
+     * @return A boolean value true if there is a match, false otherwise.
+     */
+    private boolean matchesOwner( byte[] bytes, int offset, int length ) {
+
+	switch( ownerMode ) {
+	case OWNER_UNBOOKED:
+	    return trimmedLength( bytes, offset, length ) == 0;
+	case OWNER_BOOKED:
+	    return trimmedLength( bytes, offset, length ) != 0;
+	case OWNER_PREFIX:
+	    return startsWithFolded( bytes, offset, length, ownerPrefix );
+	default:
+	    return true;
+	}
+    }
+
+    /**
+     * Determines whether each speciality token of these criteria is the
+     * prefix of one of the comma delimited specialities of a record. The
+     * attribute is tokenized in place.
+     *
+     * @param bytes The attributes of the record.
+     * @param offset The offset of the specialities attribute.
+     * @param length The length of the specialities attribute.
+     *
+     * @return A boolean value true if there is a match, false otherwise.
+     */
+    private boolean matchesSpecialities( byte[] bytes, int offset,
+					 int length ) {
+
+	int limit = offset + length;
+
+	for ( byte[] token : specialityTokens ) {
+
+	    boolean found = false;
+	    int start = offset;
+
+	    while ( ( ! found ) && ( start <= limit ) ) {
+
+		int end = start;
+		while ( ( end < limit ) && ( bytes[end] != ',' ) ) {
+		    ++end;
+		}
+
+		while ( ( start < end ) && ( bytes[start] == ' ' ) ) {
+		    ++start;
+		}
+
+		found = startsWith( bytes, start, end - start, token );
+
+		start = end + 1;
+	    }
+
+	    if ( ! found ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Parses a numeric attribute of a record in place.
+     *
+     * @param bytes The attributes of the record.
+     * @param layout The layout of the attributes.
+     * @param field The index of the attribute.
+     * @param fractionDigits The number of fraction digits kept.
+     * @param attribute The name of the attribute, used in the error message.
+     *
+     * @return The scaled value of the attribute.
+     *
+     * @throws DBAccessException If the attribute is not numeric.
+     */
+    private static long parseAttribute( byte[] bytes, RecordLayout layout,
+					int field, int fractionDigits,
+					String attribute )
+					throws DBAccessException {
+
+	long value = parseNumber( bytes, layout.getOffset(field),
+				  layout.getLength(field), fractionDigits );
+
+	if ( value < 0 ) {
+	    throw numericError( attribute,
+				new String( bytes, layout.getOffset(field),
+					    layout.getLength(field),
+					    StandardCharsets.US_ASCII ).trim() );
+	}
+
+	return value;
+    }
+
+    /**
+     * Parses a non negative decimal number in place. Leading and trailing
+     * spaces and a leading currency symbol are skipped. The value is scaled
+     * by 10^fractionDigits, further fraction digits are ignored. A number
+     * with a fraction is invalid when no fraction digits are kept.
+     *
+     * @param bytes The bytes holding the number.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param fractionDigits The number of fraction digits kept.
+     *
+     * @return The scaled value or -1 if the bytes are not a number.
+     */
+    private static long parseNumber( byte[] bytes, int offset, int length,
+				     int fractionDigits ) {
+
+	int i = offset;
+	int limit = offset + trimmedLength( bytes, offset, length );
+
+	while ( ( i < limit ) && ( bytes[i] == ' ' ) ) {
+	    ++i;
+	}
+
+	if ( ( i < limit ) && ( bytes[i] == '$' ) ) {
+	    ++i;
+	}
+
+	long value = 0;
+	int digits = 0;
+	int scale = -1;
+
+	for ( ; i < limit; ++i ) {
+
+	    byte b = bytes[i];
+
+	    if ( ( b >= '0' ) && ( b <= '9' ) ) {
+		if ( scale < 0 ) {
+		    value = value * 10 + ( b - '0' );
+		} else if ( scale < fractionDigits ) {
+		    value = value * 10 + ( b - '0' );
+		    ++scale;
+		}
+		++digits;
+	    } else if ( ( b == '.' ) && ( scale < 0 ) && ( fractionDigits > 0 ) ) {
+		scale = 0;
+	    } else {
+		return -1;
+	    }
+
+	    if ( digits > MAX_DIGITS ) {
+		return -1;
+	    }
+	}
+
+	if ( digits == 0 ) {
+	    return -1;
+	}
+
+	for ( int s = Math.max( scale, 0 ); s < fractionDigits; ++s ) {
+	    value *= 10;
+	}
+
+	return value;
+    }
+
+    /**
+     * Creates the exception thrown for an attribute or criterion that is not
+     * numeric.
+     *
+     * @param attribute The name of the attribute.
+     * @param value The offending value.
+     *
+     * @return A reference to a DBAccessException object.
+     */
+    private static DBAccessException numericError( String attribute,
+						   String value ) {
+
+	String msg = "Non numerical values in the " + attribute
+				+ " attribute - " + value;
+	logger.log( Level.WARNING, msg );
+	DBAccessException e = new DBAccessException( msg );
+	logger.throwing( "SearchCriteria", "matches()", e );
+	return e;
+    }
+
+    /**
+     * Returns the ASCII upper case form of a byte.
+     *
+     * @param b A US-ASCII character.
+     *
+     * @return The upper case character.
+     */
+    private static byte toUpper( byte b ) {
+	return ( ( b >= 'a' ) && ( b <= 'z' ) ) ? (byte)( b - ('a' - 'A') ) : b;
+    }
+
+    /**
+     * Determines whether a value begins with the prefix, respecting case.
+     *
+     * @param bytes The bytes holding the value.
+     * @param offset The offset of the value.
+     * @param length The length of the value.
+     * @param prefix The prefix.
+     *
+     * @return A boolean value true if there is a match, false otherwise.
+     */
+    private static boolean startsWith( byte[] bytes, int offset, int length,
+				       byte[] prefix ) {
+
+	if ( length < prefix.length ) {
+	    return false;
+	}
+
+	for ( int i = 0; i < prefix.length; ++i ) {
+	    if ( bytes[offset + i] != prefix[i] ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Determines whether a value begins with the upper case prefix, ignoring
+     * the ASCII case of the value.
+     *
+     * @param bytes The bytes holding the value.
+     * @param offset The offset of the value.
+     * @param length The length of the value.
+     * @param prefix An upper case prefix.
+     *
+     * @return A boolean value true if there is a match, false otherwise.
+     */
+    private static boolean startsWithFolded( byte[] bytes, int offset,
+					     int length, byte[] prefix ) {
+
+	if ( length < prefix.length ) {
+	    return false;
+	}
+
+	for ( int i = 0; i < prefix.length; ++i ) {
+	    if ( toUpper( bytes[offset + i] ) != prefix[i] ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Determines whether the trimmed value equals the upper case key,
+     * ignoring the ASCII case of the value.
+     *
+     * @param bytes The bytes holding the padded value.
+     * @param offset The offset of the value.
+     * @param length The length of the value.
+     * @param key An upper case key.
+     *
+     * @return A boolean value true if there is a match, false otherwise.
+     */
+    private static boolean equalsFolded( byte[] bytes, int offset, int length,
+					 byte[] key ) {
+	return ( trimmedLength( bytes, offset, length ) == key.length )
+	    && startsWithFolded( bytes, offset, length, key );
+    }
+
+    /**
+     * Returns the length of a padded value without its trailing spaces.
+     *
+     * @param bytes The bytes holding the padded value.
+     * @param offset The offset of the value.
+     * @param length The length of the value.
+     *
+     * @return The length of the value without trailing spaces.
+     */
+    private static int trimmedLength( byte[] bytes, int offset, int length ) {
+
+	while ( ( length > 0 ) && ( ( bytes[offset + length - 1] == ' ' ) ||
+				   ( bytes[offset + length - 1] == 0 ) ) ) {
+	    --length;
+	}
+	return length;
+    }
+}
@@ -0,0 +1,675 @@
+/*
+ * ShardedData.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import suncertify.common.AppConfigManager;
+import suncertify.common.AppConfigParam;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The ShardedData class partitions the records across several database
+ * files, the shards, each in the format of the application database file and
+ * each managed by its own Data object. The shards therefore have their own
+ * cache, their own read/write lock and their own record locks, so operations
+ * on different shards do not contend.
+ *
+ * <p> A new record goes to the shard given by the hash of its shard key, its
+ * location or its name. The name and the location make up the key of a
+ * record, so records with the same key always go to the same shard, where
+ * duplicates are detected. A record already present in a shard, for
+ * instance in shard files that were not partitioned by the shard key, stays
+ * where it is: a record with the same key is always added to that shard.
+ *
+ * <p> The shard of a record is encoded in the upper bits of its record
+ * number, the record number within the shard in the lower bits. The records
+ * of the first shard keep their record numbers, so a single shard behaves
+ * as the Data class. Operations on a record are routed to its shard.
+ * Searches run on all the shards in parallel and their results are merged,
+ * in shard order.
+ *
+ * <p> The first shard is the database file named in the application
+ * configuration, the others are listed in the DB_SHARD_FILES parameter.
+ *
+ * @see Data
+ * @see AppConfigParam#DB_SHARD_FILES
+ * @see AppConfigParam#DB_SHARD_KEY
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class ShardedData implements DBMain, AutoCloseable {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The number of record number bits encoding the shard.
+     */
+    static final int SHARD_BITS = 4;
+
+    /**
+     * The maximum number of shards.
+     */
+    static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    /**
+     * The number of record number bits encoding the record number within the
+     * shard. The sign bit is not used.
+     */
+    private static final int LOCAL_BITS = 31 - SHARD_BITS;
+
+    /**
+     * The mask of the record number within the shard.
+     */
+    private static final int LOCAL_MASK = ( 1 << LOCAL_BITS ) - 1;
+
+    /**
+     * The exception thrown by find() when no record matches the criteria.
+     * This is a routine outcome, so the exception is created once, without a
+     * stack trace.
+     *
+     * @see #find(String[])
+     */
+    private static final RecordNotFoundException NO_MATCH_EXCEPTION =
+	new RecordNotFoundException( "No record found for the specified "
+				     + "criteria", false );
+
+    /**
+     * This is a reference to the only instance of this class. Access to this
+     * object is through the getInstance() method.
+     *
+     * @see #getInstance()
+     */
+    private static DBMain instance = null;
+
+    /**
+     * The shards.
+     */
+    private final Data[] shards;
+
+    /**
+     * The index of the attribute whose hash selects the shard of a new
+     * record, NAME_IDX or LOCATION_IDX.
+     */
+    private final int keyField;
+
+    /**
+     * The threads searching the shards other than the first one, which is
+     * searched by the calling thread. Null if there is a single shard.
+     */
+    private final ExecutorService searchExecutor;
+
+    /**
+     * The constructor. It opens the shards, which load their records in the
+     * background.
+     *
+     * @param dbLocations An array of String objects denoting the paths of
+     *        the shard files.
+     *
+     * @param keyField The index of the attribute whose hash selects the shard
+     *        of a new record, NAME_IDX or LOCATION_IDX.
+     *
+     * @throws DBAccessException If there are too many shards or if an error
+     *         is encountered while accessing a shard file.
+     */
+    ShardedData( String[] dbLocations, int keyField ) throws DBAccessException {
+
+	if ( ( dbLocations.length == 0 ) ||
+	     ( dbLocations.length > MAX_SHARDS ) ) {
+	    String msg = "Invalid number of shards - " + dbLocations.length
+		+ ", 1 to " + MAX_SHARDS + " supported";
+	    logger.severe( msg );
+	    DBAccessException e = new DBAccessException( msg );
+	    logger.throwing( "ShardedData", "ShardedData()", e );
+	    throw e;
+	}
+
+	this.keyField = keyField;
+	shards = new Data[ dbLocations.length ];
+
+	try {
+	    for ( int i = 0; i < shards.length; ++i ) {
+		shards[i] = new Data( dbLocations[i] );
+	    }
+	} catch( DBAccessException ex ) {
+	    close();
+	    throw ex;
+	}
+
+	if ( shards.length > 1 ) {
+	    searchExecutor = Executors.newFixedThreadPool( shards.length - 1,
+		new ThreadFactory() {
+		    private final AtomicInteger count = new AtomicInteger();
+
+		    public Thread newThread( Runnable task ) {
+			Thread thread = new Thread( task, "ShardSearch-"
+						    + count.incrementAndGet() );
+			thread.setDaemon( true );
+			return thread;
+		    }
+		} );
+	} else {
+	    searchExecutor = null;
+	}
+
+	if ( logger.isLoggable( Level.INFO ) ) {
+	    logger.log( Level.INFO, "Opened {0} database shards, keyed by {1}",
+			new Object[] { shards.length,
+				       ( keyField == NAME_IDX ) ? "name"
+								: "location" } );
+	}
+    }
+
+    /**
+     * This is a class method for retrieving the reference to the only
+     * instance of this class. The shards are the database file and the shard
+     * files named in the application configuration. The MXBeans of the first
+     * shard are registered under the usual names, those of the other shards
+     * with a "shard" key added.
+     *
+     * @return A reference to a DBMain object that is the only instance of this
+     *         class.
+     *
+     * @throws DBAccessException is thrown if errors were encountered in the
+     *         construction of this classes only instance.
+     */
+    public static DBMain getInstance() throws DBAccessException {
+
+	if ( instance == null ) {
+
+	    AppConfigManager configMgr = AppConfigManager.getInstance();
+	    List<String> locations = new ArrayList<>();
+
+	    String files = configMgr.get( AppConfigParam.DB_SHARD_FILES );
+
+	    locations.add( configMgr.get( AppConfigParam.DB_FILE_NAME ) );
+
+	    for ( String location : ( files == null ) ? new String[0]
+						      : files.split( "," ) ) {
+		if ( ! location.trim().isEmpty() ) {
+		    locations.add( location.trim() );
+		}
+	    }
+
+	    String key = configMgr.get( AppConfigParam.DB_SHARD_KEY );
+	    int keyField = LOCATION_IDX;
+
+	    if ( ( key != null ) && key.trim().equalsIgnoreCase( "name" ) ) {
+		keyField = NAME_IDX;
+	    } else if ( ( key != null ) && ( ! key.trim().isEmpty() ) &&
+			( ! key.trim().equalsIgnoreCase( "location" ) ) ) {
+		Logger.getLogger( ShardedData.class.getName() ).warning(
+		    "Invalid shard key, using the location - " + key );
+	    }
+
+	    ShardedData data = new ShardedData(
+		locations.toArray( new String[ locations.size() ] ), keyField );
+
+	    for ( int i = 0; i < data.shards.length; ++i ) {
+		data.shards[i].startServices( ( i == 0 ) ? "" : ",shard=" + i );
+	    }
+
+	    instance = data;
+	}
+
+	return instance;
+    }
+
+    /**
+     * This method returns the shard of a new record.
+     *
+     * @param key A String object denoting the shard key of the record.
+     *
+     * @param shardCount The number of shards.
+     *
+     * @return The index of the shard.
+     */
+    static int shardOf( String key, int shardCount ) {
+
+	String normalized = ( key == null ) ? "" : key.trim().toUpperCase();
+
+	return Math.floorMod( normalized.hashCode(), shardCount );
+    }
+
+    /**
+     * This method returns the record number of a record of a shard.
+     *
+     * @param shard The index of the shard.
+     *
+     * @param recNo The record number within the shard.
+     *
+     * @return The record number.
+     */
+    static int encode( int shard, int recNo ) {
+
+	return ( shard << LOCAL_BITS ) | recNo;
+    }
+
+    /**
+     * This method returns the shard holding a record.
+     *
+     * @param recNo The record number.
+     *
+     * @param method The name of the calling method, for the log.
+     *
+     * @return A reference to the Data object of the shard.
+     *
+     * @throws RecordNotFoundException If the record number does not denote a
+     *         shard.
+     */
+    private Data shardOf( int recNo, String method )
+			  throws RecordNotFoundException {
+
+	int shard = recNo >>> LOCAL_BITS;
+
+	if ( shard >= shards.length ) {
+	    String msg = "Record number " + recNo + " does not exist";
+	    logger.warning( msg );
+	    RecordNotFoundException e = new RecordNotFoundException( msg );
+	    logger.throwing( "ShardedData", method, e );
+	    throw e;
+	}
+
+	return shards[ shard ];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#read(int)
+     */
+    public String [] read( int recNo ) throws RecordNotFoundException,
+					      DBAccessException {
+
+	return shardOf( recNo, "read()" ).read( recNo & LOCAL_MASK );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#update(int,String[])
+     */
+    public void update( int recNo, String[] data )
+			throws RecordNotFoundException, DBAccessException {
+
+	shardOf( recNo, "update()" ).update( recNo & LOCAL_MASK, data );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#updateOwner(int,String)
+     */
+    public void updateOwner( int recNo, String owner )
+			     throws RecordNotFoundException, DBAccessException {
+
+	shardOf( recNo, "updateOwner()" ).updateOwner( recNo & LOCAL_MASK, owner );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The records are updated shard by shard, the records of each shard
+     * being written with a single flush. Each shard checks its own records,
+     * so the update is done on all the shards or none provided the caller
+     * holds the locks on all the records.
+     *
+     * @see Data#updateAll(int[],String[][])
+     */
+    public void updateAll( int [] recNos, String [][] data )
+			   throws RecordNotFoundException, DBAccessException {
+
+	int [][] groups = groupByShard( recNos, "updateAll()" );
+
+	for ( int shard = 0; shard < shards.length; ++shard ) {
+
+	    if ( groups[ shard ].length == 0 ) {
+		continue;
+	    }
+
+	    int [] local = new int[ groups[ shard ].length ];
+	    String [][] values = new String[ local.length ][];
+
+	    for ( int j = 0; j < local.length; ++j ) {
+		local[j] = recNos[ groups[ shard ][j] ] & LOCAL_MASK;
+		values[j] = data[ groups[ shard ][j] ];
+	    }
+
+	    shards[ shard ].updateAll( local, values );
+	}
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The records are deleted shard by shard, the records of each shard
+     * being written with a single flush.
+     *
+     * @see Data#deleteAll(int[])
+     */
+    public void deleteAll( int [] recNos ) throws RecordNotFoundException,
+						  DBAccessException {
+
+	int [][] groups = groupByShard( recNos, "deleteAll()" );
+
+	for ( int shard = 0; shard < shards.length; ++shard ) {
+
+	    if ( groups[ shard ].length == 0 ) {
+		continue;
+	    }
+
+	    int [] local = new int[ groups[ shard ].length ];
+
+	    for ( int j = 0; j < local.length; ++j ) {
+		local[j] = recNos[ groups[ shard ][j] ] & LOCAL_MASK;
+	    }
+
+	    shards[ shard ].deleteAll( local );
+	}
+    }
+
+    /**
+     * This method groups the records of a batch by shard.
+     *
+     * @param recNos An array of integers denoting the record numbers.
+     *
+     * @param method A String object denoting the calling method, for the log.
+     *
+     * @return An array holding, for each shard, the indices of its records
+     *         in the batch.
+     *
+     * @throws RecordNotFoundException If a record number does not belong to
+     *         any shard.
+     */
+    private int [][] groupByShard( int [] recNos, String method )
+				   throws RecordNotFoundException {
+
+	int [] counts = new int[ shards.length ];
+
+	for ( int recNo : recNos ) {
+	    shardOf( recNo, method );
+	    ++counts[ recNo >>> LOCAL_BITS ];
+	}
+
+	int [][] groups = new int[ shards.length ][];
+
+	for ( int shard = 0; shard < shards.length; ++shard ) {
+	    groups[ shard ] = new int[ counts[ shard ] ];
+	    counts[ shard ] = 0;
+	}
+
+	for ( int i = 0; i < recNos.length; ++i ) {
+	    int shard = recNos[i] >>> LOCAL_BITS;
+	    groups[ shard ][ counts[ shard ]++ ] = i;
+	}
+
+	return groups;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#delete(int)
+     */
+    public void delete( int recNo ) throws RecordNotFoundException,
+					   DBAccessException {
+
+	shardOf( recNo, "delete()" ).delete( recNo & LOCAL_MASK );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#find(String[])
+     */
+    public int [] find( String [] criteria ) throws RecordNotFoundException,
+						    DBAccessException {
+
+	int [] matches = findMatching( criteria );
+
+	if ( matches.length == 0 ) {
+	    logger.log( Level.FINE, NO_MATCH_EXCEPTION.getMessage() );
+	    logger.throwing( "ShardedData", "find()", NO_MATCH_EXCEPTION );
+	    throw NO_MATCH_EXCEPTION;
+	}
+
+	return matches;
+    }
+
+    /**
+     * This method searches all the shards in parallel, the first one on the
+     * calling thread, and merges their results.
+     *
+     * @param criteria An array of String objects with each element indicating
+     *        the criterion for the corresponding attribute.
+     *
+     * @return An array of integers denoting the record numbers of the matching
+     *         records, in ascending order, a zero length array if there are
+     *         none.
+     *
+     * @throws DBAccessException If an error is encountered while accessing a
+     *         shard file.
+     *
+     * @see Data#findMatching(String[])
+     */
+    public int [] findMatching( final String [] criteria )
+				throws DBAccessException {
+
+	if ( shards.length == 1 ) {
+	    return shards[0].findMatching( criteria );
+	}
+
+	List<Future<int[]>> searches = new ArrayList<>();
+
+	for ( int i = 1; i < shards.length; ++i ) {
+	    final Data shard = shards[i];
+
+	    searches.add( searchExecutor.submit( new Callable<int[]>() {
+		    public int[] call() {
+			return shard.findMatching( criteria );
+		    }
+		} ) );
+	}
+
+	int [][] results = new int[ shards.length ][];
+	int total;
+
+	try {
+	    results[0] = shards[0].findMatching( criteria );
+	    total = results[0].length;
+
+	    for ( int i = 1; i < shards.length; ++i ) {
+		results[i] = searches.get( i - 1 ).get();
+		total += results[i].length;
+	    }
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	    String msg = "Interrupted while searching the shards";
+	    logger.log( Level.WARNING, msg );
+	    DBAccessException e = new DBAccessException( msg, ex );
+	    logger.throwing( "ShardedData", "findMatching()", e );
+	    throw e;
+	} catch( ExecutionException ex ) {
+	    if ( ex.getCause() instanceof DBAccessException ) {
+		throw (DBAccessException)ex.getCause();
+	    }
+
+	    String msg = "Shard search failed - " + ex.getCause();
+	    logger.log( Level.WARNING, msg, ex.getCause() );
+	    DBAccessException e = new DBAccessException( msg, ex.getCause() );
+	    logger.throwing( "ShardedData", "findMatching()", e );
+	    throw e;
+	} finally {
+	    for ( Future<int[]> search : searches ) {
+		search.cancel( true );
+	    }
+	}
+
+	int [] matches = new int[ total ];
+	int count = 0;
+
+	for ( int shard = 0; shard < results.length; ++shard ) {
+	    for ( int recNo : results[shard] ) {
+		matches[ count++ ] = encode( shard, recNo );
+	    }
+	}
+
+	return matches;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The shards are visited in order, so the records are locked in
+     * ascending record number order.
+     *
+     * @see Data#lockMatching(String[])
+     */
+    public int [] lockMatching( String [] criteria ) throws DBAccessException {
+
+	int [][] locked = new int[ shards.length ][];
+	int total = 0;
+	boolean done = false;
+
+	try {
+	    for ( int shard = 0; shard < shards.length; ++shard ) {
+		locked[ shard ] = shards[ shard ].lockMatching( criteria );
+		total += locked[ shard ].length;
+	    }
+
+	    done = true;
+	} finally {
+	    if ( ! done ) {
+		for ( int shard = 0; shard < shards.length; ++shard ) {
+		    if ( locked[ shard ] != null ) {
+			shards[ shard ].unlockAll( locked[ shard ] );
+		    }
+		}
+	    }
+	}
+
+	int [] matches = new int[ total ];
+	int count = 0;
+
+	for ( int shard = 0; shard < shards.length; ++shard ) {
+	    for ( int recNo : locked[ shard ] ) {
+		matches[ count++ ] = encode( shard, recNo );
+	    }
+	}
+
+	return matches;
+    }
+
+    /**
+     * This method adds a new record to the shard already holding a record
+     * with the same key, valid or deleted, or else to the shard selected by
+     * the hash of its shard key.
+     *
+     * {@inheritDoc}
+     *
+     * @see Data#create(String[])
+     */
+    public int create( String [] data ) throws DuplicateKeyException,
+					       DBAccessException {
+
+	int shard = -1;
+
+	for ( int i = 0; ( i < shards.length ) && ( shard < 0 ); ++i ) {
+	    if ( shards[i].containsKey( data ) ) {
+		shard = i;
+	    }
+	}
+
+	if ( shard < 0 ) {
+	    shard = shardOf( data[ keyField ], shards.length );
+	}
+
+	return encode( shard, shards[ shard ].create( data ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#lock(int)
+     */
+    public void lock( int recNo ) throws RecordNotFoundException,
+					 DBAccessException {
+
+	shardOf( recNo, "lock()" ).lock( recNo & LOCAL_MASK );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#unlock(int)
+     */
+    public void unlock( int recNo ) throws RecordNotFoundException,
+					   DBAccessException {
+
+	shardOf( recNo, "unlock()" ).unlock( recNo & LOCAL_MASK );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#isLocked(int)
+     */
+    public boolean isLocked( int recNo ) throws RecordNotFoundException,
+						DBAccessException {
+
+	return shardOf( recNo, "isLocked()" ).isLocked( recNo & LOCAL_MASK );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The shard files are in the same format, the schema of the first
+     * one is returned.
+     */
+    public Map<String, Short> getSchema() {
+
+	return shards[0].getSchema();
+    }
+
+    /**
+     * This is the close method. It fulfills the AutoCloseable interface
+     * implementation. It closes all the shards.
+     */
+    public void close() {
+
+	if ( searchExecutor != null ) {
+	    searchExecutor.shutdownNow();
+	}
+
+	for ( Data shard : shards ) {
+	    if ( shard != null ) {
+		shard.close();
+	    }
+	}
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * TimedLock.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+import suncertify.common.LatencyHistogram;
+
+/**
+ * The TimedLock class wraps a Lock and records how long threads wait for it
+ * and how long they hold it. Reentrant acquisitions are not timed again, the
+ * hold time runs from the outermost lock() to the matching unlock().
+ *
+ * @see DataStats
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class TimedLock implements Lock {
+
+    /**
+     * The wrapped lock.
+     */
+    private final Lock lock;
+
+    /**
+     * The histogram of the wait times.
+     */
+    private final LatencyHistogram waitTimes;
+
+    /**
+     * The histogram of the hold times.
+     */
+    private final LatencyHistogram holdTimes;
+
+    /**
+     * The per thread acquisition depth and the time of the outermost
+     * acquisition.
+     */
+    private final ThreadLocal<long[]> holds = new ThreadLocal<long[]>() {
+	@Override
+	protected long[] initialValue() {
+	    return new long[2];
+	}
+    };
+
+    /**
+     * The constructor.
+     *
+     * @param lock A reference to the Lock object to wrap.
+     *
+     * @param waitTimes The histogram recording the wait times.
+     *
+     * @param holdTimes The histogram recording the hold times.
+     */
+    TimedLock( Lock lock, LatencyHistogram waitTimes,
+	       LatencyHistogram holdTimes ) {
+
+	this.lock = lock;
+	this.waitTimes = waitTimes;
+	this.holdTimes = holdTimes;
+    }
+
+    /**
+     * This method records an acquisition of the lock.
+     *
+     * @param waitStart The time the thread started waiting.
+     */
+    private void acquired( long waitStart ) {
+
+	long [] hold = holds.get();
+
+	if ( hold[0]++ == 0 ) {
+	    hold[1] = System.nanoTime();
+	    waitTimes.record( hold[1] - waitStart );
+	}
+    }
+
+    /**
+     * Acquires the lock, recording the wait time.
+     */
+    public void lock() {
+
+	long start = System.nanoTime();
+	lock.lock();
+	acquired( start );
+    }
+
+    /**
+     * Acquires the lock unless the thread is interrupted, recording the
+     * wait time.
+     *
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public void lockInterruptibly() throws InterruptedException {
+
+	long start = System.nanoTime();
+	lock.lockInterruptibly();
+	acquired( start );
+    }
+
+    /**
+     * Acquires the lock if it is free.
+     *
+     * @return boolean value true if the lock was acquired, false otherwise.
+     */
+    public boolean tryLock() {
+
+	long start = System.nanoTime();
+
+	if ( lock.tryLock() ) {
+	    acquired( start );
+	    return true;
+	}
+
+	return false;
+    }
+
+    /**
+     * Acquires the lock if it becomes free within the given time.
+     *
+     * @param time The maximum time to wait.
+     *
+     * @param unit The unit of the time argument.
+     *
+     * @return boolean value true if the lock was acquired, false otherwise.
+     *
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public boolean tryLock( long time, TimeUnit unit ) throws
+						     InterruptedException {
+
+	long start = System.nanoTime();
+
+	if ( lock.tryLock( time, unit ) ) {
+	    acquired( start );
+	    return true;
+	}
+
+	return false;
+    }
+
+    /**
+     * Releases the lock, recording the hold time on the outermost release.
+     */
+    public void unlock() {
+
+	long [] hold = holds.get();
+
+	if ( ( hold[0] > 0 ) && ( --hold[0] == 0 ) ) {
+	    holdTimes.recordSince( hold[1] );
+	}
+
+	lock.unlock();
+    }
+
+    /**
+     * Returns a new Condition of the wrapped lock. Waiting on the condition
+     * is not reflected in the hold times.
+     *
+     * @return A reference to a Condition object.
+     */
+    public Condition newCondition() {
+
+	return lock.newCondition();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * BookingTransaction.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.Serializable;
+
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * The BookingTransaction class is a set of bookings and releases to be done
+ * together, for instance the contractors of several specialities booked for
+ * the same customer. The server either does all of them or none.
+ *
+ * <p> Each record is given as the client read it, with the owner it is to
+ * have after the operation, as for bookRecord() and releaseRecord(). A
+ * record may appear only once in a transaction.
+ *
+ * @see BrokerServerIF#executeTransaction(BookingTransaction)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class BookingTransaction implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728130001L;
+
+    /**
+     * The Action enum lists the operations of a transaction.
+     */
+    public enum Action {
+
+	/**
+	 * The record is booked, it must not be booked already.
+	 */
+	BOOK,
+
+	/**
+	 * The record is released, it must be booked.
+	 */
+	RELEASE
+    }
+
+    /**
+     * The records, in the order in which they were added.
+     */
+    private final List<ContractorRecord> records = new ArrayList<>();
+
+    /**
+     * The operation on each record.
+     */
+    private final List<Action> actions = new ArrayList<>();
+
+    /**
+     * This method adds the booking of a record to the transaction.
+     *
+     * @param record A reference to a ContractorRecord object denoting the
+     *        record to be booked, with its new owner.
+     *
+     * @return A reference to this transaction.
+     */
+    public BookingTransaction book( ContractorRecord record ) {
+
+	records.add( new ContractorRecord( record ) );
+	actions.add( Action.BOOK );
+
+	return this;
+    }
+
+    /**
+     * This method adds the release of a record to the transaction.
+     *
+     * @param record A reference to a ContractorRecord object denoting the
+     *        record to be released, with a blank owner.
+     *
+     * @return A reference to this transaction.
+     */
+    public BookingTransaction release( ContractorRecord record ) {
+
+	records.add( new ContractorRecord( record ) );
+	actions.add( Action.RELEASE );
+
+	return this;
+    }
+
+    /**
+     * Returns the number of operations in the transaction.
+     *
+     * @return The number of operations.
+     */
+    public int size() {
+	return records.size();
+    }
+
+    /**
+     * Returns the record of an operation.
+     *
+     * @param index The index of the operation.
+     *
+     * @return A reference to a ContractorRecord object.
+     */
+    public ContractorRecord getRecord( int index ) {
+	return records.get( index );
+    }
+
+    /**
+     * Returns an operation.
+     *
+     * @param index The index of the operation.
+     *
+     * @return The action done on the record of the operation.
+     */
+    public Action getAction( int index ) {
+	return actions.get( index );
+    }
+}
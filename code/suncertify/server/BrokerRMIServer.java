@@ -12,10 +12,15 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 import suncertify.db.DataAccessObjectFactory;
+import suncertify.db.RecordNotFoundException;
 
 import suncertify.common.AppConfigManager;
 import suncertify.common.AppConfigParam;
@@ -24,16 +29,22 @@ import suncertify.common.AppConfigParam;
  * The BrokerRMIServer class is a singleton which servers as the application
  * server when the application is run in server mode. It extends the BrokerServer
  * class and implements the BrokerRMIServerIF. 
+ *
+ * <p> It is also the primary server of the read-only replica servers. It
+ * publishes its mutations in order and implements the ReplicationSourceIF
+ * interface through which the replicas copy the database and follow the
+ * mutations.
  * 
  * @see BrokerRMIServerIF
  * @see BrokerServer
+ * @see BrokerReplicaServer
  *
  * @author Augustine Ogundimu
  * @version 1.0
  * @since 1.0
  */
 public class BrokerRMIServer extends BrokerServer
-                            implements BrokerRMIServerIF {
+			    implements BrokerRMIServerIF, ReplicationSourceIF {
 
     /**
      *
@@ -131,6 +142,12 @@ public class BrokerRMIServer extends BrokerServer
      * A reference to the RMI registry.
      */
     private Registry registry;
+
+    /**
+     * The mutations published for the replica servers. It is created when
+     * the server is first started.
+     */
+    private volatile ReplicationLog replicationLog;
     
     /**
      * A private default constructor which aids in enforcing the singleton 
@@ -164,12 +181,15 @@ public class BrokerRMIServer extends BrokerServer
      *      configuration file. This includes the RMI server name and port number.
      * <li> It creates an RMI registry at the port specified in the application
      *      configuration file.
+     * <li> It bounds the requests run concurrently, with the bounds of the
+     *      application configuration file.
      * <li> It exports the single instance on of this class to the RMI runtime
      *      to enable to receive remote calls.
      * <li> It binds the server to the RMI registry.
      * <li> It creates an instance of the data access object.
      * <li> It registers an instance of the ServerCleanup thread with the java
      *      runtime as shutdown hook.
+     * <li> It starts the expiry of the leases of the update listeners.
      * </ul>
      *
      * @throws BrokerServerException is thrown if an error is encountered during
@@ -180,6 +200,11 @@ public class BrokerRMIServer extends BrokerServer
 	try {
 
 	    dbAccessObject = DataAccessObjectFactory.createDataAccessObject();
+
+	    if ( replicationLog == null ) {
+		replicationLog = new ReplicationLog( getConfigValue(
+			       AppConfigParam.REPLICATION_LOG_SIZE, 65536 ) );
+	    }
 		    
 	    AppConfigManager configMgr = AppConfigManager.getInstance();
 
@@ -200,10 +225,11 @@ public class BrokerRMIServer extends BrokerServer
 	    }
 
 	    BrokerRMIServerIF serverStub = null;
+
+	    configureScheduler();
 	    
 	    if ( ! serverExported ) {
-		serverStub = (BrokerRMIServerIF)UnicastRemoteObject.exportObject(
-				       (BrokerRMIServerIF)instance, portNumber);
+		serverStub = (BrokerRMIServerIF)exportServer( instance, portNumber );
 	    }
 
 	    if ( ! serverBound ) {
@@ -216,6 +242,8 @@ public class BrokerRMIServer extends BrokerServer
 	    
 	    Runtime.getRuntime().addShutdownHook( new ServerCleanup(this) );
 
+	    startLeaseReaper();
+
 	    serverRunning = true;
 
 	} catch( Exception exc ) {
@@ -254,6 +282,8 @@ public class BrokerRMIServer extends BrokerServer
 		UnicastRemoteObject.unexportObject( this, true );
 
 		serverExported = false;
+
+		stopLeaseReaper();
 		
 		serverRunning = false;
 		
@@ -267,4 +297,106 @@ public class BrokerRMIServer extends BrokerServer
 	    }
 	} 
     }
- }
+
+    /**
+     * This method publishes a new record for the replica servers. The record
+     * is locked while it is published, so that its creation is ordered with
+     * the modifications made by other clients.
+     *
+     * @param recNo The number of the new record.
+     */
+    @Override
+    protected void recordCreated( int recNo ) {
+
+	try {
+	    dbAccessObject.lock( recNo );
+	} catch( RecordNotFoundException ex ) {
+	    /* Already deleted, the deletion was published */
+	    return;
+	}
+
+	try {
+	    mutationCommitted( recNo );
+	} finally {
+	    try {
+		dbAccessObject.unlock( recNo );
+	    } catch( RecordNotFoundException ex ) {
+		logger.log( Level.WARNING, "Could not unlock the new record "
+			    + recNo + " - " + ex.getMessage() );
+	    }
+	}
+    }
+
+    /**
+     * This method publishes the state of a record for the replica servers,
+     * after it was modified.
+     *
+     * @param recNo The number of the record.
+     */
+    @Override
+    protected void mutationCommitted( int recNo ) {
+
+	ReplicationLog log = replicationLog;
+
+	if ( log == null ) {
+	    return;
+	}
+
+	String [] attributes;
+
+	try {
+	    attributes = dbAccessObject.read( recNo );
+	} catch( RecordNotFoundException ex ) {
+	    attributes = null;
+	}
+
+	log.append( recNo, attributes );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> The sequence of the snapshot is taken before the records are read,
+     * a record modified while they are read is therefore also in the
+     * following mutations.
+     */
+    public ReplicationBatch getReplicationSnapshot() throws RemoteException {
+
+	ReplicationLog log = replicationLog;
+	long sequence = log.getHeadSequence();
+
+	String [] criteria = new String[ dbAccessObject.getSchema().size() ];
+	Arrays.fill( criteria, "" );
+
+	List<ReplicationEntry> records = new ArrayList<>();
+
+	for ( int recNo : dbAccessObject.findMatching( criteria ) ) {
+	    try {
+		records.add( new ReplicationEntry( sequence, recNo,
+						   dbAccessObject.read( recNo ),
+						   System.currentTimeMillis() ) );
+	    } catch( RecordNotFoundException ex ) {
+		/* Deleted since, the deletion follows the sequence */
+	    }
+	}
+
+	logger.log( Level.INFO, "Sent a snapshot of {0,number,#} records at "
+		    + "sequence {1,number,#} to a replica",
+		    new Object[] { records.size(), sequence } );
+
+	return ReplicationBatch.snapshot( log.getStreamId(), sequence,
+					  dbAccessObject.getSchema(),
+					  records.toArray(
+				   new ReplicationEntry[ records.size() ] ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ReplicationBatch getReplicationChanges( long streamId, long sequence,
+						   int maxEntries )
+						   throws RemoteException {
+
+	return replicationLog.changesSince( streamId, sequence, maxEntries );
+    }
+}
@@ -0,0 +1,819 @@
+/*
+ * BrokerReplicaServer.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.rmi.NotBoundException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.ExportException;
+import java.rmi.server.UnicastRemoteObject;
+
+import java.util.Set;
+import java.util.HashSet;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import suncertify.db.DuplicateKeyException;
+import suncertify.db.ReplicaData;
+
+import suncertify.common.AppConfigManager;
+import suncertify.common.AppConfigParam;
+import suncertify.common.ManagementAgent;
+
+/**
+ * The BrokerReplicaServer class is a read-only replica of the application
+ * server. It runs in its own process, takes a snapshot of the database of
+ * the primary server, the BrokerRMIServer, and then follows the mutations
+ * published by the primary server. It serves the searches and the record
+ * reads from its own copy of the database, so that they do not load the
+ * primary server, and it sends the modifications of the database to the
+ * primary server.
+ *
+ * <p> The clients registered with a replica are notified of the
+ * modifications once the replica has applied them, so a client searching
+ * again in response sees them. The replica may however lag behind the
+ * primary server, its lag is exposed as an MXBean.
+ *
+ * <p> The replica binds itself in the RMI registry of its host, which is
+ * the registry of the primary server when both run on the same host. The
+ * clients are pointed at a replica with the REPLICA_SERVER_NAME parameter.
+ *
+ * @see ReplicationSourceIF
+ * @see ReplicationStatsMXBean
+ * @see suncertify.db.ReplicaData
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class BrokerReplicaServer extends BrokerServer
+				 implements BrokerRMIServerIF {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728120003L;
+
+    /**
+     * This is a reference to a Logger object. The logger's name is the fully
+     * qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The ReplicationApplier thread follows the mutations of the primary
+     * server and applies them to the copy of the database. When the primary
+     * server cannot be reached, it keeps retrying while the replica serves
+     * the state it last received.
+     */
+    private class ReplicationApplier extends Thread {
+
+	/**
+	 * The constructor.
+	 */
+	ReplicationApplier() {
+	    super( "ReplicationApplier" );
+	    setDaemon( true );
+	}
+
+	/**
+	 * The run method requests the mutations following the last one
+	 * applied, until the server is stopped. It pauses for the replication
+	 * interval whenever the replica is up to date. The loss and the
+	 * recovery of the contact with the primary server are logged once.
+	 */
+	@Override
+	public void run() {
+
+	    boolean connected = true;
+
+	    while ( ! isInterrupted() ) {
+		try {
+		    boolean behind = pollChanges();
+
+		    if ( ! connected ) {
+			connected = true;
+			logger.log( Level.INFO, "Reconnected to the primary "
+				    + "server" );
+		    }
+
+		    if ( ! behind ) {
+			Thread.sleep( interval );
+		    }
+		} catch( InterruptedException ex ) {
+		    return;
+		} catch( RemoteException ex ) {
+		    replicationStats.failures.getAndIncrement();
+
+		    if ( connected ) {
+			connected = false;
+			logger.log( Level.WARNING, "Could not reach the "
+				    + "primary server, serving the last state "
+				    + "received - " + ex.getMessage() );
+		    }
+
+		    try {
+			Thread.sleep( interval );
+
+			/* The primary server may have been restarted */
+			lookupPrimary();
+		    } catch( InterruptedException iex ) {
+			return;
+		    } catch( Exception lex ) {
+			logger.log( Level.FINE, "Could not look up the "
+				    + "primary server - " + lex.getMessage() );
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * The ServerCleanup class serves as a shutdown hook with the java
+     * runtime, it stops the replica when the process exits.
+     */
+    private class ServerCleanup extends Thread {
+
+	/**
+	 * The run method calls the stopServer() method of the replica.
+	 *
+	 * @see BrokerReplicaServer#stopServer()
+	 */
+	@Override
+	public void run() {
+	    try {
+		stopServer();
+	    } catch( BrokerServerException exc ) {
+		logger.log( Level.SEVERE,
+			    "Caught an exception in ServerCleanup.run() - " +
+			    exc.getMessage() + " - " + exc );
+	    }
+	}
+    }
+
+    /**
+     * The reference to the single instance of this class. Access to the
+     * instance is provided in the getInstance() method.
+     *
+     * @see #getInstance
+     */
+    private static BrokerReplicaServer instance = null;
+
+    /**
+     * The name under which the replica is bound in the RMI registry.
+     */
+    private String serverName;
+
+    /**
+     * The port on which the replica is exported, 0 for any port.
+     */
+    private int portNumber = 0;
+
+    /**
+     * The maximum number of mutations requested at a time.
+     */
+    private int batchSize;
+
+    /**
+     * The pause in milliseconds between two requests when the replica is up
+     * to date.
+     */
+    private long interval;
+
+    /**
+     * The primary server, to which the modifications are sent.
+     */
+    private volatile BrokerRMIServerIF primary;
+
+    /**
+     * The primary server as the source of the snapshots and the mutations.
+     */
+    private volatile ReplicationSourceIF source;
+
+    /**
+     * The copy of the database.
+     */
+    private ReplicaData replica;
+
+    /**
+     * The identifier of the mutation stream followed. Only used by the
+     * thread applying the mutations once the server is started.
+     */
+    private long streamId;
+
+    /**
+     * The sequence of the last mutation applied. Only used by the thread
+     * applying the mutations once the server is started.
+     */
+    private long appliedSequence;
+
+    /**
+     * The thread applying the mutations.
+     */
+    private ReplicationApplier applier;
+
+    /**
+     * The statistics of the replication, exposed as an MXBean.
+     *
+     * @see ReplicationStatsMXBean
+     */
+    private final ReplicationStats replicationStats = new ReplicationStats();
+
+    /**
+     * A boolean value indicating whether the server is running or not.
+     */
+    private boolean serverRunning = false;
+
+    /**
+     * A reference to the RMI registry in which the replica is bound.
+     */
+    private Registry registry;
+
+    /**
+     * The stub of the replica.
+     */
+    private BrokerRMIServerIF serverStub;
+
+    /**
+     * A private default constructor which aids in enforcing the singleton
+     * pattern implementation. It registers the replication statistics with
+     * the platform MBean server.
+     */
+    private BrokerReplicaServer() {
+
+	ManagementAgent.register( ManagementAgent.REPLICATION_MBEAN_NAME,
+				  replicationStats );
+    }
+
+    /**
+     * This method provides access to the single instance of this class as
+     * part of the singleton pattern implementation.
+     *
+     * @return The reference to the only instance of this object.
+     */
+    static synchronized BrokerReplicaServer getInstance() {
+
+	if ( instance == null ) {
+	    instance = new BrokerReplicaServer();
+	}
+
+	return instance;
+    }
+
+    /**
+     * This method executes the replica startup process. The steps include
+     * the following:
+     *
+     * <ul>
+     * <li> It looks up the primary server with the server host name and the
+     *      server name of the application configuration.
+     * <li> It takes a snapshot of the database of the primary server, which
+     *      it serves from then on.
+     * <li> It bounds the requests run concurrently, with the bounds of the
+     *      application configuration file.
+     * <li> It exports itself to the RMI runtime and binds itself to the RMI
+     *      registry of its host, creating the registry if there is none.
+     * <li> It starts the thread applying the mutations of the primary
+     *      server.
+     * <li> It registers an instance of the ServerCleanup thread with the java
+     *      runtime as shutdown hook.
+     * </ul>
+     *
+     * @throws BrokerServerException is thrown if an error is encountered
+     *         during startup process.
+     */
+    public synchronized void startServer() throws BrokerServerException {
+
+	if ( serverRunning ) {
+	    return;
+	}
+
+	try {
+	    AppConfigManager configMgr = AppConfigManager.getInstance();
+
+	    if ( serverName == null ) {
+		serverName = getConfigValue( AppConfigParam.REPLICA_SERVER_NAME,
+					     configMgr.get( AppConfigParam.SERVER_NAME )
+					     + "Replica" );
+	    }
+
+	    batchSize = getConfigValue( AppConfigParam.REPLICATION_BATCH_SIZE,
+					1024 );
+	    interval = getConfigValue( AppConfigParam.REPLICATION_INTERVAL, 100 );
+
+	    lookupPrimary();
+
+	    takeSnapshot();
+	    dbAccessObject = replica;
+
+	    configureScheduler();
+
+	    serverStub = (BrokerRMIServerIF)exportServer( this, portNumber );
+	    bindServer();
+
+	    String timeout = configMgr.get( AppConfigParam.RMI_RESPONSE_TIME_OUT );
+
+	    if ( timeout != null ) {
+		System.setProperty( "sun.rmi.transport.tcp.responseTimeout",
+				    timeout );
+	    }
+
+	    applier = new ReplicationApplier();
+	    applier.start();
+
+	    startLeaseReaper();
+
+	    Runtime.getRuntime().addShutdownHook( new ServerCleanup() );
+
+	    serverRunning = true;
+
+	    logger.log( Level.INFO, "Replica {0} started with {1,number,#} "
+			+ "records at sequence {2,number,#}",
+			new Object[] { serverName, replica.getRecordCount(),
+				       appliedSequence } );
+
+	} catch( Exception exc ) {
+	    String msg = "Caught exception starting the replica - "
+		+ exc.getClass().getName();
+	    logger.log( Level.SEVERE, msg, exc );
+	    BrokerServerException e = new BrokerServerException( msg, exc );
+	    logger.throwing( "BrokerReplicaServer", "startServer()", e );
+	    throw e;
+	}
+    }
+
+    /**
+     * This method stops the replica if it is running. It stops the thread
+     * applying the mutations, unbinds the replica from the RMI registry and
+     * unexports it from the RMI runtime.
+     *
+     * @throws BrokerServerException is thrown if an error is encountered
+     *         during the shutdown process.
+     */
+    public synchronized void stopServer() throws BrokerServerException {
+
+	if ( serverRunning ) {
+
+	    applier.interrupt();
+	    stopLeaseReaper();
+
+	    try {
+		registry.unbind( serverName );
+
+		UnicastRemoteObject.unexportObject( this, true );
+
+		serverRunning = false;
+
+	    } catch( Exception exc ) {
+		String msg = "Caught exception stopping the replica - "
+		    + exc.getClass().getName();
+		logger.log( Level.SEVERE, msg, exc );
+		BrokerServerException e = new BrokerServerException( msg, exc );
+		logger.throwing( "BrokerReplicaServer", "stopServer()", e );
+		throw e;
+	    }
+	}
+    }
+
+    /**
+     * This method looks up the primary server with the server host name and
+     * the server name of the application configuration.
+     *
+     * @throws RemoteException If the RMI registry could not be reached.
+     *
+     * @throws NotBoundException If the primary server is not bound in the
+     *         registry.
+     */
+    private void lookupPrimary() throws RemoteException, NotBoundException {
+
+	AppConfigManager configMgr = AppConfigManager.getInstance();
+
+	Registry primaryRegistry = LocateRegistry.getRegistry(
+			   configMgr.get( AppConfigParam.SERVER_HOST_NAME ) );
+	Remote stub = primaryRegistry.lookup(
+			     configMgr.get( AppConfigParam.SERVER_NAME ) );
+
+	primary = (BrokerRMIServerIF)stub;
+	source = (ReplicationSourceIF)stub;
+    }
+
+    /**
+     * This method binds the replica to the RMI registry of its host. The
+     * registry is created if there is none, otherwise it is the registry of
+     * the primary server running on the same host.
+     *
+     * @throws RemoteException If the replica could not be bound.
+     */
+    private void bindServer() throws RemoteException {
+
+	try {
+	    registry = LocateRegistry.createRegistry( Registry.REGISTRY_PORT );
+	} catch( ExportException ex ) {
+	    registry = LocateRegistry.getRegistry( Registry.REGISTRY_PORT );
+	}
+
+	registry.rebind( serverName, serverStub );
+    }
+
+    /**
+     * This method takes a snapshot of the database of the primary server.
+     * The records are applied to the copy in place and the records missing
+     * from the snapshot are then removed, so the replica keeps serving
+     * searches while it resynchronizes.
+     *
+     * @throws RemoteException If the primary server could not be reached.
+     */
+    private void takeSnapshot() throws RemoteException {
+
+	ReplicationBatch snapshot = source.getReplicationSnapshot();
+
+	if ( replica == null ) {
+	    replica = new ReplicaData( snapshot.getSchema() );
+	}
+
+	Set<Integer> recNos = new HashSet<>();
+
+	for ( ReplicationEntry entry : snapshot.getEntries() ) {
+	    replica.apply( entry.getRecordNumber(), entry.getAttributes() );
+	    recNos.add( entry.getRecordNumber() );
+	}
+
+	replica.retainAll( recNos );
+
+	streamId = snapshot.getStreamId();
+	appliedSequence = snapshot.getHeadSequence();
+
+	replicationStats.snapshots.getAndIncrement();
+	replicationStats.appliedSequence.set( appliedSequence );
+	recordContact( snapshot, 0 );
+
+	logger.log( Level.INFO, "Took a snapshot of {0,number,#} records at "
+		    + "sequence {1,number,#}",
+		    new Object[] { recNos.size(), appliedSequence } );
+    }
+
+    /**
+     * This method requests the mutations following the last one applied and
+     * applies them. The clients are notified once for all the mutations
+     * applied.
+     *
+     * @return boolean value true if more mutations are waiting to be
+     *         applied.
+     *
+     * @throws RemoteException If the primary server could not be reached.
+     */
+    private boolean pollChanges() throws RemoteException {
+
+	ReplicationBatch batch = source.getReplicationChanges( streamId,
+							       appliedSequence,
+							       batchSize );
+
+	if ( batch.isResyncRequired() ) {
+	    logger.log( Level.WARNING, "The replica is too far behind the "
+			+ "primary server or the primary server was restarted,"
+			+ " taking a new snapshot" );
+	    takeSnapshot();
+	    notifyListeners();
+
+	    /* A restarted primary server on the same host has a new registry */
+	    bindServer();
+	    return false;
+	}
+
+	ReplicationEntry [] entries = batch.getEntries();
+	long lastTimestamp = batch.getTimestamp();
+
+	for ( ReplicationEntry entry : entries ) {
+	    replica.apply( entry.getRecordNumber(), entry.getAttributes() );
+	    appliedSequence = entry.getSequence();
+	    lastTimestamp = entry.getTimestamp();
+	}
+
+	replicationStats.appliedEntries.getAndAdd( entries.length );
+	replicationStats.appliedSequence.set( appliedSequence );
+	recordContact( batch, ( appliedSequence < batch.getHeadSequence() ) ?
+		       batch.getTimestamp() - lastTimestamp : 0 );
+
+	if ( entries.length != 0 ) {
+	    notifyListeners();
+	}
+
+	return appliedSequence < batch.getHeadSequence();
+    }
+
+    /**
+     * This method records a successful contact with the primary server.
+     *
+     * @param batch A reference to the ReplicationBatch received.
+     *
+     * @param lagMillis The lag of the replica after the batch was applied.
+     */
+    private void recordContact( ReplicationBatch batch, long lagMillis ) {
+
+	replicationStats.primarySequence.set( batch.getHeadSequence() );
+	replicationStats.lagMillis.set( Math.max( 0, lagMillis ) );
+	replicationStats.lastContact.set( System.currentTimeMillis() );
+	replicationStats.recordCount.set( replica.getRecordCount() );
+    }
+
+    /**
+     * This method sends the new record to the primary server.
+     *
+     * @param record The reference to the ContractorRecord object to be
+     *        added to the database.
+     *
+     * @return An integer value denoting a unique identifier for the newly
+     *         added record.
+     *
+     * @throws DuplicateKeyException is thrown if a record exists with a key
+     *         that matches that of the new record.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#addRecord(ContractorRecord)
+     */
+    @Override
+    public int addRecord( ContractorRecord record ) throws
+					      DuplicateKeyException,
+					      RemoteException {
+
+	return primary.addRecord( record );
+    }
+
+    /**
+     * This method sends the deletion to the primary server.
+     *
+     * @param record A reference to the ContractorRecord object to be deleted.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#tryDeleteRecord(ContractorRecord)
+     */
+    @Override
+    public OperationResult tryDeleteRecord( ContractorRecord record ) throws
+							  RemoteException {
+
+	return primary.tryDeleteRecord( record );
+    }
+
+    /**
+     * This method sends the update to the primary server.
+     *
+     * @param oldRec A reference to a ContractorRecord object denoting the
+     *        state of the record before the update.
+     *
+     * @param newRec A reference to a ContractorRecord object denoting the
+     *        state of the record after the update.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#tryUpdateRecord(ContractorRecord, ContractorRecord)
+     */
+    @Override
+    public OperationResult tryUpdateRecord( ContractorRecord oldRec,
+					    ContractorRecord newRec )
+					    throws RemoteException {
+
+	return primary.tryUpdateRecord( oldRec, newRec );
+    }
+
+    /**
+     * This method sends the booking to the primary server.
+     *
+     * @param record An reference to the ContractorRecord object to be booked.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#tryBookRecord(ContractorRecord)
+     */
+    @Override
+    public OperationResult tryBookRecord( ContractorRecord record ) throws
+							RemoteException {
+
+	return primary.tryBookRecord( record );
+    }
+
+    /**
+     * This method sends the release to the primary server.
+     *
+     * @param record A reference to the ContractorRecord object to be
+     *        released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#tryReleaseRecord(ContractorRecord)
+     */
+    @Override
+    public OperationResult tryReleaseRecord( ContractorRecord record ) throws
+							   RemoteException {
+
+	return primary.tryReleaseRecord( record );
+    }
+
+    /**
+     * This method sends the booking transaction to the primary server.
+     *
+     * @param transaction A reference to a BookingTransaction object.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#executeTransaction(BookingTransaction)
+     */
+    @Override
+    public OperationResult executeTransaction( BookingTransaction transaction )
+					       throws RemoteException {
+
+	return primary.executeTransaction( transaction );
+    }
+
+    /**
+     * This method sends the records to be added to the primary server.
+     *
+     * @param records An array of ContractorRecord objects.
+     *
+     * @return An array of OperationResult objects denoting the outcomes.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#addRecords(ContractorRecord[])
+     */
+    @Override
+    public OperationResult[] addRecords( ContractorRecord[] records )
+					       throws RemoteException {
+
+	return primary.addRecords( records );
+    }
+
+    /**
+     * This method sends the batch of updates to the primary server.
+     *
+     * @param oldRecs An array of ContractorRecord objects denoting the
+     *        states of the records before the update.
+     *
+     * @param newRecs An array of ContractorRecord objects denoting the
+     *        states of the records after the update.
+     *
+     * @return An array of OperationResult objects denoting the outcomes.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#updateRecords(ContractorRecord[], ContractorRecord[])
+     */
+    @Override
+    public OperationResult[] updateRecords( ContractorRecord[] oldRecs,
+					    ContractorRecord[] newRecs )
+					       throws RemoteException {
+
+	return primary.updateRecords( oldRecs, newRecs );
+    }
+
+    /**
+     * This method sends the batch of bookings to the primary server.
+     *
+     * @param records An array of ContractorRecord objects.
+     *
+     * @return An array of OperationResult objects denoting the outcomes.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#bookRecords(ContractorRecord[])
+     */
+    @Override
+    public OperationResult[] bookRecords( ContractorRecord[] records )
+					       throws RemoteException {
+
+	return primary.bookRecords( records );
+    }
+
+    /**
+     * This method sends the batch of releases to the primary server.
+     *
+     * @param records An array of ContractorRecord objects.
+     *
+     * @return An array of OperationResult objects denoting the outcomes.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#releaseRecords(ContractorRecord[])
+     */
+    @Override
+    public OperationResult[] releaseRecords( ContractorRecord[] records )
+					       throws RemoteException {
+
+	return primary.releaseRecords( records );
+    }
+
+    /**
+     * This method sends the deletion by criteria to the primary server.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @return The number of records deleted.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#deleteWhere(ContractorRecord)
+     */
+    @Override
+    public int deleteWhere( ContractorRecord criteria ) throws RemoteException {
+
+	return primary.deleteWhere( criteria );
+    }
+
+    /**
+     * This method sends the update by criteria to the primary server.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @param fieldChanges An array of String objects denoting the new values
+     *        of the attributes.
+     *
+     * @return The number of records updated.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     *
+     * @see BrokerServer#updateWhere(ContractorRecord, String[])
+     */
+    @Override
+    public int updateWhere( ContractorRecord criteria, String [] fieldChanges )
+					       throws RemoteException {
+
+	return primary.updateWhere( criteria, fieldChanges );
+    }
+
+    /**
+     * The main method. It starts a replica, which runs until the process is
+     * terminated.
+     *
+     * @param args Array of String objects denoting the name=value
+     *        parameters, the name under which the replica is bound and the
+     *        port on which it is exported.
+     */
+    public static void main( String ... args ) {
+
+	BrokerReplicaServer server = getInstance();
+
+	try {
+	    for ( String arg : args ) {
+		int split = arg.indexOf( '=' );
+		String name = ( split < 0 ) ? arg : arg.substring( 0, split );
+		String value = arg.substring( split + 1 );
+
+		if ( "name".equals( name ) ) {
+		    server.serverName = value;
+		} else if ( "port".equals( name ) ) {
+		    server.portNumber = Integer.parseInt( value );
+		} else {
+		    throw new IllegalArgumentException( "Unknown parameter - "
+							+ name );
+		}
+	    }
+
+	    server.startServer();
+
+	    System.out.println( "Replica " + server.serverName + " started" );
+
+	} catch( IllegalArgumentException ex ) {
+	    System.out.println( ex.getMessage() );
+	    System.out.println( "Usage: java suncertify.server.BrokerReplicaServer"
+				+ " [name=brokerServerReplica] [port=0]" );
+	    System.exit( 1 );
+	} catch( BrokerServerException ex ) {
+	    System.out.println( "The replica could not be started - "
+				+ ex.getMessage() );
+	    System.exit( 1 );
+	}
+    }
+}
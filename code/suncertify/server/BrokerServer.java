@@ -10,16 +10,23 @@ package suncertify.server;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
-import java.util.TreeMap;
 import java.util.Map;
-import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import java.io.IOException;
 
+import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import suncertify.db.DBMain;
@@ -28,15 +35,25 @@ import suncertify.db.RecordNotFoundException;
 import suncertify.db.DBAccessException;
 
 import suncertify.common.AppRunMode;
+import suncertify.common.AppConfigManager;
+import suncertify.common.AppConfigParam;
+import suncertify.common.ManagementAgent;
 
 import suncertify.client.DBUpdateListener;
 
+import suncertify.server.RequestScheduler.RequestClass;
+
 /**
  * The BrokerServer class is the abstract baseclass for the server types in the 
  * application. It also servers as the factory for the creation of the 
  * appropriate server type depending on the application run mode. It implements
  * the BrokerServerIF interface.
  *
+ * <p> The requests of the clients are admitted by a RequestScheduler. Once it
+ * is configured, the mutations and the reads of single records run ahead of
+ * the searches, and a request is rejected with a ServerBusyException when the
+ * server is overloaded.
+ *
  * @see #getServer(AppRunMode)
  * @see BrokerServerIF
  * @see BrokerLocalServer
@@ -75,18 +92,137 @@ public abstract class BrokerServer implements BrokerServerIF {
     protected AtomicInteger atomicInteger = new AtomicInteger(0);
 
     /**
-     * A reference to a Map object used for the mapping of unique identifiers 
-     * to DBUpdateListener objects.
+     * The registry of the DBUpdateListener objects by unique identifier,
+     * holding the lease of each listener.
+     *
+     * @see ListenerRegistry
+     */
+    private final ListenerRegistry updateListeners = new ListenerRegistry();
+
+    /**
+     * The LeaseReaper thread removes the database update listeners whose
+     * lease has expired, the clients having stopped renewing it.
+     */
+    private class LeaseReaper extends Thread {
+
+	/**
+	 * The interval in milliseconds between two checks of the leases.
+	 */
+	private final long interval;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param interval The interval in milliseconds between two checks of
+	 *        the leases.
+	 */
+	LeaseReaper( long interval ) {
+	    super( "LeaseReaper" );
+	    setDaemon( true );
+	    this.interval = interval;
+	}
+
+	/**
+	 * The run method removes the expired listeners at every interval,
+	 * until the thread is interrupted.
+	 */
+	@Override
+	public void run() {
+
+	    while ( ! isInterrupted() ) {
+		try {
+		    Thread.sleep( interval );
+		} catch( InterruptedException ex ) {
+		    return;
+		}
+
+		int count = updateListeners.expire( System.currentTimeMillis() );
+
+		if ( count > 0 ) {
+		    stats.expiredListeners.getAndAdd( count );
+		    stats.listenerCount.set( updateListeners.size() );
+		    logger.log( Level.INFO, "Removed {0,number,#} listeners "
+				+ "whose lease expired", count );
+		}
+	    }
+	}
+    }
+
+    /**
+     * The thread removing the expired listeners, null unless the leases of
+     * the listeners expire.
+     *
+     * @see #startLeaseReaper()
+     */
+    private LeaseReaper leaseReaper;
+
+    /**
+     * A reference to the RequestScheduler object controlling the admission
+     * of the requests, which admits every request until it is configured.
+     *
+     * @see #configureScheduler()
+     */
+    private final RequestScheduler scheduler = new RequestScheduler();
+
+    /**
+     * The thread sending the update notifications. A mutation neither waits
+     * for the listeners nor holds its admission while they are notified, so
+     * a listener slow to answer does not hold back the other mutations.
+     *
+     * @see #notifyListeners()
      */
-    protected Map<Integer, DBUpdateListener> updateListeners;
+    private final ExecutorService notifier =
+	Executors.newSingleThreadExecutor( new ThreadFactory() {
+		public Thread newThread( Runnable task ) {
+		    Thread thread = new Thread( task, "UpdateNotifier" );
+		    thread.setDaemon( true );
+		    return thread;
+		}
+	    } );
 
     /**
-     * The default constructor. This creates the map for storing the 
-     * listener ID/DBUpdateListener pairs.
+     * A boolean value true while a notification waits to be sent. The
+     * notifications carry no data, so the waiting notification also reports
+     * the updates made in the meantime.
+     */
+    private final AtomicBoolean notificationPending = new AtomicBoolean();
+
+    /**
+     * A reference to the QueryResultCache object holding the results of the
+     * searches done since the last modification of the database.
+     *
+     * @see QueryResultCache
+     */
+    private final QueryResultCache queryCache = new QueryResultCache();
+
+    /**
+     * The statistics of this server, exposed as an MXBean.
+     *
+     * @see BrokerServerStatsMXBean
+     */
+    private final BrokerServerStats stats = new BrokerServerStats( scheduler );
+
+    /**
+     * The exception thrown by findRecords() when no record matches the
+     * criteria. This is a routine outcome, so the exception is created once,
+     * without a stack trace.
+     *
+     * @see #findRecords(ContractorRecord)
+     */
+    private static final RecordNotFoundException NO_MATCH_EXCEPTION =
+	new RecordNotFoundException( "No record found for the specified "
+				     + "criteria", false );
+
+    /**
+     * The default constructor. This registers the statistics of the server
+     * with the platform MBean server. The leases of the listeners never
+     * expire until the lease reaper is started.
+     *
+     * @see #startLeaseReaper()
      */
     protected BrokerServer() {
-	
-	updateListeners = new TreeMap<>();
+
+	ManagementAgent.register( ManagementAgent.SERVER_MBEAN_NAME, stats );
     }
     
     /**
@@ -168,13 +304,33 @@ public abstract class BrokerServer implements BrokerServerIF {
     public int addRecord( ContractorRecord record ) throws DuplicateKeyException,
                                                     RemoteException {
 
-	int recNo = dbAccessObject.create( record.getAttributes() );
+	boolean admitted = admitRequest( RequestClass.MUTATION );
+
+	long start = System.nanoTime();
 
-	logger.info( "The record - " + record.toString()
-		                       + " was added to the database");
-	notifyListeners();
+	try {
+	    int recNo;
+
+	    try {
+		recNo = dbAccessObject.create( record.getAttributes() );
+	    } finally {
+		/* Also when the write fails part way */
+		queryCache.invalidate();
+	    }
 
-	return recNo;
+	    recordCreated( recNo );
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "The record - {0} was added to the database",
+			    record.toString() );
+	    }
+	    notifyListeners();
+
+	    return recNo;
+	} finally {
+	    stats.addRecord.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
     }
 
     /**
@@ -194,9 +350,18 @@ public abstract class BrokerServer implements BrokerServerIF {
      */
     public ContractorRecord getRecord(int recNo) throws RecordNotFoundException,
                                                 RemoteException {
-	
-	String [] attributes = dbAccessObject.read( recNo );
-	return new ContractorRecord( recNo, attributes );
+
+	boolean admitted = admitRequest( RequestClass.READ );
+
+	long start = System.nanoTime();
+
+	try {
+	    String [] attributes = dbAccessObject.read( recNo );
+	    return new ContractorRecord( recNo, attributes );
+	} finally {
+	    stats.getRecord.recordSince( start );
+	    scheduler.release( RequestClass.READ, start, admitted );
+	}
     }
 
     /**
@@ -219,6 +384,7 @@ public abstract class BrokerServer implements BrokerServerIF {
      * @throws RemoteException If the server is a remote server and there was an 
      *         issue communicating with it. 
      *
+     * @see #tryDeleteRecord(ContractorRecord)
      * @see  suncertify.db.Data#delete(int)
      * @see  suncertify.db.Data#lock(int)
      * @see  suncertify.db.Data#unlock(int)
@@ -228,68 +394,89 @@ public abstract class BrokerServer implements BrokerServerIF {
 	                                         InvalidRecordStateException,
                                                  RemoteException {
 
-	
-	if ( dbAccessObject.isLocked( record.getRecordNumber() ) ) {
+	tryDeleteRecord( record ).check();
+    }
+
+    /**
+     * This method deletes a record from the application database, following
+     * the same rules as deleteRecord(). A record that is locked, has changed
+     * or is booked, or that no longer exists, is reported in the result
+     * rather than with an exception.
+     *
+     * @param record A reference to the ContractorRecord object to be deleted.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #deleteRecord(ContractorRecord)
+     */
+    public OperationResult tryDeleteRecord(ContractorRecord record) throws
+							RemoteException {
+
+	boolean admitted = admitRequest( RequestClass.MUTATION );
 
-	    String msg = "The record - " + record.toString() +
-		               " is currently locked, it cannot be deleted.";
-	    logger.log( Level.INFO, msg );	    
-	    InvalidRecordStateException e = new InvalidRecordStateException(msg);	    
-	    logger.throwing( "BrokerServer", "deleteRecord(int,String[])", e);
-	    throw e;
-	    
-	} else {
+	long start = System.nanoTime();
 
+	try {
 	    int recNo = record.getRecordNumber();
-	    
+
+	    if ( dbAccessObject.isLocked( recNo ) ) {
+
+		String msg = "The record - " + record.toString() +
+				   " is currently locked, it cannot be deleted.";
+		logger.log( Level.FINE, msg );
+		return OperationResult.conflict( msg );
+	    }
+
 	    dbAccessObject.lock( recNo );
 
-	    String [] currVal = dbAccessObject.read( recNo );
-	    ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
-	    
-	    if (record.differsFrom(currRecord) ) {
-		
-		dbAccessObject.unlock( recNo );
-		
-		String reason = record.getReason();
-		
-		String msg = reason + " - Record will not be deleted";
-		
-		InvalidRecordStateException e =
-		               new InvalidRecordStateException( msg );
-
-		logger.info( msg );
-		logger.throwing("BrokerServer","deleteRecord(int,String[])", e);
-				       
-		throw e;
-		
-	    } else if ( currRecord.isBooked() ) {
+	    try {
+		String [] currVal = dbAccessObject.read( recNo );
+		ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
 
-		dbAccessObject.unlock( recNo );
-		
-		String reason = currRecord.getReason();
-		
-		String msg = reason + " - Record will not be deleted";
-		
-		InvalidRecordStateException e =
-		               new InvalidRecordStateException( msg );
-
-		logger.info( msg );
-		
-		logger.throwing("BrokerServer","deleteRecord(int,String[])", e);
-				       
-		throw e;
+		if (record.differsFrom(currRecord) ) {
 
-	    }else {
-	    
-		dbAccessObject.delete( recNo );
-	    
+		    String msg = record.getReason() +
+				       " - Record will not be deleted";
+		    logger.fine( msg );
+		    return OperationResult.conflict( msg );
+
+		} else if ( currRecord.isBooked() ) {
+
+		    String msg = currRecord.getReason() +
+				       " - Record will not be deleted";
+		    logger.fine( msg );
+		    return OperationResult.conflict( msg );
+		}
+
+		try {
+		    dbAccessObject.delete( recNo );
+		} finally {
+		    /* Also when the write fails part way */
+		    queryCache.invalidate();
+		}
+
+		mutationCommitted( recNo );
+	    } finally {
 		dbAccessObject.unlock( recNo );
+	    }
 
-		logger.info("The record - " + record.toString()
-			                            + " was deleted");
-		notifyListeners();
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "The record - {0} was deleted",
+			    record.toString() );
 	    }
+	    notifyListeners();
+
+	    return OperationResult.success();
+
+	} catch( RecordNotFoundException ex ) {
+	    logger.fine( ex.getMessage() );
+	    return OperationResult.notFound( ex.getMessage() );
+	} finally {
+	    stats.deleteRecord.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
 	}
     }
 
@@ -317,6 +504,7 @@ public abstract class BrokerServer implements BrokerServerIF {
      * @throws RemoteException If the server is a remote server and there was an 
      *         issue communicating with it. 
      * 
+     * @see #tryUpdateRecord(ContractorRecord, ContractorRecord)
      * @see  suncertify.db.Data#update(int, String[])
      * @see  suncertify.db.Data#lock(int)
      * @see  suncertify.db.Data#unlock(int)
@@ -325,57 +513,90 @@ public abstract class BrokerServer implements BrokerServerIF {
 	                                       throws InvalidRecordStateException,
 	                                              RecordNotFoundException,
                                                        RemoteException {
-	
-	if ( dbAccessObject.isLocked( oldRec.getRecordNumber() ) ) {
-
-	    String msg = "The record - " + oldRec.toString() +
-		               " is currently locked, it cannot be updated.";
 
-	    logger.log( Level.INFO, msg );	    
+	tryUpdateRecord( oldRec, newRec ).check();
+    }
 
-	    InvalidRecordStateException e = new InvalidRecordStateException(msg);	    
+    /**
+     * This method updates a record in the application database, following
+     * the same rules as updateRecord(). A record that is locked, has changed
+     * or is booked, or that no longer exists, is reported in the result
+     * rather than with an exception.
+     *
+     * @param oldRec A reference to a ContractorRecord object denoting the state
+     *         of the record before the update.
+     *
+     * @param newRec A reference to a ContractorRecord object denoting the state
+     *        of the record after the update.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #updateRecord(ContractorRecord, ContractorRecord)
+     */
+    public OperationResult tryUpdateRecord(ContractorRecord oldRec,
+					   ContractorRecord newRec)
+						   throws RemoteException {
 
-	    logger.throwing("BrokerServer",
-		     "updateRecord(ContractorRecord,ContractorRecord)",e);
+	boolean admitted = admitRequest( RequestClass.MUTATION );
 
-	    throw e;
-	    
-	} else {
+	long start = System.nanoTime();
 
+	try {
 	    int recNo = oldRec.getRecordNumber();
-	    
-	    dbAccessObject.lock( recNo );
-	    
-	    String [] currVal = dbAccessObject.read( recNo );
-	    ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
 
-	    if ( ( oldRec.differsFrom( currRecord ) ) ||
-		 ( currRecord.isBooked() ) ) {
-		
-		dbAccessObject.unlock( recNo );
+	    if ( dbAccessObject.isLocked( recNo ) ) {
 
-		String reason = oldRec.getReason() + currRecord.getReason();
-		String msg = reason + " Record will not be updated!";
+		String msg = "The record - " + oldRec.toString() +
+				   " is currently locked, it cannot be updated.";
+		logger.log( Level.FINE, msg );
+		return OperationResult.conflict( msg );
+	    }
 
-		InvalidRecordStateException e =
-		            new InvalidRecordStateException( msg );
+	    dbAccessObject.lock( recNo );
 
-		logger.info( msg );
-		logger.throwing("BrokerServer",
-				"updateRecord(ContractorRecord,ContractorRecord)",
-				e );
-		throw e;
-		
-	    } else {
-		
-		dbAccessObject.update(recNo, newRec.getAttributes() );
-		
+	    try {
+		String [] currVal = dbAccessObject.read( recNo );
+		ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
+
+		if ( ( oldRec.differsFrom( currRecord ) ) ||
+		     ( currRecord.isBooked() ) ) {
+
+		    String reason = oldRec.getReason() + currRecord.getReason();
+		    String msg = reason + " Record will not be updated!";
+		    logger.fine( msg );
+		    return OperationResult.conflict( msg );
+		}
+
+		try {
+		    dbAccessObject.update(recNo, newRec.getAttributes() );
+		} finally {
+		    /* Also when the write fails part way */
+		    queryCache.invalidate();
+		}
+
+		mutationCommitted( recNo );
+	    } finally {
 		dbAccessObject.unlock( recNo );
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "The record - {0} was updated",
+			    newRec.toString() );
+	    }
 
-		logger.info( "The record - " + newRec.toString() + " was updated");
+	    notifyListeners();
 
-		notifyListeners();				
-	    }	    	    
+	    return OperationResult.success();
+
+	} catch( RecordNotFoundException ex ) {
+	    logger.fine( ex.getMessage() );
+	    return OperationResult.notFound( ex.getMessage() );
+	} finally {
+	    stats.updateRecord.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
 	}
     }
 
@@ -397,14 +618,43 @@ public abstract class BrokerServer implements BrokerServerIF {
      * 
      * @throws RecordNotFoundException If a record uniquely identified by the 
      *         record number does not exist or had been deleted.
+     *
+     * @see #tryBookRecord(ContractorRecord)
      */
     public void bookRecord(ContractorRecord record) throws RemoteException,
 						   InvalidRecordStateException,
 						   RecordNotFoundException {
-	this.updateRecord(record, record);
 
-	logger.info("The record - " + record.toString() + " has been booked." );
-		     
+	tryBookRecord( record ).check();
+    }
+
+    /**
+     * This method books a record, following the same rules as bookRecord().
+     * A record that is locked, has changed or is already booked, or that no
+     * longer exists, is reported in the result rather than with an exception.
+     *
+     * @param record An reference to the ContractorRecord object to be booked.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #bookRecord(ContractorRecord)
+     */
+    public OperationResult tryBookRecord(ContractorRecord record) throws
+							RemoteException {
+
+	boolean admitted = admitRequest( RequestClass.MUTATION );
+
+	long start = System.nanoTime();
+
+	try {
+	    return tryChangeOwner( record, false );
+	} finally {
+	    stats.bookRecord.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
     }
     
     /**
@@ -426,6 +676,7 @@ public abstract class BrokerServer implements BrokerServerIF {
      * @throws RecordNotFoundException If a record uniquely identified by the 
      *         record number does not exist or had been deleted.
      *
+     * @see #tryReleaseRecord(ContractorRecord)
      * @see  suncertify.db.Data#update(int, String[])
      * @see  suncertify.db.Data#lock(int)
      * @see  suncertify.db.Data#unlock(int)
@@ -435,60 +686,761 @@ public abstract class BrokerServer implements BrokerServerIF {
 						   InvalidRecordStateException,
 						   RecordNotFoundException {
 
-	if ( dbAccessObject.isLocked( record.getRecordNumber() ) ) {
+	tryReleaseRecord( record ).check();
+    }
 
-	    String msg = "The record - " + record.toString() +
-		            " is currently locked, it cannot be released.";
+    /**
+     * This method releases a booked record, following the same rules as
+     * releaseRecord(). A record that is locked, has changed or is not
+     * booked, or that no longer exists, is reported in the result rather than
+     * with an exception.
+     *
+     * @param record A reference to the ContractorRecord object to be released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #releaseRecord(ContractorRecord)
+     */
+    public OperationResult tryReleaseRecord(ContractorRecord record) throws
+							RemoteException {
 
-	    logger.log( Level.INFO, msg );	    
+	boolean admitted = admitRequest( RequestClass.MUTATION );
 
-	    InvalidRecordStateException e = new InvalidRecordStateException(msg);	    
+	long start = System.nanoTime();
 
-	    logger.throwing("BrokerServer", "releaseRecord(ContractorRecord)",e);
+	try {
+	    return tryChangeOwner( record, true );
+	} finally {
+	    stats.releaseRecord.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
+    }
 
-	    throw e;
+    /**
+     * This method books or releases a record by changing only its owner. The
+     * record is locked and its current attributes compared with those of the
+     * argument record, as by tryUpdateRecord(), then only the owner attribute
+     * is written to the database.
+     *
+     * @param record A reference to the ContractorRecord object to be booked
+     *        or released, holding the new owner.
+     *
+     * @param release A boolean value true to release the record, false to
+     *        book it.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @see suncertify.db.Data#updateOwner(int, String)
+     */
+    private OperationResult tryChangeOwner( ContractorRecord record,
+					    boolean release ) {
 
-	} else {
+	String action = release ? "released" : "booked";
 
+	try {
 	    int recNo = record.getRecordNumber();
-	    
+
+	    if ( dbAccessObject.isLocked( recNo ) ) {
+
+		String msg = "The record - " + record.toString() +
+		    " is currently locked, it cannot be " + action + ".";
+		logger.log( Level.FINE, msg );
+		return OperationResult.conflict( msg );
+	    }
+
 	    dbAccessObject.lock( recNo );
-	    
-	    String [] currVal = dbAccessObject.read( recNo );
-	    ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
-	    
-	    if ( ( record.differsFrom( currRecord ) ) ||
-		 ( ! currRecord.isBooked() ) ) {
-		
-		dbAccessObject.unlock( recNo );		
-
-		String reason = record.getReason() + currRecord.getReason();
-		String msg = reason + " The record will not be released!";
-
-		InvalidRecordStateException e =
-		            new InvalidRecordStateException( msg );
-
-		logger.info( msg );
-		logger.throwing( "BrokerServer",
-				 "releaseRecord(ContractorRecord)", e);
-				  
-		throw e;
 
-	    } else {
-		
-		dbAccessObject.update(recNo, record.getAttributes() );
-	    
+	    try {
+		String [] currVal = dbAccessObject.read( recNo );
+		ContractorRecord currRecord = new ContractorRecord(recNo, currVal);
+
+		if ( ( record.differsFrom( currRecord ) ) ||
+		     ( currRecord.isBooked() != release ) ) {
+
+		    String reason = record.getReason() + currRecord.getReason();
+		    String msg = reason + " The record will not be " + action
+			+ "!";
+		    logger.fine( msg );
+		    return OperationResult.conflict( msg );
+		}
+
+		try {
+		    dbAccessObject.updateOwner( recNo, record.getOwner() );
+		} finally {
+		    /* Also when the write fails part way */
+		    queryCache.invalidate();
+		}
+
+		mutationCommitted( recNo );
+	    } finally {
 		dbAccessObject.unlock( recNo );
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "The record - {0} was " + action,
+			    record.toString() );
+	    }
+
+	    notifyListeners();
 
-		logger.info("The record - " + record.toString() +
-			    " was released");
-			                              
-			
-		notifyListeners();		
-	    }	    	    
+	    return OperationResult.success();
+
+	} catch( RecordNotFoundException ex ) {
+	    logger.fine( ex.getMessage() );
+	    return OperationResult.notFound( ex.getMessage() );
 	}
     }
     
+    /**
+     * This method books and releases several records together, either all of
+     * them or none. The records are locked in ascending record number order,
+     * which is the same for every transaction, so transactions on overlapping
+     * records cannot deadlock. Unlike the single record operations, a
+     * transaction waits for the records locked by other clients. Each record
+     * is then checked as by bookRecord() or releaseRecord(), and if all the
+     * checks pass the records are written with a single flush of the
+     * database file. The listeners are notified once for the transaction.
+     *
+     * @param transaction A reference to a BookingTransaction object denoting
+     *        the records to be booked and released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *         When a record has changed, is in the wrong booking state or
+     *         no longer exists, no record is modified and the reason names
+     *         that record.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see suncertify.db.Data#updateAll(int[], String[][])
+     */
+    public OperationResult executeTransaction( BookingTransaction transaction )
+							throws RemoteException {
+
+	boolean admitted = admitRequest( RequestClass.MUTATION );
+
+	long start = System.nanoTime();
+
+	try {
+	    final int count = transaction.size();
+
+	    if ( count == 0 ) {
+		return OperationResult.success();
+	    }
+
+	    int [] recNos = new int[ count ];
+
+	    for ( int i = 0; i < count; ++i ) {
+		recNos[i] = transaction.getRecord(i).getRecordNumber();
+	    }
+
+	    Integer [] order = lockOrder( recNos );
+	    int [] sorted = new int[ count ];
+	    String [][] values = new String[ count ][];
+
+	    for ( int i = 0; i < count; ++i ) {
+		sorted[i] = recNos[ order[i] ];
+
+		if ( ( i > 0 ) && ( sorted[i] == sorted[i - 1] ) ) {
+		    String msg = "The record - " + transaction.getRecord(
+			order[i] ).toString() + " appears more than once in "
+			+ "the transaction";
+		    logger.fine( msg );
+		    return OperationResult.conflict( msg );
+		}
+	    }
+
+	    int locked = 0;
+
+	    try {
+		for ( ; locked < count; ++locked ) {
+		    dbAccessObject.lock( sorted[ locked ] );
+		}
+
+		for ( int i = 0; i < count; ++i ) {
+
+		    ContractorRecord record = transaction.getRecord( order[i] );
+		    boolean booking = ( transaction.getAction( order[i] )
+					== BookingTransaction.Action.BOOK );
+
+		    String [] currVal = dbAccessObject.read( sorted[i] );
+		    ContractorRecord currRecord =
+			new ContractorRecord( sorted[i], currVal );
+
+		    if ( ( record.differsFrom( currRecord ) ) ||
+			 ( currRecord.isBooked() == booking ) ) {
+
+			String reason = record.getReason()
+			    + currRecord.getReason();
+			String msg = reason
+			    + " The transaction will not be done!";
+			logger.fine( msg );
+			return OperationResult.conflict( msg );
+		    }
+
+		    values[i] = record.getAttributes();
+		}
+
+		try {
+		    dbAccessObject.updateAll( sorted, values );
+		} finally {
+		    /* Also when the write fails part way */
+		    queryCache.invalidate();
+		}
+
+		for ( int recNo : sorted ) {
+		    mutationCommitted( recNo );
+		}
+	    } finally {
+		while ( locked > 0 ) {
+		    dbAccessObject.unlock( sorted[ --locked ] );
+		}
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "A transaction on {0,number,#} "
+			    + "records was done", count );
+	    }
+
+	    notifyListeners();
+
+	    return OperationResult.success();
+
+	} catch( RecordNotFoundException ex ) {
+	    logger.fine( ex.getMessage() );
+	    return OperationResult.notFound( ex.getMessage() );
+	} finally {
+	    stats.transaction.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
+    }
+
+    /**
+     * This method adds several records to the application database in one
+     * call. The records are added in the order given, each as by
+     * addRecord(), and the listeners are notified once for the records
+     * added.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be added.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index. The result of an added record
+     *         holds its record number, a record with the key of an existing
+     *         record is reported as a conflict.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #addRecord(ContractorRecord)
+     */
+    public OperationResult[] addRecords( ContractorRecord[] records )
+						throws RemoteException {
+
+	boolean admitted = admitRequest( RequestClass.MUTATION );
+
+	long start = System.nanoTime();
+	OperationResult [] results = new OperationResult[ records.length ];
+	int added = 0;
+
+	try {
+	    for ( int i = 0; i < records.length; ++i ) {
+
+		try {
+		    int recNo;
+
+		    try {
+			recNo = dbAccessObject.create(
+						records[i].getAttributes() );
+		    } finally {
+			/* Also when the write fails part way */
+			queryCache.invalidate();
+		    }
+
+
+		    recordCreated( recNo );
+		    results[i] = OperationResult.created( recNo );
+		    ++added;
+		} catch( DuplicateKeyException ex ) {
+		    logger.fine( ex.getMessage() );
+		    results[i] = OperationResult.conflict( ex.getMessage() );
+		}
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "{0,number,#} of {1,number,#} records "
+			    + "were added to the database",
+			    new Object[] { added, records.length } );
+	    }
+
+	    return results;
+	} finally {
+	    /* Also when the batch fails part way, for the records added */
+	    if ( added > 0 ) {
+		notifyListeners();
+	    }
+
+	    stats.batch.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
+    }
+
+    /**
+     * This method updates several records in one call, each following the
+     * same rules as updateRecord(). The records are written with a single
+     * flush of the database file and the listeners are notified once.
+     *
+     * @param oldRecs An array of ContractorRecord objects denoting the
+     *        states of the records before the update.
+     *
+     * @param newRecs An array of ContractorRecord objects denoting the
+     *        states of the records after the update, in the same order.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #tryUpdateRecord(ContractorRecord, ContractorRecord)
+     */
+    public OperationResult[] updateRecords( ContractorRecord[] oldRecs,
+					    ContractorRecord[] newRecs )
+						throws RemoteException {
+
+	return applyBatch( oldRecs, newRecs, false, "updated" );
+    }
+
+    /**
+     * This method books several records in one call, each following the
+     * same rules as bookRecord(). The records are written with a single
+     * flush of the database file and the listeners are notified once.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be booked, with their new owners.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #tryBookRecord(ContractorRecord)
+     */
+    public OperationResult[] bookRecords( ContractorRecord[] records )
+						throws RemoteException {
+
+	return applyBatch( records, records, false, "booked" );
+    }
+
+    /**
+     * This method releases several booked records in one call, each
+     * following the same rules as releaseRecord(). The records are written
+     * with a single flush of the database file and the listeners are
+     * notified once.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     *        records to be released.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #tryReleaseRecord(ContractorRecord)
+     */
+    public OperationResult[] releaseRecords( ContractorRecord[] records )
+						throws RemoteException {
+
+	return applyBatch( records, records, true, "released" );
+    }
+
+    /**
+     * This method applies a batch of updates, bookings or releases. Unlike a
+     * transaction each record succeeds or fails on its own. The records are
+     * visited in ascending record number order; a record locked by another
+     * client is reported as a conflict, the others are locked, checked and
+     * kept locked until all the accepted records are written together.
+     *
+     * @param oldRecs An array of ContractorRecord objects denoting the
+     *        states of the records read by the client.
+     *
+     * @param newRecs An array of ContractorRecord objects denoting the
+     *        states to be written, in the same order.
+     *
+     * @param release true if the records must be booked, false if they must
+     *        not be booked.
+     *
+     * @param action A String object naming the operation in the messages.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     *         the record with the same index.
+     *
+     * @throws ServerBusyException If the batch is rejected, the server being
+     *         busy.
+     */
+    private OperationResult[] applyBatch( ContractorRecord[] oldRecs,
+					  ContractorRecord[] newRecs,
+					  boolean release, String action )
+					  throws ServerBusyException {
+
+	boolean admitted = admitRequest( RequestClass.MUTATION );
+
+	long start = System.nanoTime();
+
+	try {
+	    final int count = oldRecs.length;
+
+	    if ( newRecs.length != count ) {
+		String msg = "The old and new records of the batch differ in "
+		    + "number - " + count + " and " + newRecs.length;
+		logger.log( Level.WARNING, msg );
+		IllegalArgumentException e = new IllegalArgumentException( msg );
+		logger.throwing( "BrokerServer", "applyBatch()", e );
+		throw e;
+	    }
+
+	    OperationResult [] results = new OperationResult[ count ];
+	    int [] recNos = new int[ count ];
+
+	    for ( int i = 0; i < count; ++i ) {
+		recNos[i] = oldRecs[i].getRecordNumber();
+	    }
+
+	    Integer [] order = lockOrder( recNos );
+	    int [] accepted = new int[ count ];
+	    int acceptedCount = 0;
+	    boolean written = false;
+
+	    try {
+		for ( int k = 0; k < count; ++k ) {
+
+		    int i = order[k];
+		    int recNo = recNos[i];
+
+		    if ( ( k > 0 ) && ( recNo == recNos[ order[k - 1] ] ) ) {
+			String msg = "The record - " + oldRecs[i].toString()
+			    + " appears more than once in the batch";
+			logger.fine( msg );
+			results[i] = OperationResult.conflict( msg );
+			continue;
+		    }
+
+		    try {
+			if ( dbAccessObject.isLocked( recNo ) ) {
+			    String msg = "The record - " + oldRecs[i].toString()
+				+ " is currently locked, it cannot be "
+				+ action + ".";
+			    logger.fine( msg );
+			    results[i] = OperationResult.conflict( msg );
+			    continue;
+			}
+
+			dbAccessObject.lock( recNo );
+
+			boolean keep = false;
+
+			try {
+			    String [] currVal = dbAccessObject.read( recNo );
+			    ContractorRecord currRecord =
+				new ContractorRecord( recNo, currVal );
+
+			    if ( ( oldRecs[i].differsFrom( currRecord ) ) ||
+				 ( currRecord.isBooked() != release ) ) {
+
+				String reason = oldRecs[i].getReason()
+				    + currRecord.getReason();
+				String msg = reason + " The record will not be "
+				    + action + "!";
+				logger.fine( msg );
+				results[i] = OperationResult.conflict( msg );
+			    } else {
+				accepted[ acceptedCount++ ] = i;
+				keep = true;
+			    }
+			} finally {
+			    if ( ! keep ) {
+				dbAccessObject.unlock( recNo );
+			    }
+			}
+		    } catch( RecordNotFoundException ex ) {
+			logger.fine( ex.getMessage() );
+			results[i] = OperationResult.notFound( ex.getMessage() );
+		    }
+		}
+
+		if ( acceptedCount > 0 ) {
+
+		    int [] batchRecNos = new int[ acceptedCount ];
+		    String [][] values = new String[ acceptedCount ][];
+
+		    for ( int j = 0; j < acceptedCount; ++j ) {
+			batchRecNos[j] = recNos[ accepted[j] ];
+			values[j] = newRecs[ accepted[j] ].getAttributes();
+		    }
+
+		    try {
+			dbAccessObject.updateAll( batchRecNos, values );
+			written = true;
+		    } catch( RecordNotFoundException ex ) {
+			/* Not expected while the records are locked */
+			logger.log( Level.WARNING, ex.getMessage(), ex );
+			for ( int j = 0; j < acceptedCount; ++j ) {
+			    results[ accepted[j] ] =
+				OperationResult.notFound( ex.getMessage() );
+			}
+		    } finally {
+			/* Also when the write fails part way */
+			queryCache.invalidate();
+		    }
+
+		    if ( written ) {
+			for ( int j = 0; j < acceptedCount; ++j ) {
+			    mutationCommitted( batchRecNos[j] );
+			    results[ accepted[j] ] = OperationResult.success();
+			}
+		    }
+		}
+	    } finally {
+		while ( acceptedCount > 0 ) {
+		    int recNo = recNos[ accepted[ --acceptedCount ] ];
+
+		    try {
+			dbAccessObject.unlock( recNo );
+		    } catch( RecordNotFoundException ex ) {
+			/* Not expected, the record is locked */
+			logger.log( Level.WARNING, ex.getMessage(), ex );
+		    }
+		}
+	    }
+
+	    if ( written ) {
+		if ( logger.isLoggable( Level.INFO ) ) {
+		    int done = 0;
+
+		    for ( OperationResult result : results ) {
+			done += result.isSuccess() ? 1 : 0;
+		    }
+
+		    logger.log( Level.INFO, "{0,number,#} of {1,number,#} "
+				+ "records were {2}",
+				new Object[] { done, count, action } );
+		}
+
+		notifyListeners();
+	    }
+
+	    return results;
+
+	} finally {
+	    stats.batch.recordSince( start );
+	    scheduler.release( RequestClass.MUTATION, start, admitted );
+	}
+    }
+
+    /**
+     * This method returns the order in which the records of a transaction or
+     * a batch are locked, ascending record number order. Locking in the same
+     * order everywhere keeps operations on overlapping records from
+     * deadlocking.
+     *
+     * @param recNos An array of integer values denoting the record numbers.
+     *
+     * @return An array of the indices of the record numbers, in lock order.
+     */
+    private static Integer[] lockOrder( final int [] recNos ) {
+
+	Integer [] order = new Integer[ recNos.length ];
+
+	for ( int i = 0; i < order.length; ++i ) {
+	    order[i] = i;
+	}
+
+	Arrays.sort( order, new Comparator<Integer>() {
+		public int compare( Integer a, Integer b ) {
+		    return Integer.compare( recNos[a], recNos[b] );
+		}
+	    } );
+
+	return order;
+    }
+
+    /**
+     * This method deletes the records matching the criteria. The criteria are
+     * evaluated in the database, following the rules of findMatchingRecords().
+     * As with deleteRecord(), booked records are not deleted. The records are
+     * deleted with a single flush of the database file and the listeners are
+     * notified once.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @return The number of records deleted.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #tryDeleteRecord(ContractorRecord)
+     * @see suncertify.db.Data#lockMatching(String[])
+     * @see suncertify.db.Data#deleteAll(int[])
+     */
+    public int deleteWhere( ContractorRecord criteria ) throws RemoteException {
+
+	return applyWhere( criteria, null, "deleted" );
+    }
+
+    /**
+     * This method changes attributes of the records matching the criteria.
+     * The criteria are evaluated in the database, following the rules of
+     * findMatchingRecords(). As with updateRecord(), booked records are not
+     * updated, nor are the name and location, which form the key of a record.
+     * The records are written with a single flush of the database file and
+     * the listeners are notified once.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @param fieldChanges An array of String objects denoting the new values
+     *        of the attributes, in record attribute order. A null element
+     *        leaves the attribute unchanged.
+     *
+     * @return The number of records updated.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see #tryUpdateRecord(ContractorRecord, ContractorRecord)
+     * @see suncertify.db.Data#lockMatching(String[])
+     * @see suncertify.db.Data#updateAll(int[], String[][])
+     */
+    public int updateWhere( ContractorRecord criteria, String [] fieldChanges )
+							throws RemoteException {
+
+	return applyWhere( criteria, fieldChanges, "updated" );
+    }
+
+    /**
+     * This method deletes or updates the records matching the criteria. The
+     * matching records are locked by the database, the booked ones are
+     * unlocked again and the others are written together.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *        search attributes.
+     *
+     * @param fieldChanges An array of String objects denoting the new values
+     *        of the attributes, null to delete the records.
+     *
+     * @param action A String object naming the operation in the messages.
+     *
+     * @return The number of records deleted or updated.
+     *
+     * @throws ServerBusyException If the operation is rejected, the server
+     *         being busy.
+     */
+    private int applyWhere( ContractorRecord criteria, String [] fieldChanges,
+			    String action ) throws ServerBusyException {
+
+	boolean admitted = admitRequest( RequestClass.SCAN );
+
+	long start = System.nanoTime();
+
+	try {
+	    int [] locked = dbAccessObject.lockMatching(
+						   criteria.getAttributes() );
+	    int [] targets = new int[ locked.length ];
+	    String [][] values = new String[ locked.length ][];
+	    int count = 0;
+
+	    try {
+		for ( int recNo : locked ) {
+
+		    String [] currVal = dbAccessObject.read( recNo );
+
+		    if ( new ContractorRecord( recNo, currVal ).isBooked() ) {
+			continue;
+		    }
+
+		    if ( fieldChanges != null ) {
+			for ( int i = 0; i < fieldChanges.length
+				  && i < currVal.length; ++i ) {
+			    if ( fieldChanges[i] != null ) {
+				currVal[i] = fieldChanges[i];
+			    }
+			}
+
+			values[ count ] = currVal;
+		    }
+
+		    targets[ count++ ] = recNo;
+		}
+
+		targets = Arrays.copyOf( targets, count );
+
+		if ( count > 0 ) {
+		    try {
+			if ( fieldChanges == null ) {
+			    dbAccessObject.deleteAll( targets );
+			} else {
+			    dbAccessObject.updateAll( targets,
+					      Arrays.copyOf( values, count ) );
+			}
+		    } finally {
+			/* Also when the write fails part way */
+			queryCache.invalidate();
+		    }
+
+		    for ( int recNo : targets ) {
+			mutationCommitted( recNo );
+		    }
+		}
+	    } catch( RecordNotFoundException ex ) {
+		/* Not expected while the records are locked, nothing written */
+		logger.log( Level.WARNING, ex.getMessage(), ex );
+		count = 0;
+	    } finally {
+		unlockRecords( locked );
+	    }
+
+	    if ( logger.isLoggable( Level.INFO ) ) {
+		logger.log( Level.INFO, "{0,number,#} of {1,number,#} matching "
+			    + "records were {2}, the others are booked",
+			    new Object[] { count, locked.length, action } );
+	    }
+
+	    if ( count > 0 ) {
+		notifyListeners();
+	    }
+
+	    return count;
+
+	} finally {
+	    stats.criteriaUpdate.recordSince( start );
+	    scheduler.release( RequestClass.SCAN, start, admitted );
+	}
+    }
+
+    /**
+     * This method unlocks records locked by this server, in the reverse
+     * order of the array.
+     *
+     * @param recNos An array of integer values denoting the locked records.
+     */
+    private void unlockRecords( int [] recNos ) {
+
+	for ( int i = recNos.length - 1; i >= 0; --i ) {
+	    try {
+		dbAccessObject.unlock( recNos[i] );
+	    } catch( RecordNotFoundException ex ) {
+		/* Not expected, the record is locked */
+		logger.log( Level.WARNING, ex.getMessage(), ex );
+	    }
+	}
+    }
+
     /**
      * This method queries the application database for records that match 
      * a set of criteria. 
@@ -500,18 +1452,80 @@ public abstract class BrokerServer implements BrokerServerIF {
      *         match the specified criteria. 
      *
      * @throws RecordNotFoundException If no record matching the specified 
-     *         criteria was found.
+     *         criteria was found. The exception is shared and has no stack
+     *         trace.
      * 
      * @throws RemoteException If the server is a remote server and there was an 
      *         issue communicating with it. 
      * 
-     * @see suncertify.db.Data#find(String[])
+     * @see #findMatchingRecords(ContractorRecord)
      */
     public ContractorRecord[] findRecords(ContractorRecord criteria) throws
 	                                                RecordNotFoundException,
                                                         RemoteException {
-	
-	int [] recNumbers = dbAccessObject.find( criteria.getAttributes() );
+
+	ContractorRecord[] records = findMatchingRecords( criteria );
+
+	if ( records.length == 0 ) {
+	    throw NO_MATCH_EXCEPTION;
+	}
+
+	return records;
+    }
+
+    /**
+     * This method queries the application database for records that match
+     * a set of criteria. Finding no record is a routine outcome, it is
+     * reported with a zero length array rather than an exception.
+     *
+     * @param criteria A reference to a ContractorRecord object denoting the
+     *         record search criteria.
+     *
+     * @return An array of ContractorRecord objects denoting the records that
+     *         match the specified criteria, a zero length array if there are
+     *         none.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     *
+     * @see suncertify.db.Data#findMatching(String[])
+     * @see QueryResultCache
+     */
+    public ContractorRecord[] findMatchingRecords(ContractorRecord criteria)
+							throws RemoteException {
+
+	boolean admitted = admitRequest( RequestClass.SCAN );
+
+	long start = System.nanoTime();
+
+	try {
+	    final String [] attributes = criteria.getAttributes();
+
+	    return queryCache.find( attributes,
+				    new Callable<ContractorRecord[]>() {
+					public ContractorRecord[] call() {
+					    return searchRecords( attributes );
+					}
+				    } );
+	} finally {
+	    stats.findRecords.recordSince( start );
+	    scheduler.release( RequestClass.SCAN, start, admitted );
+	}
+    }
+
+    /**
+     * This method searches the database for the records matching the
+     * specified criteria.
+     *
+     * @param criteria An array of String objects denoting the search criteria.
+     *
+     * @return An array of ContractorRecord objects denoting the records that
+     *         match the specified criteria, a zero length array if there are
+     *         none.
+     */
+    private ContractorRecord[] searchRecords(String [] criteria) {
+
+	int [] recNumbers = dbAccessObject.findMatching( criteria );
 
 	List<ContractorRecord> result = new ArrayList<>();
 	
@@ -533,10 +1547,10 @@ public abstract class BrokerServer implements BrokerServerIF {
 	return retArray;
     }
 
-
     /**
      * This method adds a DBUpdateListener object to the list of database update
-     * listeners in this server.     
+     * listeners in this server. The listener is granted a lease which the
+     * client must renew before it expires.
      * 
      * @param lstnr A reference to a DBUpdateListener object.
      *
@@ -545,22 +1559,31 @@ public abstract class BrokerServer implements BrokerServerIF {
      * unregisterUpdateListener.
      *
      * @see #unregisterUpdateListener(int)
+     * @see #renewListenerLease(int)
      * @see suncertify.client.DBUpdateListener
      * 
      * @throws RemoteException If the server is a remote server and there was an 
      *         issue communicating with it. 
      */
-    public synchronized int registerUpdateListener(DBUpdateListener lstnr) throws
+    public int registerUpdateListener(DBUpdateListener lstnr) throws
                                                           RemoteException {
-	
-	int listenerId = atomicInteger.getAndIncrement();
 
-	updateListeners.put( listenerId, lstnr );
+	long start = System.nanoTime();
+
+	try {
+	    int listenerId = atomicInteger.getAndIncrement();
 
-	logger.info( "DBUpdateListener with listener ID - " + listenerId +
-		     " was added to the listeners list. " );
+	    updateListeners.register( listenerId, lstnr );
+	    stats.listenerCount.set( updateListeners.size() );
 
-	return listenerId;
+	    logger.log( Level.INFO, "DBUpdateListener with listener ID - "
+			+ "{0,number,#} was added to the listeners list. ",
+			listenerId );
+
+	    return listenerId;
+	} finally {
+	    stats.listenerRegistration.recordSince( start );
+	}
     }
 
     /**
@@ -573,34 +1596,301 @@ public abstract class BrokerServer implements BrokerServerIF {
      * @throws RemoteException If the server is a remote server and there was an 
      *         issue communicating with it. 
      */
-    public synchronized void unregisterUpdateListener(int listenerId) throws
+    public void unregisterUpdateListener(int listenerId) throws
 	                                                      RemoteException {
 
-	updateListeners.remove( listenerId );
+	long start = System.nanoTime();
 
-	logger.info( "DBUpdateListener with listener ID - " + listenerId +
-		     " was removed from the listeners list. " );
+	try {
+	    updateListeners.unregister( listenerId );
+	    stats.listenerCount.set( updateListeners.size() );
+
+	    logger.log( Level.INFO, "DBUpdateListener with listener ID - "
+			+ "{0,number,#} was removed from the listeners list. ",
+			listenerId );
+	} finally {
+	    stats.listenerRegistration.recordSince( start );
+	}
     }
-    
+
     /**
-     * This method iterates through the list of registered DBUpdateListeners
-     * and notifies them of the changes to the database.
+     * This method renews the lease of a DBUpdateListener, which the client
+     * does periodically as a heartbeat.
+     *
+     * @param listenerId The unique identifier issued to the DBUpdateListener
+     *         when it registered for database update notifications.
+     *
+     * @return A boolean value true if the lease was renewed, false if the
+     *         listener is no longer registered, in which case the client must
+     *         register it again.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     */
+    public boolean renewListenerLease(int listenerId) throws RemoteException {
+
+	stats.leaseRenewals.getAndIncrement();
+
+	return updateListeners.renew( listenerId );
+    }
+
+    /**
+     * This method returns the duration of the leases of the listeners.
+     *
+     * @return The duration in milliseconds, zero if the leases never expire
+     *         and need not be renewed.
+     *
+     * @throws RemoteException If the server is a remote server and there was an
+     *         issue communicating with it.
+     */
+    public long getListenerLeaseDuration() throws RemoteException {
+
+	return updateListeners.getLeaseDuration();
+    }
+
+    /**
+     * This method starts the expiry of the leases of the listeners, with the
+     * duration read from the application configuration file. It is called by
+     * the network servers when they start, the listeners of a local server
+     * being in the same virtual machine.
+     *
+     * @see AppConfigParam#LISTENER_LEASE_DURATION
+     */
+    protected synchronized void startLeaseReaper() {
+
+	long duration =
+	    getConfigValue( AppConfigParam.LISTENER_LEASE_DURATION, 30000 );
+
+	updateListeners.setLeaseDuration( duration );
+
+	if ( ( duration > 0 ) && ( leaseReaper == null ) ) {
+	    leaseReaper = new LeaseReaper( Math.max( 100, duration / 4 ) );
+	    leaseReaper.start();
+	}
+    }
+
+    /**
+     * This method stops the expiry of the leases of the listeners.
+     */
+    protected synchronized void stopLeaseReaper() {
+
+	if ( leaseReaper != null ) {
+	    leaseReaper.interrupt();
+	    leaseReaper = null;
+	}
+    }
+
+    /**
+     * This method bounds the requests run concurrently, with the bounds read
+     * from the application configuration file. It is called by the network
+     * servers when they start, the only client of a local server being in
+     * the same virtual machine.
+     *
+     * @see RequestScheduler
+     * @see AppConfigParam#SCHEDULER_MAX_CONCURRENT
+     */
+    protected void configureScheduler() {
+
+	int maxConcurrent =
+	    getConfigValue( AppConfigParam.SCHEDULER_MAX_CONCURRENT, 16 );
+
+	scheduler.configure(
+	    maxConcurrent,
+	    getConfigValue( AppConfigParam.SCHEDULER_MUTATION_LIMIT, 8 ),
+	    getConfigValue( AppConfigParam.SCHEDULER_READ_LIMIT, 12 ),
+	    getConfigValue( AppConfigParam.SCHEDULER_SCAN_LIMIT, 4 ),
+	    getConfigValue( AppConfigParam.SCHEDULER_QUEUE_LIMIT, 256 ),
+	    getConfigValue( AppConfigParam.SCHEDULER_QUEUE_TIMEOUT, 5000 ) );
+
+	logger.log( Level.INFO, "Requests are bounded to {0,number,#} "
+		    + "running concurrently", maxConcurrent );
+    }
+
+    /**
+     * This method admits a request, waiting for its turn when the server is
+     * busy. The time waited is recorded in the statistics of the server.
+     *
+     * @param requestClass The class of the request.
+     *
+     * @return A boolean value to pass to the scheduler when the request is
+     *         released.
+     *
+     * @throws ServerBusyException If the request is rejected, the server
+     *         having too many requests running or waiting.
+     *
+     * @see RequestScheduler#admit(RequestClass)
+     */
+    private boolean admitRequest( RequestClass requestClass )
+					throws ServerBusyException {
+
+	long start = System.nanoTime();
+
+	try {
+	    return scheduler.admit( requestClass );
+	} catch( ServerBusyException ex ) {
+	    logger.log( Level.FINE, ex.getMessage() );
+	    throw ex;
+	} finally {
+	    stats.queueWait.recordSince( start );
+	}
+    }
+
+    /**
+     * This method is called after a record was created. It does nothing by
+     * default, a server publishing its mutations overrides it.
+     *
+     * @param recNo The number of the new record.
      *
+     * @see #mutationCommitted(int)
+     */
+    protected void recordCreated( int recNo ) {
+
+    }
+
+    /**
+     * This method is called after a record was updated or deleted, while
+     * the record is still locked, so that the mutations of a record are seen
+     * in the order in which they were made. It does nothing by default, a
+     * server publishing its mutations overrides it.
+     *
+     * @param recNo The number of the record.
+     *
+     * @see BrokerRMIServer#mutationCommitted(int)
+     */
+    protected void mutationCommitted( int recNo ) {
+
+    }
+
+    /**
+     * This method exports a network server to the RMI runtime. The server is
+     * exported on sockets created by the compressing socket factories, with
+     * the settings read from the application configuration file.
+     *
+     * @param server A reference to the server object.
+     *
+     * @param port The port on which the server accepts the calls, zero for
+     *        any free port.
+     *
+     * @return A reference to the stub of the server.
+     *
+     * @throws RemoteException If the server cannot be exported.
+     *
+     * @see CompressingClientSocketFactory#configured()
+     */
+    static Remote exportServer( Remote server, int port )
+				throws RemoteException {
+
+	CompressingClientSocketFactory clientFactory =
+	    CompressingClientSocketFactory.configured();
+
+	return UnicastRemoteObject.exportObject( server, port, clientFactory,
+		       new CompressingServerSocketFactory( clientFactory ) );
+    }
+
+    /**
+     * This method returns a configuration parameter of the server.
+     *
+     * @param key A String object denoting the key of the parameter.
+     *
+     * @param defaultValue The value used when the parameter is missing or
+     *        empty.
+     *
+     * @return A String object denoting the value of the parameter.
+     */
+    static String getConfigValue( String key, String defaultValue ) {
+
+	String value = AppConfigManager.getInstance().get( key );
+
+	return ( ( value == null ) || ( value.trim().length() == 0 ) ) ?
+	    defaultValue : value.trim();
+    }
+
+    /**
+     * This method returns a numeric configuration parameter of the server.
+     *
+     * @param key A String object denoting the key of the parameter.
+     *
+     * @param defaultValue The value used when the parameter is missing or
+     *        invalid.
+     *
+     * @return The value of the parameter.
+     */
+    static int getConfigValue( String key, int defaultValue ) {
+
+	String value = getConfigValue( key, null );
+
+	if ( value == null ) {
+	    return defaultValue;
+	}
+
+	try {
+	    return Integer.parseInt( value );
+	} catch( NumberFormatException ex ) {
+	    Logger.getLogger( "suncertify.server.BrokerServer" ).warning(
+		  "Invalid value of " + key + " - " + value );
+	    return defaultValue;
+	}
+    }
+
+    /**
+     * This method notifies the registered DBUpdateListeners of the changes to
+     * the database. The cached search results are invalidated first, so the
+     * listeners searching again in response see the changes. The listeners
+     * are notified by the notifier thread, after the calling request
+     * completes; a notification already waiting covers this change too.
+     *
+     * @see #sendNotifications()
      * @see suncertify.client.DBUpdateListener
      */
-    protected synchronized void notifyListeners() {
+    protected void notifyListeners() {
+
+	queryCache.invalidate();
+
+	if ( notificationPending.compareAndSet( false, true ) ) {
+
+	    stats.notificationBacklog.getAndIncrement();
+
+	    notifier.execute( new Runnable() {
+		    public void run() {
+			sendNotifications();
+		    }
+		} );
+	}
+    }
+
+    /**
+     * This method iterates through the list of registered DBUpdateListeners
+     * and notifies them of the changes to the database. It runs on the
+     * notifier thread. Only the listeners whose lease has not expired are
+     * notified, and a listener that cannot be reached is removed at once;
+     * its client registers again at its next heartbeat if it is still
+     * running.
+     */
+    private void sendNotifications() {
 
-	Collection<DBUpdateListener> listeners = updateListeners.values();
+	/* The changes made from now on need another notification */
+	notificationPending.set( false );
+	stats.notificationBacklog.getAndDecrement();
 
-	for ( DBUpdateListener listener : listeners ) {
+	long start = System.nanoTime();
+
+	for ( Map.Entry<Integer, DBUpdateListener> entry :
+		  updateListeners.getListeners().entrySet() ) {
 	    try {
-		listener.notifyUpdate();		
+		entry.getValue().notifyUpdate();
 	    } catch( RemoteException ex ) {
+		stats.notificationFailures.getAndIncrement();
 		logger.log( Level.WARNING,
 		"Caught RemoteException during during update notification - " +
 			    ex.getMessage(), ex );
-			    
+
+		if ( updateListeners.unregister( entry.getKey() ) ) {
+		    stats.expiredListeners.getAndIncrement();
+		    stats.listenerCount.set( updateListeners.size() );
+		}
 	    }
 	}
+
+	stats.notification.recordSince( start );
     }
 }
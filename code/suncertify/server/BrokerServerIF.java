@@ -7,6 +7,7 @@
 
 package suncertify.server; 
 
+import java.rmi.Remote;
 import java.rmi.RemoteException;
 
 import suncertify.db.RecordNotFoundException;
@@ -18,13 +19,18 @@ import suncertify.client.DBUpdateListener;
  * The BrokerServerIF interface defines the APIs implementation requirements 
  * for all the servers in the application.
  *
+ * <p> It extends the Remote interface because RMI only dispatches methods
+ * declared in remote interfaces, and the methods of the RMI server are 
+ * declared here.
+ *
  * @see BrokerServer
+ * @see java.rmi.Remote
  *
  * @author Augustine Ogundimu
  * @version 1.0
  * @since 1.0 
  */
-public interface BrokerServerIF {
+public interface BrokerServerIF extends Remote {
 
     /**
      * Add a new record to the application database.
@@ -165,6 +171,230 @@ public interface BrokerServerIF {
     ContractorRecord[] findRecords(ContractorRecord criteria) throws
 	                                                         RemoteException,
 	                                                  RecordNotFoundException;
+
+    /**
+     * Delete a record from the application database. The routine failures 
+     * are reported in the result instead of with an exception.
+     *
+     * @param record The reference of the ContractorRecord object to be deleted.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #deleteRecord(ContractorRecord)
+     */
+    OperationResult tryDeleteRecord(ContractorRecord record) throws
+	                                                         RemoteException;
+
+    /**
+     * Update the attributes of a record in the application database. The 
+     * routine failures are reported in the result instead of with an 
+     * exception.
+     *
+     * @param  oldVal A reference to a ContractorRecord object denoting the 
+     * state of the record before the update.
+     *
+     * @param  newVal A reference to a ContractorRecord object denoting the
+     * state of the record after the update.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #updateRecord(ContractorRecord, ContractorRecord)
+     */
+    OperationResult tryUpdateRecord(ContractorRecord oldVal,
+				    ContractorRecord newVal) throws RemoteException;
+
+    /**
+     * Book a record. The routine failures are reported in the result instead
+     * of with an exception.
+     *
+     * @param record A reference to a ContractorRecord object denoting the record
+     * to be booked.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #bookRecord(ContractorRecord)
+     */
+    OperationResult tryBookRecord(ContractorRecord record) throws
+	                                                         RemoteException;
+
+    /**
+     * Release a booked record. The routine failures are reported in the 
+     * result instead of with an exception.
+     *
+     * @param  record A reference to a ContractorRecord object denoting the record
+     * to be released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #releaseRecord(ContractorRecord)
+     */
+    OperationResult tryReleaseRecord(ContractorRecord record) throws
+	                                                         RemoteException;
+
+    /**
+     * Book and release several records together, either all of them or
+     * none. The routine failures are reported in the result instead of with
+     * an exception.
+     *
+     * @param transaction A reference to a BookingTransaction object denoting
+     * the records to be booked and released.
+     *
+     * @return A reference to an OperationResult object denoting the outcome,
+     * the reason naming the record that prevented the transaction.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     */
+    OperationResult executeTransaction(BookingTransaction transaction) throws
+								 RemoteException;
+
+    /**
+     * Add several records to the application database in one call. The
+     * listeners are notified once for all the records.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     * records to be added.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     * the record with the same index, the result of an added record holding
+     * its record number.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #addRecord(ContractorRecord)
+     */
+    OperationResult[] addRecords(ContractorRecord[] records) throws
+								 RemoteException;
+
+    /**
+     * Update several records in one call. Each record succeeds or fails on
+     * its own, the routine failures are reported in its result. The
+     * listeners are notified once for all the records.
+     *
+     * @param oldVals An array of ContractorRecord objects denoting the states
+     * of the records before the update.
+     *
+     * @param newVals An array of ContractorRecord objects denoting the states
+     * of the records after the update, in the same order.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     * the record with the same index.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #tryUpdateRecord(ContractorRecord, ContractorRecord)
+     */
+    OperationResult[] updateRecords(ContractorRecord[] oldVals,
+				    ContractorRecord[] newVals) throws
+								 RemoteException;
+
+    /**
+     * Book several records in one call. Each record succeeds or fails on its
+     * own, the routine failures are reported in its result. The listeners
+     * are notified once for all the records.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     * records to be booked.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     * the record with the same index.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #tryBookRecord(ContractorRecord)
+     */
+    OperationResult[] bookRecords(ContractorRecord[] records) throws
+								 RemoteException;
+
+    /**
+     * Release several booked records in one call. Each record succeeds or
+     * fails on its own, the routine failures are reported in its result. The
+     * listeners are notified once for all the records.
+     *
+     * @param records An array of ContractorRecord objects denoting the
+     * records to be released.
+     *
+     * @return An array of OperationResult objects denoting the outcome for
+     * the record with the same index.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #tryReleaseRecord(ContractorRecord)
+     */
+    OperationResult[] releaseRecords(ContractorRecord[] records) throws
+								 RemoteException;
+
+    /**
+     * Delete the records matching a specified criteria, except the booked
+     * ones. The listeners are notified once for all the records.
+     *
+     * @param  criteria A reference to a ContractorRecord object denoting the
+     * search attributes.
+     *
+     * @return The number of records deleted.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #findMatchingRecords(ContractorRecord)
+     */
+    int deleteWhere(ContractorRecord criteria) throws RemoteException;
+
+    /**
+     * Change attributes of the records matching a specified criteria, except
+     * the booked ones. The name and location of a record are not changed.
+     * The listeners are notified once for all the records.
+     *
+     * @param  criteria A reference to a ContractorRecord object denoting the
+     * search attributes.
+     *
+     * @param  fieldChanges An array of String objects denoting the new values
+     * of the attributes, null for the attributes left unchanged.
+     *
+     * @return The number of records updated.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #findMatchingRecords(ContractorRecord)
+     */
+    int updateWhere(ContractorRecord criteria, String [] fieldChanges) throws
+								 RemoteException;
+
+    /**
+     * Find records in the application database that match a specified 
+     * criteria. Finding no record is reported with a zero length array 
+     * instead of with an exception.
+     *
+     * @param  criteria A reference to a ContractorRecord object denoting the 
+     * search attributes.
+     *
+     * @return An array of ContractorRecord objects denoting the records that 
+     * match the specified criteria, a zero length array if there are none.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     *
+     * @see #findRecords(ContractorRecord)
+     */
+    ContractorRecord[] findMatchingRecords(ContractorRecord criteria) throws
+	                                                         RemoteException;
 	                                           
     /**
      * Register for database update notifications.
@@ -192,5 +422,31 @@ public interface BrokerServerIF {
      *         there was a problem communicating with it.
      */
     void unregisterUpdateListener(int listenerId) throws RemoteException;
+
+    /**
+     * Renew the lease of a registered listener. A client renews the lease
+     * periodically, within the lease duration, or its listener is removed.
+     *
+     * @param listenerId The unique identifier of the client renewing the
+     *        lease.
+     *
+     * @return A boolean value true if the lease was renewed, false if the
+     *         listener is no longer registered and must be registered again.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     */
+    boolean renewListenerLease(int listenerId) throws RemoteException;
+
+    /**
+     * Returns the duration of the lease of a registered listener.
+     *
+     * @return The duration in milliseconds, zero if the leases never expire
+     *         and need not be renewed.
+     *
+     * @throws RemoteException If the implementing server is a remote server and
+     *         there was a problem communicating with it.
+     */
+    long getListenerLeaseDuration() throws RemoteException;
 	                                            
 }
@@ -0,0 +1,320 @@
+/*
+ * BrokerServerStats.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import suncertify.common.LatencyHistogram;
+import suncertify.common.LatencySnapshot;
+
+import suncertify.server.RequestScheduler.RequestClass;
+
+/**
+ * The BrokerServerStats class collects the statistics of a BrokerServer object
+ * and exposes them as an MXBean.
+ *
+ * @see BrokerServerStatsMXBean
+ * @see BrokerServer
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class BrokerServerStats implements BrokerServerStatsMXBean {
+
+    /**
+     * The latencies of the addRecord method.
+     */
+    final LatencyHistogram addRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the getRecord method.
+     */
+    final LatencyHistogram getRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the deleteRecord method.
+     */
+    final LatencyHistogram deleteRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the updateRecord method.
+     */
+    final LatencyHistogram updateRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the bookRecord method.
+     */
+    final LatencyHistogram bookRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the releaseRecord method.
+     */
+    final LatencyHistogram releaseRecord = new LatencyHistogram();
+
+    /**
+     * The latencies of the executeTransaction method.
+     */
+    final LatencyHistogram transaction = new LatencyHistogram();
+
+    /**
+     * The latencies of the addRecords, updateRecords, bookRecords and
+     * releaseRecords methods.
+     */
+    final LatencyHistogram batch = new LatencyHistogram();
+
+    /**
+     * The latencies of the deleteWhere and updateWhere methods.
+     */
+    final LatencyHistogram criteriaUpdate = new LatencyHistogram();
+
+    /**
+     * The latencies of the findRecords method.
+     */
+    final LatencyHistogram findRecords = new LatencyHistogram();
+
+    /**
+     * The latencies of the listener registration methods.
+     */
+    final LatencyHistogram listenerRegistration = new LatencyHistogram();
+
+    /**
+     * The times taken to notify all the listeners of an update.
+     */
+    final LatencyHistogram notification = new LatencyHistogram();
+
+    /**
+     * The number of registered database update listeners. It is set by the
+     * server whenever a listener is registered or unregistered, so reading it
+     * never waits for a notification in progress.
+     */
+    final AtomicInteger listenerCount = new AtomicInteger();
+
+    /**
+     * The number of update notifications waiting to be sent, at most one
+     * as the notifications waiting are merged.
+     */
+    final AtomicInteger notificationBacklog = new AtomicInteger();
+
+    /**
+     * The number of update notifications that failed to reach a listener.
+     */
+    final AtomicLong notificationFailures = new AtomicLong();
+
+    /**
+     * The number of listeners removed because their lease expired or they
+     * could not be reached.
+     */
+    final AtomicLong expiredListeners = new AtomicLong();
+
+    /**
+     * The number of renewals of the leases of the listeners.
+     */
+    final AtomicLong leaseRenewals = new AtomicLong();
+
+    /**
+     * The times the requests waited to be admitted.
+     */
+    final LatencyHistogram queueWait = new LatencyHistogram();
+
+    /**
+     * The scheduler admitting the requests to the server.
+     */
+    private final RequestScheduler scheduler;
+
+    /**
+     * The constructor.
+     *
+     * @param scheduler A reference to the RequestScheduler object of the
+     *        server, whose queues are reported.
+     */
+    BrokerServerStats( RequestScheduler scheduler ) {
+	this.scheduler = scheduler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getAddRecordLatency() {
+	return addRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getGetRecordLatency() {
+	return getRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getDeleteRecordLatency() {
+	return deleteRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getUpdateRecordLatency() {
+	return updateRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getBookRecordLatency() {
+	return bookRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getReleaseRecordLatency() {
+	return releaseRecord.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getTransactionLatency() {
+	return transaction.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getBatchLatency() {
+	return batch.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getCriteriaUpdateLatency() {
+	return criteriaUpdate.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getFindRecordsLatency() {
+	return findRecords.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getListenerRegistrationLatency() {
+	return listenerRegistration.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p> A booking is counted once, the update it is done with is not
+     * counted separately.
+     */
+    public long getCallCount() {
+	return addRecord.getCount() + getRecord.getCount()
+	    + deleteRecord.getCount() + updateRecord.getCount()
+	    + releaseRecord.getCount() + transaction.getCount()
+	    + batch.getCount() + criteriaUpdate.getCount()
+	    + findRecords.getCount()
+	    + listenerRegistration.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getListenerCount() {
+	return listenerCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNotificationBacklog() {
+	return notificationBacklog.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getNotificationLatency() {
+	return notification.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getNotificationFailures() {
+	return notificationFailures.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getExpiredListeners() {
+	return expiredListeners.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLeaseRenewals() {
+	return leaseRenewals.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LatencySnapshot getQueueWaitLatency() {
+	return queueWait.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getQueuedMutations() {
+	return scheduler.getQueueDepth( RequestClass.MUTATION );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getQueuedReads() {
+	return scheduler.getQueueDepth( RequestClass.READ );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getQueuedScans() {
+	return scheduler.getQueueDepth( RequestClass.SCAN );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getRunningRequests() {
+	return scheduler.getRunning( RequestClass.MUTATION )
+	    + scheduler.getRunning( RequestClass.READ )
+	    + scheduler.getRunning( RequestClass.SCAN );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRejectedRequests() {
+	return scheduler.getRejected( RequestClass.MUTATION )
+	    + scheduler.getRejected( RequestClass.READ )
+	    + scheduler.getRejected( RequestClass.SCAN );
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * BrokerServerStatsMXBean.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import suncertify.common.LatencySnapshot;
+
+/**
+ * The BrokerServerStatsMXBean interface defines the management attributes of
+ * the application server. It is registered under the name
+ * {@value suncertify.common.ManagementAgent#SERVER_MBEAN_NAME}.
+ *
+ * @see BrokerServer
+ * @see suncertify.common.ManagementAgent
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public interface BrokerServerStatsMXBean {
+
+    /**
+     * Returns the latencies of the addRecord method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getAddRecordLatency();
+
+    /**
+     * Returns the latencies of the getRecord method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getGetRecordLatency();
+
+    /**
+     * Returns the latencies of the deleteRecord method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getDeleteRecordLatency();
+
+    /**
+     * Returns the latencies of the updateRecord method, including the
+     * updates done on behalf of bookRecord.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getUpdateRecordLatency();
+
+    /**
+     * Returns the latencies of the bookRecord method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getBookRecordLatency();
+
+    /**
+     * Returns the latencies of the releaseRecord method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getReleaseRecordLatency();
+
+    /**
+     * Returns the latencies of the findRecords method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getFindRecordsLatency();
+
+    /**
+     * Returns the latencies of the executeTransaction method.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getTransactionLatency();
+
+    /**
+     * Returns the latencies of the addRecords, updateRecords, bookRecords
+     * and releaseRecords methods.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getBatchLatency();
+
+    /**
+     * Returns the latencies of the deleteWhere and updateWhere methods.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getCriteriaUpdateLatency();
+
+    /**
+     * Returns the latencies of the registerUpdateListener and
+     * unregisterUpdateListener methods.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getListenerRegistrationLatency();
+
+    /**
+     * Returns the number of calls of all the methods since the server was
+     * created.
+     *
+     * @return The number of calls.
+     */
+    long getCallCount();
+
+    /**
+     * Returns the number of registered database update listeners.
+     *
+     * @return The number of listeners.
+     */
+    int getListenerCount();
+
+    /**
+     * Returns the number of update notifications waiting to be sent to the
+     * listeners.
+     *
+     * @return The number of pending notifications.
+     */
+    int getNotificationBacklog();
+
+    /**
+     * Returns the times taken to notify all the listeners of an update.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getNotificationLatency();
+
+    /**
+     * Returns the number of update notifications that failed to reach a
+     * listener.
+     *
+     * @return The number of failed notifications.
+     */
+    long getNotificationFailures();
+
+    /**
+     * Returns the number of listeners removed because their lease expired
+     * or they could not be reached.
+     *
+     * @return The number of removed listeners.
+     */
+    long getExpiredListeners();
+
+    /**
+     * Returns the number of renewals of the leases of the listeners.
+     *
+     * @return The number of renewals.
+     */
+    long getLeaseRenewals();
+
+    /**
+     * Returns the times the requests waited to be admitted by the server.
+     *
+     * @return A reference to a LatencySnapshot object.
+     */
+    LatencySnapshot getQueueWaitLatency();
+
+    /**
+     * Returns the number of requests modifying records waiting to be
+     * admitted.
+     *
+     * @return The number of waiting mutations.
+     */
+    int getQueuedMutations();
+
+    /**
+     * Returns the number of requests reading a single record waiting to be
+     * admitted.
+     *
+     * @return The number of waiting reads.
+     */
+    int getQueuedReads();
+
+    /**
+     * Returns the number of searches waiting to be admitted.
+     *
+     * @return The number of waiting searches.
+     */
+    int getQueuedScans();
+
+    /**
+     * Returns the number of requests running, zero if the requests are
+     * admitted without limit.
+     *
+     * @return The number of running requests.
+     */
+    int getRunningRequests();
+
+    /**
+     * Returns the number of requests rejected because the server was busy.
+     *
+     * @return The number of rejected requests.
+     */
+    long getRejectedRequests();
+}
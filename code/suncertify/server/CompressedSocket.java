@@ -0,0 +1,653 @@
+/*
+ * CompressedSocket.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+
+import java.net.Socket;
+
+import java.util.Arrays;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The CompressedSocket class is a socket of the RMI transport whose data may
+ * be compressed. The compression is negotiated for each connection:
+ *
+ * <ul>
+ * <li> A client socket that compresses sends a preamble before any RMI data.
+ * <li> A server socket reads the first bytes sent by the client. If they are
+ *      the preamble, both directions of the connection are compressed.
+ *      Otherwise the bytes are returned again by the input stream and the
+ *      connection is served uncompressed, so plain RMI clients still work.
+ * </ul>
+ *
+ * <p> Compressed data is sent in frames. The data written is buffered until
+ * it is flushed, which the RMI runtime does at the end of each call and
+ * reply, or until the buffer is full. A frame at least as large as the
+ * threshold is deflated, unless that does not make it smaller. Smaller
+ * frames, such as the replies to booking calls, are sent as they are.
+ *
+ * @see CompressingClientSocketFactory
+ * @see CompressingServerSocketFactory
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class CompressedSocket extends Socket {
+
+    /**
+     * The bytes a client sends first to request a compressed connection.
+     * They cannot be mistaken for the header of the RMI protocol.
+     */
+    private static final byte[] PREAMBLE = { 'S', 'C', 'Z', '1' };
+
+    /**
+     * The largest number of bytes sent in a frame.
+     */
+    private static final int FRAME_SIZE = 65536;
+
+    /**
+     * The largest number of bytes of a deflated frame, the bound of zlib on
+     * the deflated size of FRAME_SIZE bytes.
+     */
+    private static final int MAX_DEFLATED_SIZE = FRAME_SIZE
+	+ ( FRAME_SIZE >> 12 ) + ( FRAME_SIZE >> 14 )
+	+ ( FRAME_SIZE >> 25 ) + 13;
+
+    /**
+     * The type of a frame whose data is sent as it is.
+     */
+    private static final int STORED_FRAME = 0;
+
+    /**
+     * The type of a frame whose data is deflated.
+     */
+    private static final int DEFLATED_FRAME = 1;
+
+    /**
+     * The length of the header of a frame: the type, the length of the data
+     * sent and, for a deflated frame, the length of the inflated data.
+     */
+    private static final int HEADER_LENGTH = 9;
+
+    /**
+     * A boolean value true if this socket was accepted by a server socket,
+     * false if it connects to a server.
+     */
+    private final boolean accepted;
+
+    /**
+     * The size in bytes from which a frame is deflated.
+     */
+    private final int threshold;
+
+    /**
+     * A boolean value indicating whether the compression was negotiated.
+     */
+    private boolean negotiated = false;
+
+    /**
+     * A boolean value indicating whether the connection is compressed.
+     */
+    private boolean compressed = false;
+
+    /**
+     * The stream from which the data of the connection is read, created on
+     * first use.
+     */
+    private InputStream input;
+
+    /**
+     * The stream to which the data of the connection is written, created on
+     * first use.
+     */
+    private OutputStream output;
+
+    /**
+     * The constructor. The socket is not connected.
+     *
+     * @param accepted A boolean value true for a socket to be accepted by a
+     *        server socket, false for a socket that connects to a server and
+     *        requests compression.
+     *
+     * @param threshold The size in bytes from which a frame is deflated.
+     */
+    CompressedSocket( boolean accepted, int threshold ) {
+
+	this.accepted = accepted;
+	this.threshold = threshold;
+    }
+
+    /**
+     * This method returns the input stream of this socket, which inflates the
+     * data if the connection is compressed.
+     *
+     * @return A reference to an InputStream object.
+     *
+     * @throws IOException If the stream cannot be created or the compression
+     *         cannot be negotiated.
+     */
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+
+	negotiate();
+
+	if ( input == null ) {
+	    InputStream in = super.getInputStream();
+	    input = compressed ? new FrameInputStream( in ) : in;
+	}
+
+	return input;
+    }
+
+    /**
+     * This method returns the output stream of this socket, which deflates
+     * the data if the connection is compressed.
+     *
+     * @return A reference to an OutputStream object.
+     *
+     * @throws IOException If the stream cannot be created or the compression
+     *         cannot be negotiated.
+     */
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+
+	negotiate();
+
+	if ( output == null ) {
+	    OutputStream out = super.getOutputStream();
+	    output = compressed ?
+		new FrameOutputStream( out, threshold ) : out;
+	}
+
+	return output;
+    }
+
+    /**
+     * This method negotiates the compression of the connection, unless it
+     * was already done. A client socket sends the preamble. A server socket
+     * reads as many bytes as there are in the preamble, and then creates the
+     * input stream of the connection, which returns these bytes first unless
+     * they are the preamble. This blocks until the client sends the bytes,
+     * which it does first under the RMI protocol.
+     *
+     * @throws IOException If the preamble cannot be sent or read.
+     */
+    private void negotiate() throws IOException {
+
+	if ( negotiated ) {
+	    return;
+	}
+
+	if ( accepted ) {
+	    InputStream in = super.getInputStream();
+	    byte[] head = new byte[ PREAMBLE.length ];
+	    int count = 0;
+
+	    while ( count < head.length ) {
+		int n = in.read( head, count, head.length - count );
+
+		if ( n < 0 ) {
+		    break;
+		}
+
+		count += n;
+	    }
+
+	    compressed = ( count == head.length )
+		&& Arrays.equals( head, PREAMBLE );
+
+	    if ( compressed ) {
+		input = new FrameInputStream( in );
+	    } else {
+		/* A plain client, its bytes are read again by the runtime */
+		input = new SequenceInputStream(
+				new ByteArrayInputStream( head, 0, count ), in );
+	    }
+	} else {
+	    OutputStream out = super.getOutputStream();
+	    out.write( PREAMBLE );
+	    out.flush();
+	    compressed = true;
+	}
+
+	negotiated = true;
+    }
+
+    /**
+     * This method writes an integer in big-endian order.
+     *
+     * @param value The integer.
+     *
+     * @param buf An array of bytes.
+     *
+     * @param offset The position of the integer in the array.
+     */
+    private static void putInt( int value, byte[] buf, int offset ) {
+
+	buf[ offset ] = (byte)( value >>> 24 );
+	buf[ offset + 1 ] = (byte)( value >>> 16 );
+	buf[ offset + 2 ] = (byte)( value >>> 8 );
+	buf[ offset + 3 ] = (byte)value;
+    }
+
+    /**
+     * This method reads an integer in big-endian order.
+     *
+     * @param buf An array of bytes.
+     *
+     * @param offset The position of the integer in the array.
+     *
+     * @return The integer.
+     */
+    private static int getInt( byte[] buf, int offset ) {
+
+	return ( ( buf[ offset ] & 0xFF ) << 24 )
+	    | ( ( buf[ offset + 1 ] & 0xFF ) << 16 )
+	    | ( ( buf[ offset + 2 ] & 0xFF ) << 8 )
+	    | ( buf[ offset + 3 ] & 0xFF );
+    }
+
+    /**
+     * The FrameOutputStream class buffers the data written and sends it in
+     * frames, deflating the frames at least as large as the threshold. Each
+     * frame, header included, is sent with a single write.
+     */
+    private static final class FrameOutputStream extends FilterOutputStream {
+
+	/**
+	 * The data not sent yet, following the room for the header of a
+	 * stored frame.
+	 */
+	private final byte[] buf = new byte[ HEADER_LENGTH + FRAME_SIZE ];
+
+	/**
+	 * The deflated frame, header included.
+	 */
+	private final byte[] deflated = new byte[ HEADER_LENGTH + FRAME_SIZE ];
+
+	/**
+	 * The number of bytes of data not sent yet.
+	 */
+	private int count = 0;
+
+	/**
+	 * The size in bytes from which a frame is deflated.
+	 */
+	private final int threshold;
+
+	/**
+	 * The deflater, reused for every frame.
+	 */
+	private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+
+	/**
+	 * The constructor.
+	 *
+	 * @param out A reference to the OutputStream object of the socket.
+	 *
+	 * @param threshold The size in bytes from which a frame is deflated.
+	 */
+	FrameOutputStream( OutputStream out, int threshold ) {
+
+	    super( out );
+	    this.threshold = threshold;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write( int b ) throws IOException {
+
+	    if ( count == FRAME_SIZE ) {
+		sendFrame();
+	    }
+
+	    buf[ HEADER_LENGTH + count++ ] = (byte)b;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write( byte[] b, int off, int len ) throws IOException {
+
+	    while ( len > 0 ) {
+
+		if ( count == FRAME_SIZE ) {
+		    sendFrame();
+		}
+
+		int n = Math.min( len, FRAME_SIZE - count );
+		System.arraycopy( b, off, buf, HEADER_LENGTH + count, n );
+		count += n;
+		off += n;
+		len -= n;
+	    }
+	}
+
+	/**
+	 * This method sends the buffered data, then flushes the socket.
+	 *
+	 * @throws IOException If an error is encountered while writing to
+	 *         the socket.
+	 */
+	@Override
+	public void flush() throws IOException {
+
+	    sendFrame();
+	    out.flush();
+	}
+
+	/**
+	 * This method sends the buffered data and closes the socket stream.
+	 *
+	 * @throws IOException If an error is encountered while writing to
+	 *         the socket.
+	 */
+	@Override
+	public void close() throws IOException {
+
+	    try {
+		flush();
+	    } finally {
+		deflater.end();
+		out.close();
+	    }
+	}
+
+	/**
+	 * This method sends the buffered data as one frame, unless there is
+	 * none.
+	 *
+	 * @throws IOException If an error is encountered while writing to
+	 *         the socket.
+	 */
+	private void sendFrame() throws IOException {
+
+	    if ( count == 0 ) {
+		return;
+	    }
+
+	    if ( count >= threshold ) {
+		deflater.reset();
+		deflater.setInput( buf, HEADER_LENGTH, count );
+		deflater.finish();
+
+		int length = deflater.deflate( deflated, HEADER_LENGTH,
+					       count );
+
+		if ( deflater.finished() && ( length < count ) ) {
+		    deflated[0] = (byte)DEFLATED_FRAME;
+		    putInt( length, deflated, 1 );
+		    putInt( count, deflated, 5 );
+		    out.write( deflated, 0, HEADER_LENGTH + length );
+		    count = 0;
+		    return;
+		}
+	    }
+
+	    /* The stored frame header ends where the data starts */
+	    int start = HEADER_LENGTH - 5;
+	    buf[ start ] = (byte)STORED_FRAME;
+	    putInt( count, buf, start + 1 );
+	    out.write( buf, start, 5 + count );
+	    count = 0;
+	}
+    }
+
+    /**
+     * The FrameInputStream class reads the frames sent by a FrameOutputStream
+     * and returns their data, inflated.
+     */
+    private static final class FrameInputStream extends FilterInputStream {
+
+	/**
+	 * The header of the frame being read.
+	 */
+	private final byte[] header = new byte[ HEADER_LENGTH ];
+
+	/**
+	 * The data of the current frame.
+	 */
+	private final byte[] buf = new byte[ FRAME_SIZE ];
+
+	/**
+	 * The deflated data of the current frame.
+	 */
+	private final byte[] deflated = new byte[ MAX_DEFLATED_SIZE ];
+
+	/**
+	 * The position of the next byte to be returned.
+	 */
+	private int pos = 0;
+
+	/**
+	 * The number of bytes of data in the current frame.
+	 */
+	private int count = 0;
+
+	/**
+	 * The inflater, reused for every frame.
+	 */
+	private final Inflater inflater = new Inflater();
+
+	/**
+	 * The constructor.
+	 *
+	 * @param in A reference to the InputStream object of the socket.
+	 */
+	FrameInputStream( InputStream in ) {
+
+	    super( in );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() throws IOException {
+
+	    if ( ( pos == count ) && ! readFrame() ) {
+		return -1;
+	    }
+
+	    return buf[ pos++ ] & 0xFF;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read( byte[] b, int off, int len ) throws IOException {
+
+	    if ( len == 0 ) {
+		return 0;
+	    }
+
+	    if ( ( pos == count ) && ! readFrame() ) {
+		return -1;
+	    }
+
+	    int n = Math.min( len, count - pos );
+	    System.arraycopy( buf, pos, b, off, n );
+	    pos += n;
+
+	    return n;
+	}
+
+	/**
+	 * This method returns the number of bytes of the current frame not
+	 * read yet.
+	 *
+	 * @return The number of bytes that can be read without blocking.
+	 */
+	@Override
+	public int available() {
+
+	    return count - pos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long skip( long n ) throws IOException {
+
+	    long skipped = 0;
+
+	    while ( skipped < n ) {
+
+		if ( ( pos == count ) && ! readFrame() ) {
+		    break;
+		}
+
+		int step = (int)Math.min( n - skipped, count - pos );
+		pos += step;
+		skipped += step;
+	    }
+
+	    return skipped;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean markSupported() {
+
+	    return false;
+	}
+
+	/**
+	 * This method closes the socket stream.
+	 *
+	 * @throws IOException If the stream cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+
+	    try {
+		in.close();
+	    } finally {
+		inflater.end();
+	    }
+	}
+
+	/**
+	 * This method reads the next frame.
+	 *
+	 * @return A boolean value true if a frame was read, false at the end
+	 *         of the stream.
+	 *
+	 * @throws IOException If an error is encountered while reading from
+	 *         the socket or the frame is corrupted.
+	 */
+	private boolean readFrame() throws IOException {
+
+	    int type = in.read();
+
+	    if ( type < 0 ) {
+		return false;
+	    }
+
+	    readFully( header, 1, 4 );
+	    int length = getInt( header, 1 );
+
+	    if ( type == STORED_FRAME ) {
+		checkLength( length, FRAME_SIZE );
+		readFully( buf, 0, length );
+		count = length;
+	    } else if ( type == DEFLATED_FRAME ) {
+		readFully( header, 5, 4 );
+		int inflatedLength = getInt( header, 5 );
+
+		checkLength( length, MAX_DEFLATED_SIZE );
+		checkLength( inflatedLength, FRAME_SIZE );
+		readFully( deflated, 0, length );
+
+		inflater.reset();
+		inflater.setInput( deflated, 0, length );
+
+		try {
+		    count = inflater.inflate( buf, 0, inflatedLength );
+		} catch( DataFormatException ex ) {
+		    throw new IOException( "Corrupted compressed frame", ex );
+		}
+
+		if ( ( count != inflatedLength ) || ! inflater.finished() ) {
+		    throw new IOException( "Corrupted compressed frame" );
+		}
+	    } else {
+		throw new IOException( "Unknown frame type - " + type );
+	    }
+
+	    pos = 0;
+
+	    return true;
+	}
+
+	/**
+	 * This method reads exactly the requested number of bytes.
+	 *
+	 * @param b The array receiving the bytes.
+	 *
+	 * @param off The position of the first byte in the array.
+	 *
+	 * @param len The number of bytes to be read.
+	 *
+	 * @throws IOException If an error is encountered while reading from
+	 *         the socket, or the stream ends first.
+	 */
+	private void readFully( byte[] b, int off, int len )
+				throws IOException {
+
+	    while ( len > 0 ) {
+		int n = in.read( b, off, len );
+
+		if ( n < 0 ) {
+		    throw new EOFException( "Truncated frame" );
+		}
+
+		off += n;
+		len -= n;
+	    }
+	}
+
+	/**
+	 * This method checks a length read from the header of a frame, before
+	 * anything is read into the buffers. A FrameOutputStream never sends
+	 * more than the buffers hold, the peer is not trusted with more.
+	 *
+	 * @param length The length read from the header.
+	 *
+	 * @param max The largest length allowed.
+	 *
+	 * @throws IOException If the length is negative or too large.
+	 */
+	private static void checkLength( int length, int max )
+					 throws IOException {
+
+	    if ( ( length < 0 ) || ( length > max ) ) {
+		throw new IOException( "Corrupted frame length" );
+	    }
+	}
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * CompressingClientSocketFactory.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+
+import java.rmi.server.RMIClientSocketFactory;
+
+import suncertify.common.AppConfigParam;
+
+/**
+ * The CompressingClientSocketFactory class creates the sockets through which
+ * the clients call the network server. It is serialized in the stub of the
+ * server, so the clients use the settings of the server:
+ *
+ * <ul>
+ * <li> Whether the connections are compressed, and the size of the data
+ *      from which they are.
+ * <li> Whether Nagle's algorithm is disabled, so that small calls are not
+ *      delayed.
+ * <li> The size of the send and receive buffers of the sockets.
+ * </ul>
+ *
+ * <p> The settings are read from the application configuration file by the
+ * server. Compression is negotiated for each connection, the server also
+ * serving the clients whose sockets do not compress.
+ *
+ * @see CompressingServerSocketFactory
+ * @see CompressedSocket
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class CompressingClientSocketFactory implements
+				    RMIClientSocketFactory, Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728140001L;
+
+    /**
+     * A boolean value indicating whether the connections are compressed.
+     */
+    private final boolean compress;
+
+    /**
+     * The size in bytes of the data from which it is compressed.
+     */
+    private final int threshold;
+
+    /**
+     * A boolean value indicating whether Nagle's algorithm is disabled.
+     */
+    private final boolean noDelay;
+
+    /**
+     * The size in bytes of the send and receive buffers of the sockets, zero
+     * to keep the size chosen by the system.
+     */
+    private final int bufferSize;
+
+    /**
+     * The constructor.
+     *
+     * @param compress A boolean value indicating whether the connections are
+     *        compressed.
+     *
+     * @param threshold The size in bytes of the data from which it is
+     *        compressed.
+     *
+     * @param noDelay A boolean value indicating whether Nagle's algorithm is
+     *        disabled.
+     *
+     * @param bufferSize The size in bytes of the send and receive buffers of
+     *        the sockets, zero to keep the size chosen by the system.
+     */
+    CompressingClientSocketFactory( boolean compress, int threshold,
+				    boolean noDelay, int bufferSize ) {
+
+	this.compress = compress;
+	this.threshold = threshold;
+	this.noDelay = noDelay;
+	this.bufferSize = bufferSize;
+    }
+
+    /**
+     * This method returns a factory with the settings read from the
+     * application configuration file.
+     *
+     * @return A reference to a CompressingClientSocketFactory object.
+     *
+     * @see AppConfigParam#RMI_COMPRESSION_ENABLED
+     * @see AppConfigParam#RMI_COMPRESSION_THRESHOLD
+     * @see AppConfigParam#RMI_TCP_NO_DELAY
+     * @see AppConfigParam#RMI_SOCKET_BUFFER_SIZE
+     */
+    static CompressingClientSocketFactory configured() {
+
+	return new CompressingClientSocketFactory(
+	    Boolean.parseBoolean( BrokerServer.getConfigValue(
+		      AppConfigParam.RMI_COMPRESSION_ENABLED, "true" ) ),
+	    BrokerServer.getConfigValue(
+		      AppConfigParam.RMI_COMPRESSION_THRESHOLD, 1024 ),
+	    Boolean.parseBoolean( BrokerServer.getConfigValue(
+		      AppConfigParam.RMI_TCP_NO_DELAY, "true" ) ),
+	    BrokerServer.getConfigValue(
+		      AppConfigParam.RMI_SOCKET_BUFFER_SIZE, 65536 ) );
+    }
+
+    /**
+     * This method creates a socket connected to the server, requesting
+     * compression if it is enabled.
+     *
+     * @param host A String object denoting the host of the server.
+     *
+     * @param port The port of the server.
+     *
+     * @return A reference to a connected Socket object.
+     *
+     * @throws IOException If the socket cannot be created or connected.
+     */
+    public Socket createSocket( String host, int port ) throws IOException {
+
+	Socket socket = compress ?
+	    new CompressedSocket( false, threshold ) : new Socket();
+
+	configure( socket );
+	socket.connect( new InetSocketAddress( host, port ) );
+
+	return socket;
+    }
+
+    /**
+     * This method applies the settings of the factory to a socket. The
+     * buffer sizes must be set before the socket is connected.
+     *
+     * @param socket A reference to a Socket object.
+     *
+     * @throws SocketException If a setting cannot be applied.
+     */
+    void configure( Socket socket ) throws SocketException {
+
+	socket.setTcpNoDelay( noDelay );
+
+	if ( bufferSize > 0 ) {
+	    socket.setSendBufferSize( bufferSize );
+	    socket.setReceiveBufferSize( bufferSize );
+	}
+    }
+
+    /**
+     * This method returns the size of the data from which it is compressed.
+     *
+     * @return The size in bytes.
+     */
+    int getThreshold() {
+
+	return threshold;
+    }
+
+    /**
+     * This method returns the size of the socket buffers.
+     *
+     * @return The size in bytes, zero to keep the size chosen by the system.
+     */
+    int getBufferSize() {
+
+	return bufferSize;
+    }
+
+    /**
+     * Two factories are equal if they have the same settings, which allows
+     * the RMI runtime to reuse the connections of one for the other.
+     *
+     * @param obj A reference to an Object.
+     *
+     * @return A boolean value true if the factories are equal.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+
+	if ( ! ( obj instanceof CompressingClientSocketFactory ) ) {
+	    return false;
+	}
+
+	CompressingClientSocketFactory other =
+	    (CompressingClientSocketFactory)obj;
+
+	return ( compress == other.compress )
+	    && ( threshold == other.threshold )
+	    && ( noDelay == other.noDelay )
+	    && ( bufferSize == other.bufferSize );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+
+	int hash = threshold * 31 + bufferSize;
+
+	return hash * 4 + ( compress ? 2 : 0 ) + ( noDelay ? 1 : 0 );
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * CompressingServerSocketFactory.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+
+import java.rmi.server.RMIServerSocketFactory;
+
+/**
+ * The CompressingServerSocketFactory class creates the server sockets on
+ * which the network server accepts the calls of the clients. The accepted
+ * sockets negotiate the compression with the client and are given the
+ * settings of the client socket factory of the server.
+ *
+ * @see CompressingClientSocketFactory
+ * @see CompressedSocket
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class CompressingServerSocketFactory implements RMIServerSocketFactory {
+
+    /**
+     * The client socket factory whose settings are applied to the accepted
+     * sockets.
+     */
+    private final CompressingClientSocketFactory settings;
+
+    /**
+     * The constructor.
+     *
+     * @param settings A reference to the client socket factory exported with
+     *        the server.
+     */
+    CompressingServerSocketFactory( CompressingClientSocketFactory settings ) {
+
+	this.settings = settings;
+    }
+
+    /**
+     * This method creates a server socket bound to the specified port.
+     *
+     * @param port The port, zero for any free port.
+     *
+     * @return A reference to a ServerSocket object.
+     *
+     * @throws IOException If the server socket cannot be created.
+     */
+    public ServerSocket createServerSocket( int port ) throws IOException {
+
+	ServerSocket server = new ServerSocket() {
+
+	    @Override
+	    public Socket accept() throws IOException {
+
+		if ( isClosed() ) {
+		    throw new SocketException( "Socket is closed" );
+		}
+
+		Socket socket =
+		    new CompressedSocket( true, settings.getThreshold() );
+		implAccept( socket );
+		settings.configure( socket );
+
+		return socket;
+	    }
+	};
+
+	/* The receive buffer must be sized before the socket is bound */
+	if ( settings.getBufferSize() > 0 ) {
+	    server.setReceiveBufferSize( settings.getBufferSize() );
+	}
+
+	server.bind( new InetSocketAddress( port ) );
+
+	return server;
+    }
+
+    /**
+     * Two factories are equal if they apply the same settings, which allows
+     * the RMI runtime to export several objects on the same server socket.
+     *
+     * @param obj A reference to an Object.
+     *
+     * @return A boolean value true if the factories are equal.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+
+	return ( obj instanceof CompressingServerSocketFactory )
+	    && settings.equals(
+		   ( (CompressingServerSocketFactory)obj ).settings );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+
+	return settings.hashCode();
+    }
+}
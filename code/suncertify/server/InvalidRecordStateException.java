@@ -39,4 +39,19 @@ public class InvalidRecordStateException extends Exception  {
     public InvalidRecordStateException(String message) {
 	super(message);
     }
+
+    /**
+     * The reason constructor for exceptions reporting routine conflicts. An
+     * exception without a stack trace is cheap to create and to send to a
+     * remote client.
+     *
+     * @param message - The reason for the exception.
+     *
+     * @param writableStackTrace - false to create the exception without a
+     *        stack trace.
+     */
+    public InvalidRecordStateException(String message,
+				       boolean writableStackTrace) {
+	super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * ListenerRegistry.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import suncertify.client.DBUpdateListener;
+
+/**
+ * The ListenerRegistry class holds the database update listeners registered
+ * with a server. Each registration is a lease which the client renews with
+ * heartbeats. A lease that is not renewed in time expires and is removed by
+ * the server, so the notifications are only sent to the clients still
+ * running.
+ *
+ * <p> The registry may be used concurrently, registering or renewing a
+ * listener never waits for a notification in progress. The leases of a
+ * registry whose lease duration is zero never expire, which is the case of
+ * the listeners of a local server, all of them in the same virtual machine.
+ *
+ * @see BrokerServer#renewListenerLease(int)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class ListenerRegistry {
+
+    /**
+     * The Lease class is the registration of a listener.
+     */
+    private static final class Lease {
+
+	/**
+	 * The registered listener.
+	 */
+	final DBUpdateListener listener;
+
+	/**
+	 * The time, in milliseconds, at which the lease expires unless it is
+	 * renewed.
+	 */
+	volatile long expiry;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param listener A reference to the registered listener.
+	 *
+	 * @param expiry The time at which the lease expires.
+	 */
+	Lease( DBUpdateListener listener, long expiry ) {
+	    this.listener = listener;
+	    this.expiry = expiry;
+	}
+    }
+
+    /**
+     * The leases by listener ID.
+     */
+    private final ConcurrentMap<Integer, Lease> leases =
+	new ConcurrentHashMap<>();
+
+    /**
+     * The duration of a lease in milliseconds, zero if the leases never
+     * expire.
+     */
+    private volatile long leaseDuration = 0;
+
+    /**
+     * This method sets the duration of the leases. It applies to the leases
+     * granted or renewed from then on.
+     *
+     * @param duration The duration in milliseconds, zero if the leases never
+     *        expire.
+     */
+    void setLeaseDuration( long duration ) {
+
+	leaseDuration = Math.max( 0, duration );
+    }
+
+    /**
+     * This method returns the duration of the leases.
+     *
+     * @return The duration in milliseconds, zero if the leases never expire.
+     */
+    long getLeaseDuration() {
+
+	return leaseDuration;
+    }
+
+    /**
+     * This method returns the expiry time of a lease granted or renewed now.
+     *
+     * @return The time in milliseconds.
+     */
+    private long newExpiry() {
+
+	long duration = leaseDuration;
+
+	return ( duration == 0 ) ?
+	    Long.MAX_VALUE : System.currentTimeMillis() + duration;
+    }
+
+    /**
+     * This method registers a listener.
+     *
+     * @param listenerId The unique identifier issued to the listener.
+     *
+     * @param listener A reference to a DBUpdateListener object.
+     */
+    void register( int listenerId, DBUpdateListener listener ) {
+
+	leases.put( listenerId, new Lease( listener, newExpiry() ) );
+    }
+
+    /**
+     * This method removes a listener.
+     *
+     * @param listenerId The unique identifier issued to the listener.
+     *
+     * @return A boolean value true if the listener was registered.
+     */
+    boolean unregister( int listenerId ) {
+
+	return leases.remove( listenerId ) != null;
+    }
+
+    /**
+     * This method renews the lease of a listener.
+     *
+     * @param listenerId The unique identifier issued to the listener.
+     *
+     * @return A boolean value true if the lease was renewed, false if the
+     *         listener is no longer registered, its lease having expired.
+     */
+    boolean renew( int listenerId ) {
+
+	Lease lease = leases.get( listenerId );
+
+	if ( lease == null ) {
+	    return false;
+	}
+
+	lease.expiry = newExpiry();
+
+	return true;
+    }
+
+    /**
+     * This method removes the listeners whose lease has expired.
+     *
+     * @param now The current time in milliseconds.
+     *
+     * @return The number of listeners removed.
+     */
+    int expire( long now ) {
+
+	int count = 0;
+
+	for ( Map.Entry<Integer, Lease> entry : leases.entrySet() ) {
+
+	    Lease lease = entry.getValue();
+
+	    if ( ( lease.expiry <= now )
+		 && leases.remove( entry.getKey(), lease ) ) {
+		++count;
+	    }
+	}
+
+	return count;
+    }
+
+    /**
+     * This method returns the registered listeners whose lease has not
+     * expired.
+     *
+     * @return A Map object of the listeners by listener ID, in the order of
+     *         registration.
+     */
+    Map<Integer, DBUpdateListener> getListeners() {
+
+	long now = System.currentTimeMillis();
+	Map<Integer, DBUpdateListener> live = new TreeMap<>();
+
+	for ( Map.Entry<Integer, Lease> entry : leases.entrySet() ) {
+
+	    if ( entry.getValue().expiry > now ) {
+		live.put( entry.getKey(), entry.getValue().listener );
+	    }
+	}
+
+	return live;
+    }
+
+    /**
+     * This method returns the number of registered listeners.
+     *
+     * @return The number of listeners, including those whose lease expired
+     *         but which were not removed yet.
+     */
+    int size() {
+
+	return leases.size();
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * OperationResult.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.Serializable;
+
+import suncertify.db.RecordNotFoundException;
+
+/**
+ * The OperationResult class is the outcome of a record modification requested
+ * through the status returning methods of the server. The routine failures,
+ * a record changed or locked by another client or a record that no longer
+ * exists, are reported as a status and a reason instead of an exception, so
+ * that no stack trace is filled in and sent to the client.
+ *
+ * @see BrokerServerIF#tryUpdateRecord(ContractorRecord, ContractorRecord)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class OperationResult implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728110001L;
+
+    /**
+     * The Status enum lists the possible outcomes of an operation.
+     */
+    public enum Status {
+
+	/**
+	 * The operation was done.
+	 */
+	SUCCESS,
+
+	/**
+	 * The record was locked by another client, or it had changed since it
+	 * was read by the client, or its booking state does not allow the
+	 * operation.
+	 */
+	CONFLICT,
+
+	/**
+	 * The record does not exist or had been deleted.
+	 */
+	NOT_FOUND
+    }
+
+    /**
+     * The shared result of the successful operations.
+     */
+    private static final OperationResult SUCCESS_RESULT =
+	new OperationResult( Status.SUCCESS, "" );
+
+    /**
+     * The outcome of the operation.
+     */
+    private final Status status;
+
+    /**
+     * The reason the operation was not done, a zero length String for a
+     * successful operation.
+     */
+    private final String reason;
+
+    /**
+     * The number of the record created by the operation, -1 if the operation
+     * did not create a record.
+     */
+    private final int recordNumber;
+
+    /**
+     * The constructor.
+     *
+     * @param status The outcome of the operation.
+     *
+     * @param reason A String object denoting the reason the operation was not
+     *        done.
+     */
+    private OperationResult( Status status, String reason ) {
+
+	this( status, reason, -1 );
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param status The outcome of the operation.
+     *
+     * @param reason A String object denoting the reason the operation was not
+     *        done.
+     *
+     * @param recordNumber The number of the record created by the operation.
+     */
+    private OperationResult( Status status, String reason, int recordNumber ) {
+
+	this.status = status;
+	this.reason = reason;
+	this.recordNumber = recordNumber;
+    }
+
+    /**
+     * This method returns the result of a successful operation.
+     *
+     * @return A reference to an OperationResult object.
+     */
+    public static OperationResult success() {
+	return SUCCESS_RESULT;
+    }
+
+    /**
+     * This method returns the result of an operation that created a record.
+     *
+     * @param recordNumber The number of the new record.
+     *
+     * @return A reference to an OperationResult object.
+     */
+    public static OperationResult created( int recordNumber ) {
+	return new OperationResult( Status.SUCCESS, "", recordNumber );
+    }
+
+    /**
+     * This method returns the result of an operation that was not done
+     * because of the state of the record.
+     *
+     * @param reason A String object denoting the reason.
+     *
+     * @return A reference to an OperationResult object.
+     */
+    public static OperationResult conflict( String reason ) {
+	return new OperationResult( Status.CONFLICT, reason );
+    }
+
+    /**
+     * This method returns the result of an operation that was not done
+     * because the record does not exist or had been deleted.
+     *
+     * @param reason A String object denoting the reason.
+     *
+     * @return A reference to an OperationResult object.
+     */
+    public static OperationResult notFound( String reason ) {
+	return new OperationResult( Status.NOT_FOUND, reason );
+    }
+
+    /**
+     * This method returns the outcome of the operation.
+     *
+     * @return The status of the operation.
+     */
+    public Status getStatus() {
+	return status;
+    }
+
+    /**
+     * This method returns the reason the operation was not done.
+     *
+     * @return A String object denoting the reason, a zero length String for
+     *         a successful operation.
+     */
+    public String getReason() {
+	return reason;
+    }
+
+    /**
+     * This method indicates whether the operation was done.
+     *
+     * @return true if the operation was done, false otherwise.
+     */
+    public boolean isSuccess() {
+	return status == Status.SUCCESS;
+    }
+
+    /**
+     * This method returns the number of the record created by the operation.
+     *
+     * @return The record number, -1 if the operation did not create a
+     *         record.
+     */
+    public int getRecordNumber() {
+	return recordNumber;
+    }
+
+    /**
+     * This method converts a failed result to the exception the exception
+     * based methods of the server throw. The exception has no stack trace.
+     *
+     * @throws InvalidRecordStateException If the status is CONFLICT.
+     *
+     * @throws RecordNotFoundException If the status is NOT_FOUND.
+     */
+    public void check() throws InvalidRecordStateException,
+			       RecordNotFoundException {
+
+	switch( status ) {
+	case CONFLICT:
+	    throw new InvalidRecordStateException( reason, false );
+	case NOT_FOUND:
+	    throw new RecordNotFoundException( reason, false );
+	default:
+	}
+    }
+
+    /**
+     * This method returns a String representation of the result.
+     *
+     * @return A String object denoting the status and the reason.
+     */
+    public String toString() {
+	return isSuccess() ? status.toString() : status + " - " + reason;
+    }
+
+    /**
+     * This method keeps the successful result shared when it is
+     * deserialized, unless it holds the number of a created record.
+     *
+     * @return The shared successful result or this object.
+     */
+    private Object readResolve() {
+	return ( isSuccess() && ( recordNumber < 0 ) ) ? SUCCESS_RESULT : this;
+    }
+}
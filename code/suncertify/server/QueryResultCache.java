@@ -0,0 +1,224 @@
+/*
+ * QueryResultCache.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ExecutionException;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import suncertify.db.DBAccessException;
+
+import static suncertify.db.DatabaseMetaData.*;
+
+/**
+ * The QueryResultCache class caches the results of record searches in the
+ * server. Entries are keyed by the normalized search criteria and stamped with
+ * the write epoch current when the search started. Any modification of the
+ * database advances the epoch, which invalidates all the cached results.
+ *
+ * <p> Concurrent identical searches are collapsed onto a single evaluation,
+ * the first caller runs the search and the others wait for its result. This
+ * way the burst of searches that follows an update notification costs one
+ * database scan per distinct query.
+ *
+ * @see BrokerServer#findMatchingRecords(ContractorRecord)
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+class QueryResultCache {
+
+    /**
+     * This is a reference to a Logger object. The logger's name
+     * is the fully qualified name for this class.
+     */
+    private final Logger logger = Logger.getLogger( this.getClass().getName() );
+
+    /**
+     * The maximum number of distinct queries kept in the cache.
+     */
+    private static final int MAX_CACHED_QUERIES = 128;
+
+    /**
+     * The CacheEntry class holds the, possibly still running, evaluation of a
+     * search and the write epoch it belongs to.
+     */
+    private static class CacheEntry {
+
+	/**
+	 * The write epoch when the search started.
+	 */
+	final long epoch;
+
+	/**
+	 * The search. Its result is a zero length array when no record
+	 * matches the criteria.
+	 */
+	final FutureTask<ContractorRecord[]> task;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param epoch The write epoch when the search started.
+	 * @param task The search.
+	 */
+	CacheEntry( long epoch, FutureTask<ContractorRecord[]> task ) {
+	    this.epoch = epoch;
+	    this.task = task;
+	}
+    }
+
+    /**
+     * The current write epoch. Guarded by the entries lock.
+     */
+    private long epoch = 0;
+
+    /**
+     * The cached searches in least recently used order. This also serves as
+     * the lock for this object.
+     */
+    private final Map<List<String>, CacheEntry> entries =
+	new LinkedHashMap<List<String>, CacheEntry>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(
+			       Map.Entry<List<String>, CacheEntry> eldest ) {
+		return size() > MAX_CACHED_QUERIES;
+	    }
+	};
+
+    /**
+     * This method advances the write epoch, invalidating all the cached
+     * results. It must be called after every modification of the database
+     * and before clients are notified of the modification.
+     */
+    void invalidate() {
+
+	synchronized( entries ) {
+	    ++epoch;
+	    entries.clear();
+	}
+    }
+
+    /**
+     * This method returns the records matching the criteria. The result is
+     * served from the cache when the same search was done since the last
+     * modification of the database, otherwise the search is run, or joined
+     * if an identical search is already running.
+     *
+     * @param criteria An array of String objects denoting the search criteria.
+     *
+     * @param search The search to run when the result is not cached. It
+     *        returns a zero length array when no record matches.
+     *
+     * @return An array of ContractorRecord objects, a zero length array if
+     *         no record matches the criteria. The records are copies which
+     *         the caller may modify.
+     *
+     * @throws DBAccessException If the search failed.
+     */
+    ContractorRecord[] find( String[] criteria,
+			     Callable<ContractorRecord[]> search )
+			     throws DBAccessException {
+
+	List<String> key = normalize( criteria );
+
+	CacheEntry entry;
+	boolean owner = false;
+
+	synchronized( entries ) {
+	    entry = entries.get( key );
+
+	    if ( ( entry == null ) || ( entry.epoch != epoch ) ) {
+		entry = new CacheEntry( epoch,
+					new FutureTask<ContractorRecord[]>(search) );
+		entries.put( key, entry );
+		owner = true;
+	    }
+	}
+
+	if ( owner ) {
+	    entry.task.run();
+	}
+
+	ContractorRecord[] result;
+
+	try {
+	    result = entry.task.get();
+	} catch( InterruptedException ex ) {
+	    Thread.currentThread().interrupt();
+	    throw new DBAccessException( "Interrupted while searching", ex );
+	} catch( ExecutionException ex ) {
+	    synchronized( entries ) {
+		if ( entries.get( key ) == entry ) {
+		    entries.remove( key );
+		}
+	    }
+
+	    if ( ex.getCause() instanceof DBAccessException ) {
+		throw (DBAccessException)ex.getCause();
+	    }
+
+	    String msg = "Search failed - " + ex.getCause();
+	    logger.log( Level.WARNING, msg, ex.getCause() );
+	    throw new DBAccessException( msg, ex.getCause() );
+	}
+
+	ContractorRecord[] copy = new ContractorRecord[ result.length ];
+	for ( int i = 0; i < copy.length; ++i ) {
+	    copy[i] = new ContractorRecord( result[i] );
+	}
+
+	return copy;
+    }
+
+    /**
+     * This method normalizes the criteria so that equivalent searches share
+     * a cache entry. Null criteria become zero length Strings, all criteria
+     * are trimmed and the criteria that are matched ignoring case are
+     * converted to upper case.
+     *
+     * @param criteria An array of String objects denoting the search criteria.
+     *
+     * @return A list of the normalized criteria.
+     */
+    private static List<String> normalize( String[] criteria ) {
+
+	String[] normalized = new String[ OWNER_IDX + 1 ];
+
+	for ( int i = 0; i < normalized.length; ++i ) {
+
+	    String value = ( i < criteria.length ) ? criteria[i] : null;
+	    value = ( value == null ) ? "" : value.trim();
+
+	    switch( i ) {
+	    case NAME_IDX:
+	    case LOCATION_IDX:
+	    case OWNER_IDX:
+		value = value.toUpperCase();
+		break;
+	    default:
+	    }
+
+	    normalized[i] = value;
+	}
+
+	return Arrays.asList( normalized );
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * ReplicationBatch.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.Serializable;
+
+import java.util.Map;
+import java.util.LinkedHashMap;
+
+/**
+ * The ReplicationBatch class is the reply of the primary server to a replica
+ * server. It is one of the following:
+ *
+ * <ul>
+ * <li> A snapshot, an entry for every valid record of the database and the
+ *      schema of the database. The mutation stream is to be followed from
+ *      the sequence of the snapshot.
+ * <li> The mutations following the sequence requested by the replica, in
+ *      stream order.
+ * <li> A resynchronization request, when the requested mutations are no
+ *      longer held by the primary server, or when the primary server was
+ *      restarted. The replica must take a new snapshot.
+ * </ul>
+ *
+ * @see ReplicationSourceIF
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class ReplicationBatch implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728120002L;
+
+    /**
+     * The identifier of the mutation stream, which changes when the primary
+     * server is restarted.
+     */
+    private final long streamId;
+
+    /**
+     * The sequence of the last mutation published by the primary server when
+     * the batch was made.
+     */
+    private final long headSequence;
+
+    /**
+     * The time the batch was made, in milliseconds of the primary server
+     * clock.
+     */
+    private final long timestamp;
+
+    /**
+     * The schema of the database for a snapshot, null otherwise.
+     */
+    private final LinkedHashMap<String, Short> schema;
+
+    /**
+     * The entries, null for a resynchronization request.
+     */
+    private final ReplicationEntry [] entries;
+
+    /**
+     * The constructor.
+     *
+     * @param streamId The identifier of the mutation stream.
+     *
+     * @param headSequence The sequence of the last mutation published.
+     *
+     * @param schema A reference to a Map object denoting the schema of the
+     *        database for a snapshot, null otherwise.
+     *
+     * @param entries An array of ReplicationEntry objects, null for a
+     *        resynchronization request.
+     */
+    private ReplicationBatch( long streamId, long headSequence,
+			      Map<String, Short> schema,
+			      ReplicationEntry [] entries ) {
+
+	this.streamId = streamId;
+	this.headSequence = headSequence;
+	this.timestamp = System.currentTimeMillis();
+	this.schema = ( schema == null ) ? null
+	    : new LinkedHashMap<String, Short>( schema );
+	this.entries = entries;
+    }
+
+    /**
+     * This method creates a snapshot.
+     *
+     * @param streamId The identifier of the mutation stream.
+     *
+     * @param sequence The sequence of the last mutation published before the
+     *        records were read.
+     *
+     * @param schema A reference to a Map object denoting the schema of the
+     *        database.
+     *
+     * @param records An array of ReplicationEntry objects, one for each valid
+     *        record.
+     *
+     * @return A reference to a ReplicationBatch object.
+     */
+    static ReplicationBatch snapshot( long streamId, long sequence,
+				      Map<String, Short> schema,
+				      ReplicationEntry [] records ) {
+
+	return new ReplicationBatch( streamId, sequence, schema, records );
+    }
+
+    /**
+     * This method creates a batch of mutations.
+     *
+     * @param streamId The identifier of the mutation stream.
+     *
+     * @param headSequence The sequence of the last mutation published.
+     *
+     * @param entries An array of ReplicationEntry objects in stream order.
+     *
+     * @return A reference to a ReplicationBatch object.
+     */
+    static ReplicationBatch changes( long streamId, long headSequence,
+				     ReplicationEntry [] entries ) {
+
+	return new ReplicationBatch( streamId, headSequence, null, entries );
+    }
+
+    /**
+     * This method creates a resynchronization request.
+     *
+     * @param streamId The identifier of the mutation stream.
+     *
+     * @param headSequence The sequence of the last mutation published.
+     *
+     * @return A reference to a ReplicationBatch object.
+     */
+    static ReplicationBatch resync( long streamId, long headSequence ) {
+
+	return new ReplicationBatch( streamId, headSequence, null, null );
+    }
+
+    /**
+     * Returns the identifier of the mutation stream.
+     *
+     * @return The stream identifier.
+     */
+    public long getStreamId() {
+	return streamId;
+    }
+
+    /**
+     * Returns the sequence of the last mutation published by the primary
+     * server when the batch was made. For a snapshot, the mutations
+     * following this sequence are not all included in the snapshot.
+     *
+     * @return The sequence number.
+     */
+    public long getHeadSequence() {
+	return headSequence;
+    }
+
+    /**
+     * Returns the time the batch was made.
+     *
+     * @return The time in milliseconds of the primary server clock.
+     */
+    public long getTimestamp() {
+	return timestamp;
+    }
+
+    /**
+     * Indicates whether this batch is a snapshot.
+     *
+     * @return boolean value true for a snapshot.
+     */
+    public boolean isSnapshot() {
+	return schema != null;
+    }
+
+    /**
+     * Indicates whether the replica must take a new snapshot.
+     *
+     * @return boolean value true for a resynchronization request.
+     */
+    public boolean isResyncRequired() {
+	return entries == null;
+    }
+
+    /**
+     * Returns the schema of the database.
+     *
+     * @return A reference to a Map object denoting the name/length pairs of
+     *         the record attributes, null if this batch is not a snapshot.
+     */
+    public Map<String, Short> getSchema() {
+	return schema;
+    }
+
+    /**
+     * Returns the entries of this batch.
+     *
+     * @return An array of ReplicationEntry objects, null for a
+     *         resynchronization request.
+     */
+    public ReplicationEntry [] getEntries() {
+	return entries;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ReplicationEntry.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.io.Serializable;
+
+/**
+ * The ReplicationEntry class is a mutation of the primary database as
+ * published to the replica servers. It carries the whole state of the
+ * record after the mutation rather than the change, so a replica only has
+ * to keep, for each record, the state of the last entry applied.
+ *
+ * @see ReplicationLog
+ * @see BrokerReplicaServer
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public final class ReplicationEntry implements Serializable {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728120001L;
+
+    /**
+     * The position of the mutation in the mutation stream of the primary
+     * server.
+     */
+    private final long sequence;
+
+    /**
+     * The number of the record.
+     */
+    private final int recordNumber;
+
+    /**
+     * The attributes of the record after the mutation, null if the record
+     * was deleted.
+     */
+    private final String [] attributes;
+
+    /**
+     * The time of the mutation, in milliseconds of the primary server clock.
+     */
+    private final long timestamp;
+
+    /**
+     * The constructor.
+     *
+     * @param sequence The position of the mutation in the mutation stream.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param attributes An array of String objects denoting the attributes
+     *        of the record after the mutation, null if it was deleted.
+     *
+     * @param timestamp The time of the mutation in milliseconds.
+     */
+    ReplicationEntry( long sequence, int recNo, String [] attributes,
+		      long timestamp ) {
+
+	this.sequence = sequence;
+	this.recordNumber = recNo;
+	this.attributes = attributes;
+	this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the position of the mutation in the mutation stream of the
+     * primary server.
+     *
+     * @return The sequence number of the mutation.
+     */
+    public long getSequence() {
+	return sequence;
+    }
+
+    /**
+     * Returns the number of the record.
+     *
+     * @return The record number.
+     */
+    public int getRecordNumber() {
+	return recordNumber;
+    }
+
+    /**
+     * Returns the attributes of the record after the mutation.
+     *
+     * @return An array of String objects, null if the record was deleted.
+     */
+    public String [] getAttributes() {
+	return attributes;
+    }
+
+    /**
+     * Returns the time of the mutation.
+     *
+     * @return The time in milliseconds of the primary server clock.
+     */
+    public long getTimestamp() {
+	return timestamp;
+    }
+}
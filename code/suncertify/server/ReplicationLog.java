@@ -0,0 +1,136 @@
+/*
+ * ReplicationLog.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+/**
+ * The ReplicationLog class holds the most recent mutations of the primary
+ * database, numbered in the order in which they are published, for the
+ * replica servers to follow. The mutations are kept in a ring of fixed
+ * capacity, a replica falling further behind is asked to take a new
+ * snapshot.
+ *
+ * <p> A mutation is published while its record is locked, so the mutations
+ * of a record are in the order in which they were made. Each entry carries
+ * the whole state of the record, so replaying the stream from any sequence
+ * preceding the reading of a record gives its current state.
+ *
+ * @see BrokerRMIServer#getReplicationChanges(long,long,int)
+ * @see ReplicationEntry
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class ReplicationLog {
+
+    /**
+     * The identifier of the stream, different for each log.
+     */
+    private final long streamId = System.currentTimeMillis();
+
+    /**
+     * The ring of the most recent mutations, the mutation with sequence s
+     * being at index s modulo the capacity. Guarded by this object.
+     */
+    private final ReplicationEntry [] ring;
+
+    /**
+     * The sequence of the last mutation published, 0 if there is none.
+     * Guarded by this object.
+     */
+    private long headSequence = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity The number of mutations kept.
+     */
+    ReplicationLog( int capacity ) {
+
+	ring = new ReplicationEntry[ Math.max( 1, capacity ) ];
+    }
+
+    /**
+     * This method returns the identifier of the mutation stream.
+     *
+     * @return The stream identifier.
+     */
+    long getStreamId() {
+
+	return streamId;
+    }
+
+    /**
+     * This method publishes a mutation.
+     *
+     * @param recNo The number of the record.
+     *
+     * @param attributes An array of String objects denoting the attributes of
+     *        the record after the mutation, null if it was deleted.
+     *
+     * @return The sequence of the mutation.
+     */
+    synchronized long append( int recNo, String [] attributes ) {
+
+	++headSequence;
+
+	ring[ (int)( headSequence % ring.length ) ] =
+	    new ReplicationEntry( headSequence, recNo, attributes,
+				  System.currentTimeMillis() );
+
+	return headSequence;
+    }
+
+    /**
+     * This method returns the sequence of the last mutation published.
+     *
+     * @return The sequence, 0 if no mutation was published.
+     */
+    synchronized long getHeadSequence() {
+
+	return headSequence;
+    }
+
+    /**
+     * This method returns the mutations following the specified sequence.
+     *
+     * @param streamId The identifier of the stream the replica follows.
+     *
+     * @param sequence The sequence of the last mutation applied by the
+     *        replica.
+     *
+     * @param maxEntries The maximum number of mutations returned.
+     *
+     * @return A reference to a ReplicationBatch object holding at most
+     *         maxEntries mutations in stream order, or a resynchronization
+     *         request if the replica follows another stream or if the
+     *         mutations are no longer held.
+     */
+    synchronized ReplicationBatch changesSince( long streamId, long sequence,
+						int maxEntries ) {
+
+	long oldest = Math.max( 1, headSequence - ring.length + 1 );
+
+	if ( ( streamId != this.streamId ) || ( sequence > headSequence )
+	     || ( sequence + 1 < oldest ) ) {
+
+	    return ReplicationBatch.resync( this.streamId, headSequence );
+	}
+
+	int count = (int)Math.min( Math.max( 1, maxEntries ),
+				   headSequence - sequence );
+
+	ReplicationEntry [] entries = new ReplicationEntry[ count ];
+
+	for ( int i = 0; i < count; ++i ) {
+	    entries[i] = ring[ (int)( ( sequence + 1 + i ) % ring.length ) ];
+	}
+
+	return ReplicationBatch.changes( this.streamId, headSequence, entries );
+    }
+}
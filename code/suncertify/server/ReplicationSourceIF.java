@@ -0,0 +1,63 @@
+/*
+ * ReplicationSourceIF.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The ReplicationSourceIF interface is implemented by the primary server to
+ * let the read-only replica servers copy its database and follow its
+ * mutations.
+ *
+ * <p> A replica first takes a snapshot, then it repeatedly requests the
+ * mutations following the last one it applied, from the sequence of the
+ * snapshot on.
+ *
+ * @see BrokerRMIServer
+ * @see BrokerReplicaServer
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public interface ReplicationSourceIF extends Remote {
+
+    /**
+     * Returns a snapshot of the database, every valid record and the schema
+     * of the database.
+     *
+     * @return A reference to a ReplicationBatch object.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     */
+    ReplicationBatch getReplicationSnapshot() throws RemoteException;
+
+    /**
+     * Returns the mutations following the specified sequence, in stream
+     * order.
+     *
+     * @param streamId The identifier of the stream followed by the replica,
+     *        as returned with its snapshot.
+     *
+     * @param sequence The sequence of the last mutation applied by the
+     *        replica.
+     *
+     * @param maxEntries The maximum number of mutations returned.
+     *
+     * @return A reference to a ReplicationBatch object, possibly with no
+     *         entries, or a resynchronization request.
+     *
+     * @throws RemoteException If there was an issue communicating with the
+     *         primary server.
+     */
+    ReplicationBatch getReplicationChanges( long streamId, long sequence,
+					    int maxEntries )
+					    throws RemoteException;
+}
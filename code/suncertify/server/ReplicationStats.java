@@ -0,0 +1,128 @@
+/*
+ * ReplicationStats.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ReplicationStats class collects the statistics of a read-only replica
+ * server and exposes them as an MXBean.
+ *
+ * @see ReplicationStatsMXBean
+ * @see BrokerReplicaServer
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class ReplicationStats implements ReplicationStatsMXBean {
+
+    /**
+     * The sequence of the last mutation applied.
+     */
+    final AtomicLong appliedSequence = new AtomicLong();
+
+    /**
+     * The sequence of the last mutation published by the primary server.
+     */
+    final AtomicLong primarySequence = new AtomicLong();
+
+    /**
+     * The lag in milliseconds at the last contact.
+     */
+    final AtomicLong lagMillis = new AtomicLong();
+
+    /**
+     * The time of the last successful contact, in milliseconds.
+     */
+    final AtomicLong lastContact = new AtomicLong( System.currentTimeMillis() );
+
+    /**
+     * The number of mutations applied.
+     */
+    final AtomicLong appliedEntries = new AtomicLong();
+
+    /**
+     * The number of snapshots taken.
+     */
+    final AtomicLong snapshots = new AtomicLong();
+
+    /**
+     * The number of failed requests to the primary server.
+     */
+    final AtomicLong failures = new AtomicLong();
+
+    /**
+     * The number of records held.
+     */
+    final AtomicInteger recordCount = new AtomicInteger();
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getAppliedSequence() {
+	return appliedSequence.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getPrimarySequence() {
+	return primarySequence.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLagEntries() {
+	return Math.max( 0, primarySequence.get() - appliedSequence.get() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLagMillis() {
+	return lagMillis.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMillisSinceContact() {
+	return System.currentTimeMillis() - lastContact.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getAppliedEntries() {
+	return appliedEntries.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getSnapshots() {
+	return snapshots.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getFailures() {
+	return failures.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getRecordCount() {
+	return recordCount.get();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * ReplicationStatsMXBean.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+/**
+ * The ReplicationStatsMXBean interface defines the management attributes of
+ * a read-only replica server, most importantly how far it lags behind the
+ * primary server. It is registered under the name
+ * {@value suncertify.common.ManagementAgent#REPLICATION_MBEAN_NAME}.
+ *
+ * @see BrokerReplicaServer
+ * @see suncertify.common.ManagementAgent
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public interface ReplicationStatsMXBean {
+
+    /**
+     * Returns the sequence of the last mutation applied by the replica.
+     *
+     * @return The sequence number.
+     */
+    long getAppliedSequence();
+
+    /**
+     * Returns the sequence of the last mutation published by the primary
+     * server, as of the last contact with it.
+     *
+     * @return The sequence number.
+     */
+    long getPrimarySequence();
+
+    /**
+     * Returns the number of mutations published by the primary server and
+     * not yet applied by the replica, as of the last contact with it.
+     *
+     * @return The number of mutations.
+     */
+    long getLagEntries();
+
+    /**
+     * Returns how far the state of the replica was behind the primary server
+     * at the last contact with it: the time between the last mutation
+     * applied and the contact if mutations remained to be applied, 0 if the
+     * replica was up to date.
+     *
+     * @return The lag in milliseconds.
+     */
+    long getLagMillis();
+
+    /**
+     * Returns the time since the last successful contact with the primary
+     * server. While the primary server cannot be reached, the replica serves
+     * the state it last received.
+     *
+     * @return The time in milliseconds.
+     */
+    long getMillisSinceContact();
+
+    /**
+     * Returns the number of mutations applied.
+     *
+     * @return The number of mutations.
+     */
+    long getAppliedEntries();
+
+    /**
+     * Returns the number of snapshots taken from the primary server.
+     *
+     * @return The number of snapshots.
+     */
+    long getSnapshots();
+
+    /**
+     * Returns the number of failed requests to the primary server.
+     *
+     * @return The number of failures.
+     */
+    long getFailures();
+
+    /**
+     * Returns the number of records held by the replica.
+     *
+     * @return The number of valid records.
+     */
+    int getRecordCount();
+}
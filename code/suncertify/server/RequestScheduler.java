@@ -0,0 +1,444 @@
+/*
+ * RequestScheduler.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The RequestScheduler class controls the admission of the requests to the
+ * server. The RMI runtime runs each call in its own thread, without limit, so
+ * a burst of searches could otherwise starve the short calls that book and
+ * release records.
+ *
+ * <p> The requests are divided in classes, each with its own bound on the
+ * number of requests running, all of them sharing a bound on the total.
+ * The requests that cannot run yet wait in a priority queue, where the
+ * mutations come before the reads of single records, which come before the
+ * searches. A request is rejected with a ServerBusyException, which suggests
+ * when to retry, if the queue is full or if it waited too long.
+ *
+ * <p> A scheduler admits every request at once until it is configured, which
+ * is the case of the local server whose only client is in the same virtual
+ * machine.
+ *
+ * @see BrokerServer#configureScheduler()
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+final class RequestScheduler {
+
+    /**
+     * The classes of requests, in the order of their priority.
+     */
+    enum RequestClass {
+
+	/**
+	 * The requests that modify records.
+	 */
+	MUTATION,
+
+	/**
+	 * The requests that read a single record.
+	 */
+	READ,
+
+	/**
+	 * The requests that search or scan the whole database.
+	 */
+	SCAN
+    }
+
+    /**
+     * The Ticket class is a request waiting in the queue.
+     */
+    private static final class Ticket {
+
+	/**
+	 * The condition the request waits on until it is admitted.
+	 */
+	final Condition admitted;
+
+	/**
+	 * A boolean value indicating whether the request was admitted.
+	 */
+	boolean granted;
+
+	/**
+	 * The constructor.
+	 *
+	 * @param admitted The condition the request waits on.
+	 */
+	Ticket( Condition admitted ) {
+	    this.admitted = admitted;
+	}
+    }
+
+    /**
+     * The number of classes of requests.
+     */
+    private static final int CLASS_COUNT = RequestClass.values().length;
+
+    /**
+     * The smallest delay in milliseconds suggested to a rejected request.
+     */
+    private static final long MIN_RETRY_AFTER = 50;
+
+    /**
+     * The lock guarding the queues and the counts of running requests.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The queue of waiting requests of each class, in the order of arrival.
+     */
+    private final List<Deque<Ticket>> queues =
+	new ArrayList<Deque<Ticket>>( CLASS_COUNT );
+
+    /**
+     * The number of running requests of each class.
+     */
+    private final int[] running = new int[ CLASS_COUNT ];
+
+    /**
+     * The total number of running requests.
+     */
+    private int totalRunning;
+
+    /**
+     * The total number of waiting requests.
+     */
+    private int totalQueued;
+
+    /**
+     * The bound on the number of running requests of each class.
+     */
+    private final int[] classLimits = new int[ CLASS_COUNT ];
+
+    /**
+     * The bound on the total number of running requests, zero if the
+     * requests are admitted without limit.
+     */
+    private volatile int maxConcurrent = 0;
+
+    /**
+     * The bound on the number of waiting requests.
+     */
+    private int maxQueued;
+
+    /**
+     * The time in nanoseconds a request waits before it is rejected.
+     */
+    private long maxWaitNanos;
+
+    /**
+     * The average time in nanoseconds requests of each class run.
+     */
+    private final long[] averageNanos = new long[ CLASS_COUNT ];
+
+    /**
+     * The number of requests of each class rejected.
+     */
+    private final AtomicLong[] rejected = new AtomicLong[ CLASS_COUNT ];
+
+    /**
+     * The constructor.
+     */
+    RequestScheduler() {
+
+	for ( int i = 0; i < CLASS_COUNT; ++i ) {
+	    queues.add( new ArrayDeque<Ticket>() );
+	    rejected[i] = new AtomicLong();
+	}
+    }
+
+    /**
+     * This method sets the bounds of the scheduler. The bound of a class is
+     * reduced to the total bound if it is larger. The waiting requests that
+     * the new bounds allow to run are admitted, all of them if the requests
+     * are now admitted without limit.
+     *
+     * @param maxConcurrent The bound on the total number of running requests,
+     *        zero to admit the requests without limit.
+     *
+     * @param mutations The bound on the number of running mutations.
+     *
+     * @param reads The bound on the number of running reads.
+     *
+     * @param scans The bound on the number of running searches.
+     *
+     * @param maxQueued The bound on the number of waiting requests.
+     *
+     * @param maxWait The time in milliseconds a request waits before it is
+     *        rejected.
+     */
+    void configure( int maxConcurrent, int mutations, int reads, int scans,
+		    int maxQueued, long maxWait ) {
+
+	lock.lock();
+
+	try {
+	    int total = Math.max( 0, maxConcurrent );
+
+	    classLimits[ RequestClass.MUTATION.ordinal() ] =
+		Math.max( 1, Math.min( total, mutations ) );
+	    classLimits[ RequestClass.READ.ordinal() ] =
+		Math.max( 1, Math.min( total, reads ) );
+	    classLimits[ RequestClass.SCAN.ordinal() ] =
+		Math.max( 1, Math.min( total, scans ) );
+	    this.maxQueued = Math.max( 0, maxQueued );
+	    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+						Math.max( 0, maxWait ) );
+	    this.maxConcurrent = total;
+
+	    dispatch();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * This method admits a request, waiting until a request of its class may
+     * run. Each request admitted must be released, with the value returned,
+     * even if the bounds changed in the meantime.
+     *
+     * @param requestClass The class of the request.
+     *
+     * @return A boolean value true if the request is counted among the
+     *         running requests, false if it was admitted without limit.
+     *
+     * @throws ServerBusyException If the queue is full, or if the request
+     *         waited too long.
+     *
+     * @see #release(RequestClass, long, boolean)
+     */
+    boolean admit( RequestClass requestClass ) throws ServerBusyException {
+
+	if ( maxConcurrent == 0 ) {
+	    return false;
+	}
+
+	int index = requestClass.ordinal();
+
+	lock.lock();
+
+	try {
+	    /* The waiting requests of the classes ahead of this one, if any,
+	       are held back by the bounds of their own class */
+	    if ( canRun( index ) && queues.get( index ).isEmpty() ) {
+		++running[ index ];
+		++totalRunning;
+		return true;
+	    }
+
+	    if ( totalQueued >= maxQueued ) {
+		throw reject( requestClass, "the queue is full" );
+	    }
+
+	    Ticket ticket = new Ticket( lock.newCondition() );
+	    queues.get( index ).addLast( ticket );
+	    ++totalQueued;
+
+	    long remaining = maxWaitNanos;
+	    boolean interrupted = false;
+
+	    while ( ! ticket.granted && ( remaining > 0 ) ) {
+		try {
+		    remaining = ticket.admitted.awaitNanos( remaining );
+		} catch( InterruptedException ex ) {
+		    interrupted = true;
+		    break;
+		}
+	    }
+
+	    if ( ! ticket.granted ) {
+		queues.get( index ).remove( ticket );
+		--totalQueued;
+
+		if ( interrupted ) {
+		    Thread.currentThread().interrupt();
+		}
+
+		throw reject( requestClass, "it waited too long" );
+	    }
+
+	    return true;
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * This method releases a request, admitting the waiting requests that
+     * may now run.
+     *
+     * @param requestClass The class of the request.
+     *
+     * @param startNanos The time in nanoseconds at which the request started
+     *        to run.
+     *
+     * @param counted The value returned by admit() for the request.
+     */
+    void release( RequestClass requestClass, long startNanos,
+		  boolean counted ) {
+
+	if ( ! counted ) {
+	    return;
+	}
+
+	int index = requestClass.ordinal();
+	long elapsed = System.nanoTime() - startNanos;
+
+	lock.lock();
+
+	try {
+	    --running[ index ];
+	    --totalRunning;
+	    averageNanos[ index ] += ( elapsed - averageNanos[ index ] ) / 8;
+
+	    dispatch();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * This method indicates whether a request of a class may run now. It is
+     * called with the lock held.
+     *
+     * @param index The index of the class of the request.
+     *
+     * @return A boolean value true if the request may run.
+     */
+    private boolean canRun( int index ) {
+
+	if ( maxConcurrent == 0 ) {
+	    return true;
+	}
+
+	return ( totalRunning < maxConcurrent )
+	    && ( running[ index ] < classLimits[ index ] );
+    }
+
+    /**
+     * This method admits the waiting requests that may run, the classes in
+     * the order of their priority. A class that reached its bound does not
+     * hold back the classes after it. It is called with the lock held.
+     */
+    private void dispatch() {
+
+	for ( int i = 0; ( i < CLASS_COUNT ) && ( totalQueued > 0 ); ++i ) {
+
+	    while ( ! queues.get( i ).isEmpty() && canRun( i ) ) {
+
+		Ticket ticket = queues.get( i ).removeFirst();
+		--totalQueued;
+		++running[i];
+		++totalRunning;
+
+		ticket.granted = true;
+		ticket.admitted.signal();
+	    }
+	}
+    }
+
+    /**
+     * This method creates the exception rejecting a request. The suggested
+     * delay is the time the requests ahead of it would take to run, at the
+     * average time of a request of its class. It is called with the lock
+     * held.
+     *
+     * @param requestClass The class of the request.
+     *
+     * @param reason A String object denoting the reason of the rejection.
+     *
+     * @return A reference to a ServerBusyException object.
+     */
+    private ServerBusyException reject( RequestClass requestClass,
+					String reason ) {
+
+	int index = requestClass.ordinal();
+	int ahead = running[ index ];
+
+	for ( int i = 0; i <= index; ++i ) {
+	    ahead += queues.get( i ).size();
+	}
+
+	long retryAfter = Math.max( MIN_RETRY_AFTER,
+				    TimeUnit.NANOSECONDS.toMillis(
+					averageNanos[ index ] * ahead
+					/ classLimits[ index ] ) );
+
+	rejected[ index ].incrementAndGet();
+
+	return new ServerBusyException( "The server is busy, the "
+					+ requestClass.name().toLowerCase()
+					+ " request was rejected because "
+					+ reason + ". Retry in " + retryAfter
+					+ " ms.", retryAfter );
+    }
+
+    /**
+     * This method returns the number of requests of a class waiting.
+     *
+     * @param requestClass The class of the requests.
+     *
+     * @return The number of waiting requests.
+     */
+    int getQueueDepth( RequestClass requestClass ) {
+
+	lock.lock();
+
+	try {
+	    return queues.get( requestClass.ordinal() ).size();
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * This method returns the number of requests of a class running.
+     *
+     * @param requestClass The class of the requests.
+     *
+     * @return The number of running requests.
+     */
+    int getRunning( RequestClass requestClass ) {
+
+	lock.lock();
+
+	try {
+	    return running[ requestClass.ordinal() ];
+	} finally {
+	    lock.unlock();
+	}
+    }
+
+    /**
+     * This method returns the number of requests of a class rejected.
+     *
+     * @param requestClass The class of the requests.
+     *
+     * @return The number of rejected requests.
+     */
+    long getRejected( RequestClass requestClass ) {
+
+	return rejected[ requestClass.ordinal() ].get();
+    }
+}
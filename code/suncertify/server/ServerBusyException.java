@@ -0,0 +1,84 @@
+/*
+ * ServerBusyException.java
+ * Version 1.1
+ * Date: 07/28/2015
+ * Copyright @Augustine Ogundimu, 2015
+ */
+
+package suncertify.server;
+
+import java.rmi.RemoteException;
+
+/**
+ * The ServerBusyException is the exception thrown by the server when it
+ * rejects a request because too many requests are already running or
+ * waiting. The request was not executed, and may be sent again after the
+ * delay suggested by the server.
+ *
+ * <p> The exception is a RemoteException so that every operation of the
+ * server may report it. The RMI runtime delivers it to a remote client
+ * wrapped in a ServerException, use retryAfter(Throwable) to find it.
+ *
+ * @see RequestScheduler
+ *
+ * @author Augustine Ogundimu
+ * @version 1.1
+ * @since 1.1
+ */
+public class ServerBusyException extends RemoteException {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 20150728150001L;
+
+    /**
+     * The delay in milliseconds after which the request may be sent again.
+     */
+    private final long retryAfter;
+
+    /**
+     * The reason constructor.
+     *
+     * @param message - The reason for the exception.
+     *
+     * @param retryAfter - The delay in milliseconds after which the request
+     *        may be sent again.
+     */
+    public ServerBusyException( String message, long retryAfter ) {
+	super( message );
+	this.retryAfter = retryAfter;
+    }
+
+    /**
+     * This method returns the delay suggested by the server before the
+     * request is sent again.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long getRetryAfter() {
+
+	return retryAfter;
+    }
+
+    /**
+     * This method returns the delay suggested by the server if an exception
+     * reports that the server was busy, looking through the exceptions
+     * wrapping it.
+     *
+     * @param ex A reference to the Throwable object caught by the client.
+     *
+     * @return The delay in milliseconds, -1 if the exception does not report
+     *         a busy server.
+     */
+    public static long retryAfter( Throwable ex ) {
+
+	for ( Throwable t = ex; t != null; t = t.getCause() ) {
+	    if ( t instanceof ServerBusyException ) {
+		return ( (ServerBusyException)t ).retryAfter;
+	    }
+	}
+
+	return -1;
+    }
+}
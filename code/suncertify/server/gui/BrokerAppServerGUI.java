@@ -18,6 +18,7 @@ import javax.swing.BorderFactory;
 import javax.swing.JOptionPane;
 import javax.swing.border.EtchedBorder;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
@@ -37,11 +38,15 @@ import suncertify.common.AppConfigManager;
 import suncertify.common.AppConfigParam;
 import suncertify.common.AppRunMode;
 import suncertify.common.AppConfigException;
+import suncertify.common.ManagementAgent;
 
 import suncertify.common.gui.AppConfigOptionsPanel;
 
 import suncertify.server.BrokerServer;
 import suncertify.server.BrokerServerException;
+import suncertify.server.BrokerServerStatsMXBean;
+
+import suncertify.db.DataStatsMXBean;
 
 /**
  * The BrokerAppServerGUI class implements the GUI interface for the remote
@@ -151,6 +156,26 @@ public class BrokerAppServerGUI {
      */
     private JLabel statusLabel;
 
+    /**
+     * The server APP GUI metrics label. It displays a summary of the server
+     * statistics while the server is running.
+     *
+     * @see #metricsTimer
+     */
+    private JLabel metricsLabel;
+
+    /**
+     * The interval in milliseconds at which the metrics label is refreshed.
+     */
+    private static final int METRICS_REFRESH_INTERVAL = 1000;
+
+    /**
+     * The timer refreshing the metrics label while the server is running.
+     *
+     * @see MetricsRefresher
+     */
+    private Timer metricsTimer;
+
     /**
      * The text displayed when APP server GUI is up and the server is not in the
      * running state.
@@ -275,6 +300,8 @@ public class BrokerAppServerGUI {
 			serverStarted = true;
 
 			statusLabel.setText( SERVER_RUNNING_STATUS );
+
+			metricsTimer.start();
 		    }
 		
 		} else if ( event.getSource() == stopServerButton ) {
@@ -285,6 +312,9 @@ public class BrokerAppServerGUI {
 						      JOptionPane.YES_NO_OPTION)
 			== JOptionPane.YES_OPTION ) { 
 			appServer.stopServer();
+
+			metricsTimer.stop();
+			metricsLabel.setText( " " );
 			
 			optionsPanel.enableComponents();
 		    
@@ -326,6 +356,70 @@ public class BrokerAppServerGUI {
     }
 
     
+    /**
+     * The MetricsRefresher class reads the server and database MXBeans and
+     * displays a summary in the metrics label. The call rate is computed from
+     * the number of calls since the previous refresh.
+     *
+     * @see suncertify.server.BrokerServerStatsMXBean
+     * @see suncertify.db.DataStatsMXBean
+     */
+    private class MetricsRefresher implements ActionListener {
+
+	/**
+	 * The number of server calls at the previous refresh.
+	 */
+	private long lastCallCount = -1;
+
+	/**
+	 * The time in nanoseconds of the previous refresh.
+	 */
+	private long lastRefresh;
+
+	/**
+	 * This method refreshes the metrics label.
+	 *
+	 * @param event A reference to a ActionEvent object providing data about
+	 *        the event.
+	 */
+	public void actionPerformed( ActionEvent event ) {
+
+	    BrokerServerStatsMXBean server =
+		ManagementAgent.getProxy( ManagementAgent.SERVER_MBEAN_NAME,
+					  BrokerServerStatsMXBean.class );
+	    DataStatsMXBean data =
+		ManagementAgent.getProxy( ManagementAgent.DATA_MBEAN_NAME,
+					  DataStatsMXBean.class );
+
+	    if ( ( server == null ) || ( data == null ) ) {
+		metricsLabel.setText( " " );
+		return;
+	    }
+
+	    long now = System.nanoTime();
+	    long calls = server.getCallCount();
+	    double rate = 0;
+
+	    if ( lastCallCount >= 0 ) {
+		rate = ( calls - lastCallCount ) * 1e9 / ( now - lastRefresh );
+	    }
+
+	    lastCallCount = calls;
+	    lastRefresh = now;
+
+	    metricsLabel.setText( String.format(
+		 "Records: %d cached, %d hits, %d recaches | "
+		 + "Locks: %d held, %d waiting | find p99: %d us | "
+		 + "%.0f calls/s | Listeners: %d, backlog %d",
+		 data.getCachedRecords(), data.getCacheHits(),
+		 data.getRecaches(), data.getLockedRecords(),
+		 data.getRecordLockWaiters(),
+		 data.getFindLatency().getP99Micros(), rate,
+		 server.getListenerCount(),
+		 server.getNotificationBacklog() ) );
+	}
+    }
+
     /** 
      * The BrokerAppServerGUI constructs the components constituting the 
      * application server main GUI and makes the GUI visible at the end.
@@ -448,7 +542,9 @@ public class BrokerAppServerGUI {
     /**
      * This method adds the status panel to the application server GUI. The
      * panel displays the status of the server and instructions on what actions
-     * could be taken based on the current status of the server.
+     * could be taken based on the current status of the server. Below these
+     * it displays a summary of the server statistics while the server is
+     * running.
      */
     private void addStatusPanel() {
 	JPanel panel = new JPanel(new BorderLayout());
@@ -460,6 +556,12 @@ public class BrokerAppServerGUI {
 	statusLabel.setBackground( Color.ORANGE );
 	statusLabel.setText(  START_SERVER_INSTR  );
 	panel.add( statusLabel, BorderLayout.CENTER );
+	metricsLabel = new JLabel( " " );
+	metricsLabel.setHorizontalAlignment( SwingConstants.CENTER );
+	metricsLabel.setFont( new Font(Font.DIALOG, Font.PLAIN, 11) );
+	panel.add( metricsLabel, BorderLayout.SOUTH );
+	metricsTimer = new Timer( METRICS_REFRESH_INTERVAL,
+				  new MetricsRefresher() );
 	mainFrame.add( panel, BorderLayout.CENTER );
     }
 }